@@ -0,0 +1,6 @@
+-- Indexes for every column searchable through GET /mobile/subscribers (same definitions as @Table on MobileSubscriber).
+-- MSISDN is already covered by its unique constraint, owner/user composites also cover the foreign keys.
+CREATE INDEX IF NOT EXISTS IDX_MOBILE_SUBSCRIBER_OWNER_SERVICE_TYPE ON MOBILE_SUBSCRIBER (CUSTOMER_ID_OWNER, SERVICE_TYPE);
+CREATE INDEX IF NOT EXISTS IDX_MOBILE_SUBSCRIBER_USER_SERVICE_TYPE ON MOBILE_SUBSCRIBER (CUSTOMER_ID_USER, SERVICE_TYPE);
+CREATE INDEX IF NOT EXISTS IDX_MOBILE_SUBSCRIBER_SERVICE_TYPE ON MOBILE_SUBSCRIBER (SERVICE_TYPE);
+CREATE INDEX IF NOT EXISTS IDX_MOBILE_SUBSCRIBER_SERVICE_START_DATE ON MOBILE_SUBSCRIBER (SERVICE_START_DATE);
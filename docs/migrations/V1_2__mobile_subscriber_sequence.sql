@@ -0,0 +1,4 @@
+-- Subscriber ids are generated by pooled sequence (allocation size 50 as on MobileSubscriber) instead of identity column,
+-- so Hibernate can send inserts in JDBC batches.
+-- START WITH value has to be greater than current MAX(ID) of MOBILE_SUBSCRIBER table.
+CREATE SEQUENCE IF NOT EXISTS MOBILE_SUBSCRIBER_SEQ START WITH 1000 INCREMENT BY 50;
@@ -0,0 +1,3 @@
+-- Version column used for optimistic locking of subscribers (exposed as ETag, verified against If-Match header).
+-- Existing rows start at version 0, default keeps plain SQL inserts (e.g. dataset generator) working without the column.
+ALTER TABLE MOBILE_SUBSCRIBER ADD COLUMN IF NOT EXISTS VERSION BIGINT DEFAULT 0 NOT NULL;
@@ -0,0 +1,3 @@
+-- Msisdn uniqueness is verified only by the unique constraint (no lookup before insert), so the constraint has to be named
+-- as on MobileSubscriber for its violation to be recognized. Previously generated constraint (UK_<hash>) can be dropped afterwards.
+ALTER TABLE MOBILE_SUBSCRIBER ADD CONSTRAINT IF NOT EXISTS UK_MOBILE_SUBSCRIBER_MSISDN UNIQUE (MSISDN);
@@ -0,0 +1,5 @@
+-- Reverting V1_5__mobile_subscriber_numeric_msisdn.sql, MSISDN column is converted back to VARCHAR for the default mapping.
+-- Application needs to be stopped during the rollback
+ALTER TABLE MOBILE_SUBSCRIBER DROP CONSTRAINT UK_MOBILE_SUBSCRIBER_MSISDN;
+ALTER TABLE MOBILE_SUBSCRIBER ALTER COLUMN MSISDN VARCHAR(255) NOT NULL;
+ALTER TABLE MOBILE_SUBSCRIBER ADD CONSTRAINT UK_MOBILE_SUBSCRIBER_MSISDN UNIQUE (MSISDN);
@@ -0,0 +1,9 @@
+-- Applied only when switching an existing database to "numeric-msisdn" profile, MSISDN column is converted from VARCHAR to BIGINT in place.
+-- Every msisdn needs to be a number in E.164 format (leading zero would be lost), otherwise the first statement fails
+-- and nothing is changed. Unique index is dropped before the conversion and created again with numeric keys.
+-- Application needs to be stopped during the migration. Reverted with U1_5__mobile_subscriber_numeric_msisdn.sql
+ALTER TABLE MOBILE_SUBSCRIBER ADD CONSTRAINT CHK_MOBILE_SUBSCRIBER_MSISDN_E164 CHECK (MSISDN REGEXP '^[1-9][0-9]{1,14}$');
+ALTER TABLE MOBILE_SUBSCRIBER DROP CONSTRAINT CHK_MOBILE_SUBSCRIBER_MSISDN_E164;
+ALTER TABLE MOBILE_SUBSCRIBER DROP CONSTRAINT UK_MOBILE_SUBSCRIBER_MSISDN;
+ALTER TABLE MOBILE_SUBSCRIBER ALTER COLUMN MSISDN BIGINT NOT NULL;
+ALTER TABLE MOBILE_SUBSCRIBER ADD CONSTRAINT UK_MOBILE_SUBSCRIBER_MSISDN UNIQUE (MSISDN);
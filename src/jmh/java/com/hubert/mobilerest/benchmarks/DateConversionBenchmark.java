@@ -0,0 +1,59 @@
+package com.hubert.mobilerest.benchmarks;
+
+import com.hubert.mobilerest.domain.converters.LocalDateTimeEpochConverter;
+import com.hubert.mobilerest.utils.DateUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Epoch and LocalDateTime conversions used by the mapper (DateUtils) and by the entity (LocalDateTimeEpochConverter)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DateConversionBenchmark {
+    private LocalDateTimeEpochConverter converter;
+    private LocalDateTime localDateTime;
+    private Long epochMillis;
+
+    @Setup
+    public void setUp() {
+        converter = new LocalDateTimeEpochConverter();
+        localDateTime = LocalDateTime.of(2019, 4, 1, 12, 30);
+        epochMillis = DateUtils.epochFromLocalDateTime(localDateTime);
+    }
+
+    @Benchmark
+    public LocalDateTime localDateTimeFromEpoch() {
+        return DateUtils.localDateTimeFromEpoch(epochMillis);
+    }
+
+    @Benchmark
+    public Long epochFromLocalDateTime() {
+        return DateUtils.epochFromLocalDateTime(localDateTime);
+    }
+
+    @Benchmark
+    public Long convertToDatabaseColumn() {
+        return converter.convertToDatabaseColumn(localDateTime);
+    }
+
+    @Benchmark
+    public LocalDateTime convertToEntityAttribute() {
+        return converter.convertToEntityAttribute(epochMillis);
+    }
+}
@@ -0,0 +1,74 @@
+package com.hubert.mobilerest.benchmarks;
+
+import com.hubert.mobilerest.domain.MobileSubscriber;
+import com.hubert.mobilerest.domain.Person;
+import com.hubert.mobilerest.domain.ServiceType;
+import com.hubert.mobilerest.exceptions.ValidationFailedException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Domain helpers called on every request: service type parsing (with valid and invalid input)
+ * and empty criteria detection
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DomainBenchmark {
+    private String validServiceType;
+    private String invalidServiceType;
+    private MobileSubscriber emptyCriteria;
+    private MobileSubscriber ownerCriteria;
+    private MobileSubscriber msisdnCriteria;
+
+    @Setup
+    public void setUp() {
+        validServiceType = "MOBILE_POSTPAID";
+        invalidServiceType = "MOBILE_UNKNOWN";
+        emptyCriteria = new MobileSubscriber();
+        ownerCriteria = MobileSubscriber.builder().owner(Person.builder().id(1L).build()).build();
+        msisdnCriteria = MobileSubscriber.builder().msisdn("48601234567").build();
+    }
+
+    @Benchmark
+    public ServiceType serviceTypeFromValidString() {
+        return ServiceType.fromString(validServiceType);
+    }
+
+    @Benchmark
+    public Object serviceTypeFromInvalidString() {
+        try {
+            return ServiceType.fromString(invalidServiceType);
+        } catch (ValidationFailedException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public boolean isEmptyForEmptyCriteria() {
+        return emptyCriteria.isEmpty();
+    }
+
+    @Benchmark
+    public boolean isEmptyForOwnerCriteria() {
+        return ownerCriteria.isEmpty();
+    }
+
+    @Benchmark
+    public boolean isEmptyForMsisdnCriteria() {
+        return msisdnCriteria.isEmpty();
+    }
+}
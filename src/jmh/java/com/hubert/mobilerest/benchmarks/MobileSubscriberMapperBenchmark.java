@@ -0,0 +1,60 @@
+package com.hubert.mobilerest.benchmarks;
+
+import com.hubert.mobilerest.domain.MobileSubscriber;
+import com.hubert.mobilerest.domain.Person;
+import com.hubert.mobilerest.domain.ServiceType;
+import com.hubert.mobilerest.dto.v1.MobileSubscriberDto;
+import com.hubert.mobilerest.mappers.v1.MobileSubscriberMapper;
+import org.mapstruct.factory.Mappers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mapping of a single subscriber, done for every subscriber returned or received by the controller
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MobileSubscriberMapperBenchmark {
+    private MobileSubscriberMapper mapper;
+    private MobileSubscriber subscriber;
+    private MobileSubscriberDto subscriberDto;
+
+    @Setup
+    public void setUp() {
+        mapper = Mappers.getMapper(MobileSubscriberMapper.class);
+        subscriber = MobileSubscriber.builder()
+                .id(1L)
+                .msisdn("48601234567")
+                .owner(Person.builder().id(1L).build())
+                .user(Person.builder().id(2L).build())
+                .serviceType(ServiceType.MOBILE_PREPAID)
+                .serviceStartDate(LocalDateTime.of(2019, 4, 1, 12, 30))
+                .build();
+        subscriberDto = mapper.domainToDto(subscriber);
+    }
+
+    @Benchmark
+    public MobileSubscriberDto domainToDto() {
+        return mapper.domainToDto(subscriber);
+    }
+
+    @Benchmark
+    public MobileSubscriber dtoToDomain() {
+        return mapper.dtoToDomain(subscriberDto);
+    }
+}
@@ -0,0 +1,61 @@
+package com.hubert.mobilerest.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.hubert.mobilerest.dto.v1.MobileSubscriberDto;
+import com.hubert.mobilerest.dto.v1.MobileSubscribersDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+/**
+ * Jackson serialization of the subscribers list returned by the search endpoint
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SubscribersSerializationBenchmark {
+
+    @Param({"1", "100", "10000"})
+    private int size;
+
+    private ObjectWriter writer;
+    private MobileSubscribersDto subscribers;
+
+    @Setup
+    public void setUp() {
+        writer = new ObjectMapper().writerFor(MobileSubscribersDto.class);
+        List<MobileSubscriberDto> list = LongStream.rangeClosed(1, size)
+                .mapToObj(id -> MobileSubscriberDto.builder()
+                        .msisdn(Long.toString(48600000000L + id))
+                        .ownerId(id % 100 + 1)
+                        .userId(id % 1000 + 1)
+                        .serviceType(id % 2 == 0 ? "MOBILE_PREPAID" : "MOBILE_POSTPAID")
+                        .serviceStartDate(1554076800000L + id)
+                        .build())
+                .collect(Collectors.toList());
+        subscribers = new MobileSubscribersDto(list);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws JsonProcessingException {
+        return writer.writeValueAsBytes(subscribers);
+    }
+}
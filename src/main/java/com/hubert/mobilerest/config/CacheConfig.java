@@ -0,0 +1,48 @@
+package com.hubert.mobilerest.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.support.SimpleCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * In-process caches configuration.
+ * Caches are transaction aware, so puts and evictions made inside a transaction are applied only after its commit.
+ * Statistics are recorded, so hit, miss and eviction counters are bound by actuator under cache.* metrics
+ */
+@EnableCaching
+@Configuration
+public class CacheConfig {
+    public static final String SUBSCRIBERS_CACHE = "subscribers";
+    public static final String CUSTOMERS_CACHE = "customers";
+
+    @Bean
+    public CacheManager cacheManager(@Value("${mobile.cache.subscribers.maximum-size:10000}") long subscribersMaximumSize,
+                                     @Value("${mobile.cache.subscribers.expire-after-write:10m}") Duration subscribersExpireAfterWrite,
+                                     @Value("${mobile.cache.customers.maximum-size:10000}") long customersMaximumSize,
+                                     @Value("${mobile.cache.customers.expire-after-write:1h}") Duration customersExpireAfterWrite) {
+        SimpleCacheManager cacheManager = new SimpleCacheManager();
+        cacheManager.setCaches(List.of(
+                createCache(SUBSCRIBERS_CACHE, subscribersMaximumSize, subscribersExpireAfterWrite),
+                createCache(CUSTOMERS_CACHE, customersMaximumSize, customersExpireAfterWrite)));
+        return cacheManager;
+    }
+
+    private Cache createCache(String name, long maximumSize, Duration expireAfterWrite) {
+        CaffeineCache cache = new CaffeineCache(name, Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build());
+        return new TransactionAwareCacheDecorator(cache);
+    }
+}
@@ -0,0 +1,34 @@
+package com.hubert.mobilerest.config;
+
+import com.hubert.mobilerest.metrics.ExceptionMetricsResolver;
+import com.hubert.mobilerest.metrics.QueriesPerRequestFilter;
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Application metrics, exported with the built-in ones (http requests, connection pool, hibernate, caches) under /actuator/prometheus
+ */
+@Configuration
+public class MetricsConfig {
+    public static final String SERVICE_TIMER = "mobile.service";
+
+    /**
+     * Aspect timing methods annotated with @Timed (tagged with class and method name)
+     */
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+
+    @Bean
+    public QueriesPerRequestFilter queriesPerRequestFilter(MeterRegistry meterRegistry) {
+        return new QueriesPerRequestFilter(meterRegistry);
+    }
+
+    @Bean
+    public ExceptionMetricsResolver exceptionMetricsResolver(MeterRegistry meterRegistry) {
+        return new ExceptionMetricsResolver(meterRegistry);
+    }
+}
@@ -0,0 +1,12 @@
+package com.hubert.mobilerest.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Periodic tasks (methods annotated with @Scheduled), e.g. reconciliation of the subscriber statistics
+ */
+@EnableScheduling
+@Configuration
+public class SchedulingConfig {
+}
@@ -1,18 +1,37 @@
 package com.hubert.mobilerest.controllers.v1;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hubert.mobilerest.domain.CustomerRole;
 import com.hubert.mobilerest.domain.MobileSubscriber;
+import com.hubert.mobilerest.domain.ServiceType;
 import com.hubert.mobilerest.dto.v1.MobileSubscriberDto;
 import com.hubert.mobilerest.dto.v1.MobileSubscribersDto;
+import com.hubert.mobilerest.dto.v1.MsisdnPrefixCountDto;
+import com.hubert.mobilerest.dto.v1.SubscriberBatchItemResultDto;
+import com.hubert.mobilerest.dto.v1.SubscriberIdDto;
+import com.hubert.mobilerest.dto.v1.SubscriberStatisticsDto;
+import com.hubert.mobilerest.dto.v1.SubscribersDeletionDto;
+import com.hubert.mobilerest.dto.v1.SubscribersBatchResultDto;
+import com.hubert.mobilerest.dto.v1.SubscribersTransferDto;
+import com.hubert.mobilerest.exceptions.ValidationFailedException;
 import com.hubert.mobilerest.mappers.v1.MobileSubscriberMapper;
 import com.hubert.mobilerest.services.MobileSubscriberService;
+import com.hubert.mobilerest.services.SubscriberCreationResult;
+import com.hubert.mobilerest.utils.CursorUtils;
+import com.hubert.mobilerest.utils.EntityTagUtils;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiResponse;
 import io.swagger.annotations.ApiResponses;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Slice;
 import org.springframework.hateoas.Resource;
 import org.springframework.hateoas.mvc.ControllerLinkBuilder;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
@@ -21,12 +40,21 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 
+import javax.servlet.http.HttpServletResponse;
+import javax.validation.ConstraintViolation;
 import javax.validation.Valid;
+import javax.validation.Validator;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Api(description = "Controller providing operations on mobile number subscribers")
@@ -34,31 +62,63 @@ import java.util.stream.Collectors;
 @RestController
 @RequestMapping(value = "/mobile/subscribers", produces = {"application/json", "application/json;v=1"})
 public class MobileController {
+    public static final String NDJSON_MEDIA_TYPE = "application/x-ndjson";
 
     private MobileSubscriberMapper mobileSubscriberMapper;
     private MobileSubscriberService mobileSubscriberService;
+    private ObjectMapper objectMapper;
+    private Validator validator;
+    private int defaultPageSize;
+    private int maxPageSize;
 
-    public MobileController(MobileSubscriberMapper mobileSubscriberMapper, MobileSubscriberService mobileSubscriberService) {
+    public MobileController(MobileSubscriberMapper mobileSubscriberMapper, MobileSubscriberService mobileSubscriberService, ObjectMapper objectMapper,
+                            Validator validator,
+                            @Value("${mobile.subscribers.page.default-size:100}") int defaultPageSize,
+                            @Value("${mobile.subscribers.page.max-size:1000}") int maxPageSize) {
         this.mobileSubscriberMapper = mobileSubscriberMapper;
         this.mobileSubscriberService = mobileSubscriberService;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
     }
 
-    @ApiOperation(value = "Get subscriber data by id provided on path")
+    @ApiOperation(value = "Get subscriber data by id provided on path",
+            notes = "Subscriber version is returned in ETag header. If it matches the If-None-Match header, no data is returned")
     @ApiResponses(value = {
             @ApiResponse(code = 200, message = "Element found and processed successfully"),
+            @ApiResponse(code = 304, message = "Subscriber not modified since the version provided in If-None-Match header"),
             @ApiResponse(code = 404, message = "No subscribers found for provided id")
     })
     @GetMapping("/{id}")
-    public Resource<MobileSubscriberDto> findById(@PathVariable Long id) {
-        MobileSubscriberDto res = mobileSubscriberMapper.domainToDto(mobileSubscriberService.findSubscriberById(id));
+    public ResponseEntity<Resource<MobileSubscriberDto>> findById(@PathVariable Long id) {
+        MobileSubscriberDto res = mobileSubscriberService.findSubscriberDtoById(id);
         ControllerLinkBuilder linkToFindById = ControllerLinkBuilder.linkTo(ControllerLinkBuilder
-                .methodOn(this.getClass()).findByCriteria(null, null, null, null, null));
-        return new Resource<>(res, linkToFindById.withRel("find-all").expand(null, null, null, null, null));
+                .methodOn(this.getClass()).findByCriteria(null, null, null, null, null, null, null));
+        //If-None-Match is checked against the ETag before the body is written, so not modified subscriber is not serialized
+        return withEntityTag(res, new Resource<>(res, linkToFindById.withRel("find-all").expand(null, null, null, null, null, null, null)));
     }
 
-    @ApiOperation(value = "Allows to find all mobile numbers (if no criteria provided) or obtain the mobile numbers using criteria combinations")
+    @ApiOperation(value = "Resolve mobile number to subscriber id",
+            notes = "With msisdn index enabled (mobile.msisdn-index.enabled property) number is resolved from memory without querying the database")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Subscriber found"),
+            @ApiResponse(code = 400, message = "Msisdn not in E.164 format"),
+            @ApiResponse(code = 404, message = "No subscriber found for provided msisdn")
+    })
+    @GetMapping("/by-msisdn/{msisdn}")
+    public Resource<SubscriberIdDto> findIdByMsisdn(@PathVariable String msisdn) {
+        Long id = mobileSubscriberService.resolveSubscriberId(msisdn);
+        ControllerLinkBuilder linkToFindById = ControllerLinkBuilder.linkTo(ControllerLinkBuilder
+                .methodOn(this.getClass()).findById(id));
+        return new Resource<>(new SubscriberIdDto(id, msisdn), linkToFindById.withRel("find-by-id"));
+    }
+
+    @ApiOperation(value = "Allows to find all mobile numbers (if no criteria provided) or obtain the mobile numbers using criteria combinations",
+            notes = "Providing cursor or pageSize switches to paged mode: results are ordered by subscriber and the next page is available under 'next' link")
     @ApiResponses(value = {
             @ApiResponse(code = 200, message = "Elements found and processed successfully"),
+            @ApiResponse(code = 400, message = "Invalid cursor or page size provided"),
             @ApiResponse(code = 404, message = "No subscribers found for provided criteria")
     })
     @GetMapping
@@ -66,7 +126,9 @@ public class MobileController {
                                                @RequestParam(required = false) Long ownerId,
                                                @RequestParam(required = false) Long userId,
                                                @RequestParam(required = false) String serviceType,
-                                               @RequestParam(required = false) Long serviceStartDate) {
+                                               @RequestParam(required = false) Long serviceStartDate,
+                                               @RequestParam(required = false) String cursor,
+                                               @RequestParam(required = false) Integer pageSize) {
         MobileSubscriberDto dtoCriteria = MobileSubscriberDto.builder()
                 .msisdn(msisdn)
                 .ownerId(ownerId)
@@ -75,11 +137,100 @@ public class MobileController {
                 .serviceStartDate(serviceStartDate)
                 .build();
         MobileSubscriber searchCriteria = mobileSubscriberMapper.dtoToDomain(dtoCriteria);
-        List<MobileSubscriber> subscribers = mobileSubscriberService.findSubscribersByCriteria(searchCriteria);
+        if (cursor != null || pageSize != null) {
+            int size = pageSize == null ? defaultPageSize : Math.min(pageSize, maxPageSize);
+            Slice<MobileSubscriberDto> page = mobileSubscriberService.findSubscriberDtosPage(searchCriteria, CursorUtils.decodeCursor(cursor), size);
+            List<MobileSubscriberDto> subscribers = page.getContent();
+            String nextCursor = page.hasNext() ? CursorUtils.encodeCursor(subscribers.get(subscribers.size() - 1).getId()) : null;
+            MobileSubscribersDto res = new MobileSubscribersDto(subscribers, nextCursor);
+            if (nextCursor != null) {
+                res.add(ControllerLinkBuilder.linkTo(ControllerLinkBuilder.methodOn(this.getClass())
+                        .findByCriteria(msisdn, ownerId, userId, serviceType, serviceStartDate, nextCursor, size)).withRel("next"));
+            }
+            return res;
+        }
+        return new MobileSubscribersDto(mobileSubscriberService.findSubscriberDtosByCriteria(searchCriteria));
+    }
 
-        return new MobileSubscribersDto(subscribers.stream()
-                .map(mobileSubscriberMapper::domainToDto)
-                .collect(Collectors.toList()));
+    @ApiOperation(value = "Find mobile numbers starting with the prefix (e.g. number block 48500)",
+            notes = "Results are ordered by msisdn as text (e.g. 48500123456 before 4859001) "
+                    + "and returned page by page, the next page is available under 'next' link. "
+                    + "Prefix cannot be combined with other criteria. With msisdn index enabled the page is found in memory")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Elements found and processed successfully"),
+            @ApiResponse(code = 400, message = "Invalid prefix, cursor or page size provided or prefix combined with other criteria"),
+            @ApiResponse(code = 404, message = "No subscribers found for provided prefix")
+    })
+    @GetMapping(params = "msisdnPrefix")
+    public MobileSubscribersDto findByMsisdnPrefix(@RequestParam String msisdnPrefix,
+                                                   @RequestParam(required = false) String msisdn,
+                                                   @RequestParam(required = false) Long ownerId,
+                                                   @RequestParam(required = false) Long userId,
+                                                   @RequestParam(required = false) String serviceType,
+                                                   @RequestParam(required = false) Long serviceStartDate,
+                                                   @RequestParam(required = false) String cursor,
+                                                   @RequestParam(required = false) Integer pageSize) {
+        //other criteria are rejected instead of being silently ignored
+        if (msisdn != null || ownerId != null || userId != null || serviceType != null || serviceStartDate != null) {
+            log.error("Msisdn prefix " + msisdnPrefix + " combined with other criteria");
+            throw new ValidationFailedException("Msisdn prefix cannot be combined with other criteria");
+        }
+        int size = pageSize == null ? defaultPageSize : Math.min(pageSize, maxPageSize);
+        Long afterMsisdn = CursorUtils.decodeCursor(cursor);
+        Slice<MobileSubscriberDto> page = mobileSubscriberService.findSubscriberDtosByMsisdnPrefix(msisdnPrefix,
+                afterMsisdn == null ? null : afterMsisdn.toString(), size);
+        List<MobileSubscriberDto> subscribers = page.getContent();
+        //cursor holds the last msisdn, E.164 msisdn is a number
+        String nextCursor = page.hasNext()
+                ? CursorUtils.encodeCursor(Long.parseLong(subscribers.get(subscribers.size() - 1).getMsisdn())) : null;
+        MobileSubscribersDto res = new MobileSubscribersDto(subscribers, nextCursor);
+        if (nextCursor != null) {
+            res.add(ControllerLinkBuilder.linkTo(ControllerLinkBuilder.methodOn(this.getClass())
+                    .findByMsisdnPrefix(msisdnPrefix, null, null, null, null, null, nextCursor, size)).withRel("next"));
+        }
+        return res;
+    }
+
+    @ApiOperation(value = "Count mobile numbers starting with the prefix",
+            notes = "With msisdn index enabled the number is counted in memory, in time depending only on the prefix length")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Subscribers counted"),
+            @ApiResponse(code = 400, message = "Invalid prefix provided")
+    })
+    @GetMapping("/count")
+    public MsisdnPrefixCountDto countByMsisdnPrefix(@RequestParam String msisdnPrefix) {
+        return new MsisdnPrefixCountDto(msisdnPrefix, mobileSubscriberService.countSubscribersByMsisdnPrefix(msisdnPrefix));
+    }
+
+    @ApiOperation(value = "Statistics of mobile numbers per service type, per owner and activations per day",
+            notes = "Statistics are maintained in memory and reconciled with the database periodically, so they are returned without a query")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Statistics returned")
+    })
+    @GetMapping("/stats")
+    public SubscriberStatisticsDto findStatistics() {
+        return mobileSubscriberService.findSubscriberStatistics();
+    }
+
+    @ApiOperation(value = "Export all mobile numbers as newline delimited JSON",
+            notes = "Subscribers are streamed one per line while being read from the database, so memory usage doesn't depend on the number of subscribers")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Elements exported successfully")
+    })
+    @GetMapping(value = "/export", produces = NDJSON_MEDIA_TYPE)
+    public void exportSubscribers(HttpServletResponse response) throws IOException {
+        response.setContentType(NDJSON_MEDIA_TYPE);
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(response.getOutputStream())) {
+            generator.setRootValueSeparator(null);
+            mobileSubscriberService.exportSubscribers(subscriber -> {
+                try {
+                    generator.writeObject(mobileSubscriberMapper.domainToDto(subscriber));
+                    generator.writeRaw('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
     }
 
     @ApiOperation(value = "Add new mobile number to the database", notes = "Mobile number can be added only once")
@@ -98,39 +249,143 @@ public class MobileController {
         return new Resource<>(res, linkToFindById.withRel("find-by-id"));
     }
 
-    @ApiOperation(value = "Update existing subscriber", notes = "User can only change mobile plan and assign different owners and users")
+    @ApiOperation(value = "Add many mobile numbers to the database at once",
+            notes = "Every subscriber is validated separately, result (CREATED, DUPLICATE or INVALID) is returned for each of them")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Batch processed, results available for every subscriber"),
+            @ApiResponse(code = 400, message = "Too many subscribers provided")
+    })
+    @PostMapping("/batch")
+    public SubscribersBatchResultDto createNewSubscribers(@RequestBody MobileSubscribersDto mobileSubscribersDto) {
+        List<MobileSubscriberDto> subscribers = mobileSubscribersDto.getSubscribers() == null ? List.of() : mobileSubscribersDto.getSubscribers();
+        SubscriberBatchItemResultDto[] results = new SubscriberBatchItemResultDto[subscribers.size()];
+        List<MobileSubscriber> validSubscribers = new ArrayList<>();
+        for (int i = 0; i < subscribers.size(); i++) {
+            MobileSubscriberDto subscriber = subscribers.get(i);
+            Set<ConstraintViolation<MobileSubscriberDto>> violations = subscriber == null ? Set.of() : validator.validate(subscriber);
+            if (subscriber == null || !violations.isEmpty()) {
+                results[i] = SubscriberBatchItemResultDto.builder()
+                        .index(i)
+                        .msisdn(subscriber == null ? null : subscriber.getMsisdn())
+                        .status(SubscriberCreationResult.Status.INVALID.name())
+                        .message(subscriber == null ? "Subscriber data not provided" : violations.stream()
+                                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                                .sorted()
+                                .collect(Collectors.joining(", ")))
+                        .build();
+            } else {
+                validSubscribers.add(mobileSubscriberMapper.dtoToDomain(subscriber));
+            }
+        }
+        Iterator<SubscriberCreationResult> created = mobileSubscriberService.createNewSubscribers(validSubscribers).iterator();
+        for (int i = 0; i < results.length; i++) {
+            if (results[i] == null) {
+                SubscriberCreationResult result = created.next();
+                results[i] = SubscriberBatchItemResultDto.builder()
+                        .index(i)
+                        .msisdn(result.getSubscriber().getMsisdn())
+                        .status(result.getStatus().name())
+                        .id(result.getStatus() == SubscriberCreationResult.Status.CREATED ? result.getSubscriber().getId() : null)
+                        .message(result.getMessage())
+                        .build();
+            }
+        }
+        List<SubscriberBatchItemResultDto> resultList = List.of(results);
+        return new SubscribersBatchResultDto(resultList.stream()
+                .filter(result -> SubscriberCreationResult.Status.CREATED.name().equals(result.getStatus()))
+                .count(), resultList);
+    }
+
+    @ApiOperation(value = "Transfer all mobile numbers of one customer to another customer",
+            notes = "Numbers owned (or used) by the source customer, optionally only with provided service type, are moved to the target customer")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Subscribers transferred successfully"),
+            @ApiResponse(code = 400, message = "Wrong data provided"),
+            @ApiResponse(code = 404, message = "Source or target customer not found")
+    })
+    @PostMapping("/transfers")
+    public SubscribersTransferDto transferSubscribers(@Valid @RequestBody SubscribersTransferDto transferDto) {
+        long transferred = mobileSubscriberService.transferSubscribers(transferDto.getSourceCustomerId(), transferDto.getTargetCustomerId(),
+                CustomerRole.fromString(transferDto.getRole()), ServiceType.fromString(transferDto.getServiceType()));
+        transferDto.setTransferredSubscribers(transferred);
+        return transferDto;
+    }
+
+    @ApiOperation(value = "Remove many mobile numbers at once",
+            notes = "Numbers are selected by the list of ids or by criteria (msisdn, owner, user, service type), exactly one of them is required")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Subscribers removed successfully"),
+            @ApiResponse(code = 400, message = "Wrong data provided")
+    })
+    @PostMapping("/deletions")
+    public SubscribersDeletionDto deleteSubscribers(@Valid @RequestBody SubscribersDeletionDto deletionDto) {
+        MobileSubscriber criteria = mobileSubscriberMapper.dtoToDomain(MobileSubscriberDto.builder()
+                .msisdn(deletionDto.getMsisdn())
+                .ownerId(deletionDto.getOwnerId())
+                .userId(deletionDto.getUserId())
+                .serviceType(deletionDto.getServiceType())
+                .build());
+        deletionDto.setDeletedSubscribers(mobileSubscriberService.deleteSubscribers(deletionDto.getIds(), criteria));
+        return deletionDto;
+    }
+
+    @ApiOperation(value = "Update existing subscriber", notes = "User can only change mobile plan and assign different owners and users. "
+            + "If the If-Match header is provided, subscriber is updated only if it still has that version")
     @ApiResponses(value = {
             @ApiResponse(code = 200, message = "Subscriber updated successfully"),
             @ApiResponse(code = 400, message = "Wrong data provided"),
-            @ApiResponse(code = 404, message = "Subscriber, customer or owner not found")
+            @ApiResponse(code = 404, message = "Subscriber, customer or owner not found"),
+            @ApiResponse(code = 409, message = "Subscriber modified concurrently"),
+            @ApiResponse(code = 412, message = "Subscriber version doesn't match the If-Match header")
     })
     @PutMapping("/{id}")
-    public Resource<MobileSubscriberDto> updateSubscriber(@Valid @RequestBody MobileSubscriberDto mobileSubscriberDto, @PathVariable Long id) {
-        MobileSubscriber updateSubscriber = mobileSubscriberService.updateSubscriber(mobileSubscriberMapper.dtoToDomain(mobileSubscriberDto), id);
+    public ResponseEntity<Resource<MobileSubscriberDto>> updateSubscriber(@Valid @RequestBody MobileSubscriberDto mobileSubscriberDto,
+                                                                          @PathVariable Long id,
+                                                                          @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        MobileSubscriber toUpdate = mobileSubscriberMapper.dtoToDomain(mobileSubscriberDto);
+        toUpdate.setVersion(EntityTagUtils.versionFromIfMatch(ifMatch));
+        MobileSubscriber updateSubscriber = mobileSubscriberService.updateSubscriber(toUpdate, id);
         ControllerLinkBuilder linkToFindById = ControllerLinkBuilder.linkTo(ControllerLinkBuilder
                 .methodOn(this.getClass()).findById(id));
         MobileSubscriberDto res = mobileSubscriberMapper.domainToDto(updateSubscriber);
-        return new Resource<>(res, linkToFindById.withRel("find-by-id"));
+        return withEntityTag(res, new Resource<>(res, linkToFindById.withRel("find-by-id")));
     }
 
-    @ApiOperation(value = "Patch existing subscriber", notes = "User can only change mobile plan and assign different owners and users")
+    @ApiOperation(value = "Patch existing subscriber", notes = "User can only change mobile plan and assign different owners and users. "
+            + "If the If-Match header is provided, subscriber is patched only if it still has that version")
     @ApiResponses(value = {
             @ApiResponse(code = 200, message = "Subscriber patched successfully"),
             @ApiResponse(code = 400, message = "Wrong data provided"),
-            @ApiResponse(code = 404, message = "Subscriber, customer or owner not found")
+            @ApiResponse(code = 404, message = "Subscriber, customer or owner not found"),
+            @ApiResponse(code = 409, message = "Subscriber modified concurrently"),
+            @ApiResponse(code = 412, message = "Subscriber version doesn't match the If-Match header")
     })
     @PatchMapping("/{id}")
-    public Resource<MobileSubscriberDto> patchSubscriber(@RequestBody MobileSubscriberDto mobileSubscriberDto, @PathVariable Long id) {
-        MobileSubscriber patchedSubscriber = mobileSubscriberService.patchSubscriber(mobileSubscriberMapper.dtoToDomain(mobileSubscriberDto), id);
+    public ResponseEntity<Resource<MobileSubscriberDto>> patchSubscriber(@RequestBody MobileSubscriberDto mobileSubscriberDto,
+                                                                         @PathVariable Long id,
+                                                                         @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        MobileSubscriber toPatch = mobileSubscriberMapper.dtoToDomain(mobileSubscriberDto);
+        toPatch.setVersion(EntityTagUtils.versionFromIfMatch(ifMatch));
+        MobileSubscriber patchedSubscriber = mobileSubscriberService.patchSubscriber(toPatch, id);
         MobileSubscriberDto res = mobileSubscriberMapper.domainToDto(patchedSubscriber);
         ControllerLinkBuilder linkToFindById = ControllerLinkBuilder.linkTo(ControllerLinkBuilder
                 .methodOn(this.getClass()).findById(id));
-        return new Resource<>(res, linkToFindById.withRel("find-by-id"));
+        return withEntityTag(res, new Resource<>(res, linkToFindById.withRel("find-by-id")));
     }
 
-    @ApiOperation(value = "Remove existing subscriber")
+    @ApiOperation(value = "Remove existing subscriber",
+            notes = "If the If-Match header is provided, subscriber is removed only if it still has that version")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Subscriber removed successfully"),
+            @ApiResponse(code = 412, message = "Subscriber version doesn't match the If-Match header")
+    })
     @DeleteMapping("/{id}")
-    public void deleteSubscriber(@PathVariable Long id) {
-        mobileSubscriberService.deleteSubscriberById(id);
+    public void deleteSubscriber(@PathVariable Long id, @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        mobileSubscriberService.deleteSubscriberById(id, EntityTagUtils.versionFromIfMatch(ifMatch));
+    }
+
+    private ResponseEntity<Resource<MobileSubscriberDto>> withEntityTag(MobileSubscriberDto subscriber, Resource<MobileSubscriberDto> body) {
+        String entityTag = EntityTagUtils.toEntityTag(subscriber.getVersion());
+        return entityTag == null ? ResponseEntity.ok(body) : ResponseEntity.ok().eTag(entityTag).body(body);
     }
 }
@@ -14,14 +14,11 @@ import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.Inheritance;
 import javax.persistence.InheritanceType;
-import javax.persistence.OneToMany;
 import java.io.Serializable;
-import java.util.HashSet;
-import java.util.Set;
 
 @Getter
 @Setter
-@ToString(exclude = {"usedNumbers", "ownedNumbers"})
+@ToString
 @NoArgsConstructor
 @Entity
 @Inheritance(strategy = InheritanceType.JOINED)
@@ -34,12 +31,6 @@ public class Customer implements Serializable {
     @Column(columnDefinition = "VARCHAR(4000)", length = 4000)
     protected String address;
 
-    @OneToMany(mappedBy = "user")
-    private Set<MobileSubscriber> usedNumbers = new HashSet<>();
-
-    @OneToMany(mappedBy = "owner")
-    private Set<MobileSubscriber> ownedNumbers = new HashSet<>();
-
      protected Customer(Long id, String address) {
         this.id = id;
         this.address = address;
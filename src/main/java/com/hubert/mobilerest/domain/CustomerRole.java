@@ -0,0 +1,16 @@
+package com.hubert.mobilerest.domain;
+
+import com.hubert.mobilerest.exceptions.ValidationFailedException;
+
+public enum CustomerRole {
+    OWNER,
+    USER;
+
+    public static CustomerRole fromString(String input) {
+        try {
+            return input == null ? null : valueOf(input);
+        } catch (IllegalArgumentException e) {
+            throw new ValidationFailedException("Cannot parse value " + input + ". OWNER and USER allowed");
+        }
+    }
+}
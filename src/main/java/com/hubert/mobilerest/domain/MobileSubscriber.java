@@ -17,8 +17,13 @@ import javax.persistence.Enumerated;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+import javax.persistence.Version;
 import java.io.Serializable;
 import java.time.LocalDateTime;
 import java.util.Objects;
@@ -30,12 +35,23 @@ import java.util.stream.Stream;
 @EqualsAndHashCode(of = {"msisdn"})
 @ToString
 @Entity
+@Table(indexes = {
+        @Index(name = "IDX_MOBILE_SUBSCRIBER_OWNER_SERVICE_TYPE", columnList = "CUSTOMER_ID_OWNER, serviceType"),
+        @Index(name = "IDX_MOBILE_SUBSCRIBER_USER_SERVICE_TYPE", columnList = "CUSTOMER_ID_USER, serviceType"),
+        @Index(name = "IDX_MOBILE_SUBSCRIBER_SERVICE_TYPE", columnList = "serviceType"),
+        @Index(name = "IDX_MOBILE_SUBSCRIBER_SERVICE_START_DATE", columnList = "serviceStartDate")
+}, uniqueConstraints = @UniqueConstraint(name = MobileSubscriber.MSISDN_CONSTRAINT, columnNames = "msisdn"))
 public class MobileSubscriber implements Serializable {
+    //named, so violation of msisdn uniqueness can be recognized when the insert fails
+    public static final String MSISDN_CONSTRAINT = "UK_MOBILE_SUBSCRIBER_MSISDN";
+
+    //pooled sequence allows batching of inserts, ids below initial value are left for the initial data
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "mobile_subscriber_seq")
+    @SequenceGenerator(name = "mobile_subscriber_seq", sequenceName = "MOBILE_SUBSCRIBER_SEQ", initialValue = 1000, allocationSize = 50)
     private Long id;
 
-    @Column(nullable = false, unique = true)
+    @Column(nullable = false)
     private String msisdn;
 
     @ManyToOne(cascade = CascadeType.MERGE)
@@ -54,6 +70,11 @@ public class MobileSubscriber implements Serializable {
     @Column(nullable = false)
     private LocalDateTime serviceStartDate;
 
+    //optimistic locking, exposed to the clients as ETag. Default lets existing rows and plain SQL inserts start at 0
+    @Version
+    @Column(nullable = false, columnDefinition = "BIGINT DEFAULT 0")
+    private Long version;
+
     public Long getOwnerId() {
         return owner != null ? owner.getId() : null;
     }
@@ -63,33 +84,33 @@ public class MobileSubscriber implements Serializable {
     }
 
     @Builder
-    public MobileSubscriber(Long id, String msisdn, Customer user, Customer owner, ServiceType serviceType, LocalDateTime serviceStartDate) {
+    public MobileSubscriber(Long id, String msisdn, Customer user, Customer owner, ServiceType serviceType, LocalDateTime serviceStartDate,
+                            Long version) {
         this.id = id;
         this.msisdn = msisdn;
         this.user = user;
         this.owner = owner;
         this.serviceType = serviceType;
         this.serviceStartDate = serviceStartDate;
+        this.version = version;
     }
 
+    /**
+     * Assigning the user. Only the foreign key is changed, customer numbers are not mapped on the customer side,
+     * so the reassignment doesn't load all the numbers used by previous or new user
+     * @param user New user of the number
+     */
     public void assignUser(Customer user) {
-        if (this.user != null) {
-            user.getUsedNumbers().remove(this);
-        }
         this.user = user;
-        if (user != null) {
-            user.getUsedNumbers().add(this);
-        }
     }
 
+    /**
+     * Assigning the owner. Only the foreign key is changed, customer numbers are not mapped on the customer side,
+     * so the reassignment doesn't load all the numbers owned by previous or new owner
+     * @param owner New owner of the number
+     */
     public void assignOwner(Customer owner) {
-        if (this.owner != null) {
-            owner.getOwnedNumbers().remove(this);
-        }
         this.owner = owner;
-        if (owner != null) {
-            owner.getOwnedNumbers().add(this);
-        }
     }
 
     public boolean isEmpty() {
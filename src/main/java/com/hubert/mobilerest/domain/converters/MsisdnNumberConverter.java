@@ -0,0 +1,40 @@
+package com.hubert.mobilerest.domain.converters;
+
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+
+/**
+ * Converter for database numeric msisdn (BIGINT) and msisdn used in java, applied by "numeric-msisdn" profile
+ * (see META-INF/orm-numeric-msisdn.xml). Msisdn in E.164 format has no leading zero, so it's the same number in both forms.
+ * Value which cannot be stored as a number (leading zero, other characters than digits, more than 18 digits) is converted to -1,
+ * which matches no stored msisdn. Such values can be only search criteria, created subscribers are validated
+ */
+@Converter
+public class MsisdnNumberConverter implements AttributeConverter<String, Long> {
+    public static final long NOT_A_NUMBER = -1L;
+    private static final int MAX_DIGITS = 18;
+
+    @Override
+    public Long convertToDatabaseColumn(String msisdn) {
+        if (msisdn == null) {
+            return null;
+        }
+        if (msisdn.isEmpty() || msisdn.length() > MAX_DIGITS || msisdn.charAt(0) == '0') {
+            return NOT_A_NUMBER;
+        }
+        long number = 0;
+        for (int i = 0; i < msisdn.length(); i++) {
+            char digit = msisdn.charAt(i);
+            if (digit < '0' || digit > '9') {
+                return NOT_A_NUMBER;
+            }
+            number = number * 10 + (digit - '0');
+        }
+        return number;
+    }
+
+    @Override
+    public String convertToEntityAttribute(Long number) {
+        return number == null ? null : number.toString();
+    }
+}
@@ -22,6 +22,16 @@ import java.util.stream.Stream;
 @Builder
 public class MobileSubscriberDto {
 
+    //used only for the paging cursor, id is not part of the transferred data
+    @ApiModelProperty(hidden = true)
+    @JsonIgnore
+    private Long id;
+
+    //sent in ETag header, not part of the transferred data
+    @ApiModelProperty(hidden = true)
+    @JsonIgnore
+    private Long version;
+
     @ApiModelProperty(name = "Mobile number in E164 format (without '+' sign)", required = true)
     @NotNull
     @Pattern(regexp = "^[1-9]\\d{1,14}$", message = "Msdisdn must follow the E.164 format")
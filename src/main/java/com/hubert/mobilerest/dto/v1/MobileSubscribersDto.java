@@ -1,10 +1,12 @@
 package com.hubert.mobilerest.dto.v1;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import io.swagger.annotations.ApiModel;
 import io.swagger.annotations.ApiModelProperty;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.Setter;
+import org.springframework.hateoas.ResourceSupport;
 
 import java.util.List;
 
@@ -12,8 +14,16 @@ import java.util.List;
 @Getter
 @Setter
 @AllArgsConstructor
-public class MobileSubscribersDto {
+public class MobileSubscribersDto extends ResourceSupport {
 
     @ApiModelProperty(name = "Subscriber list")
     List<MobileSubscriberDto> subscribers;
+
+    @ApiModelProperty(name = "Cursor of the next page (present only for paged requests with more elements available)")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    String nextCursor;
+
+    public MobileSubscribersDto(List<MobileSubscriberDto> subscribers) {
+        this(subscribers, null);
+    }
 }
@@ -0,0 +1,20 @@
+package com.hubert.mobilerest.dto.v1;
+
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@ApiModel("Number of mobile numbers starting with the prefix")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MsisdnPrefixCountDto {
+
+    @ApiModelProperty(name = "Leading digits of the mobile numbers")
+    private String msisdnPrefix;
+
+    @ApiModelProperty(name = "Number of subscribers with mobile number starting with the prefix")
+    private Long subscribers;
+}
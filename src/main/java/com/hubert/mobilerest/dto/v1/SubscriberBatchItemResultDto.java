@@ -0,0 +1,33 @@
+package com.hubert.mobilerest.dto.v1;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@ApiModel("Result of creation of one subscriber from the batch")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class SubscriberBatchItemResultDto {
+
+    @ApiModelProperty(name = "Position of the subscriber in the request")
+    private Integer index;
+
+    @ApiModelProperty(name = "Mobile number of the subscriber")
+    private String msisdn;
+
+    @ApiModelProperty(name = "Result status (CREATED, DUPLICATE or INVALID)")
+    private String status;
+
+    @ApiModelProperty(name = "Id of created subscriber")
+    private Long id;
+
+    @ApiModelProperty(name = "Reason why the subscriber was not created")
+    private String message;
+}
@@ -0,0 +1,20 @@
+package com.hubert.mobilerest.dto.v1;
+
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@ApiModel("Mobile number resolved to subscriber id")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SubscriberIdDto {
+
+    @ApiModelProperty(name = "Id of the subscriber")
+    private Long id;
+
+    @ApiModelProperty(name = "Mobile number in E164 format (without '+' sign)")
+    private String msisdn;
+}
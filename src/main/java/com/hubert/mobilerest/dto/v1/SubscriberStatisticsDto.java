@@ -0,0 +1,35 @@
+package com.hubert.mobilerest.dto.v1;
+
+import com.hubert.mobilerest.domain.ServiceType;
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+@ApiModel("Statistics of the mobile numbers")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SubscriberStatisticsDto {
+
+    @ApiModelProperty(name = "Number of all the subscribers")
+    private Long subscribers;
+
+    @ApiModelProperty(name = "Number of subscribers per service type")
+    private Map<ServiceType, Long> subscribersByServiceType;
+
+    @ApiModelProperty(name = "Number of subscribers per owner id")
+    private Map<Long, Long> subscribersByOwner;
+
+    @ApiModelProperty(name = "Number of existing subscribers per UTC day of the service start")
+    private Map<LocalDate, Long> activationsByDay;
+
+    @ApiModelProperty(name = "Epoch millis of the last reconciliation with the database")
+    private Long reconciledAt;
+}
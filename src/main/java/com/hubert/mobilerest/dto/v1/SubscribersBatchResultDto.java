@@ -0,0 +1,22 @@
+package com.hubert.mobilerest.dto.v1;
+
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@ApiModel("Result of batch creation of subscribers")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SubscribersBatchResultDto {
+
+    @ApiModelProperty(name = "Number of created subscribers")
+    private long created;
+
+    @ApiModelProperty(name = "Result for every subscriber from the request, in the same order")
+    private List<SubscriberBatchItemResultDto> results;
+}
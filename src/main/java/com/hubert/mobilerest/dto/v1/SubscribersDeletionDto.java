@@ -0,0 +1,38 @@
+package com.hubert.mobilerest.dto.v1;
+
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.Pattern;
+import java.util.List;
+
+@ApiModel("Removal of many mobile numbers by ids or criteria")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SubscribersDeletionDto {
+
+    @ApiModelProperty(name = "Ids of the removed subscribers (cannot be combined with criteria)")
+    private List<Long> ids;
+
+    @ApiModelProperty(name = "Mobile number of the removed subscriber")
+    private String msisdn;
+
+    @ApiModelProperty(name = "Owner id of the removed subscribers")
+    private Long ownerId;
+
+    @ApiModelProperty(name = "User id of the removed subscribers")
+    private Long userId;
+
+    @ApiModelProperty(name = "Service type (MOBILE_PREPAID or MOBILE_POSTPAID) of the removed subscribers")
+    @Pattern(regexp = "MOBILE_PREPAID|MOBILE_POSTPAID", message = "Service type value can be only one of MOBILE_PREPAID or MOBILE_POSTPAID")
+    private String serviceType;
+
+    @ApiModelProperty(name = "Number of removed subscribers", readOnly = true)
+    private Long deletedSubscribers;
+}
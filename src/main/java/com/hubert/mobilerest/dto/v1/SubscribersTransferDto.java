@@ -0,0 +1,39 @@
+package com.hubert.mobilerest.dto.v1;
+
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Pattern;
+
+@ApiModel("Transfer of mobile numbers between customers")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SubscribersTransferDto {
+
+    @ApiModelProperty(name = "Id of the customer the numbers are transferred from", required = true)
+    @NotNull
+    private Long sourceCustomerId;
+
+    @ApiModelProperty(name = "Id of the customer the numbers are transferred to", required = true)
+    @NotNull
+    private Long targetCustomerId;
+
+    @ApiModelProperty(name = "Transferred role of the customer (OWNER or USER)", required = true)
+    @NotNull
+    @Pattern(regexp = "OWNER|USER", message = "Role value can be only one of OWNER or USER")
+    private String role;
+
+    @ApiModelProperty(name = "Optional service type (MOBILE_PREPAID or MOBILE_POSTPAID) of transferred numbers")
+    @Pattern(regexp = "MOBILE_PREPAID|MOBILE_POSTPAID", message = "Service type value can be only one of MOBILE_PREPAID or MOBILE_POSTPAID")
+    private String serviceType;
+
+    @ApiModelProperty(name = "Number of transferred subscribers", readOnly = true)
+    private Long transferredSubscribers;
+}
@@ -0,0 +1,211 @@
+package com.hubert.mobilerest.generator;
+
+import com.hubert.mobilerest.domain.ServiceType;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generator of synthetic customers and subscribers.
+ * Every generated value is a function of the row id and the seed, so the tests can obtain the values of any row
+ * (e.g. msisdn of the subscriber with given id) without reading them from the database
+ */
+@Slf4j
+public class DatasetGenerator {
+    private static final long DAY_MILLIS = TimeUnit.DAYS.toMillis(1);
+    //mobile subscriber sequence settings (initial value and allocation size), see MobileSubscriber
+    private static final long SEQUENCE_INITIAL_VALUE = 1000L;
+    private static final long SEQUENCE_ALLOCATION_SIZE = 50L;
+    //multiplier coprime with every numbering range size, so the national numbers are unique but not consecutive
+    private static final long NUMBER_MULTIPLIER = 7919L;
+
+    private static final int OWNER = 1;
+    private static final int USER = 2;
+    private static final int SERVICE_TYPE = 3;
+    private static final int SERVICE_START_DATE = 4;
+    private static final int NUMBER_OFFSET = 5;
+
+    private static final String[] FIRST_NAMES = {"Anna", "Piotr", "Maria", "Jan", "Emma", "Lukas", "Olivia", "Noah", "Sofia", "Mateo"};
+    private static final String[] LAST_NAMES = {"Nowak", "Kowalski", "Muller", "Smith", "Martin", "Garcia", "Rossi", "Schmidt", "Brown", "Lopez"};
+    private static final String[] CITIES = {"Warsaw", "Berlin", "London", "Paris", "New York", "Madrid", "Rome", "Cracow", "Munich", "Lyon"};
+
+    private final DatasetSettings settings;
+    private final int companies;
+
+    public DatasetGenerator(DatasetSettings settings) {
+        if (settings.getCustomers() < 1 || settings.getSubscribers() < 0) {
+            throw new IllegalArgumentException("At least one customer is required and number of subscribers cannot be negative");
+        }
+        this.settings = settings;
+        this.companies = (int) Math.ceil(settings.getCustomers() * settings.getCompanyRatio());
+    }
+
+    public DatasetSettings getSettings() {
+        return settings;
+    }
+
+    /**
+     * Replacing all the customers and subscribers in the database with the generated ones.
+     * Subscriber sequence is restarted after the generated ids, ids already allocated by a running application are not affected
+     * @param jdbcTemplate Template of the target database
+     */
+    public void load(JdbcTemplate jdbcTemplate) {
+        long start = System.nanoTime();
+        jdbcTemplate.execute("TRUNCATE TABLE MOBILE_SUBSCRIBER");
+        jdbcTemplate.execute("TRUNCATE TABLE COMPANY");
+        jdbcTemplate.execute("TRUNCATE TABLE PERSON");
+        jdbcTemplate.execute("DELETE FROM CUSTOMER");
+
+        List<Object[]> customers = new ArrayList<>();
+        List<Object[]> customerDetails = new ArrayList<>();
+        for (long id = 1; id <= settings.getCustomers(); id++) {
+            customers.add(new Object[]{id, address(id)});
+            customerDetails.add(isCompany(id)
+                    ? new Object[]{id, "Company " + id, "TAX" + id}
+                    : new Object[]{id, FIRST_NAMES[(int) (id % FIRST_NAMES.length)], LAST_NAMES[(int) (id / FIRST_NAMES.length % LAST_NAMES.length)], "DOC" + id});
+            if (customers.size() == settings.getBatchSize()) {
+                insertCustomers(jdbcTemplate, customers, customerDetails);
+            }
+        }
+        insertCustomers(jdbcTemplate, customers, customerDetails);
+
+        for (long firstId = 1; firstId <= settings.getSubscribers(); firstId += settings.getBatchSize()) {
+            insertSubscribers(jdbcTemplate, firstId, (int) Math.min(settings.getBatchSize(), settings.getSubscribers() - firstId + 1));
+        }
+
+        //pooled optimizer treats the sequence value as the end of the allocated block, so the next block starts after generated ids
+        long nextValue = Math.max(SEQUENCE_INITIAL_VALUE, settings.getSubscribers() + SEQUENCE_ALLOCATION_SIZE);
+        jdbcTemplate.execute("ALTER SEQUENCE MOBILE_SUBSCRIBER_SEQ RESTART WITH " + nextValue);
+        log.info("Generated " + settings.getCustomers() + " customers and " + settings.getSubscribers() + " subscribers in "
+                + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
+    }
+
+    /**
+     * Msisdn of the subscriber. Numbers are spread over mobile ranges of several countries (in E.164 format without '+')
+     * @param id Subscriber id
+     * @return Msisdn unique for every subscriber id
+     */
+    public String msisdn(long id) {
+        NumberingPlan plan = NumberingPlan.values()[(int) (id % NumberingPlan.values().length)];
+        long sequence = id / NumberingPlan.values().length;
+        long offset = Math.floorMod(random(0, NUMBER_OFFSET), plan.rangeSize);
+        long nationalNumber = plan.rangeStart + Math.floorMod(sequence * NUMBER_MULTIPLIER + offset, plan.rangeSize);
+        return plan.countryCode + nationalNumber;
+    }
+
+    /**
+     * Owner of the subscriber. Owners are skewed towards the lowest ids, so few customers own most of the numbers
+     * @param id Subscriber id
+     * @return Id of the owning customer
+     */
+    public long ownerId(long id) {
+        double skewed = Math.pow(uniform(id, OWNER), settings.getOwnerSkew());
+        return Math.min(settings.getCustomers(), (long) (skewed * settings.getCustomers()) + 1);
+    }
+
+    /**
+     * User of the subscriber, chosen uniformly from all the customers
+     * @param id Subscriber id
+     * @return Id of the using customer
+     */
+    public long userId(long id) {
+        return Math.min(settings.getCustomers(), (long) (uniform(id, USER) * settings.getCustomers()) + 1);
+    }
+
+    public ServiceType serviceType(long id) {
+        return uniform(id, SERVICE_TYPE) < settings.getPrepaidRatio() ? ServiceType.MOBILE_PREPAID : ServiceType.MOBILE_POSTPAID;
+    }
+
+    /**
+     * Service start date spread uniformly over configured number of years
+     * @param id Subscriber id
+     * @return Epoch in millis
+     */
+    public long serviceStartDate(long id) {
+        long span = settings.getYears() * 365L * DAY_MILLIS;
+        return settings.getLastServiceStartDate() - (long) (uniform(id, SERVICE_START_DATE) * span);
+    }
+
+    public boolean isCompany(long customerId) {
+        return customerId <= companies;
+    }
+
+    private String address(long customerId) {
+        return "Long street " + customerId + ", " + CITIES[(int) (customerId % CITIES.length)];
+    }
+
+    private void insertCustomers(JdbcTemplate jdbcTemplate, List<Object[]> customers, List<Object[]> customerDetails) {
+        jdbcTemplate.batchUpdate("INSERT INTO CUSTOMER (ID, ADDRESS) VALUES (?, ?)", customers);
+        List<Object[]> companyDetails = new ArrayList<>();
+        List<Object[]> personDetails = new ArrayList<>();
+        for (Object[] details : customerDetails) {
+            (isCompany((Long) details[0]) ? companyDetails : personDetails).add(details);
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO COMPANY (ID, COMPANY_NAME, TAX_ID) VALUES (?, ?, ?)", companyDetails);
+        jdbcTemplate.batchUpdate("INSERT INTO PERSON (ID, FIRST_NAME, LAST_NAME, DOCUMENT_ID) VALUES (?, ?, ?, ?)", personDetails);
+        customers.clear();
+        customerDetails.clear();
+    }
+
+    private void insertSubscribers(JdbcTemplate jdbcTemplate, long firstId, int count) {
+        jdbcTemplate.batchUpdate("INSERT INTO MOBILE_SUBSCRIBER (ID, MSISDN, CUSTOMER_ID_OWNER, CUSTOMER_ID_USER, SERVICE_TYPE, SERVICE_START_DATE) "
+                + "VALUES (?, ?, ?, ?, ?, ?)", new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                long id = firstId + i;
+                ps.setLong(1, id);
+                ps.setString(2, msisdn(id));
+                ps.setLong(3, ownerId(id));
+                ps.setLong(4, userId(id));
+                ps.setString(5, serviceType(id).name());
+                ps.setLong(6, serviceStartDate(id));
+            }
+
+            @Override
+            public int getBatchSize() {
+                return count;
+            }
+        });
+    }
+
+    private double uniform(long id, int attribute) {
+        return (random(id, attribute) >>> 11) * 0x1.0p-53;
+    }
+
+    //splitmix64 finalizer of the seed, id and attribute
+    private long random(long id, int attribute) {
+        long z = settings.getSeed() + id * 0x9E3779B97F4A7C15L + attribute * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Mobile numbering ranges (national significant numbers) of the generated countries
+     */
+    private enum NumberingPlan {
+        POLAND("48", 500_000_000L, 100_000_000L),
+        GERMANY("49", 1_500_000_000L, 100_000_000L),
+        UNITED_KINGDOM("44", 7_000_000_000L, 1_000_000_000L),
+        FRANCE("33", 600_000_000L, 100_000_000L),
+        SPAIN("34", 600_000_000L, 100_000_000L),
+        ITALY("39", 3_000_000_000L, 1_000_000_000L),
+        UNITED_STATES("1", 2_000_000_000L, 1_000_000_000L);
+
+        private final String countryCode;
+        private final long rangeStart;
+        private final long rangeSize;
+
+        NumberingPlan(String countryCode, long rangeStart, long rangeSize) {
+            this.countryCode = countryCode;
+            this.rangeStart = rangeStart;
+            this.rangeSize = rangeSize;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.hubert.mobilerest.generator;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Loading the generated dataset on application startup, active only with "generate" profile, e.g.
+ * java -jar mobile-rest.war --spring.profiles.active=generate --mobile.generator.subscribers=1000000
+ */
+@Component
+@Profile("generate")
+public class DatasetGeneratorRunner implements ApplicationRunner {
+
+    private JdbcTemplate jdbcTemplate;
+    private DatasetGenerator datasetGenerator;
+
+    public DatasetGeneratorRunner(JdbcTemplate jdbcTemplate,
+                                  @Value("${mobile.generator.customers:1000}") int customers,
+                                  @Value("${mobile.generator.subscribers:100000}") int subscribers,
+                                  @Value("${mobile.generator.company-ratio:0.1}") double companyRatio,
+                                  @Value("${mobile.generator.owner-skew:4.0}") double ownerSkew,
+                                  @Value("${mobile.generator.years:10}") int years,
+                                  @Value("${mobile.generator.seed:42}") long seed) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.datasetGenerator = new DatasetGenerator(DatasetSettings.builder()
+                .customers(customers)
+                .subscribers(subscribers)
+                .companyRatio(companyRatio)
+                .ownerSkew(ownerSkew)
+                .years(years)
+                .seed(seed)
+                .build());
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        datasetGenerator.load(jdbcTemplate);
+    }
+}
@@ -0,0 +1,70 @@
+package com.hubert.mobilerest.generator;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+/**
+ * Volumes and distribution of the generated dataset
+ */
+@Getter
+@Builder
+@ToString
+public class DatasetSettings {
+    /**
+     * Number of customers, ids from 1 to customers
+     */
+    @Builder.Default
+    private int customers = 1_000;
+
+    /**
+     * Number of subscribers, ids from 1 to subscribers
+     */
+    @Builder.Default
+    private int subscribers = 100_000;
+
+    /**
+     * Part of the customers being companies (customers with the lowest ids, so the ones owning most of the numbers)
+     */
+    @Builder.Default
+    private double companyRatio = 0.1;
+
+    /**
+     * Skew of the owners distribution, 1 is uniform. With 4 the first 1% of customers owns about 30% of the numbers
+     */
+    @Builder.Default
+    private double ownerSkew = 4.0;
+
+    /**
+     * Part of the subscribers with prepaid service
+     */
+    @Builder.Default
+    private double prepaidRatio = 0.6;
+
+    /**
+     * Number of years the service start dates are spread over
+     */
+    @Builder.Default
+    private int years = 10;
+
+    /**
+     * Latest possible service start date (epoch in millis), start of the current day by default
+     */
+    @Builder.Default
+    private long lastServiceStartDate = LocalDate.now().atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+
+    /**
+     * Seed of the generated values, the same seed and volumes always give the same dataset
+     */
+    @Builder.Default
+    private long seed = 42L;
+
+    /**
+     * Number of rows sent to the database in one JDBC batch
+     */
+    @Builder.Default
+    private int batchSize = 10_000;
+}
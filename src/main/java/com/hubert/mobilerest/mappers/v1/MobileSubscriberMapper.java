@@ -22,6 +22,7 @@ public interface MobileSubscriberMapper {
     MobileSubscriberDto domainToDto(MobileSubscriber mobileSubscriber);
 
     @Mapping(target = "id", ignore = true)
+    @Mapping(target = "version", ignore = true)
     @Mapping(source = "userId", target = "user.id")
     @Mapping(source = "ownerId", target = "owner.id")
     @Mapping(source = "serviceType", target = "serviceType", qualifiedByName = "parseServiceType")
@@ -0,0 +1,64 @@
+package com.hubert.mobilerest.metrics;
+
+import com.hubert.mobilerest.exceptions.PreconditionFailedException;
+import com.hubert.mobilerest.exceptions.ResourceConflictException;
+import com.hubert.mobilerest.exceptions.ResourceNotFoundException;
+import com.hubert.mobilerest.exceptions.ValidationFailedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.core.Ordered;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+import org.springframework.web.servlet.ModelAndView;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Counting business exceptions returned to the clients. Exceptions are only counted,
+ * response is still resolved by the next resolvers (from @ResponseStatus of the exception)
+ */
+public class ExceptionMetricsResolver implements HandlerExceptionResolver, Ordered {
+    public static final String EXCEPTIONS = "mobile.exceptions";
+    private static final String APPLICATION_PACKAGE = "com.hubert.mobilerest.";
+
+    private MeterRegistry meterRegistry;
+
+    public ExceptionMetricsResolver(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public ModelAndView resolveException(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (ex instanceof ResourceNotFoundException || ex instanceof ValidationFailedException || ex instanceof ResourceConflictException
+                || ex instanceof PreconditionFailedException) {
+            Counter.builder(EXCEPTIONS)
+                    .description("Number of not found, validation, conflict and failed precondition errors returned to the clients")
+                    .tag("exception", ex.getClass().getSimpleName())
+                    .tag("cause", cause(ex))
+                    .tag("uri", MetricsUtils.uri(request))
+                    .register(meterRegistry)
+                    .increment();
+        }
+        return null;
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+
+    /**
+     * Cause of the exception is the application method that has thrown it (messages contain ids, so they cannot be used as tags)
+     * @param ex Thrown exception
+     * @return Class and method name, e.g. MobileSubscriberServiceImpl.obtainCustomer
+     */
+    static String cause(Exception ex) {
+        for (StackTraceElement element : ex.getStackTrace()) {
+            if (element.getClassName().startsWith(APPLICATION_PACKAGE)) {
+                String className = element.getClassName();
+                return className.substring(className.lastIndexOf('.') + 1) + "." + element.getMethodName();
+            }
+        }
+        return "unknown";
+    }
+}
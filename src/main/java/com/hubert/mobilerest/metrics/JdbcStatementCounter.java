@@ -0,0 +1,35 @@
+package com.hubert.mobilerest.metrics;
+
+import org.hibernate.BaseSessionEventListener;
+
+/**
+ * Hibernate session listener counting JDBC statements (and batches) executed by the current thread.
+ * Registered for every session by hibernate.session.events.auto property
+ */
+public class JdbcStatementCounter extends BaseSessionEventListener {
+    private static final ThreadLocal<long[]> EXECUTED_STATEMENTS = ThreadLocal.withInitial(() -> new long[1]);
+
+    /**
+     * Starting counting from zero for the current thread
+     */
+    public static void reset() {
+        EXECUTED_STATEMENTS.get()[0] = 0;
+    }
+
+    /**
+     * @return Number of statements executed by the current thread since the last reset
+     */
+    public static long getCount() {
+        return EXECUTED_STATEMENTS.get()[0];
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        EXECUTED_STATEMENTS.get()[0]++;
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        EXECUTED_STATEMENTS.get()[0]++;
+    }
+}
@@ -0,0 +1,24 @@
+package com.hubert.mobilerest.metrics;
+
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * Utility class for metrics tags
+ */
+public class MetricsUtils {
+    private MetricsUtils() {
+
+    }
+
+    /**
+     * Uri template of the handled request, so the requests with different ids have the same tag
+     * @param request Handled request
+     * @return Matched uri pattern or UNKNOWN if request was not mapped to any handler
+     */
+    public static String uri(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern != null ? pattern.toString() : "UNKNOWN";
+    }
+}
@@ -0,0 +1,41 @@
+package com.hubert.mobilerest.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Recording number of database statements executed while handling every request, tagged the same way as http.server.requests
+ */
+public class QueriesPerRequestFilter extends OncePerRequestFilter {
+    public static final String QUERIES_PER_REQUEST = "mobile.requests.queries";
+
+    private MeterRegistry meterRegistry;
+
+    public QueriesPerRequestFilter(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        JdbcStatementCounter.reset();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            DistributionSummary.builder(QUERIES_PER_REQUEST)
+                    .description("Number of database statements executed by one request")
+                    .tag("method", request.getMethod())
+                    .tag("uri", MetricsUtils.uri(request))
+                    .publishPercentileHistogram()
+                    .register(meterRegistry)
+                    .record(JdbcStatementCounter.getCount());
+        }
+    }
+}
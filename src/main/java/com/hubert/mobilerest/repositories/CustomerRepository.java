@@ -1,10 +1,23 @@
 package com.hubert.mobilerest.repositories;
 
 import com.hubert.mobilerest.domain.Customer;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
 
 /**
  * Repository for customer related database operations
  */
 public interface CustomerRepository extends CrudRepository<Customer, Long> {
+
+    /**
+     * Finding which of provided customer ids exist with single query, without loading the customers
+     * @param ids Customer ids to check
+     * @return Ids from provided collection that exist in the database
+     */
+    @Query("SELECT c.id FROM Customer c WHERE c.id IN :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
 }
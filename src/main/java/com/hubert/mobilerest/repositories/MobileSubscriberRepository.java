@@ -1,30 +1,72 @@
 package com.hubert.mobilerest.repositories;
 
 import com.hubert.mobilerest.domain.MobileSubscriber;
+import com.hubert.mobilerest.dto.v1.SubscriberIdDto;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Repository for MobileSubscriber database operations
  */
-public interface MobileSubscriberRepository extends CrudRepository<MobileSubscriber, Long> {
+public interface MobileSubscriberRepository extends CrudRepository<MobileSubscriber, Long>, JpaSpecificationExecutor<MobileSubscriber>,
+        MobileSubscriberRepositoryCustom {
 
     /**
-     * Finding Mobile Subscriber by given optional criteria parameters
+     * Number of rows fetched from database in one round trip while streaming subscribers
+     */
+    int STREAM_FETCH_SIZE = 500;
+
+    /**
+     * Finding Mobile Subscriber by given optional criteria parameters.
+     * Only provided criteria values are used in generated query, so database can use the matching index.
+     * Owners and users are fetched with the same query
      * @param criteria Criteria object for finding the data
      * @return List of objects matching criteria
      */
-    @Query("SELECT m FROM MobileSubscriber m " +
-            "WHERE (:#{#criteria == null ? null : #criteria.msisdn} IS NULL OR :#{#criteria == null ? null : #criteria.msisdn} = msIsdn) " +
-            "   AND (:#{#criteria == null ? null : #criteria.ownerId} IS NULL OR :#{#criteria == null ? null : #criteria.ownerId} = m.owner.id) " +
-            "   AND (:#{#criteria == null ? null : #criteria.userId} IS NULL OR :#{#criteria == null ? null : #criteria.userId} = m.user.id) " +
-            "   AND (:#{#criteria == null ? null : #criteria.serviceType} IS NULL OR :#{#criteria == null ? null : #criteria.serviceType} = m.serviceType) " +
-            "   AND (:#{#criteria == null ? null : #criteria.serviceStartDate} IS NULL OR :#{#criteria == null ? null : #criteria.serviceStartDate} = m.serviceStartDate)")
-    List<MobileSubscriber> findByCriteria(@Param("criteria") MobileSubscriber criteria);
+    default List<MobileSubscriber> findByCriteria(MobileSubscriber criteria) {
+        return findAll(Specification.where(MobileSubscriberSpecifications.fetchingCustomers())
+                .and(MobileSubscriberSpecifications.matchingCriteria(criteria)));
+    }
+
+    /**
+     * Streaming all the subscribers ordered by id. Rows are fetched from the database in chunks of STREAM_FETCH_SIZE,
+     * so the result set is never materialized in memory. Owners and users are fetched with the same query.
+     * Needs to be called inside a transaction and the stream needs to be closed
+     * @return Stream of all the subscribers
+     */
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "" + STREAM_FETCH_SIZE))
+    @Query("SELECT m FROM MobileSubscriber m LEFT JOIN FETCH m.owner LEFT JOIN FETCH m.user ORDER BY m.id")
+    Stream<MobileSubscriber> streamAll();
+
+    /**
+     * Streaming msisdns of all the subscribers, without loading the entities. Rows are fetched in chunks of STREAM_FETCH_SIZE.
+     * Needs to be called inside a transaction and the stream needs to be closed
+     * @return Stream of all the msisdns
+     */
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "" + STREAM_FETCH_SIZE))
+    @Query("SELECT m.msisdn FROM MobileSubscriber m")
+    Stream<String> streamAllMsisdns();
+
+    /**
+     * Streaming ids and msisdns of all the subscribers, without loading the entities. Rows are fetched in chunks of STREAM_FETCH_SIZE.
+     * Needs to be called inside a transaction and the stream needs to be closed
+     * @return Stream of ids and msisdns of all the subscribers
+     */
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "" + STREAM_FETCH_SIZE))
+    @Query("SELECT new com.hubert.mobilerest.dto.v1.SubscriberIdDto(m.id, m.msisdn) FROM MobileSubscriber m")
+    Stream<SubscriberIdDto> streamAllSubscriberIds();
 
     /**
      * Find first numeber wiht given msdnid
@@ -33,6 +75,14 @@ public interface MobileSubscriberRepository extends CrudRepository<MobileSubscri
      */
     Optional<MobileSubscriber> findFirstByMsisdn(String msdnid);
 
+    /**
+     * Finding which of provided msisdns are already present in the database with single query
+     * @param msisdns Msisdns to check
+     * @return Msisdns from provided collection that already exist
+     */
+    @Query("SELECT m.msisdn FROM MobileSubscriber m WHERE m.msisdn IN :msisdns")
+    List<String> findExistingMsisdns(@Param("msisdns") Collection<String> msisdns);
+
     /**
      * Verifies if there is a customer with provided msisdn and different id
      * @param msisdn Msisdn to search
@@ -40,4 +90,61 @@ public interface MobileSubscriberRepository extends CrudRepository<MobileSubscri
      * @return True if there is an entry with provided msisdn and different id
      */
     boolean existsByMsisdnAndIdNot(String msisdn, Long id);
+
+    /**
+     * Moving provided subscribers from one owner to another with single UPDATE statement in its own transaction.
+     * Subscribers which are not owned by the source customer anymore are skipped. Versions of transferred subscribers are incremented
+     * @param ids Ids of the subscribers to transfer
+     * @param sourceOwnerId Id of the current owner
+     * @param targetOwnerId Id of the new owner
+     * @return Number of transferred subscribers
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Transactional
+    @Query("UPDATE MobileSubscriber m SET m.owner.id = :targetOwnerId, m.version = m.version + 1 WHERE m.id IN :ids AND m.owner.id = :sourceOwnerId")
+    int transferOwner(@Param("ids") List<Long> ids, @Param("sourceOwnerId") Long sourceOwnerId, @Param("targetOwnerId") Long targetOwnerId);
+
+    /**
+     * Moving provided subscribers from one user to another with single UPDATE statement in its own transaction.
+     * Subscribers which are not used by the source customer anymore are skipped. Versions of transferred subscribers are incremented
+     * @param ids Ids of the subscribers to transfer
+     * @param sourceUserId Id of the current user
+     * @param targetUserId Id of the new user
+     * @return Number of transferred subscribers
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Transactional
+    @Query("UPDATE MobileSubscriber m SET m.user.id = :targetUserId, m.version = m.version + 1 WHERE m.id IN :ids AND m.user.id = :sourceUserId")
+    int transferUser(@Param("ids") List<Long> ids, @Param("sourceUserId") Long sourceUserId, @Param("targetUserId") Long targetUserId);
+
+    /**
+     * Removing the subscriber with single DELETE statement in its own transaction, without loading it first
+     * @param id Id of the subscriber to remove
+     * @return Number of removed subscribers (0 if subscriber not present)
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Transactional
+    @Query("DELETE FROM MobileSubscriber m WHERE m.id = :id")
+    int deleteSubscriberById(@Param("id") Long id);
+
+    /**
+     * Removing the subscriber with single DELETE statement in its own transaction, only if it still has the expected version
+     * @param id Id of the subscriber to remove
+     * @param version Expected version of the subscriber
+     * @return Number of removed subscribers (0 if subscriber not present or has different version)
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Transactional
+    @Query("DELETE FROM MobileSubscriber m WHERE m.id = :id AND m.version = :version")
+    int deleteSubscriberByIdAndVersion(@Param("id") Long id, @Param("version") Long version);
+
+    /**
+     * Removing provided subscribers with single DELETE statement in its own transaction. Ids that are not present are skipped
+     * @param ids Ids of the subscribers to remove
+     * @return Number of removed subscribers
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Transactional
+    @Query("DELETE FROM MobileSubscriber m WHERE m.id IN :ids")
+    int deleteSubscribersByIds(@Param("ids") Collection<Long> ids);
 }
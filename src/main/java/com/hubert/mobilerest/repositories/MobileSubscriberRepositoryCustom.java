@@ -0,0 +1,120 @@
+package com.hubert.mobilerest.repositories;
+
+import com.hubert.mobilerest.domain.MobileSubscriber;
+import com.hubert.mobilerest.domain.ServiceType;
+import com.hubert.mobilerest.dto.v1.MobileSubscriberDto;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Custom MobileSubscriber database operations which cannot be derived by Spring Data
+ */
+public interface MobileSubscriberRepositoryCustom {
+
+    /**
+     * Finding page of Mobile Subscribers matching optional criteria, seeking on id instead of using offset,
+     * so every page costs the same regardless of its position in the dataset
+     * @param criteria Criteria object for finding the data
+     * @param afterId Id of the last element from previous page (0 for the first page)
+     * @param pageable Page limit (only page size is used, offset should always be 0)
+     * @return List of objects matching criteria with id greater than afterId ordered by id
+     */
+    List<MobileSubscriber> findByCriteriaAfterId(MobileSubscriber criteria, Long afterId, Pageable pageable);
+
+    /**
+     * Finding ids of Mobile Subscribers matching optional criteria, seeking on id the same way as findByCriteriaAfterId.
+     * Only ids are selected, so no subscribers and customers are loaded
+     * @param criteria Criteria object for finding the data
+     * @param afterId Id of the last element from previous chunk (0 for the first chunk)
+     * @param limit Maximum number of returned ids
+     * @return Ids of the subscribers matching criteria greater than afterId in ascending order
+     */
+    List<Long> findIdsByCriteriaAfterId(MobileSubscriber criteria, Long afterId, int limit);
+
+    /**
+     * Finding Mobile Subscribers matching optional criteria as transfer objects.
+     * Only subscriber columns (including owner and user foreign keys) are selected, so customers are not joined
+     * and no entities are loaded into the persistence context
+     * @param criteria Criteria object for finding the data
+     * @return Transfer objects of the subscribers matching criteria
+     */
+    List<MobileSubscriberDto> findDtosByCriteria(MobileSubscriber criteria);
+
+    /**
+     * Finding page of Mobile Subscribers matching optional criteria as transfer objects, seeking on id the same way as findByCriteriaAfterId.
+     * Only subscriber columns are selected, the same way as in findDtosByCriteria
+     * @param criteria Criteria object for finding the data
+     * @param afterId Id of the last element from previous page (0 for the first page)
+     * @param limit Maximum number of returned subscribers
+     * @return Transfer objects of the subscribers matching criteria with id greater than afterId ordered by id
+     */
+    List<MobileSubscriberDto> findDtosByCriteriaAfterId(MobileSubscriber criteria, Long afterId, int limit);
+
+    /**
+     * Finding page of Mobile Subscribers with msisdn starting with provided digits as transfer objects, seeking on msisdn.
+     * Prefix is matched with range scan of the msisdn index (see MobileSubscriberSpecifications.msisdnStartingWith).
+     * Msisdns are ordered as text, also numeric ones ("numeric-msisdn" profile), so the order doesn't depend on the msisdn storage
+     * @param msisdnPrefix Decimal digits of the prefix
+     * @param afterMsisdn Msisdn of the last element from previous page (null for the first page)
+     * @param limit Maximum number of returned subscribers
+     * @return Transfer objects of the subscribers with the prefix and msisdn greater than afterMsisdn ordered by msisdn as text
+     */
+    List<MobileSubscriberDto> findDtosByMsisdnPrefix(String msisdnPrefix, String afterMsisdn, int limit);
+
+    /**
+     * Counting subscribers with msisdn starting with provided digits, with range scan of the msisdn index
+     * @param msisdnPrefix Decimal digits of the prefix
+     * @return Number of subscribers with the prefix
+     */
+    long countByMsisdnPrefix(String msisdnPrefix);
+
+    /**
+     * Counting subscribers per service type with single GROUP BY query
+     * @return Number of subscribers for every service type with subscribers
+     */
+    Map<ServiceType, Long> countByServiceType();
+
+    /**
+     * Counting subscribers per owner with single GROUP BY query on the owner foreign key, customers are not joined
+     * @return Number of subscribers for every owner id with subscribers
+     */
+    Map<Long, Long> countByOwner();
+
+    /**
+     * Counting subscribers per UTC day of the service start with single GROUP BY query.
+     * Day is computed from the stored epoch millis by floor division, the same way as in DateUtils.utcDayFromLocalDateTime
+     * @return Number of subscribers for every day with service starts
+     */
+    Map<LocalDate, Long> countByServiceStartDay();
+
+    /**
+     * Finding Mobile Subscribers with provided ids as transfer objects with single query.
+     * Only subscriber columns are selected, the same way as in findDtosByCriteria
+     * @param ids Ids of the subscribers
+     * @return Transfer objects of the subscribers present in the database, in no particular order
+     */
+    List<MobileSubscriberDto> findDtosByIds(Collection<Long> ids);
+
+    /**
+     * Finding subscriber columns by id with single query, without joining the customers.
+     * Returned subscriber is not managed, its owner and user are only holders of the customer ids
+     * @param id Subscriber id
+     * @return Snapshot of the subscriber, empty if not present
+     */
+    Optional<MobileSubscriber> findSnapshotById(Long id);
+
+    /**
+     * Updating only the columns (service type, owner, user) which differ between current and changed subscriber with single UPDATE.
+     * Row is updated only if it still has the version of the current subscriber, so concurrent modification is not overwritten.
+     * Version is incremented by the update. Needs to be called inside a transaction
+     * @param current Subscriber state the changes were based on (e.g. from findSnapshotById)
+     * @param changed Subscriber with applied changes, at least one column needs to be changed
+     * @return Number of updated subscribers, 0 if the subscriber was modified or removed in the meantime
+     */
+    int updateChangedColumns(MobileSubscriber current, MobileSubscriber changed);
+}
@@ -0,0 +1,235 @@
+package com.hubert.mobilerest.repositories;
+
+import com.hubert.mobilerest.domain.Customer;
+import com.hubert.mobilerest.domain.MobileSubscriber;
+import com.hubert.mobilerest.domain.ServiceType;
+import com.hubert.mobilerest.dto.v1.MobileSubscriberDto;
+import com.hubert.mobilerest.utils.DateUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import javax.persistence.Tuple;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Root;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Implementation of custom MobileSubscriber database operations
+ */
+public class MobileSubscriberRepositoryCustomImpl implements MobileSubscriberRepositoryCustom {
+
+    private EntityManager entityManager;
+    private boolean numericMsisdn;
+
+    public MobileSubscriberRepositoryCustomImpl(EntityManager entityManager,
+                                                @Value("${mobile.msisdn.numeric-storage:false}") boolean numericMsisdn) {
+        this.entityManager = entityManager;
+        this.numericMsisdn = numericMsisdn;
+    }
+
+    @Override
+    public List<MobileSubscriber> findByCriteriaAfterId(MobileSubscriber criteria, Long afterId, Pageable pageable) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<MobileSubscriber> query = cb.createQuery(MobileSubscriber.class);
+        Root<MobileSubscriber> root = query.from(MobileSubscriber.class);
+        query.select(root);
+        //limit is applied directly, no count query needed for keyset pagination
+        return findAfterId(query, root, criteria, afterId, pageable.getPageSize());
+    }
+
+    @Override
+    public List<Long> findIdsByCriteriaAfterId(MobileSubscriber criteria, Long afterId, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<MobileSubscriber> root = query.from(MobileSubscriber.class);
+        query.select(root.get("id"));
+        return findAfterId(query, root, criteria, afterId, limit);
+    }
+
+    @Override
+    public List<MobileSubscriberDto> findDtosByCriteria(MobileSubscriber criteria) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<MobileSubscriber> root = query.from(MobileSubscriber.class);
+        selectDtoColumns(query, root);
+        query.where(MobileSubscriberSpecifications.matchingCriteria(criteria).toPredicate(root, query, cb));
+        return toDtos(entityManager.createQuery(query).getResultList());
+    }
+
+    @Override
+    public List<MobileSubscriberDto> findDtosByCriteriaAfterId(MobileSubscriber criteria, Long afterId, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<MobileSubscriber> root = query.from(MobileSubscriber.class);
+        selectDtoColumns(query, root);
+        return toDtos(findAfterId(query, root, criteria, afterId, limit));
+    }
+
+    @Override
+    public List<MobileSubscriberDto> findDtosByMsisdnPrefix(String msisdnPrefix, String afterMsisdn, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<MobileSubscriber> root = query.from(MobileSubscriber.class);
+        selectDtoColumns(query, root);
+        Specification<MobileSubscriber> specification = Specification
+                .where(MobileSubscriberSpecifications.msisdnStartingWith(msisdnPrefix, numericMsisdn))
+                .and(MobileSubscriberSpecifications.msisdnGreaterThan(afterMsisdn, numericMsisdn));
+        query.where(specification.toPredicate(root, query, cb))
+                .orderBy(cb.asc(MobileSubscriberSpecifications.msisdnText(root, cb, numericMsisdn)));
+        return toDtos(entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList());
+    }
+
+    @Override
+    public long countByMsisdnPrefix(String msisdnPrefix) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<MobileSubscriber> root = query.from(MobileSubscriber.class);
+        query.select(cb.count(root))
+                .where(MobileSubscriberSpecifications.msisdnStartingWith(msisdnPrefix, numericMsisdn).toPredicate(root, query, cb));
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    @Override
+    public Map<ServiceType, Long> countByServiceType() {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<MobileSubscriber> root = query.from(MobileSubscriber.class);
+        query.multiselect(root.get("serviceType"), cb.count(root))
+                .groupBy(root.get("serviceType"));
+        return entityManager.createQuery(query).getResultList().stream()
+                .collect(Collectors.toMap(tuple -> tuple.get(0, ServiceType.class), tuple -> tuple.get(1, Long.class)));
+    }
+
+    @Override
+    public Map<Long, Long> countByOwner() {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<MobileSubscriber> root = query.from(MobileSubscriber.class);
+        //owner id is read from the foreign key column, so no join with customers is generated
+        query.multiselect(root.get("owner").get("id"), cb.count(root))
+                .groupBy(root.get("owner").get("id"));
+        return entityManager.createQuery(query).getResultList().stream()
+                .collect(Collectors.toMap(tuple -> tuple.get(0, Long.class), tuple -> tuple.get(1, Long.class)));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Map<LocalDate, Long> countByServiceStartDay() {
+        //service start date is stored as epoch millis (LocalDateTimeEpochConverter), arithmetic on it is not available in JPQL
+        //integer division truncates toward zero, so days before 1970 are computed with FLOOR of decimal division
+        String day = "FLOOR(SERVICE_START_DATE / " + DateUtils.MILLIS_PER_DAY + ".0)";
+        List<Object[]> rows = entityManager.createNativeQuery("SELECT " + day + ", COUNT(*) FROM MOBILE_SUBSCRIBER GROUP BY " + day)
+                .getResultList();
+        return rows.stream()
+                .collect(Collectors.toMap(row -> LocalDate.ofEpochDay(((Number) row[0]).longValue()), row -> ((Number) row[1]).longValue()));
+    }
+
+    @Override
+    public List<MobileSubscriberDto> findDtosByIds(Collection<Long> ids) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<MobileSubscriber> root = query.from(MobileSubscriber.class);
+        selectDtoColumns(query, root);
+        query.where(root.get("id").in(ids));
+        return toDtos(entityManager.createQuery(query).getResultList());
+    }
+
+    @Override
+    public Optional<MobileSubscriber> findSnapshotById(Long id) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<MobileSubscriber> root = query.from(MobileSubscriber.class);
+        selectDtoColumns(query, root);
+        query.where(cb.equal(root.get("id"), id));
+        return entityManager.createQuery(query).getResultList().stream()
+                .map(tuple -> MobileSubscriber.builder()
+                        .id(tuple.get("id", Long.class))
+                        .msisdn(tuple.get("msisdn", String.class))
+                        .owner(new Customer(tuple.get("ownerId", Long.class)))
+                        .user(new Customer(tuple.get("userId", Long.class)))
+                        .serviceType(tuple.get("serviceType", ServiceType.class))
+                        .serviceStartDate(tuple.get("serviceStartDate", LocalDateTime.class))
+                        .version(tuple.get("version", Long.class))
+                        .build())
+                .findFirst();
+    }
+
+    @Override
+    public int updateChangedColumns(MobileSubscriber current, MobileSubscriber changed) {
+        List<String> assignments = new ArrayList<>();
+        Map<String, Object> parameters = new HashMap<>();
+        addChangedColumn("serviceType", "m.serviceType", current.getServiceType(), changed.getServiceType(), assignments, parameters);
+        addChangedColumn("ownerId", "m.owner.id", current.getOwnerId(), changed.getOwnerId(), assignments, parameters);
+        addChangedColumn("userId", "m.user.id", current.getUserId(), changed.getUserId(), assignments, parameters);
+        if (assignments.isEmpty()) {
+            throw new IllegalArgumentException("No changed columns to update for subscriber " + current.getId());
+        }
+        Query update = entityManager.createQuery("UPDATE MobileSubscriber m SET " + String.join(", ", assignments)
+                + ", m.version = m.version + 1 WHERE m.id = :id AND m.version = :version");
+        update.setParameter("id", current.getId());
+        update.setParameter("version", current.getVersion());
+        parameters.forEach(update::setParameter);
+        return update.executeUpdate();
+    }
+
+    private void addChangedColumn(String name, String path, Object currentValue, Object changedValue, List<String> assignments,
+                                  Map<String, Object> parameters) {
+        if (changedValue == null || Objects.equals(currentValue, changedValue)) {
+            return;
+        }
+        assignments.add(path + " = :" + name);
+        parameters.put(name, changedValue);
+    }
+
+    private void selectDtoColumns(CriteriaQuery<Tuple> query, Root<MobileSubscriber> root) {
+        //ids of owner and user are read from the foreign key columns, so no join with customers is generated
+        query.multiselect(root.get("id").alias("id"),
+                root.get("msisdn").alias("msisdn"),
+                root.get("owner").get("id").alias("ownerId"),
+                root.get("user").get("id").alias("userId"),
+                root.get("serviceType").alias("serviceType"),
+                root.get("serviceStartDate").alias("serviceStartDate"),
+                root.get("version").alias("version"));
+    }
+
+    private List<MobileSubscriberDto> toDtos(List<Tuple> tuples) {
+        return tuples.stream()
+                .map(tuple -> MobileSubscriberDto.builder()
+                        .id(tuple.get("id", Long.class))
+                        .msisdn(tuple.get("msisdn", String.class))
+                        .ownerId(tuple.get("ownerId", Long.class))
+                        .userId(tuple.get("userId", Long.class))
+                        .serviceType(tuple.get("serviceType", ServiceType.class).name())
+                        .serviceStartDate(DateUtils.epochFromLocalDateTime(tuple.get("serviceStartDate", LocalDateTime.class)))
+                        .version(tuple.get("version", Long.class))
+                        .build())
+                .collect(Collectors.toList());
+    }
+
+    private <T> List<T> findAfterId(CriteriaQuery<T> query, Root<MobileSubscriber> root, MobileSubscriber criteria, Long afterId, int limit) {
+        Specification<MobileSubscriber> specification = Specification.where(MobileSubscriberSpecifications.idGreaterThan(afterId))
+                .and(MobileSubscriberSpecifications.matchingCriteria(criteria))
+                .and(MobileSubscriberSpecifications.fetchingCustomers());
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        query.where(specification.toPredicate(root, query, cb))
+                .orderBy(cb.asc(root.get("id")));
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+}
@@ -0,0 +1,149 @@
+package com.hubert.mobilerest.repositories;
+
+import com.hubert.mobilerest.domain.MobileSubscriber;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.JoinType;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Specifications used for searching the subscribers.
+ * Only predicates for provided criteria values are generated, so every combination of criteria gets its own query
+ * that can be planned with the matching index instead of one catch-all query
+ */
+public class MobileSubscriberSpecifications {
+    //E.164 msisdn has at most 15 digits
+    private static final int MAX_MSISDN_DIGITS = 15;
+
+    private MobileSubscriberSpecifications() {
+
+    }
+
+    /**
+     * Specification matching all the subscribers fulfilling provided criteria
+     * @param criteria Criteria object, null or empty criteria matches all the subscribers
+     * @return Specification with predicate for every non empty criteria value
+     */
+    public static Specification<MobileSubscriber> matchingCriteria(MobileSubscriber criteria) {
+        return (root, query, cb) -> cb.and(criteriaPredicates(root, cb, criteria).toArray(new Predicate[0]));
+    }
+
+    /**
+     * Specification matching subscribers with id greater than provided one (seek condition for keyset pagination)
+     * @param afterId Id of the last element from the previous page
+     * @return Specification with id predicate, or no predicate if id not provided
+     */
+    public static Specification<MobileSubscriber> idGreaterThan(Long afterId) {
+        return (root, query, cb) -> afterId == null ? cb.and() : cb.greaterThan(root.get("id"), afterId);
+    }
+
+    /**
+     * Specification matching subscribers with msisdn starting with provided digits. Prefix is compared as a range
+     * (from the prefix up to the next prefix, e.g. 48500 to 48501), so the msisdn unique index is scanned only over the matching block
+     * instead of evaluating LIKE for every row.
+     * Numeric msisdn ("numeric-msisdn" profile) is compared as a number, so there is one range for every msisdn length
+     * (e.g. 4850000000 to 4850099999, 48500000000 to 48500999999 and so on up to 15 digits)
+     * @param msisdnPrefix Decimal digits of the prefix
+     * @param numericMsisdn True if msisdn is stored as a number
+     * @return Specification with msisdn range predicate
+     */
+    public static Specification<MobileSubscriber> msisdnStartingWith(String msisdnPrefix, boolean numericMsisdn) {
+        if (numericMsisdn) {
+            return (root, query, cb) -> {
+                List<Predicate> ranges = new ArrayList<>();
+                long prefix = Long.parseLong(msisdnPrefix);
+                long scale = 1;
+                for (int length = msisdnPrefix.length(); length <= MAX_MSISDN_DIGITS; length++) {
+                    //values are bound as msisdns and converted to numbers, the upper bound can have one digit more
+                    ranges.add(cb.and(cb.greaterThanOrEqualTo(root.get("msisdn"), Long.toString(prefix * scale)),
+                            cb.lessThan(root.get("msisdn"), Long.toString((prefix + 1) * scale))));
+                    scale *= 10;
+                }
+                return cb.or(ranges.toArray(new Predicate[0]));
+            };
+        }
+        return (root, query, cb) -> {
+            Predicate from = cb.greaterThanOrEqualTo(root.get("msisdn"), msisdnPrefix);
+            String nextPrefix = nextPrefix(msisdnPrefix);
+            //there is no next prefix for nines only, all the greater msisdns match
+            return nextPrefix == null ? from : cb.and(from, cb.lessThan(root.get("msisdn"), nextPrefix));
+        };
+    }
+
+    /**
+     * Specification matching subscribers with msisdn greater than provided one (seek condition for paging in msisdn order).
+     * Msisdns are compared as text, see msisdnText
+     * @param afterMsisdn Msisdn of the last element from the previous page
+     * @param numericMsisdn True if msisdn is stored as a number
+     * @return Specification with msisdn predicate, or no predicate if msisdn not provided
+     */
+    public static Specification<MobileSubscriber> msisdnGreaterThan(String afterMsisdn, boolean numericMsisdn) {
+        return (root, query, cb) -> afterMsisdn == null ? cb.and() : cb.greaterThan(msisdnText(root, cb, numericMsisdn), afterMsisdn);
+    }
+
+    /**
+     * Msisdn as text, used for paging in msisdn order. Numeric msisdn ("numeric-msisdn" profile) is converted to its decimal digits,
+     * so msisdns of different lengths are ordered the same way as with VARCHAR msisdn and in the msisdn index trie
+     * (e.g. 48500123456 before 4859001). Rows are still matched with the numeric ranges, only the matching ones are sorted
+     * @param root Root of the subscribers query
+     * @param cb Criteria builder of the query
+     * @param numericMsisdn True if msisdn is stored as a number
+     * @return Msisdn column or its conversion to text
+     */
+    static Expression<String> msisdnText(Root<MobileSubscriber> root, CriteriaBuilder cb, boolean numericMsisdn) {
+        return numericMsisdn ? cb.function("str", String.class, root.get("msisdn")) : root.get("msisdn");
+    }
+
+    /**
+     * Specification fetching owners and users together with the subscribers. Both associations are loaded eagerly,
+     * so without the fetch every distinct customer of the result would be loaded with its own query (N+1)
+     * @return Specification without predicate, only adding the fetch joins to the entity queries
+     */
+    public static Specification<MobileSubscriber> fetchingCustomers() {
+        return (root, query, cb) -> {
+            //projection and count queries cannot fetch associations
+            if (MobileSubscriber.class.equals(query.getResultType())) {
+                root.fetch("owner", JoinType.LEFT);
+                root.fetch("user", JoinType.LEFT);
+            }
+            return null;
+        };
+    }
+
+    private static String nextPrefix(String prefix) {
+        int last = prefix.length() - 1;
+        while (last >= 0 && prefix.charAt(last) == '9') {
+            last--;
+        }
+        return last < 0 ? null : prefix.substring(0, last) + (char) (prefix.charAt(last) + 1);
+    }
+
+    private static List<Predicate> criteriaPredicates(Root<MobileSubscriber> root, CriteriaBuilder cb, MobileSubscriber criteria) {
+        List<Predicate> predicates = new ArrayList<>();
+        if (criteria == null) {
+            return predicates;
+        }
+        if (criteria.getMsisdn() != null) {
+            predicates.add(cb.equal(root.get("msisdn"), criteria.getMsisdn()));
+        }
+        //comparing foreign key columns directly, so no join with customers is generated
+        if (criteria.getOwnerId() != null) {
+            predicates.add(cb.equal(root.get("owner").get("id"), criteria.getOwnerId()));
+        }
+        if (criteria.getUserId() != null) {
+            predicates.add(cb.equal(root.get("user").get("id"), criteria.getUserId()));
+        }
+        if (criteria.getServiceType() != null) {
+            predicates.add(cb.equal(root.get("serviceType"), criteria.getServiceType()));
+        }
+        if (criteria.getServiceStartDate() != null) {
+            predicates.add(cb.equal(root.get("serviceStartDate"), criteria.getServiceStartDate()));
+        }
+        return predicates;
+    }
+}
@@ -0,0 +1,9 @@
+package com.hubert.mobilerest.services;
+
+import java.util.Collection;
+import java.util.Set;
+
+public interface CustomerService {
+    boolean customerExists(Long id);
+    Set<Long> findExistingCustomerIds(Collection<Long> ids);
+}
@@ -0,0 +1,48 @@
+package com.hubert.mobilerest.services;
+
+import com.hubert.mobilerest.config.CacheConfig;
+import com.hubert.mobilerest.config.MetricsConfig;
+import com.hubert.mobilerest.repositories.CustomerRepository;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Service for customers data
+ */
+@Service
+public class CustomerServiceImpl implements CustomerService {
+
+    private CustomerRepository customerRepository;
+
+    public CustomerServiceImpl(CustomerRepository customerRepository) {
+        this.customerRepository = customerRepository;
+    }
+
+    /**
+     * Checking if customer exists. Only existing customers are cached, so newly created ones are visible immediately
+     * @param id Customer id
+     * @return True if customer with given id is present in the database
+     */
+    @Override
+    @Cacheable(cacheNames = CacheConfig.CUSTOMERS_CACHE, unless = "!#result")
+    @Timed(MetricsConfig.SERVICE_TIMER)
+    public boolean customerExists(Long id) {
+        return id != null && customerRepository.existsById(id);
+    }
+
+    /**
+     * Checking which customers exist with single query
+     * @param ids Customer ids
+     * @return Ids of existing customers
+     */
+    @Override
+    @Timed(MetricsConfig.SERVICE_TIMER)
+    public Set<Long> findExistingCustomerIds(Collection<Long> ids) {
+        return ids.isEmpty() ? Set.of() : new HashSet<>(customerRepository.findExistingIds(ids));
+    }
+}
@@ -1,14 +1,34 @@
 package com.hubert.mobilerest.services;
 
+import com.hubert.mobilerest.domain.CustomerRole;
 import com.hubert.mobilerest.domain.MobileSubscriber;
+import com.hubert.mobilerest.domain.ServiceType;
+import com.hubert.mobilerest.dto.v1.MobileSubscriberDto;
+import com.hubert.mobilerest.dto.v1.SubscriberStatisticsDto;
+import org.springframework.data.domain.Slice;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface MobileSubscriberService {
     MobileSubscriber findSubscriberById(Long id);
+    MobileSubscriberDto findSubscriberDtoById(Long id);
     List<MobileSubscriber> findSubscribersByCriteria(MobileSubscriber criteria);
+    List<MobileSubscriberDto> findSubscriberDtosByCriteria(MobileSubscriber criteria);
+    Slice<MobileSubscriberDto> findSubscriberDtosPage(MobileSubscriber criteria, Long afterId, int pageSize);
+    void exportSubscribers(Consumer<MobileSubscriber> consumer);
+    void rebuildMsisdnFilter();
+    void rebuildMsisdnIndex();
+    void reconcileStatistics();
+    SubscriberStatisticsDto findSubscriberStatistics();
+    Long resolveSubscriberId(String msisdn);
+    Slice<MobileSubscriberDto> findSubscriberDtosByMsisdnPrefix(String msisdnPrefix, String afterMsisdn, int pageSize);
+    long countSubscribersByMsisdnPrefix(String msisdnPrefix);
     MobileSubscriber createNewSubscriber(MobileSubscriber toPersist);
+    List<SubscriberCreationResult> createNewSubscribers(List<MobileSubscriber> toPersist);
     MobileSubscriber updateSubscriber(MobileSubscriber toUpdate, Long id);
     MobileSubscriber patchSubscriber(MobileSubscriber toPatch, Long id);
-    void deleteSubscriberById(Long id);
+    void deleteSubscriberById(Long id, Long expectedVersion);
+    long deleteSubscribers(List<Long> ids, MobileSubscriber criteria);
+    long transferSubscribers(Long sourceCustomerId, Long targetCustomerId, CustomerRole role, ServiceType serviceType);
 }
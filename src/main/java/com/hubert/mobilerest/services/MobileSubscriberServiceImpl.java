@@ -1,23 +1,55 @@
 package com.hubert.mobilerest.services;
 
+import com.hubert.mobilerest.config.CacheConfig;
+import com.hubert.mobilerest.config.MetricsConfig;
 import com.hubert.mobilerest.domain.Customer;
+import com.hubert.mobilerest.domain.CustomerRole;
 import com.hubert.mobilerest.domain.MobileSubscriber;
+import com.hubert.mobilerest.domain.ServiceType;
+import com.hubert.mobilerest.dto.v1.MobileSubscriberDto;
+import com.hubert.mobilerest.dto.v1.SubscriberIdDto;
+import com.hubert.mobilerest.dto.v1.SubscriberStatisticsDto;
+import com.hubert.mobilerest.exceptions.PreconditionFailedException;
+import com.hubert.mobilerest.exceptions.ResourceConflictException;
 import com.hubert.mobilerest.exceptions.ResourceNotFoundException;
 import com.hubert.mobilerest.exceptions.ValidationFailedException;
-import com.hubert.mobilerest.repositories.CustomerRepository;
+import com.hubert.mobilerest.mappers.v1.MobileSubscriberMapper;
 import com.hubert.mobilerest.repositories.MobileSubscriberRepository;
+import io.micrometer.core.annotation.Timed;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.collections4.IterableUtils;
+import org.hibernate.exception.ConstraintViolationException;
+import org.hibernate.exception.LockAcquisitionException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceException;
 import javax.transaction.Transactional;
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
+import java.sql.SQLException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
-import java.util.stream.StreamSupport;
+import java.util.stream.Stream;
 
 /**
  * Service for manipulating subscribers data
@@ -25,13 +57,36 @@ import java.util.stream.StreamSupport;
 @Slf4j
 @Service
 public class MobileSubscriberServiceImpl implements MobileSubscriberService {
+    //error code of H2 (runtime dependency only) for insert of a unique value not committed yet by another transaction
+    private static final int H2_CONCURRENT_UPDATE = 90131;
 
     private MobileSubscriberRepository subscriberRepository;
-    private CustomerRepository customerRepository;
+    private CustomerService customerService;
+    private EntityManager entityManager;
+    private MobileSubscriberMapper mobileSubscriberMapper;
+    private MsisdnFilter msisdnFilter;
+    private MsisdnIndex msisdnIndex;
+    private SubscriberStatistics subscriberStatistics;
+    private int transferChunkSize;
+    private int batchMaxSize;
+    private int deletionChunkSize;
 
-    public MobileSubscriberServiceImpl(MobileSubscriberRepository subscriberRepository, CustomerRepository customerRepository) {
+    public MobileSubscriberServiceImpl(MobileSubscriberRepository subscriberRepository, CustomerService customerService,
+                                       EntityManager entityManager, MobileSubscriberMapper mobileSubscriberMapper, MsisdnFilter msisdnFilter,
+                                       MsisdnIndex msisdnIndex, SubscriberStatistics subscriberStatistics,
+                                       @Value("${mobile.subscribers.transfer.chunk-size:1000}") int transferChunkSize,
+                                       @Value("${mobile.subscribers.batch.max-size:5000}") int batchMaxSize,
+                                       @Value("${mobile.subscribers.deletion.chunk-size:1000}") int deletionChunkSize) {
         this.subscriberRepository = subscriberRepository;
-        this.customerRepository = customerRepository;
+        this.customerService = customerService;
+        this.entityManager = entityManager;
+        this.mobileSubscriberMapper = mobileSubscriberMapper;
+        this.msisdnFilter = msisdnFilter;
+        this.msisdnIndex = msisdnIndex;
+        this.subscriberStatistics = subscriberStatistics;
+        this.transferChunkSize = transferChunkSize;
+        this.batchMaxSize = batchMaxSize;
+        this.deletionChunkSize = deletionChunkSize;
     }
 
     /**
@@ -40,6 +95,7 @@ public class MobileSubscriberServiceImpl implements MobileSubscriberService {
      * @return Found subscriber with id
      */
     @Override
+    @Timed(MetricsConfig.SERVICE_TIMER)
     public MobileSubscriber findSubscriberById(Long id) {
         Optional<MobileSubscriber> subscriber = subscriberRepository.findById(id);
         if (subscriber.isPresent()) {
@@ -50,138 +106,568 @@ public class MobileSubscriberServiceImpl implements MobileSubscriberService {
         }
     }
 
+    /**
+     * Returning mapped subscriber for provided id. Results are cached until the subscriber is updated, patched or removed.
+     * ResourceNotFound will be thrown if no customer with given id present
+     * @param id Subscriber id
+     * @return Found subscriber with id
+     */
+    @Override
+    @Cacheable(cacheNames = CacheConfig.SUBSCRIBERS_CACHE)
+    @Timed(MetricsConfig.SERVICE_TIMER)
+    public MobileSubscriberDto findSubscriberDtoById(Long id) {
+        return mobileSubscriberMapper.domainToDto(findSubscriberById(id));
+    }
+
     /**
      * Search subscribers by criteria.
-     * If no criteria provided, then it lists all the subscribers in the database
+     * If no criteria provided, then it lists all the subscribers in the database.
+     * Msisdn not present in the msisdn filter is reported as not found without a query
      * @param criteria Criteria parameters
      * @return Subscribers matching provided criteria. If all values are empty, then it lists all the subscribers in the database
      */
     @Override
+    @Timed(MetricsConfig.SERVICE_TIMER)
     public List<MobileSubscriber> findSubscribersByCriteria(MobileSubscriber criteria) {
-        Iterable<MobileSubscriber> result;
-        if (criteria == null || criteria.isEmpty()) {     //for optimization
-            result = subscriberRepository.findAll();
+        verifyMsisdnMightExist(criteria);
+        //empty criteria also goes through the criteria query, so owners and users are fetched with the subscribers
+        List<MobileSubscriber> result = subscriberRepository.findByCriteria(criteria);
+        if (result.isEmpty() && criteria != null && !criteria.isEmpty()) {
+            recordMsisdnFalsePositive(criteria);
+            throw new ResourceNotFoundException("No subscribers found for given criteria");
+        }
+        return result;
+    }
+
+    /**
+     * Search subscribers by criteria, returning transfer objects read directly from the subscribers table.
+     * Customers are not joined and no entities are loaded, so it's used for listing the subscribers.
+     * If no criteria provided, then it lists all the subscribers in the database.
+     * Msisdn not present in the msisdn filter is reported as not found without a query
+     * @param criteria Criteria parameters
+     * @return Subscribers matching provided criteria. If all values are empty, then it lists all the subscribers in the database
+     */
+    @Override
+    @Timed(MetricsConfig.SERVICE_TIMER)
+    public List<MobileSubscriberDto> findSubscriberDtosByCriteria(MobileSubscriber criteria) {
+        verifyMsisdnMightExist(criteria);
+        List<MobileSubscriberDto> result = subscriberRepository.findDtosByCriteria(criteria);
+        if (result.isEmpty() && criteria != null && !criteria.isEmpty()) {
+            recordMsisdnFalsePositive(criteria);
+            throw new ResourceNotFoundException("No subscribers found for given criteria");
+        }
+        return result;
+    }
+
+    /**
+     * Search one page of subscribers by criteria using keyset pagination on subscriber id.
+     * Transfer objects are read the same way as in findSubscriberDtosByCriteria.
+     * If no criteria provided, then it pages through all the subscribers in the database.
+     * Msisdn not present in the msisdn filter is reported as not found (first page) or empty page without a query
+     * @param criteria Criteria parameters
+     * @param afterId Id of the last subscriber from the previous page, null for the first page
+     * @param pageSize Maximum number of subscribers on the page
+     * @return Page of subscribers ordered by id, with information if there is a next page available
+     */
+    @Override
+    @Timed(MetricsConfig.SERVICE_TIMER)
+    public Slice<MobileSubscriberDto> findSubscriberDtosPage(MobileSubscriber criteria, Long afterId, int pageSize) {
+        if (pageSize < 1) {
+            throw new ValidationFailedException("Page size must be greater than zero");
+        }
+        if (afterId == null) {
+            verifyMsisdnMightExist(criteria);
+        } else if (criteria != null && criteria.getMsisdn() != null && !msisdnFilter.mightContain(criteria.getMsisdn())) {
+            return new SliceImpl<>(List.of(), PageRequest.of(0, pageSize), false);
+        }
+        //one additional element is fetched to find out if the next page exists without counting
+        List<MobileSubscriberDto> result = subscriberRepository.findDtosByCriteriaAfterId(criteria, afterId == null ? 0L : afterId,
+                pageSize + 1);
+        if (result.isEmpty() && afterId == null && criteria != null && !criteria.isEmpty()) {
+            recordMsisdnFalsePositive(criteria);
+            throw new ResourceNotFoundException("No subscribers found for given criteria");
+        }
+        boolean hasNext = result.size() > pageSize;
+        return new SliceImpl<>(hasNext ? result.subList(0, pageSize) : result, PageRequest.of(0, pageSize), hasNext);
+    }
+
+    /**
+     * Verification of msisdn criteria against the msisdn filter. If there is definitely no subscriber with the msisdn,
+     * then no subscriber matches the criteria and ResourceNotFoundException is thrown without querying the database
+     * @param criteria Criteria parameters
+     */
+    private void verifyMsisdnMightExist(MobileSubscriber criteria) {
+        if (criteria != null && criteria.getMsisdn() != null && !msisdnFilter.mightContain(criteria.getMsisdn())) {
+            log.info("Msisdn " + criteria.getMsisdn() + " not present in the msisdn filter");
+            throw new ResourceNotFoundException("No subscribers found for given criteria");
+        }
+    }
+
+    /**
+     * Recording false positive of the msisdn filter, when the msisdn was the only criteria and nothing was found
+     * @param criteria Criteria parameters
+     */
+    private void recordMsisdnFalsePositive(MobileSubscriber criteria) {
+        if (criteria.getMsisdn() != null && criteria.getServiceType() == null && criteria.getServiceStartDate() == null
+                && criteria.getOwnerId() == null && criteria.getUserId() == null) {
+            msisdnFilter.recordFalsePositive();
+        }
+    }
+
+    /**
+     * Rebuilding the msisdn filter from all the msisdns in the database. Filter is built on application startup,
+     * until then all the msisdn lookups go to the database
+     */
+    @Override
+    @Transactional
+    @EventListener(ApplicationReadyEvent.class)
+    @Timed(MetricsConfig.SERVICE_TIMER)
+    public void rebuildMsisdnFilter() {
+        if (!msisdnFilter.isEnabled()) {
+            log.info("Msisdn filter disabled");
+            return;
+        }
+        try (Stream<String> msisdns = subscriberRepository.streamAllMsisdns()) {
+            msisdnFilter.rebuild(subscriberRepository.count(), msisdns);
+        }
+    }
+
+    /**
+     * Rebuilding the msisdn index from all the subscribers in the database. Index is built on application startup (if enabled),
+     * until then all the numbers are resolved from the database
+     */
+    @Override
+    @Transactional
+    @EventListener(ApplicationReadyEvent.class)
+    @Timed(MetricsConfig.SERVICE_TIMER)
+    public void rebuildMsisdnIndex() {
+        if (!msisdnIndex.isEnabled()) {
+            return;
+        }
+        try (Stream<SubscriberIdDto> subscribers = subscriberRepository.streamAllSubscriberIds()) {
+            msisdnIndex.rebuild(subscribers);
+        }
+    }
+
+    /**
+     * Reconciling the subscriber statistics with GROUP BY queries. Statistics are reconciled on application startup
+     * and every mobile.statistics.reconciliation-interval-ms, until the first reconciliation they are read from the database
+     */
+    @Override
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${mobile.statistics.reconciliation-interval-ms:600000}",
+            fixedDelayString = "${mobile.statistics.reconciliation-interval-ms:600000}")
+    @Timed(MetricsConfig.SERVICE_TIMER)
+    public void reconcileStatistics() {
+        if (!subscriberStatistics.isEnabled()) {
+            return;
+        }
+        subscriberStatistics.reconcile(subscriberRepository::countByServiceType, subscriberRepository::countByOwner,
+                subscriberRepository::countByServiceStartDay);
+    }
+
+    /**
+     * Returning numbers of subscribers per service type, per owner and activations per day.
+     * Statistics are read from the maintained counts without a query, if they are not reconciled yet (or invalidated) they are
+     * reconciled first. With statistics disabled they are counted with GROUP BY queries on every call
+     * @return Subscriber statistics
+     */
+    @Override
+    @Timed(MetricsConfig.SERVICE_TIMER)
+    public SubscriberStatisticsDto findSubscriberStatistics() {
+        if (!subscriberStatistics.isEnabled()) {
+            Map<ServiceType, Long> byServiceType = new EnumMap<>(ServiceType.class);
+            byServiceType.putAll(subscriberRepository.countByServiceType());
+            return SubscriberStatisticsDto.builder()
+                    .subscribers(byServiceType.values().stream().mapToLong(Long::longValue).sum())
+                    .subscribersByServiceType(byServiceType)
+                    .subscribersByOwner(new TreeMap<>(subscriberRepository.countByOwner()))
+                    .activationsByDay(new TreeMap<>(subscriberRepository.countByServiceStartDay()))
+                    .reconciledAt(System.currentTimeMillis())
+                    .build();
+        }
+        if (!subscriberStatistics.isReady()) {
+            reconcileStatistics();
+        }
+        return subscriberStatistics.getStatistics();
+    }
+
+    /**
+     * Resolving msisdn to subscriber id. If the msisdn index is ready, number is resolved from memory without a query.
+     * ValidationFailedException is thrown for msisdn not in E.164 format, ResourceNotFound if there is no subscriber with the msisdn
+     * @param msisdn Msisdn in E.164 format (without '+' sign)
+     * @return Id of the subscriber
+     */
+    @Override
+    @Timed(MetricsConfig.SERVICE_TIMER)
+    public Long resolveSubscriberId(String msisdn) {
+        long msisdnKey = MsisdnIndex.toKey(msisdn);
+        if (msisdnKey < 0) {
+            log.error("Cannot resolve msisdn " + msisdn + " not in E.164 format");
+            throw new ValidationFailedException("Msdisdn must follow the E.164 format");
+        }
+        if (msisdnIndex.isReady()) {
+            long id = msisdnIndex.findId(msisdnKey);
+            if (id == MsisdnIndex.NOT_FOUND) {
+                throw new ResourceNotFoundException("Subscriber not found");
+            }
+            return id;
+        }
+        if (!msisdnFilter.mightContain(msisdn)) {
+            throw new ResourceNotFoundException("Subscriber not found");
+        }
+        return subscriberRepository.findFirstByMsisdn(msisdn)
+                .map(MobileSubscriber::getId)
+                .orElseThrow(() -> new ResourceNotFoundException("Subscriber not found"));
+    }
+
+    /**
+     * Search one page of subscribers with msisdn starting with provided digits, ordered by msisdn as text
+     * (the order of the msisdn index trie and of the database query).
+     * If the msisdn index is ready, msisdns of the page are found in its trie and only the page is read from the database by ids,
+     * otherwise the page is read with range scan of the msisdn index (no LIKE).
+     * ValidationFailedException is thrown for prefix which cannot start E.164 msisdn, ResourceNotFound if nothing matches the prefix (first page)
+     * @param msisdnPrefix Decimal digits of the prefix
+     * @param afterMsisdn Msisdn of the last subscriber from the previous page, null for the first page
+     * @param pageSize Maximum number of subscribers on the page
+     * @return Page of subscribers ordered by msisdn, with information if there is a next page available
+     */
+    @Override
+    @Timed(MetricsConfig.SERVICE_TIMER)
+    public Slice<MobileSubscriberDto> findSubscriberDtosByMsisdnPrefix(String msisdnPrefix, String afterMsisdn, int pageSize) {
+        validateMsisdnPrefix(msisdnPrefix);
+        if (pageSize < 1) {
+            throw new ValidationFailedException("Page size must be greater than zero");
+        }
+        List<MobileSubscriberDto> result;
+        boolean hasNext;
+        if (msisdnIndex.isReady()) {
+            //one additional element is fetched to find out if the next page exists without counting
+            List<Long> ids = msisdnIndex.findIdsByPrefix(msisdnPrefix, afterMsisdn == null ? 0 : MsisdnIndex.toKey(afterMsisdn), pageSize + 1);
+            hasNext = ids.size() > pageSize;
+            result = ids.isEmpty() ? List.of() : subscriberRepository.findDtosByIds(hasNext ? ids.subList(0, pageSize) : ids);
+            result = result.stream()
+                    .sorted(Comparator.comparing(MobileSubscriberDto::getMsisdn))
+                    .collect(Collectors.toList());
         } else {
-            result = subscriberRepository.findByCriteria(criteria);
-            if (IterableUtils.isEmpty(result)) {
-                throw new ResourceNotFoundException("No subscribers found for given criteria");
+            result = subscriberRepository.findDtosByMsisdnPrefix(msisdnPrefix, afterMsisdn, pageSize + 1);
+            hasNext = result.size() > pageSize;
+            result = hasNext ? result.subList(0, pageSize) : result;
+        }
+        if (result.isEmpty() && afterMsisdn == null) {
+            throw new ResourceNotFoundException("No subscribers found for given msisdn prefix");
+        }
+        return new SliceImpl<>(result, PageRequest.of(0, pageSize), hasNext);
+    }
+
+    /**
+     * Counting subscribers with msisdn starting with provided digits. If the msisdn index is ready, it's counted
+     * in O(prefix length) from its trie, otherwise with range scan of the msisdn index.
+     * ValidationFailedException is thrown for prefix which cannot start E.164 msisdn
+     * @param msisdnPrefix Decimal digits of the prefix
+     * @return Number of subscribers with the prefix
+     */
+    @Override
+    @Timed(MetricsConfig.SERVICE_TIMER)
+    public long countSubscribersByMsisdnPrefix(String msisdnPrefix) {
+        validateMsisdnPrefix(msisdnPrefix);
+        if (msisdnIndex.isReady()) {
+            return msisdnIndex.countByPrefix(msisdnPrefix);
+        }
+        return subscriberRepository.countByMsisdnPrefix(msisdnPrefix);
+    }
+
+    private void validateMsisdnPrefix(String msisdnPrefix) {
+        if (msisdnPrefix == null || !msisdnPrefix.matches("[1-9][0-9]{0,14}")) {
+            log.error("Invalid msisdn prefix " + msisdnPrefix);
+            throw new ValidationFailedException("Msisdn prefix must be up to 15 digits not starting with 0");
+        }
+    }
+
+    /**
+     * Passing all the subscribers one by one to the consumer, without loading the whole table into memory.
+     * Every subscriber is detached after processing and persistence context is cleared periodically, so it doesn't grow during the export
+     * @param consumer Consumer processing the subscribers
+     */
+    @Override
+    @Transactional
+    @Timed(MetricsConfig.SERVICE_TIMER)
+    public void exportSubscribers(Consumer<MobileSubscriber> consumer) {
+        long exported = 0;
+        try (Stream<MobileSubscriber> subscribers = subscriberRepository.streamAll()) {
+            for (MobileSubscriber subscriber : (Iterable<MobileSubscriber>) subscribers::iterator) {
+                consumer.accept(subscriber);
+                entityManager.detach(subscriber);
+                if (++exported % MobileSubscriberRepository.STREAM_FETCH_SIZE == 0) {
+                    //drops also owners and users loaded for already exported subscribers
+                    entityManager.clear();
+                }
             }
         }
-        return StreamSupport.stream(result.spliterator(), false).collect(Collectors.toList());
+        log.info("Exported " + exported + " subscribers");
     }
 
     /**
-     * Creating new subscriber for provided data if not msisdn not present yet
+     * Creating new subscriber for provided data if not msisdn not present yet.
+     * Msisdn is not looked up before the insert, the unique constraint decides: subscriber is flushed immediately
+     * and the violation is reported as ValidationFailedException, so concurrent creates of the same msisdn cannot both succeed
      * @param toPersist Customer data that needs to be persisted
      * @return Added subscriber data
      */
     @Override
     @Transactional
+    @Timed(MetricsConfig.SERVICE_TIMER)
     public MobileSubscriber createNewSubscriber(@Valid @NotNull MobileSubscriber toPersist) {
-        if (subscriberRepository.findFirstByMsisdn(toPersist.getMsisdn()).isPresent()) {
-            log.error("Subscriber with number " + toPersist.getMsisdn() + " already exists in the database");
-            throw new ValidationFailedException("Msdnid already exists");
-        }
         if (toPersist.getServiceStartDate() != null) {
             log.error("Customer provided service start date for creation of " + toPersist.getMsisdn());
             throw new ValidationFailedException("Service start date will be calculated automatically, so it shouldn't been provided");
         }
         //veify if owner and user exists
-        toPersist.setOwner(obtainCustomer(toPersist.getOwnerId()));
-        toPersist.setUser(obtainCustomer(toPersist.getUserId()));
+        assignCustomers(toPersist, true);
         toPersist.setServiceStartDate(LocalDateTime.now());
 
         MobileSubscriber savedSubscriber = subscriberRepository.save(toPersist);
+        flushNewSubscribers("Subscriber with number " + toPersist.getMsisdn());
+        msisdnFilter.add(savedSubscriber.getMsisdn());
+        msisdnIndex.add(savedSubscriber.getMsisdn(), savedSubscriber.getId());
+        subscriberStatistics.added(savedSubscriber);
         log.info("Subscriber created with id: " + savedSubscriber.getId());
         return savedSubscriber;
     }
 
     /**
-     * Updating subsciber method. Allows only on updates of PlanType, Owner, User. All the other changes are rejected with ValidationException
-     * @param toUpdate Provided subscriber with applied changes
+     * Creating new subscribers in one transaction. Msisdns are checked for duplicates with one query and all the customers
+     * are verified with one query, then the subscribers are inserted in JDBC batches.
+     * Only msisdns that might be present according to the msisdn filter are checked, so batch of new numbers skips the query.
+     * Subscribers that cannot be created are reported in the results instead of failing the whole batch
+     * @param toPersist Subscribers data that needs to be persisted
+     * @return Result for every provided subscriber, in the same order
+     */
+    @Override
+    @Transactional
+    @Timed(MetricsConfig.SERVICE_TIMER)
+    public List<SubscriberCreationResult> createNewSubscribers(@NotNull List<MobileSubscriber> toPersist) {
+        if (toPersist.size() > batchMaxSize) {
+            log.error("Batch of " + toPersist.size() + " subscribers exceeds the limit of " + batchMaxSize);
+            throw new ValidationFailedException("Maximum number of subscribers in one batch is " + batchMaxSize);
+        }
+        Set<String> msisdns = toPersist.stream()
+                .map(MobileSubscriber::getMsisdn)
+                .filter(Objects::nonNull)
+                .filter(msisdnFilter::mightContain)
+                .collect(Collectors.toSet());
+        Set<String> existingMsisdns = new HashSet<>(msisdns.isEmpty() ? List.of() : subscriberRepository.findExistingMsisdns(msisdns));
+        Set<Long> existingCustomers = customerService.findExistingCustomerIds(toPersist.stream()
+                .flatMap(subscriber -> Stream.of(subscriber.getOwnerId(), subscriber.getUserId()))
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet()));
+
+        LocalDateTime serviceStartDate = LocalDateTime.now();
+        List<SubscriberCreationResult> results = new ArrayList<>(toPersist.size());
+        List<MobileSubscriber> toSave = new ArrayList<>();
+        for (MobileSubscriber subscriber : toPersist) {
+            if (subscriber.getMsisdn() == null || subscriber.getServiceType() == null) {
+                results.add(SubscriberCreationResult.invalid(subscriber, "Msisdn and service type are required"));
+            } else if (subscriber.getServiceStartDate() != null) {
+                results.add(SubscriberCreationResult.invalid(subscriber, "Service start date will be calculated automatically, so it shouldn't been provided"));
+            } else if (!existingCustomers.contains(subscriber.getOwnerId())) {
+                results.add(SubscriberCreationResult.invalid(subscriber, "Customer " + subscriber.getOwnerId() + " not found"));
+            } else if (!existingCustomers.contains(subscriber.getUserId())) {
+                results.add(SubscriberCreationResult.invalid(subscriber, "Customer " + subscriber.getUserId() + " not found"));
+            } else if (!existingMsisdns.add(subscriber.getMsisdn())) {
+                //msisdn is added to the set, so it's reported as duplicate also when repeated in the batch
+                results.add(SubscriberCreationResult.duplicate(subscriber));
+            } else {
+                subscriber.setOwner(entityManager.getReference(Customer.class, subscriber.getOwnerId()));
+                subscriber.setUser(entityManager.getReference(Customer.class, subscriber.getUserId()));
+                subscriber.setServiceStartDate(serviceStartDate);
+                toSave.add(subscriber);
+                results.add(SubscriberCreationResult.created(subscriber));
+            }
+        }
+        //ids are taken from the pooled sequence, so the inserts are batched on flush
+        subscriberRepository.saveAll(toSave);
+        flushNewSubscribers("One of " + toSave.size() + " subscribers from the batch");
+        toSave.forEach(subscriber -> {
+            msisdnFilter.add(subscriber.getMsisdn());
+            msisdnIndex.add(subscriber.getMsisdn(), subscriber.getId());
+            subscriberStatistics.added(subscriber);
+        });
+        log.info("Created " + toSave.size() + " of " + toPersist.size() + " subscribers from the batch");
+        return results;
+    }
+
+    /**
+     * Flushing inserted subscribers, so msisdn uniqueness is verified by the database inside the service method.
+     * Duplicate of committed subscriber is reported as ValidationFailedException, duplicate of subscriber that is being created
+     * concurrently (not committed yet, reported by H2 as concurrent update or by other databases as lock failure) as ResourceConflictException
+     * @param description Description of flushed subscribers for the logs
+     */
+    private void flushNewSubscribers(String description) {
+        try {
+            entityManager.flush();
+        } catch (PersistenceException e) {
+            if (isMsisdnViolation(e)) {
+                log.error(description + " already exists in the database");
+                throw new ValidationFailedException("Msdnid already exists");
+            }
+            if (isConcurrentUpdate(e)) {
+                log.error(description + " is being created concurrently");
+                throw new ResourceConflictException("Msisdn is being created concurrently");
+            }
+            throw e;
+        }
+    }
+
+    private static boolean isMsisdnViolation(PersistenceException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException) {
+                String constraintName = ((ConstraintViolationException) cause).getConstraintName();
+                return constraintName != null && constraintName.toUpperCase().contains(MobileSubscriber.MSISDN_CONSTRAINT);
+            }
+        }
+        return false;
+    }
+
+    private static boolean isConcurrentUpdate(PersistenceException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof LockAcquisitionException
+                    || cause instanceof SQLException && ((SQLException) cause).getErrorCode() == H2_CONCURRENT_UPDATE) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Updating subsciber method. Allows only on updates of PlanType, Owner, User. All the other changes are rejected with ValidationException.
+     * Subscriber is validated against its columns only and just the changed columns are updated, so no customers are loaded.
+     * If version of provided subscriber is set, it needs to match the current version (PreconditionFailedException otherwise)
+     * @param toUpdate Provided subscriber with applied changes and optional expected version
      * @param id Id of existing subscriber that needs to be updated
      * @return Updated subscriber data
      */
     @Override
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.SUBSCRIBERS_CACHE, key = "#id")
+    @Timed(MetricsConfig.SERVICE_TIMER)
     public MobileSubscriber updateSubscriber(@Valid @NotNull MobileSubscriber toUpdate, @NotNull Long id) {
-        Optional<MobileSubscriber> dbSubscriber = subscriberRepository.findById(id);
+        Optional<MobileSubscriber> dbSubscriber = subscriberRepository.findSnapshotById(id);
         if (dbSubscriber.isEmpty()) {
             log.error("Subscriber for update " + id + " not found");
             throw new ResourceNotFoundException("Subscriber not found");
         }
-        toUpdate.setOwner(obtainCustomer(toUpdate.getOwnerId()));
-        toUpdate.setUser(obtainCustomer(toUpdate.getUserId()));
-        boolean hasChanged = validateChangesAndPreparePatchObjectIfNeeded(dbSubscriber.get(), toUpdate, false);
+        verifyVersion(dbSubscriber.get(), toUpdate.getVersion());
+        assignCustomers(toUpdate, true);
+        MobileSubscriber updatedSubscriber = copyOf(dbSubscriber.get());
+        boolean hasChanged = validateAndApplyChanges(updatedSubscriber, toUpdate);
         if (hasChanged) {
-            toUpdate.setId(id);
-            toUpdate.setServiceStartDate(dbSubscriber.get().getServiceStartDate());
-            MobileSubscriber updatedSubscriber = subscriberRepository.save(toUpdate);
+            updateChangedColumns(dbSubscriber.get(), updatedSubscriber, toUpdate.getVersion() != null);
+            subscriberStatistics.changed(dbSubscriber.get(), updatedSubscriber);
             log.info("Subscriber with id: " + id + " successfully updated");
-            return updatedSubscriber;
         } else {
             log.info("No changes to update for subscriber with id: " + id);
-            return dbSubscriber.get();
         }
+        return updatedSubscriber;
     }
 
     /**
-     * Patching subsciber method. Allows only patching of PlanType, Owner, User. All the other changes are rejected with ValidationException
-     * @param toPatch Provided subscriber changes
+     * Patching subsciber method. Allows only patching of PlanType, Owner, User. All the other changes are rejected with ValidationException.
+     * Subscriber is validated against its columns only and just the changed columns are updated, so e.g. service type change
+     * is one select and one update regardless of the customers.
+     * If version of provided subscriber is set, it needs to match the current version (PreconditionFailedException otherwise)
+     * @param toPatch Provided subscriber changes and optional expected version
      * @param id Id of existing subscriber that needs to be patched
      * @return Updated subscriber data
      */
     @Override
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.SUBSCRIBERS_CACHE, key = "#id")
+    @Timed(MetricsConfig.SERVICE_TIMER)
     public MobileSubscriber patchSubscriber(@NotNull MobileSubscriber toPatch, @NotNull Long id) {
-        Optional<MobileSubscriber> dbSubscriberOpt = subscriberRepository.findById(id);
-        if (dbSubscriberOpt.isEmpty()) {
+        Optional<MobileSubscriber> dbSubscriber = subscriberRepository.findSnapshotById(id);
+        if (dbSubscriber.isEmpty()) {
             log.error("Subscriber for patch " + id + " not found");
             throw new ResourceNotFoundException("Subscriber not found");
         }
-        toPatch.setOwner(toPatch.getOwnerId() != null ? obtainCustomer(toPatch.getOwnerId()) : null);
-        toPatch.setUser(toPatch.getUserId() != null ? obtainCustomer(toPatch.getUserId()) : null);
-        MobileSubscriber dbSubscriber = dbSubscriberOpt.get();
-        boolean objChanged = validateChangesAndPreparePatchObjectIfNeeded(dbSubscriber, toPatch, true);
+        verifyVersion(dbSubscriber.get(), toPatch.getVersion());
+        assignCustomers(toPatch, false);
+        MobileSubscriber patchedSubscriber = copyOf(dbSubscriber.get());
+        boolean objChanged = validateAndApplyChanges(patchedSubscriber, toPatch);
         if (objChanged) {
-            MobileSubscriber updatedSubscriber = subscriberRepository.save(dbSubscriber);
+            updateChangedColumns(dbSubscriber.get(), patchedSubscriber, toPatch.getVersion() != null);
+            subscriberStatistics.changed(dbSubscriber.get(), patchedSubscriber);
             log.info("Subscriber with id: " + id + " successfully patched");
-            return updatedSubscriber;
         } else {
             log.info("Subscriber with id: " + id + " not patched. Nothing to update");
-            return dbSubscriber;
         }
+        return patchedSubscriber;
     }
 
     /**
-     * Validation what can be updated and what's user trying to update. Also allows to prepare the patch object
-     * @param dbSubscriber Subscriber from database
+     * Verification of the version expected by the client (e.g. from If-Match header)
+     * @param dbSubscriber Subscriber state read from the database
+     * @param expectedVersion Expected version, not verified if null
+     */
+    private void verifyVersion(MobileSubscriber dbSubscriber, Long expectedVersion) {
+        if (expectedVersion != null && !expectedVersion.equals(dbSubscriber.getVersion())) {
+            log.error("Subscriber with id: " + dbSubscriber.getId() + " has version " + dbSubscriber.getVersion() + ", expected " + expectedVersion);
+            throw new PreconditionFailedException("Subscriber was modified, current version is different than expected");
+        }
+    }
+
+    /**
+     * Writing the changed columns. Update is conditional on the version the changes were based on,
+     * so concurrent modification is rejected instead of being overwritten. Version of changed subscriber is incremented
+     * @param dbSubscriber Subscriber state read from the database
+     * @param changedSubscriber Subscriber with applied changes
+     * @param versionExpected True if client provided expected version, then lost race is reported as failed precondition
+     */
+    private void updateChangedColumns(MobileSubscriber dbSubscriber, MobileSubscriber changedSubscriber, boolean versionExpected) {
+        if (subscriberRepository.updateChangedColumns(dbSubscriber, changedSubscriber) == 0) {
+            log.error("Subscriber with id: " + dbSubscriber.getId() + " modified or removed concurrently");
+            if (versionExpected) {
+                throw new PreconditionFailedException("Subscriber was modified, current version is different than expected");
+            }
+            throw new ResourceConflictException("Subscriber was modified concurrently");
+        }
+        changedSubscriber.setVersion(dbSubscriber.getVersion() + 1);
+    }
+
+    private MobileSubscriber copyOf(MobileSubscriber subscriber) {
+        return MobileSubscriber.builder()
+                .id(subscriber.getId())
+                .msisdn(subscriber.getMsisdn())
+                .owner(subscriber.getOwner())
+                .user(subscriber.getUser())
+                .serviceType(subscriber.getServiceType())
+                .serviceStartDate(subscriber.getServiceStartDate())
+                .version(subscriber.getVersion())
+                .build();
+    }
+
+    /**
+     * Validation what can be updated and what's user trying to update. Allowed changes are applied on the copy of db object
+     * @param dbSubscriber Copy of the subscriber from database
      * @param subscriber Subscriber provided by user (update/patch)
-     * @param patch If flag is set to true, then function will patch user object on db object
      * @return True if there was a patch provided and changed the original object
      */
-    private boolean validateChangesAndPreparePatchObjectIfNeeded(MobileSubscriber dbSubscriber, MobileSubscriber subscriber, boolean patch) {
+    private boolean validateAndApplyChanges(MobileSubscriber dbSubscriber, MobileSubscriber subscriber) {
         boolean hasChanged = false;
         if (subscriber.getMsisdn() != null && !subscriber.getMsisdn().equals(dbSubscriber.getMsisdn())) {
             log.error("Cannot update msisdn id. Attempt made for id " + dbSubscriber.getId());
             throw new ValidationFailedException("Msisdn updates are not allowed");
         }
         if (subscriber.getUserId() != null && !subscriber.getUserId().equals(dbSubscriber.getUserId())) {
-            if (patch) {
-                dbSubscriber.assignUser(subscriber.getUser());
-            }
+            dbSubscriber.assignUser(subscriber.getUser());
             hasChanged = true;
         }
         if (subscriber.getOwnerId() != null && !subscriber.getOwnerId().equals(dbSubscriber.getOwnerId())) {
-            if (patch) {
-                dbSubscriber.assignOwner(subscriber.getOwner());
-            }
+            dbSubscriber.assignOwner(subscriber.getOwner());
             hasChanged = true;
         }
         if (subscriber.getServiceType() != null && !subscriber.getServiceType().equals(dbSubscriber.getServiceType())) {
-            if (patch) {
-                dbSubscriber.setServiceType(subscriber.getServiceType());
-            }
+            dbSubscriber.setServiceType(subscriber.getServiceType());
             hasChanged = true;
         }
         if (subscriber.getServiceStartDate() != null && !subscriber.getServiceStartDate().equals(dbSubscriber.getServiceStartDate())) {
@@ -192,27 +678,149 @@ public class MobileSubscriberServiceImpl implements MobileSubscriberService {
     }
 
     /**
-     * Delete of subscriber
+     * Delete of subscriber with single DELETE statement, subscriber is not loaded before removal.
+     * Statistics are invalidated instead of decremented, they are reconciled before the next read.
+     * Removing not existing subscriber is not an error, unless the expected version is provided.
+     * Then subscriber is removed only if it has that version (PreconditionFailedException otherwise)
      * @param id Id of subscriber that needs to be removed
+     * @param expectedVersion Expected version of the subscriber, not verified if null
      */
     @Override
     @Transactional
-    public void deleteSubscriberById(Long id) {
-        if (subscriberRepository.existsById(id)) {
-            subscriberRepository.deleteById(id);
+    @CacheEvict(cacheNames = CacheConfig.SUBSCRIBERS_CACHE, key = "#id")
+    @Timed(MetricsConfig.SERVICE_TIMER)
+    public void deleteSubscriberById(Long id, Long expectedVersion) {
+        int deleted = expectedVersion == null ? subscriberRepository.deleteSubscriberById(id)
+                : subscriberRepository.deleteSubscriberByIdAndVersion(id, expectedVersion);
+        if (deleted > 0) {
+            msisdnFilter.recordRemoved(deleted);
+            msisdnIndex.remove(id);
+            subscriberStatistics.invalidate();
+            log.info("Subscriber with id: " + id + " successfully removed");
+        } else if (expectedVersion != null) {
+            log.error("Subscriber with id: " + id + " not removed. Subscriber not found in version " + expectedVersion);
+            throw new PreconditionFailedException("Subscriber was modified, current version is different than expected");
+        } else {
+            log.info("Subscriber with id: " + id + " not removed. Subscriber not found");
+        }
+    }
+
+    /**
+     * Delete of many subscribers, provided by ids or matching the criteria (exactly one of them needs to be provided).
+     * Subscribers are removed in chunks of deletionChunkSize, every chunk with single DELETE in its own transaction,
+     * so rows are not locked for the whole removal. Whole subscribers cache is evicted and statistics are invalidated after the removal
+     * @param ids Ids of the subscribers to remove, not present ids are skipped
+     * @param criteria Criteria of the subscribers to remove, at least one criteria value is required
+     * @return Number of removed subscribers
+     */
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.SUBSCRIBERS_CACHE, allEntries = true)
+    @Timed(MetricsConfig.SERVICE_TIMER)
+    public long deleteSubscribers(List<Long> ids, MobileSubscriber criteria) {
+        boolean idsProvided = ids != null && !ids.isEmpty();
+        boolean criteriaProvided = criteria != null && !criteria.isEmpty();
+        if (idsProvided == criteriaProvided) {
+            log.error("Deletion requested with " + (idsProvided ? "both ids and criteria" : "neither ids nor criteria"));
+            throw new ValidationFailedException("Either subscriber ids or criteria need to be provided");
+        }
+        long deleted = 0;
+        if (idsProvided) {
+            List<Long> distinctIds = ids.stream().filter(Objects::nonNull).distinct().collect(Collectors.toList());
+            for (int from = 0; from < distinctIds.size(); from += deletionChunkSize) {
+                List<Long> chunk = distinctIds.subList(from, Math.min(from + deletionChunkSize, distinctIds.size()));
+                deleted += subscriberRepository.deleteSubscribersByIds(chunk);
+                msisdnIndex.remove(chunk);
+            }
+        } else {
+            List<Long> chunk = subscriberRepository.findIdsByCriteriaAfterId(criteria, 0L, deletionChunkSize);
+            while (!chunk.isEmpty()) {
+                deleted += subscriberRepository.deleteSubscribersByIds(chunk);
+                msisdnIndex.remove(chunk);
+                chunk = chunk.size() < deletionChunkSize ? List.of()
+                        : subscriberRepository.findIdsByCriteriaAfterId(criteria, chunk.get(chunk.size() - 1), deletionChunkSize);
+            }
+        }
+        msisdnFilter.recordRemoved(deleted);
+        if (deleted > 0) {
+            subscriberStatistics.invalidate();
+        }
+        log.info("Removed " + deleted + " subscribers");
+        return deleted;
+    }
+
+    /**
+     * Transfer of all the numbers (optionally only with provided service type) from one customer to another.
+     * Numbers are moved in chunks of transferChunkSize, every chunk with single UPDATE in its own transaction,
+     * so rows are not locked for the whole transfer. Whole subscribers cache is evicted after the transfer
+     * @param sourceCustomerId Id of the customer the numbers are transferred from
+     * @param targetCustomerId Id of the customer the numbers are transferred to
+     * @param role Transferred role of the customer (owner or user)
+     * @param serviceType Service type of transferred numbers, all the numbers are transferred if null
+     * @return Number of transferred subscribers
+     */
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.SUBSCRIBERS_CACHE, allEntries = true)
+    @Timed(MetricsConfig.SERVICE_TIMER)
+    public long transferSubscribers(@NotNull Long sourceCustomerId, @NotNull Long targetCustomerId, @NotNull CustomerRole role,
+                                    ServiceType serviceType) {
+        if (sourceCustomerId.equals(targetCustomerId)) {
+            log.error("Transfer requested from customer " + sourceCustomerId + " to the same customer");
+            throw new ValidationFailedException("Source and target customers must be different");
+        }
+        obtainCustomer(sourceCustomerId);
+        obtainCustomer(targetCustomerId);
+        MobileSubscriber criteria = MobileSubscriber.builder().serviceType(serviceType).build();
+        if (role == CustomerRole.OWNER) {
+            criteria.setOwner(new Customer(sourceCustomerId));
+        } else {
+            criteria.setUser(new Customer(sourceCustomerId));
+        }
+        long transferred = 0;
+        List<Long> ids = subscriberRepository.findIdsByCriteriaAfterId(criteria, 0L, transferChunkSize);
+        while (!ids.isEmpty()) {
+            if (role == CustomerRole.OWNER) {
+                int transferredChunk = subscriberRepository.transferOwner(ids, sourceCustomerId, targetCustomerId);
+                subscriberStatistics.transferred(sourceCustomerId, targetCustomerId, transferredChunk);
+                transferred += transferredChunk;
+            } else {
+                transferred += subscriberRepository.transferUser(ids, sourceCustomerId, targetCustomerId);
+            }
+            ids = ids.size() < transferChunkSize ? List.of()
+                    : subscriberRepository.findIdsByCriteriaAfterId(criteria, ids.get(ids.size() - 1), transferChunkSize);
+        }
+        log.info("Transferred " + transferred + " subscribers of customer " + sourceCustomerId + " to " + targetCustomerId + " as " + role);
+        return transferred;
+    }
+
+    /**
+     * Assigning owner and user references of provided subscriber. Customer who is both owner and user is verified once,
+     * as existing customers are cached only after commit
+     * @param subscriber Subscriber with owner and user ids
+     * @param required True if both customers need to be provided, otherwise customers without id are left empty
+     */
+    private void assignCustomers(MobileSubscriber subscriber, boolean required) {
+        Long ownerId = subscriber.getOwnerId();
+        Long userId = subscriber.getUserId();
+        Customer owner = ownerId != null || required ? obtainCustomer(ownerId) : null;
+        Customer user;
+        if (userId != null && userId.equals(ownerId)) {
+            user = owner;
+        } else {
+            user = userId != null || required ? obtainCustomer(userId) : null;
         }
-        log.info("Subscriber with id: " + id + "successfully removed");
+        subscriber.setOwner(owner);
+        subscriber.setUser(user);
     }
 
     /**
-     * Receiving customer from database. If not present, then NotFound exception will be thrown
+     * Receiving customer reference. Existence is verified through the customers cache and only the reference is returned,
+     * so customer data is not loaded from the database. If not present, then NotFound exception will be thrown
      * @param customerId Customer id
-     * @return Obtained customer
+     * @return Obtained customer reference
      */
     private Customer obtainCustomer(Long customerId) {
-        Optional<Customer> customer = customerRepository.findById(customerId);
-        if (customer.isPresent()) {
-            return customer.get();
+        if (customerService.customerExists(customerId)) {
+            return entityManager.getReference(Customer.class, customerId);
         }
         log.error("Customer with id: " + customerId + " cannot be found in the database!");
         throw new ResourceNotFoundException("Customer " + customerId + " not found");
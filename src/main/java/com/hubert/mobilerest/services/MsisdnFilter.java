@@ -0,0 +1,183 @@
+package com.hubert.mobilerest.services;
+
+import com.hubert.mobilerest.utils.BloomFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * In-memory Bloom filter of all the msisdns in the database, so not existing msisdns can be recognized without a query.
+ * Filter is rebuilt from the database (on startup by MobileSubscriberService) and msisdns of created subscribers are added
+ * as soon as they are inserted. Removed msisdns cannot be taken out of the filter, they are only counted as stale entries until the next rebuild.
+ * Until the first rebuild is finished every msisdn might be present. Subscribers inserted not through the service (e.g. by other
+ * application instance or by SQL) are not visible to the filter, so it is disabled by default and needs to be enabled
+ * with mobile.msisdn-filter.enabled only if this application instance is the only one inserting subscribers.
+ * Size, fill and checks of the filter are exported as mobile.msisdn.filter.* metrics
+ */
+@Slf4j
+@Component
+public class MsisdnFilter {
+    public static final String METRICS_PREFIX = "mobile.msisdn.filter";
+
+    private boolean enabled;
+    private long expectedInsertions;
+    private double falsePositiveProbability;
+    private volatile BloomFilter filter;
+    private volatile boolean ready;
+    //msisdns added while the rebuild is streaming the database, they might be committed after the stream has passed them
+    private volatile Queue<String> addedDuringRebuild;
+    private final ReadWriteLock rebuildLock = new ReentrantReadWriteLock();
+    private final AtomicLong staleEntries = new AtomicLong();
+    private final Counter negativeChecks;
+    private final Counter positiveChecks;
+    private final Counter falsePositives;
+
+    public MsisdnFilter(MeterRegistry meterRegistry,
+                        @Value("${mobile.msisdn-filter.enabled:false}") boolean enabled,
+                        @Value("${mobile.msisdn-filter.expected-insertions:1000000}") long expectedInsertions,
+                        @Value("${mobile.msisdn-filter.false-positive-probability:0.01}") double falsePositiveProbability) {
+        this.enabled = enabled;
+        this.expectedInsertions = expectedInsertions;
+        this.falsePositiveProbability = falsePositiveProbability;
+        this.filter = BloomFilter.create(expectedInsertions, falsePositiveProbability);
+        Gauge.builder(METRICS_PREFIX + ".entries", this, msisdnFilter -> msisdnFilter.filter.getEntries())
+                .description("Number of msisdns added to the filter")
+                .register(meterRegistry);
+        Gauge.builder(METRICS_PREFIX + ".stale.entries", staleEntries, AtomicLong::get)
+                .description("Number of msisdns removed from the database since the last rebuild, still present in the filter")
+                .register(meterRegistry);
+        Gauge.builder(METRICS_PREFIX + ".memory", this, msisdnFilter -> msisdnFilter.filter.getMemoryBytes())
+                .description("Size of the filter bit array")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder(METRICS_PREFIX + ".false.positive.probability", this, msisdnFilter -> msisdnFilter.filter.expectedFalsePositiveProbability())
+                .description("Expected false positive probability for the current fill of the filter")
+                .register(meterRegistry);
+        negativeChecks = checksCounter(meterRegistry, "negative");
+        positiveChecks = checksCounter(meterRegistry, "positive");
+        falsePositives = checksCounter(meterRegistry, "false_positive");
+    }
+
+    /**
+     * Checking if subscriber with the msisdn might exist
+     * @param msisdn Checked msisdn
+     * @return False if there is definitely no subscriber with the msisdn, true if it might exist (or filter is not built yet or disabled)
+     */
+    public boolean mightContain(String msisdn) {
+        if (!ready) {
+            return true;
+        }
+        boolean mightContain = filter.mightContain(msisdn);
+        (mightContain ? positiveChecks : negativeChecks).increment();
+        return mightContain;
+    }
+
+    /**
+     * Recording that the msisdn reported as possibly present was not found in the database,
+     * so observed false positive rate can be compared with the expected probability
+     */
+    public void recordFalsePositive() {
+        if (ready) {
+            falsePositives.increment();
+        }
+    }
+
+    /**
+     * Adding msisdn of inserted subscriber. It's added before the commit, so the subscriber is never reported as not existing
+     * (rolled back insert leaves only a false positive). If the filter is rebuilt before the commit, msisdn is added again after it
+     * @param msisdn Msisdn of inserted subscriber
+     */
+    public void add(String msisdn) {
+        BloomFilter current = addNow(msisdn);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    //not committed insert is not visible to the rebuild streaming the database
+                    if (filter != current || addedDuringRebuild != null) {
+                        addNow(msisdn);
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Recording removal of subscribers, their msisdns stay in the filter until the next rebuild
+     * @param removed Number of removed subscribers
+     */
+    public void recordRemoved(long removed) {
+        staleEntries.addAndGet(removed);
+    }
+
+    /**
+     * Checking if the filter is enabled, so the msisdns need to be provided for the rebuild
+     * @return True if the filter is enabled
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Replacing the filter with the new one built from provided msisdns. Msisdns added during the rebuild are included as well.
+     * New filter is sized for twice the current number of subscribers (at least for the configured expected insertions)
+     * @param subscribers Current number of subscribers
+     * @param msisdns All the msisdns in the database
+     */
+    public synchronized void rebuild(long subscribers, Stream<String> msisdns) {
+        if (!enabled) {
+            return;
+        }
+        BloomFilter rebuilt = BloomFilter.create(Math.max(expectedInsertions, 2 * subscribers), falsePositiveProbability);
+        rebuildLock.writeLock().lock();
+        try {
+            addedDuringRebuild = new ConcurrentLinkedQueue<>();
+        } finally {
+            rebuildLock.writeLock().unlock();
+        }
+        msisdns.forEach(rebuilt::put);
+        rebuildLock.writeLock().lock();
+        try {
+            addedDuringRebuild.forEach(rebuilt::put);
+            addedDuringRebuild = null;
+            filter = rebuilt;
+            staleEntries.set(0);
+            ready = true;
+        } finally {
+            rebuildLock.writeLock().unlock();
+        }
+        log.info("Msisdn filter rebuilt with " + rebuilt.getEntries() + " msisdns, " + rebuilt.getMemoryBytes() + " bytes");
+    }
+
+    private BloomFilter addNow(String msisdn) {
+        rebuildLock.readLock().lock();
+        try {
+            filter.put(msisdn);
+            if (addedDuringRebuild != null) {
+                addedDuringRebuild.add(msisdn);
+            }
+            return filter;
+        } finally {
+            rebuildLock.readLock().unlock();
+        }
+    }
+
+    private static Counter checksCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder(METRICS_PREFIX + ".checks")
+                .description("Msisdn filter checks by result (false positives are counted also as positive)")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,324 @@
+package com.hubert.mobilerest.services;
+
+import com.hubert.mobilerest.dto.v1.SubscriberIdDto;
+import com.hubert.mobilerest.utils.DigitTrie;
+import com.hubert.mobilerest.utils.OffHeapLongLongMap;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.ToLongFunction;
+import java.util.stream.Stream;
+
+/**
+ * Optional in-memory index of msisdns to subscriber ids, so numbers can be resolved without a query.
+ * Msisdns are kept as numbers (E.164 has at most 15 digits) in off-heap hash maps, msisdn to id and id to msisdn (used for removals),
+ * so tens of millions of subscribers don't grow the Java heap. Lookups use optimistic reads and don't allocate.
+ * Msisdns are also kept in the off-heap digit trie, so subscribers with a msisdn prefix are counted in O(prefix length)
+ * and listed in msisdn order without scanning the table.
+ * Index is rebuilt from the database (on startup by MobileSubscriberService), created and removed subscribers are applied after commit.
+ * Until the first rebuild is finished (or if the index is disabled or full) all the numbers are resolved from the database.
+ * Subscribers inserted not through the service (e.g. by other application instance) are not visible to the index.
+ * Size and memory of the index are exported as mobile.msisdn.index.* metrics
+ */
+@Slf4j
+@Component
+public class MsisdnIndex {
+    public static final String METRICS_PREFIX = "mobile.msisdn.index";
+    public static final long NOT_FOUND = OffHeapLongLongMap.NOT_FOUND;
+    private static final int MAX_MSISDN_DIGITS = 15;
+
+    private boolean enabled;
+    private int initialCapacity;
+    private volatile boolean ready;
+    private OffHeapLongLongMap idsByMsisdn;
+    private OffHeapLongLongMap msisdnsById;
+    private DigitTrie msisdns;
+    //changes committed while the rebuild is streaming the database, they might be committed after the stream has passed them
+    private Queue<Change> changedDuringRebuild;
+    private final StampedLock lock = new StampedLock();
+
+    public MsisdnIndex(MeterRegistry meterRegistry,
+                       @Value("${mobile.msisdn-index.enabled:false}") boolean enabled,
+                       @Value("${mobile.msisdn-index.initial-capacity:1048576}") int initialCapacity) {
+        this.enabled = enabled;
+        this.initialCapacity = initialCapacity;
+        Gauge.builder(METRICS_PREFIX + ".entries", this, msisdnIndex -> msisdnIndex.read(OffHeapLongLongMap::size))
+                .description("Number of msisdns in the index")
+                .register(meterRegistry);
+        Gauge.builder(METRICS_PREFIX + ".memory", this, MsisdnIndex::getMemoryBytes)
+                .description("Off-heap memory of the index tables and the trie")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Converting msisdn to the number used as the index key
+     * @param msisdn Msisdn in E.164 format (without '+' sign)
+     * @return Msisdn as number or -1 if it's not in E.164 format
+     */
+    public static long toKey(String msisdn) {
+        if (msisdn == null || msisdn.length() < 2 || msisdn.length() > MAX_MSISDN_DIGITS || msisdn.charAt(0) == '0') {
+            return -1;
+        }
+        long key = 0;
+        for (int i = 0; i < msisdn.length(); i++) {
+            char digit = msisdn.charAt(i);
+            if (digit < '0' || digit > '9') {
+                return -1;
+            }
+            key = key * 10 + (digit - '0');
+        }
+        return key;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Checking if the index is built and can be used for resolving the numbers
+     * @return True if the index can be used
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Resolving the msisdn to subscriber id. Needs to be called only if the index is ready
+     * @param msisdnKey Msisdn converted by toKey
+     * @return Subscriber id or NOT_FOUND if there is no subscriber with the msisdn
+     */
+    public long findId(long msisdnKey) {
+        long stamp = lock.tryOptimisticRead();
+        OffHeapLongLongMap map = idsByMsisdn;
+        long id = map == null ? NOT_FOUND : map.get(msisdnKey);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                id = idsByMsisdn == null ? NOT_FOUND : idsByMsisdn.get(msisdnKey);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return id;
+    }
+
+    /**
+     * Counting subscribers with the msisdn prefix. Needs to be called only if the index is ready
+     * @param msisdnPrefix Decimal digits of the prefix
+     * @return Number of subscribers with msisdn starting with the prefix
+     */
+    public long countByPrefix(String msisdnPrefix) {
+        long stamp = lock.readLock();
+        try {
+            return msisdns == null ? 0 : msisdns.count(msisdnPrefix);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Finding subscribers with the msisdn prefix, ordered by msisdn. Needs to be called only if the index is ready
+     * @param msisdnPrefix Decimal digits of the prefix
+     * @param afterMsisdnKey Msisdns up to this one are skipped, 0 to start from the first msisdn with the prefix
+     * @param limit Maximum number of returned ids
+     * @return Subscriber ids ordered by msisdn
+     */
+    public List<Long> findIdsByPrefix(String msisdnPrefix, long afterMsisdnKey, int limit) {
+        long[] found = new long[limit];
+        List<Long> ids = new ArrayList<>();
+        long stamp = lock.readLock();
+        try {
+            int count = msisdns == null ? 0 : msisdns.find(msisdnPrefix, afterMsisdnKey, found);
+            for (int i = 0; i < count; i++) {
+                ids.add(idsByMsisdn.get(found[i]));
+            }
+        } finally {
+            lock.unlockRead(stamp);
+        }
+        return ids;
+    }
+
+    /**
+     * Adding created subscriber. Inside a transaction it's added after commit
+     * @param msisdn Msisdn of created subscriber
+     * @param id Id of created subscriber
+     */
+    public void add(String msisdn, long id) {
+        long msisdnKey = toKey(msisdn);
+        if (enabled && msisdnKey > 0) {
+            afterCommit(new Change(msisdnKey, id));
+        }
+    }
+
+    /**
+     * Removing subscriber. Inside a transaction it's removed after commit
+     * @param id Id of removed subscriber
+     */
+    public void remove(long id) {
+        if (enabled) {
+            afterCommit(new Change(0, id));
+        }
+    }
+
+    /**
+     * Removing subscribers. Inside a transaction they are removed after commit
+     * @param ids Ids of removed subscribers
+     */
+    public void remove(Collection<Long> ids) {
+        ids.forEach(this::remove);
+    }
+
+    /**
+     * Replacing the index with the new one built from provided subscribers. Changes committed during the rebuild are applied as well.
+     * Both indexes are kept in memory until the rebuild is finished
+     * @param subscribers Ids and msisdns of all the subscribers in the database
+     */
+    public synchronized void rebuild(Stream<SubscriberIdDto> subscribers) {
+        if (!enabled) {
+            return;
+        }
+        long stamp = lock.writeLock();
+        try {
+            changedDuringRebuild = new ConcurrentLinkedQueue<>();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        OffHeapLongLongMap rebuiltIdsByMsisdn = new OffHeapLongLongMap(initialCapacity);
+        OffHeapLongLongMap rebuiltMsisdnsById = new OffHeapLongLongMap(initialCapacity);
+        DigitTrie rebuiltMsisdns = new DigitTrie(initialCapacity);
+        try {
+            subscribers.forEach(subscriber -> {
+                long msisdnKey = toKey(subscriber.getMsisdn());
+                if (msisdnKey > 0) {
+                    rebuiltIdsByMsisdn.put(msisdnKey, subscriber.getId());
+                    rebuiltMsisdnsById.put(subscriber.getId(), msisdnKey);
+                    rebuiltMsisdns.add(msisdnKey);
+                }
+            });
+        } catch (IllegalStateException e) {
+            log.error("Msisdn index cannot be built: " + e.getMessage());
+            stamp = lock.writeLock();
+            try {
+                clear();
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+            return;
+        }
+        stamp = lock.writeLock();
+        try {
+            changedDuringRebuild.forEach(change -> change.applyTo(rebuiltIdsByMsisdn, rebuiltMsisdnsById, rebuiltMsisdns));
+            changedDuringRebuild = null;
+            idsByMsisdn = rebuiltIdsByMsisdn;
+            msisdnsById = rebuiltMsisdnsById;
+            msisdns = rebuiltMsisdns;
+            ready = true;
+        } catch (IllegalStateException e) {
+            log.error("Msisdn index cannot be built: " + e.getMessage());
+            clear();
+            return;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        log.info("Msisdn index rebuilt with " + rebuiltIdsByMsisdn.size() + " msisdns, "
+                + (rebuiltIdsByMsisdn.getMemoryBytes() + rebuiltMsisdnsById.getMemoryBytes() + rebuiltMsisdns.getMemoryBytes()) + " bytes");
+    }
+
+    private void afterCommit(Change change) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    apply(change);
+                }
+            });
+        } else {
+            apply(change);
+        }
+    }
+
+    private void apply(Change change) {
+        long stamp = lock.writeLock();
+        try {
+            if (changedDuringRebuild != null) {
+                changedDuringRebuild.add(change);
+            }
+            if (ready) {
+                change.applyTo(idsByMsisdn, msisdnsById, msisdns);
+            }
+        } catch (IllegalStateException e) {
+            //index is full, numbers are resolved from the database until the next rebuild
+            log.error("Msisdn index disabled: " + e.getMessage());
+            clear();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    //needs to be called with the write lock
+    private void clear() {
+        changedDuringRebuild = null;
+        idsByMsisdn = null;
+        msisdnsById = null;
+        msisdns = null;
+        ready = false;
+    }
+
+    private long read(ToLongFunction<OffHeapLongLongMap> metric) {
+        long stamp = lock.readLock();
+        try {
+            return idsByMsisdn == null ? 0 : metric.applyAsLong(idsByMsisdn);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private long getMemoryBytes() {
+        long stamp = lock.readLock();
+        try {
+            return idsByMsisdn == null ? 0
+                    : idsByMsisdn.getMemoryBytes() + msisdnsById.getMemoryBytes() + msisdns.getMemoryBytes();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Created (with msisdn) or removed (without msisdn) subscriber
+     */
+    private static final class Change {
+        private final long msisdnKey;
+        private final long id;
+
+        private Change(long msisdnKey, long id) {
+            this.msisdnKey = msisdnKey;
+            this.id = id;
+        }
+
+        private void applyTo(OffHeapLongLongMap idsByMsisdn, OffHeapLongLongMap msisdnsById, DigitTrie msisdns) {
+            if (msisdnKey > 0) {
+                idsByMsisdn.put(msisdnKey, id);
+                msisdnsById.put(id, msisdnKey);
+                msisdns.add(msisdnKey);
+            } else {
+                long removedMsisdn = msisdnsById.remove(id);
+                if (removedMsisdn != NOT_FOUND) {
+                    idsByMsisdn.remove(removedMsisdn);
+                    msisdns.remove(removedMsisdn);
+                }
+            }
+        }
+    }
+}
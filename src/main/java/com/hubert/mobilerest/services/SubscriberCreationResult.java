@@ -0,0 +1,35 @@
+package com.hubert.mobilerest.services;
+
+import com.hubert.mobilerest.domain.MobileSubscriber;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Result of creation of one subscriber from the batch
+ */
+@Getter
+@AllArgsConstructor
+public class SubscriberCreationResult {
+
+    public enum Status {
+        CREATED,
+        DUPLICATE,
+        INVALID
+    }
+
+    private Status status;
+    private MobileSubscriber subscriber;
+    private String message;
+
+    public static SubscriberCreationResult created(MobileSubscriber subscriber) {
+        return new SubscriberCreationResult(Status.CREATED, subscriber, null);
+    }
+
+    public static SubscriberCreationResult duplicate(MobileSubscriber subscriber) {
+        return new SubscriberCreationResult(Status.DUPLICATE, subscriber, "Msisdn already exists");
+    }
+
+    public static SubscriberCreationResult invalid(MobileSubscriber subscriber, String message) {
+        return new SubscriberCreationResult(Status.INVALID, subscriber, message);
+    }
+}
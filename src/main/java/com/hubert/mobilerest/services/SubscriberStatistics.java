@@ -0,0 +1,235 @@
+package com.hubert.mobilerest.services;
+
+import com.hubert.mobilerest.domain.MobileSubscriber;
+import com.hubert.mobilerest.domain.ServiceType;
+import com.hubert.mobilerest.dto.v1.SubscriberStatisticsDto;
+import com.hubert.mobilerest.utils.DateUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * In-memory statistics of the subscribers: numbers per service type, per owner and activations (service starts) per UTC day.
+ * Counts are LongAdders, so concurrent changes of the same count don't contend, and the statistics are read without a query.
+ * Counts are reconciled with GROUP BY queries (on startup and periodically by MobileSubscriberService),
+ * changes made by the service in between are applied after commit.
+ * Changes committed while the reconciliation is running and subscribers changed not through the service (e.g. by other
+ * application instance) are miscounted until the next reconciliation. Deletions are single statements which don't read
+ * the removed subscribers, so they invalidate the statistics instead and the statistics are reconciled before the next read.
+ * Counts corrected by the reconciliations are exported as mobile.statistics.drift metric
+ */
+@Slf4j
+@Component
+public class SubscriberStatistics {
+    public static final String METRICS_PREFIX = "mobile.statistics";
+
+    private boolean enabled;
+    private volatile Counts counts;
+    private volatile boolean stale;
+    private final Counter drift;
+
+    public SubscriberStatistics(MeterRegistry meterRegistry, @Value("${mobile.statistics.enabled:true}") boolean enabled) {
+        this.enabled = enabled;
+        drift = Counter.builder(METRICS_PREFIX + ".drift")
+                .description("Differences between maintained and reconciled counts, summed for all the counts")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Checking if the statistics are reconciled and not invalidated since then
+     * @return True if the statistics can be read
+     */
+    public boolean isReady() {
+        return counts != null && !stale;
+    }
+
+    /**
+     * Counting created subscriber. Inside a transaction it's counted after commit
+     * @param subscriber Created subscriber
+     */
+    public void added(MobileSubscriber subscriber) {
+        if (enabled) {
+            afterCommit(counts -> counts.add(subscriber, 1));
+        }
+    }
+
+    /**
+     * Counting changed service type or owner of the subscriber. Inside a transaction it's counted after commit
+     * @param current Subscriber state the changes were based on
+     * @param changed Subscriber with applied changes
+     */
+    public void changed(MobileSubscriber current, MobileSubscriber changed) {
+        if (enabled) {
+            afterCommit(counts -> {
+                counts.add(current, -1);
+                counts.add(changed, 1);
+            });
+        }
+    }
+
+    /**
+     * Counting subscribers transferred from one owner to another. Inside a transaction it's counted after commit
+     * @param sourceOwnerId Id of the previous owner
+     * @param targetOwnerId Id of the new owner
+     * @param transferred Number of transferred subscribers
+     */
+    public void transferred(Long sourceOwnerId, Long targetOwnerId, long transferred) {
+        if (enabled && transferred > 0) {
+            afterCommit(counts -> {
+                counts.addOwner(sourceOwnerId, -transferred);
+                counts.addOwner(targetOwnerId, transferred);
+            });
+        }
+    }
+
+    /**
+     * Marking the statistics as not valid, e.g. after deletions of unknown subscribers. They are reconciled before the next read
+     */
+    public void invalidate() {
+        stale = true;
+    }
+
+    /**
+     * Replacing the counts with the ones read from the database. Drift of maintained counts is recorded
+     * @param serviceTypeCounts Query counting subscribers per service type
+     * @param ownerCounts Query counting subscribers per owner id
+     * @param dayCounts Query counting subscribers per UTC day of the service start
+     */
+    public synchronized void reconcile(Supplier<Map<ServiceType, Long>> serviceTypeCounts, Supplier<Map<Long, Long>> ownerCounts,
+                                       Supplier<Map<LocalDate, Long>> dayCounts) {
+        if (!enabled) {
+            return;
+        }
+        //invalidation during the queries might not be visible to them, so it's kept for the next read
+        stale = false;
+        Counts reconciled = new Counts(System.currentTimeMillis());
+        serviceTypeCounts.get().forEach((serviceType, count) -> Counts.add(reconciled.byServiceType, serviceType, count));
+        ownerCounts.get().forEach((ownerId, count) -> Counts.add(reconciled.byOwner, ownerId, count));
+        dayCounts.get().forEach((day, count) -> Counts.add(reconciled.activationsByDay, day, count));
+        Counts previous = counts;
+        counts = reconciled;
+        if (previous != null) {
+            long difference = difference(previous.byServiceType, reconciled.byServiceType)
+                    + difference(previous.byOwner, reconciled.byOwner)
+                    + difference(previous.activationsByDay, reconciled.activationsByDay);
+            drift.increment(difference);
+            if (difference > 0) {
+                log.info("Subscriber statistics reconciled, " + difference + " counts corrected");
+            }
+        }
+    }
+
+    /**
+     * Reading the statistics. Needs to be called only if the statistics are ready
+     * @return Current counts, without the ones dropped to zero
+     */
+    public SubscriberStatisticsDto getStatistics() {
+        Counts current = counts;
+        Map<ServiceType, Long> byServiceType = new EnumMap<>(ServiceType.class);
+        copyCounts(current.byServiceType, byServiceType);
+        SortedMap<Long, Long> byOwner = new TreeMap<>();
+        copyCounts(current.byOwner, byOwner);
+        SortedMap<LocalDate, Long> activationsByDay = new TreeMap<>();
+        copyCounts(current.activationsByDay, activationsByDay);
+        return SubscriberStatisticsDto.builder()
+                .subscribers(byServiceType.values().stream().mapToLong(Long::longValue).sum())
+                .subscribersByServiceType(byServiceType)
+                .subscribersByOwner(byOwner)
+                .activationsByDay(activationsByDay)
+                .reconciledAt(current.reconciledAt)
+                .build();
+    }
+
+    private void afterCommit(Consumer<Counts> change) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    apply(change);
+                }
+            });
+        } else {
+            apply(change);
+        }
+    }
+
+    private void apply(Consumer<Counts> change) {
+        //changes before the first reconciliation are read by it from the database
+        Counts current = counts;
+        if (current != null) {
+            change.accept(current);
+        }
+    }
+
+    private static <K> void copyCounts(Map<K, LongAdder> counts, Map<K, Long> target) {
+        counts.forEach((key, count) -> {
+            long sum = count.sum();
+            if (sum != 0) {
+                target.put(key, sum);
+            }
+        });
+    }
+
+    private static <K> long difference(Map<K, LongAdder> previous, Map<K, LongAdder> reconciled) {
+        Set<K> keys = new HashSet<>(previous.keySet());
+        keys.addAll(reconciled.keySet());
+        return keys.stream()
+                .mapToLong(key -> Math.abs(sum(previous, key) - sum(reconciled, key)))
+                .sum();
+    }
+
+    private static <K> long sum(Map<K, LongAdder> counts, K key) {
+        LongAdder count = counts.get(key);
+        return count == null ? 0 : count.sum();
+    }
+
+    /**
+     * Counts of one reconciliation, replaced as a whole by the next one
+     */
+    private static final class Counts {
+        private final Map<ServiceType, LongAdder> byServiceType = new ConcurrentHashMap<>();
+        private final Map<Long, LongAdder> byOwner = new ConcurrentHashMap<>();
+        private final Map<LocalDate, LongAdder> activationsByDay = new ConcurrentHashMap<>();
+        private final long reconciledAt;
+
+        private Counts(long reconciledAt) {
+            this.reconciledAt = reconciledAt;
+        }
+
+        private static <K> void add(Map<K, LongAdder> counts, K key, long delta) {
+            if (key != null) {
+                counts.computeIfAbsent(key, k -> new LongAdder()).add(delta);
+            }
+        }
+
+        private void add(MobileSubscriber subscriber, long delta) {
+            add(byServiceType, subscriber.getServiceType(), delta);
+            add(byOwner, subscriber.getOwnerId(), delta);
+            add(activationsByDay, DateUtils.utcDayFromLocalDateTime(subscriber.getServiceStartDate()), delta);
+        }
+
+        private void addOwner(Long ownerId, long delta) {
+            add(byOwner, ownerId, delta);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.hubert.mobilerest.utils;
+
+import com.hubert.mobilerest.exceptions.ValidationFailedException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Utility class for opaque pagination cursors
+ */
+public class CursorUtils {
+    private CursorUtils() {
+
+    }
+
+    /**
+     * Encoding the last returned subscriber id into an opaque cursor token
+     * @param lastId Id of the last element returned on the page
+     * @return Url-safe cursor token or null if no id provided
+     */
+    public static String encodeCursor(Long lastId) {
+        return lastId == null ? null
+                : Base64.getUrlEncoder().withoutPadding().encodeToString(lastId.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decoding cursor token into the id after which the next page starts
+     * @param cursor Cursor token received from the client
+     * @return Id encoded in the cursor or null if no cursor provided
+     */
+    public static Long decodeCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            long lastId = Long.parseLong(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+            if (lastId < 0) {
+                throw new ValidationFailedException("Invalid cursor provided");
+            }
+            return lastId;
+        } catch (IllegalArgumentException e) {
+            throw new ValidationFailedException("Invalid cursor provided");
+        }
+    }
+}
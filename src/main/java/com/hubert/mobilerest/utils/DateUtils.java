@@ -1,6 +1,7 @@
 package com.hubert.mobilerest.utils;
 
 import java.time.Instant;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 
@@ -8,6 +9,8 @@ import java.time.ZoneId;
  * Utility class related to dates
  */
 public class DateUtils {
+    public static final long MILLIS_PER_DAY = 86_400_000L;
+
     private DateUtils() {
 
     }
@@ -31,4 +34,15 @@ public class DateUtils {
         return localDateTime == null ? null
                 :  localDateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
     }
+
+    /**
+     * Mapping between LocalDateTime and the UTC day it belongs to. Day is computed from the epoch millis by floor division
+     * (the same as FLOOR(epochMillis / 86400000.0) in SQL), so days computed in Java and in the database match, also before 1970
+     * @param localDateTime Input local date time
+     * @return UTC day of the epoch mapped using system default timezone
+     */
+    public static LocalDate utcDayFromLocalDateTime(LocalDateTime localDateTime) {
+        return localDateTime == null ? null
+                :  LocalDate.ofEpochDay(Math.floorDiv(epochFromLocalDateTime(localDateTime), MILLIS_PER_DAY));
+    }
 }
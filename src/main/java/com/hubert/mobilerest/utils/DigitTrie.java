@@ -0,0 +1,279 @@
+package com.hubert.mobilerest.utils;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+
+/**
+ * Trie of positive decimal numbers, stored outside of the Java heap in a direct buffer. Every node keeps the number of values
+ * in its subtree, so values with given prefix are counted in O(prefix length) and listed in order of their digits
+ * (the same way as sorted strings, e.g. 485 before 4850 before 486).
+ * Node takes 12 ints (48 bytes): 10 children, number of values in the subtree and the terminal flag. Nodes of removed values are reused.
+ * Not thread safe, synchronization is provided by the caller
+ */
+public class DigitTrie {
+    private static final int NODE_INTS = 12;
+    private static final int COUNT = 10;
+    private static final int TERMINAL = 11;
+    private static final int ROOT = 0;
+    //root is never a child, so 0 marks missing child (and the end of free nodes list)
+    private static final int NONE = 0;
+    private static final int MISSING = -1;
+    private static final int MAX_DIGITS = 18;
+    private static final long MAX_VALUE = pow10(MAX_DIGITS);
+    //direct buffer is limited to Integer.MAX_VALUE bytes
+    public static final int MAX_NODES = Integer.MAX_VALUE / (NODE_INTS * Integer.BYTES);
+
+    private IntBuffer nodes;
+    private int allocatedNodes = 1;
+    private int freeNodes;
+    private int firstFreeNode = NONE;
+
+    /**
+     * Creating the trie with allocated nodes
+     * @param initialNodes Number of nodes allocated up front
+     */
+    public DigitTrie(int initialNodes) {
+        if (initialNodes < 1 || initialNodes > MAX_NODES) {
+            throw new IllegalArgumentException("Number of nodes must be between 1 and " + MAX_NODES);
+        }
+        nodes = allocate(initialNodes);
+    }
+
+    /**
+     * Adding the value. IllegalStateException is thrown if the trie cannot grow anymore
+     * @param value Added value, up to 18 digits
+     * @return True if the value was added, false if it was already present
+     */
+    public boolean add(long value) {
+        if (value <= 0 || value >= MAX_VALUE) {
+            throw new IllegalArgumentException("Value must be between 1 and " + (MAX_VALUE - 1));
+        }
+        if (contains(value)) {
+            return false;
+        }
+        int digits = digits(value);
+        //all the nodes are available before the trie is changed, so it's never left half updated
+        ensureCapacity(digits);
+        int node = ROOT;
+        increment(node);
+        for (long divisor = pow10(digits - 1); divisor > 0; divisor /= 10) {
+            int digit = (int) (value / divisor % 10);
+            int child = child(node, digit);
+            if (child == NONE) {
+                child = allocateNode();
+                nodes.put(node * NODE_INTS + digit, child);
+            }
+            increment(child);
+            node = child;
+        }
+        nodes.put(node * NODE_INTS + TERMINAL, 1);
+        return true;
+    }
+
+    /**
+     * Removing the value. Nodes left without values are released
+     * @param value Removed value
+     * @return True if the value was removed, false if it was not present
+     */
+    public boolean remove(long value) {
+        if (!contains(value)) {
+            return false;
+        }
+        int node = ROOT;
+        nodes.put(COUNT, nodes.get(COUNT) - 1);
+        for (long divisor = pow10(digits(value) - 1); divisor > 0; divisor /= 10) {
+            int digit = (int) (value / divisor % 10);
+            int child = child(node, digit);
+            if (count(child) == 1) {
+                //only the removed value is below, the rest of its path is released
+                nodes.put(node * NODE_INTS + digit, NONE);
+                releasePath(child, value, divisor / 10);
+                return true;
+            }
+            nodes.put(child * NODE_INTS + COUNT, count(child) - 1);
+            node = child;
+        }
+        nodes.put(node * NODE_INTS + TERMINAL, 0);
+        return true;
+    }
+
+    /**
+     * Checking if the value is present
+     * @param value Checked value
+     * @return True if the value is present
+     */
+    public boolean contains(long value) {
+        if (value <= 0 || value >= MAX_VALUE) {
+            return false;
+        }
+        int node = ROOT;
+        for (long divisor = pow10(digits(value) - 1); divisor > 0; divisor /= 10) {
+            node = child(node, (int) (value / divisor % 10));
+            if (node == NONE) {
+                return false;
+            }
+        }
+        return nodes.get(node * NODE_INTS + TERMINAL) == 1;
+    }
+
+    /**
+     * Counting values starting with the prefix, in O(prefix length)
+     * @param prefix Decimal digits of the prefix
+     * @return Number of values with the prefix
+     */
+    public long count(String prefix) {
+        int node = prefixNode(prefix);
+        return node == MISSING ? 0 : count(node);
+    }
+
+    /**
+     * Listing values starting with the prefix in order of their digits, only the subtrees needed to fill the target are visited
+     * @param prefix Decimal digits of the prefix
+     * @param after Values up to this one (in order of digits) are skipped, 0 to start from the first value with the prefix
+     * @param target Array filled with the values
+     * @return Number of values written to the target
+     */
+    public int find(String prefix, long after, long[] target) {
+        int node = prefixNode(prefix);
+        if (node == MISSING || target.length == 0) {
+            return 0;
+        }
+        String bound = after > 0 ? Long.toString(after) : null;
+        if (bound != null && !bound.startsWith(prefix)) {
+            if (bound.compareTo(prefix) > 0 && !prefix.startsWith(bound)) {
+                //all the values with the prefix are before the bound
+                return 0;
+            }
+            bound = null;
+        }
+        return collect(node, Long.parseLong(prefix), prefix.length(), bound, target, 0);
+    }
+
+    /**
+     * Number of values in the trie
+     * @return Number of values
+     */
+    public long size() {
+        return count(ROOT);
+    }
+
+    public long getMemoryBytes() {
+        return (long) nodes.capacity() * Integer.BYTES;
+    }
+
+    //bound is not null while the path so far has the same digits as the bound
+    private int collect(int node, long value, int depth, String bound, long[] target, int filled) {
+        if (bound == null && nodes.get(node * NODE_INTS + TERMINAL) == 1) {
+            target[filled++] = value;
+        }
+        for (int digit = 0; digit < 10 && filled < target.length; digit++) {
+            int child = child(node, digit);
+            if (child == NONE) {
+                continue;
+            }
+            String childBound = null;
+            if (bound != null && depth < bound.length()) {
+                int boundDigit = bound.charAt(depth) - '0';
+                if (digit < boundDigit) {
+                    continue;
+                }
+                childBound = digit == boundDigit ? bound : null;
+            }
+            filled = collect(child, value * 10 + digit, depth + 1, childBound, target, filled);
+        }
+        return filled;
+    }
+
+    private int prefixNode(String prefix) {
+        int node = ROOT;
+        for (int i = 0; i < prefix.length(); i++) {
+            node = child(node, prefix.charAt(i) - '0');
+            if (node == NONE) {
+                return MISSING;
+            }
+        }
+        return node;
+    }
+
+    private void releasePath(int node, long value, long divisor) {
+        while (true) {
+            int next = divisor > 0 ? child(node, (int) (value / divisor % 10)) : NONE;
+            releaseNode(node);
+            if (next == NONE) {
+                return;
+            }
+            node = next;
+            divisor /= 10;
+        }
+    }
+
+    private void releaseNode(int node) {
+        for (int i = 0; i < NODE_INTS; i++) {
+            nodes.put(node * NODE_INTS + i, 0);
+        }
+        nodes.put(node * NODE_INTS, firstFreeNode);
+        firstFreeNode = node;
+        freeNodes++;
+    }
+
+    private int allocateNode() {
+        if (firstFreeNode != NONE) {
+            int node = firstFreeNode;
+            firstFreeNode = child(node, 0);
+            nodes.put(node * NODE_INTS, NONE);
+            freeNodes--;
+            return node;
+        }
+        return allocatedNodes++;
+    }
+
+    private void ensureCapacity(int requiredNodes) {
+        int capacity = nodes.capacity() / NODE_INTS;
+        if (freeNodes + capacity - allocatedNodes >= requiredNodes) {
+            return;
+        }
+        long grownCapacity = Math.min(MAX_NODES, Math.max(2L * capacity, (long) allocatedNodes + requiredNodes));
+        if (grownCapacity - allocatedNodes < requiredNodes) {
+            throw new IllegalStateException("Trie cannot grow above " + MAX_NODES + " nodes");
+        }
+        IntBuffer grown = allocate((int) grownCapacity);
+        nodes.rewind();
+        grown.put(nodes);
+        grown.rewind();
+        nodes = grown;
+    }
+
+    private int child(int node, int digit) {
+        return nodes.get(node * NODE_INTS + digit);
+    }
+
+    private int count(int node) {
+        return nodes.get(node * NODE_INTS + COUNT);
+    }
+
+    private void increment(int node) {
+        nodes.put(node * NODE_INTS + COUNT, count(node) + 1);
+    }
+
+    private static IntBuffer allocate(int nodes) {
+        //direct buffer is zeroed, so all the nodes are empty
+        return ByteBuffer.allocateDirect(nodes * NODE_INTS * Integer.BYTES).order(ByteOrder.nativeOrder()).asIntBuffer();
+    }
+
+    private static int digits(long value) {
+        int digits = 1;
+        while (digits < MAX_DIGITS && value >= pow10(digits)) {
+            digits++;
+        }
+        return digits;
+    }
+
+    private static long pow10(int exponent) {
+        long result = 1;
+        for (int i = 0; i < exponent; i++) {
+            result *= 10;
+        }
+        return result;
+    }
+}
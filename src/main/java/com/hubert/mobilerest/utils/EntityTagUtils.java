@@ -0,0 +1,44 @@
+package com.hubert.mobilerest.utils;
+
+import com.hubert.mobilerest.exceptions.PreconditionFailedException;
+
+/**
+ * Utility class for strong entity tags built from the subscriber version
+ */
+public class EntityTagUtils {
+    private static final String ANY = "*";
+
+    private EntityTagUtils() {
+
+    }
+
+    /**
+     * Building strong entity tag for ETag header from the version
+     * @param version Version of the subscriber
+     * @return Quoted version, e.g. "3", or null if no version provided
+     */
+    public static String toEntityTag(Long version) {
+        return version == null ? null : "\"" + version + "\"";
+    }
+
+    /**
+     * Reading the version expected by the client from If-Match header. Only a single strong entity tag or "*" is accepted,
+     * any other value cannot match the current version, so PreconditionFailedException is thrown
+     * @param ifMatch If-Match header value
+     * @return Expected version or null if header not provided or any version matches ("*")
+     */
+    public static Long versionFromIfMatch(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ANY.equals(ifMatch.trim())) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.length() > 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            try {
+                return Long.parseLong(tag.substring(1, tag.length() - 1));
+            } catch (NumberFormatException e) {
+                //falls through to the failed precondition
+            }
+        }
+        throw new PreconditionFailedException("Entity tag " + ifMatch + " doesn't match the current subscriber version");
+    }
+}
@@ -0,0 +1,166 @@
+package com.hubert.mobilerest.utils;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+
+/**
+ * Hash map of positive long keys to long values, stored outside of the Java heap in a direct buffer (16 bytes per slot).
+ * Open addressing with linear probing, removed entries are shifted back, so there are no tombstones.
+ * Lookups and modifications don't allocate, only growing the table does (the old buffer is released by the garbage collector).
+ * Not thread safe for modifications. Lookup concurrent with modification never fails, but might return wrong result,
+ * so it needs to be validated by the caller (e.g. with StampedLock optimistic read)
+ */
+public class OffHeapLongLongMap {
+    public static final long NOT_FOUND = Long.MIN_VALUE;
+    //direct buffer is limited to Integer.MAX_VALUE bytes
+    public static final int MAX_CAPACITY = 1 << 26;
+    private static final long EMPTY = 0;
+    private static final double MAX_LOAD_FACTOR = 0.75;
+
+    private volatile LongBuffer table;
+    private int size;
+
+    /**
+     * Creating the map with allocated table
+     * @param initialCapacity Number of slots, rounded up to the power of two
+     */
+    public OffHeapLongLongMap(int initialCapacity) {
+        if (initialCapacity < 1 || initialCapacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException("Capacity must be between 1 and " + MAX_CAPACITY);
+        }
+        table = allocate(Math.max(2, Integer.highestOneBit(initialCapacity - 1) << 1));
+    }
+
+    /**
+     * Finding value of the key
+     * @param key Searched key
+     * @return Value of the key or NOT_FOUND if the key is not present
+     */
+    public long get(long key) {
+        LongBuffer current = table;
+        int capacity = capacity(current);
+        int slot = slot(key, capacity);
+        for (int probes = 0; probes < capacity; probes++) {
+            long slotKey = current.get(2 * slot);
+            if (slotKey == key) {
+                return current.get(2 * slot + 1);
+            }
+            if (slotKey == EMPTY) {
+                return NOT_FOUND;
+            }
+            slot = (slot + 1) & (capacity - 1);
+        }
+        return NOT_FOUND;
+    }
+
+    /**
+     * Setting value of the key. Table is doubled when it's filled above the load factor.
+     * IllegalStateException is thrown if the table cannot grow anymore
+     * @param key Key, greater than zero
+     * @param value Value of the key
+     */
+    public void put(long key, long value) {
+        if (key <= EMPTY) {
+            throw new IllegalArgumentException("Key must be greater than zero");
+        }
+        if (size + 1 > capacity(table) * MAX_LOAD_FACTOR) {
+            grow();
+        }
+        if (insert(table, key, value)) {
+            size++;
+        }
+    }
+
+    /**
+     * Removing the key. Following entries of the probe sequence are shifted back into the freed slot
+     * @param key Removed key
+     * @return Removed value or NOT_FOUND if the key was not present
+     */
+    public long remove(long key) {
+        LongBuffer current = table;
+        int mask = capacity(current) - 1;
+        int slot = slot(key, mask + 1);
+        while (current.get(2 * slot) != key) {
+            if (current.get(2 * slot) == EMPTY) {
+                return NOT_FOUND;
+            }
+            slot = (slot + 1) & mask;
+        }
+        long removed = current.get(2 * slot + 1);
+        int free = slot;
+        for (int next = (free + 1) & mask; current.get(2 * next) != EMPTY; next = (next + 1) & mask) {
+            int home = slot(current.get(2 * next), mask + 1);
+            //entry can be moved if its home slot is not between the free slot and its current slot
+            if (((next - home) & mask) >= ((next - free) & mask)) {
+                current.put(2 * free, current.get(2 * next));
+                current.put(2 * free + 1, current.get(2 * next + 1));
+                free = next;
+            }
+        }
+        current.put(2 * free, EMPTY);
+        current.put(2 * free + 1, 0);
+        size--;
+        return removed;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return capacity(table);
+    }
+
+    public long getMemoryBytes() {
+        return (long) table.capacity() * Long.BYTES;
+    }
+
+    private void grow() {
+        LongBuffer current = table;
+        int capacity = capacity(current);
+        if (capacity >= MAX_CAPACITY) {
+            throw new IllegalStateException("Map cannot grow above " + MAX_CAPACITY + " slots");
+        }
+        LongBuffer grown = allocate(capacity * 2);
+        for (int slot = 0; slot < capacity; slot++) {
+            long key = current.get(2 * slot);
+            if (key != EMPTY) {
+                insert(grown, key, current.get(2 * slot + 1));
+            }
+        }
+        table = grown;
+    }
+
+    //returns true if the key was added, false if its value was replaced
+    private static boolean insert(LongBuffer table, long key, long value) {
+        int mask = capacity(table) - 1;
+        int slot = slot(key, mask + 1);
+        long slotKey;
+        while ((slotKey = table.get(2 * slot)) != EMPTY && slotKey != key) {
+            slot = (slot + 1) & mask;
+        }
+        table.put(2 * slot + 1, value);
+        table.put(2 * slot, key);
+        return slotKey == EMPTY;
+    }
+
+    private static LongBuffer allocate(int capacity) {
+        //direct buffer is zeroed, so all the slots are empty
+        return ByteBuffer.allocateDirect(capacity * 2 * Long.BYTES).order(ByteOrder.nativeOrder()).asLongBuffer();
+    }
+
+    private static int capacity(LongBuffer table) {
+        return table.capacity() / 2;
+    }
+
+    //murmur finalizer spreads sequential keys (numbers from the same range) over the whole table
+    private static int slot(long key, int capacity) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return (int) key & (capacity - 1);
+    }
+}
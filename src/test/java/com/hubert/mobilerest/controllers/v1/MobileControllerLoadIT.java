@@ -0,0 +1,264 @@
+package com.hubert.mobilerest.controllers.v1;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hubert.mobilerest.domain.ServiceType;
+import com.hubert.mobilerest.generator.DatasetGenerator;
+import com.hubert.mobilerest.generator.DatasetSettings;
+import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Load test of the whole application: generated dataset is loaded into H2, then concurrent clients send a mix of requests
+ * to the running application and latency of every endpoint is recorded in HDR histograms.
+ * Disabled by default, run with: mvn verify -P loadtest
+ * Workload can be changed with loadtest.* system properties (e.g. -Dloadtest.clients=64 -Dloadtest.mix=get:80,search:20),
+ * percentile distributions are written to target/loadtest/*.hgrm files, so the results of different builds can be compared.
+ */
+@Slf4j
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "logging.level.com.hubert.mobilerest=WARN")
+@ExtendWith(SpringExtension.class)
+@EnabledIfSystemProperty(named = "loadtest", matches = "true")
+class MobileControllerLoadIT {
+    private static final int SUBSCRIBERS = Integer.getInteger("loadtest.subscribers", 100_000);
+    private static final int CUSTOMERS = Integer.getInteger("loadtest.customers", 1_000);
+    private static final int CLIENTS = Integer.getInteger("loadtest.clients", 32);
+    private static final long WARMUP_SECONDS = Long.getLong("loadtest.warmup", 10);
+    private static final long DURATION_SECONDS = Long.getLong("loadtest.duration", 30);
+    private static final String MIX = System.getProperty("loadtest.mix", "get:50,search:20,post:10,put:8,patch:8,delete:4");
+    private static final Path REPORT_DIR = Paths.get(System.getProperty("loadtest.report-dir", "target/loadtest"));
+
+    //outside of the generated mobile ranges
+    private static final long CREATED_MSISDN_BASE = 48_700_000_000L;
+    private static final long MAX_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+    private enum Operation {
+        GET, SEARCH, POST, PUT, PATCH, DELETE
+    }
+
+    @LocalServerPort
+    int port;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+    private final Map<Operation, Histogram> histograms = new EnumMap<>(Operation.class);
+    private final Map<Operation, LongAdder> notFound = new EnumMap<>(Operation.class);
+    private final Map<Operation, LongAdder> errors = new EnumMap<>(Operation.class);
+    private final Queue<Long> createdIds = new ConcurrentLinkedQueue<>();
+    private final AtomicLong createdMsisdns = new AtomicLong();
+    private Operation[] weightedOperations;
+    private DatasetGenerator generator;
+
+    @BeforeEach
+    void setUp() {
+        for (Operation operation : Operation.values()) {
+            histograms.put(operation, new ConcurrentHistogram(MAX_LATENCY_MICROS, 3));
+            notFound.put(operation, new LongAdder());
+            errors.put(operation, new LongAdder());
+        }
+        weightedOperations = parseMix(MIX);
+        generator = new DatasetGenerator(DatasetSettings.builder()
+                .customers(CUSTOMERS)
+                .subscribers(SUBSCRIBERS)
+                .build());
+        generator.load(jdbcTemplate);
+    }
+
+    @Test
+    void loadTest() throws Exception {
+        log.warn("Load test: " + SUBSCRIBERS + " subscribers, " + CLIENTS + " clients, mix " + MIX
+                + ", warmup " + WARMUP_SECONDS + "s, duration " + DURATION_SECONDS + "s");
+        runClients(WARMUP_SECONDS);
+        reset();
+        runClients(DURATION_SECONDS);
+
+        report();
+        for (Operation operation : Operation.values()) {
+            assertThat(operation + " requests failed", errors.get(operation).sum(), is(0L));
+        }
+        assertThat(histograms.values().stream().mapToLong(Histogram::getTotalCount).sum(), greaterThan(0L));
+    }
+
+    private void runClients(long seconds) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        ExecutorService executor = Executors.newFixedThreadPool(CLIENTS);
+        try {
+            List<Future<?>> clients = new ArrayList<>();
+            for (int i = 0; i < CLIENTS; i++) {
+                clients.add(executor.submit(() -> {
+                    while (System.nanoTime() < deadline) {
+                        execute(weightedOperations[ThreadLocalRandom.current().nextInt(weightedOperations.length)]);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> client : clients) {
+                client.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void execute(Operation operation) throws IOException, InterruptedException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long id = random.nextLong(1, SUBSCRIBERS + 1);
+        HttpRequest request;
+        switch (operation) {
+            case GET:
+                request = request("/" + id).GET().build();
+                break;
+            case SEARCH:
+                request = request("?ownerId=" + randomCustomer() + "&pageSize=50").GET().build();
+                break;
+            case POST:
+                request = request("").POST(json(subscriber(Long.toString(CREATED_MSISDN_BASE + createdMsisdns.incrementAndGet())))).build();
+                break;
+            case PUT:
+                request = request("/" + id).PUT(json(subscriber(generator.msisdn(id)))).build();
+                break;
+            case PATCH:
+                request = request("/" + id).method("PATCH", json("{\"serviceType\":\"" + randomServiceType() + "\"}")).build();
+                break;
+            default:
+                //only the subscribers created by the test are removed, so the seeded data set stays the same
+                Long createdId = createdIds.poll();
+                if (createdId == null) {
+                    execute(Operation.POST);
+                    return;
+                }
+                request = request("/" + createdId).DELETE().build();
+        }
+
+        long start = System.nanoTime();
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+        histograms.get(operation).recordValue(Math.min(micros, MAX_LATENCY_MICROS));
+
+        if (response.statusCode() == 404) {
+            notFound.get(operation).increment();
+        } else if (response.statusCode() >= 300) {
+            errors.get(operation).increment();
+        } else if (operation == Operation.POST) {
+            createdIds.add(createdId(response.body()));
+        }
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/mobile/subscribers" + path))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json")
+                .header("Accept", "application/json");
+    }
+
+    private HttpRequest.BodyPublisher json(String body) {
+        return HttpRequest.BodyPublishers.ofString(body);
+    }
+
+    private String subscriber(String msisdn) {
+        return "{\"msisdn\":\"" + msisdn + "\",\"ownerId\":" + randomCustomer() + ",\"userId\":" + randomCustomer()
+                + ",\"serviceType\":\"" + randomServiceType() + "\"}";
+    }
+
+    private Long createdId(String body) throws IOException {
+        JsonNode href = objectMapper.readTree(body).path("_links").path("find-by-id").path("href");
+        String link = href.asText();
+        return Long.valueOf(link.substring(link.lastIndexOf('/') + 1));
+    }
+
+    private long randomCustomer() {
+        return ThreadLocalRandom.current().nextLong(1, CUSTOMERS + 1);
+    }
+
+    private String randomServiceType() {
+        return ServiceType.values()[ThreadLocalRandom.current().nextInt(ServiceType.values().length)].name();
+    }
+
+    private void reset() {
+        histograms.values().forEach(Histogram::reset);
+        notFound.values().forEach(LongAdder::reset);
+        errors.values().forEach(LongAdder::reset);
+    }
+
+    private void report() throws IOException {
+        Files.createDirectories(REPORT_DIR);
+        StringBuilder summary = new StringBuilder(String.format("%n%-8s %10s %8s %8s %10s %10s %10s %10s %10s%n",
+                "endpoint", "requests", "404", "errors", "req/s", "p50 [ms]", "p99 [ms]", "p999 [ms]", "max [ms]"));
+        for (Operation operation : Operation.values()) {
+            Histogram histogram = histograms.get(operation);
+            summary.append(String.format("%-8s %10d %8d %8d %10.1f %10.3f %10.3f %10.3f %10.3f%n", operation,
+                    histogram.getTotalCount(), notFound.get(operation).sum(), errors.get(operation).sum(),
+                    histogram.getTotalCount() / (double) DURATION_SECONDS,
+                    millis(histogram.getValueAtPercentile(50)), millis(histogram.getValueAtPercentile(99)),
+                    millis(histogram.getValueAtPercentile(99.9)), millis(histogram.getMaxValue())));
+            try (PrintStream out = new PrintStream(REPORT_DIR.resolve(operation.name().toLowerCase() + ".hgrm").toFile())) {
+                histogram.outputPercentileDistribution(out, 1000.0);
+            }
+        }
+        Files.write(REPORT_DIR.resolve("summary.txt"), summary.toString().getBytes());
+        log.warn(summary.toString());
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+
+    private static Operation[] parseMix(String mix) {
+        List<Operation> operations = new ArrayList<>();
+        for (String entry : mix.split(",")) {
+            String[] weight = entry.trim().split(":");
+            Operation operation = Operation.valueOf(weight[0].trim().toUpperCase());
+            for (int i = 0; i < Integer.parseInt(weight[1].trim()); i++) {
+                operations.add(operation);
+            }
+        }
+        return operations.toArray(new Operation[0]);
+    }
+}
@@ -2,14 +2,22 @@ package com.hubert.mobilerest.controllers.v1;
 
 import com.hubert.mobilerest.controllers.v1.MobileController;
 import com.hubert.mobilerest.domain.Company;
+import com.hubert.mobilerest.domain.CustomerRole;
 import com.hubert.mobilerest.domain.MobileSubscriber;
 import com.hubert.mobilerest.domain.Person;
 import com.hubert.mobilerest.domain.ServiceType;
 import com.hubert.mobilerest.dto.v1.MobileSubscriberDto;
+import com.hubert.mobilerest.dto.v1.MobileSubscribersDto;
+import com.hubert.mobilerest.dto.v1.SubscriberStatisticsDto;
+import com.hubert.mobilerest.dto.v1.SubscribersDeletionDto;
+import com.hubert.mobilerest.dto.v1.SubscribersTransferDto;
+import com.hubert.mobilerest.exceptions.PreconditionFailedException;
 import com.hubert.mobilerest.exceptions.ResourceNotFoundException;
 import com.hubert.mobilerest.exceptions.ValidationFailedException;
 import com.hubert.mobilerest.mappers.v1.MobileSubscriberMapper;
 import com.hubert.mobilerest.services.MobileSubscriberService;
+import com.hubert.mobilerest.services.SubscriberCreationResult;
+import com.hubert.mobilerest.utils.CursorUtils;
 import com.hubert.mobilerest.utils.DateUtils;
 import com.hubert.mobilerest.utils.TestUtils;
 import org.assertj.core.util.Lists;
@@ -21,17 +29,33 @@ import org.mockito.MockitoAnnotations;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
@@ -40,6 +64,8 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(controllers = {MobileController.class})
@@ -78,7 +104,7 @@ class MobileControllerTest {
     @Test
     void shouldFindByIdTest() throws Exception {
         //given
-        given(service.findSubscriberById(1L)).willReturn(subscriber);
+        given(service.findSubscriberDtoById(1L)).willReturn(Mappers.getMapper(MobileSubscriberMapper.class).domainToDto(subscriber));
 
         //when/then
         mockMvc.perform(get(CONTROLLER_BASE_URL + "/1")
@@ -87,11 +113,80 @@ class MobileControllerTest {
                 .andExpect(jsonPath("$.msisdn", is(subscriber.getMsisdn())));
     }
 
+    @Test
+    void shouldFindByIdWithEntityTagTest() throws Exception {
+        //given
+        subscriber.setVersion(3L);
+        given(service.findSubscriberDtoById(1L)).willReturn(toDto(subscriber));
+
+        //when/then
+        mockMvc.perform(get(CONTROLLER_BASE_URL + "/1")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3\""))
+                .andExpect(jsonPath("$.version").doesNotExist());
+    }
+
+    @Test
+    void shouldReturnNotModifiedForMatchingEntityTagTest() throws Exception {
+        //given
+        subscriber.setVersion(3L);
+        given(service.findSubscriberDtoById(1L)).willReturn(toDto(subscriber));
+
+        //when/then
+        mockMvc.perform(get(CONTROLLER_BASE_URL + "/1")
+                .header(HttpHeaders.IF_NONE_MATCH, "\"3\"")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3\""))
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    void shouldReturnSubscriberForChangedEntityTagTest() throws Exception {
+        //given
+        subscriber.setVersion(4L);
+        given(service.findSubscriberDtoById(1L)).willReturn(toDto(subscriber));
+
+        //when/then
+        mockMvc.perform(get(CONTROLLER_BASE_URL + "/1")
+                .header(HttpHeaders.IF_NONE_MATCH, "\"3\"")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"4\""))
+                .andExpect(jsonPath("$.msisdn", is(subscriber.getMsisdn())));
+    }
+
+    @Test
+    void shouldResolveMsisdnTest() throws Exception {
+        //given
+        given(service.resolveSubscriberId("48500123456")).willReturn(7L);
+
+        //when/then
+        mockMvc.perform(get(CONTROLLER_BASE_URL + "/by-msisdn/48500123456")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id", is(7)))
+                .andExpect(jsonPath("$.msisdn", is("48500123456")))
+                .andExpect(jsonPath("$._links['find-by-id'].href", containsString("/mobile/subscribers/7")));
+    }
+
+    @Test
+    void shouldNotResolveMissingMsisdnTest() throws Exception {
+        //given
+        given(service.resolveSubscriberId("48500123456")).willThrow(ResourceNotFoundException.class);
+
+        //when/then
+        mockMvc.perform(get(CONTROLLER_BASE_URL + "/by-msisdn/48500123456")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     void shouldFindAllTest() throws Exception {
         //given
-        given(service.findSubscribersByCriteria(MobileSubscriber.builder().build()))
-                .willReturn(Lists.newArrayList(subscriber, subscriber2));
+        given(service.findSubscriberDtosByCriteria(MobileSubscriber.builder().build()))
+                .willReturn(Lists.newArrayList(toDto(subscriber), toDto(subscriber2)));
 
         //when/then
         mockMvc.perform(get(CONTROLLER_BASE_URL)
@@ -102,7 +197,7 @@ class MobileControllerTest {
 
     @Test
     void shouldFindByCriteriaTest() throws Exception {
-        given(service.findSubscribersByCriteria(
+        given(service.findSubscriberDtosByCriteria(
                 MobileSubscriber.builder()
                         .msisdn("123123123")
                         .serviceType(ServiceType.MOBILE_POSTPAID)
@@ -110,7 +205,7 @@ class MobileControllerTest {
                         .owner(Company.builder().id(1L).build())
                         .user(Company.builder().id(2L).build())
                         .build()))
-                .willReturn(Lists.newArrayList(subscriber, subscriber2));
+                .willReturn(Lists.newArrayList(toDto(subscriber), toDto(subscriber2)));
 
         //when/then
         mockMvc.perform(get(CONTROLLER_BASE_URL)
@@ -124,6 +219,173 @@ class MobileControllerTest {
                 .andExpect(jsonPath("$.subscribers", hasSize(2)));
     }
 
+    @Test
+    void shouldFindFirstPageTest() throws Exception {
+        //given
+        subscriber.setId(5L);
+        subscriber2.setId(7L);
+        given(service.findSubscriberDtosPage(MobileSubscriber.builder().serviceType(ServiceType.MOBILE_POSTPAID).build(), null, 2))
+                .willReturn(new SliceImpl<>(Lists.newArrayList(toDto(subscriber), toDto(subscriber2)), PageRequest.of(0, 2), true));
+
+        //when/then
+        mockMvc.perform(get(CONTROLLER_BASE_URL)
+                .param("serviceType", "MOBILE_POSTPAID")
+                .param("pageSize", "2")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.subscribers", hasSize(2)))
+                .andExpect(jsonPath("$.nextCursor", is(CursorUtils.encodeCursor(7L))))
+                .andExpect(jsonPath("$._links.next.href", containsString("cursor=" + CursorUtils.encodeCursor(7L))))
+                .andExpect(jsonPath("$._links.next.href", containsString("serviceType=MOBILE_POSTPAID")))
+                .andExpect(jsonPath("$._links.next.href", containsString("pageSize=2")));
+    }
+
+    @Test
+    void shouldFindLastPageWithCappedSizeTest() throws Exception {
+        //given
+        given(service.findSubscriberDtosPage(any(), eq(7L), eq(1000)))
+                .willReturn(new SliceImpl<>(Lists.newArrayList(toDto(subscriber)), PageRequest.of(0, 1000), false));
+
+        //when/then
+        mockMvc.perform(get(CONTROLLER_BASE_URL)
+                .param("cursor", CursorUtils.encodeCursor(7L))
+                .param("pageSize", "1000000")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.subscribers", hasSize(1)))
+                .andExpect(content().string(not(containsString("nextCursor"))))
+                .andExpect(content().string(not(containsString("_links"))));
+    }
+
+    @Test
+    void shouldRejectInvalidCursorTest() throws Exception {
+        //when/then
+        mockMvc.perform(get(CONTROLLER_BASE_URL)
+                .param("cursor", "invalid cursor")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void shouldFindByMsisdnPrefixTest() throws Exception {
+        //given
+        subscriber.setMsisdn("48500123456");
+        subscriber2.setMsisdn("48500123457");
+        given(service.findSubscriberDtosByMsisdnPrefix("48500", null, 2))
+                .willReturn(new SliceImpl<>(Lists.newArrayList(toDto(subscriber), toDto(subscriber2)), PageRequest.of(0, 2), true));
+
+        //when/then
+        mockMvc.perform(get(CONTROLLER_BASE_URL)
+                .param("msisdnPrefix", "48500")
+                .param("pageSize", "2")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.subscribers", hasSize(2)))
+                .andExpect(jsonPath("$.nextCursor", is(CursorUtils.encodeCursor(48500123457L))))
+                .andExpect(jsonPath("$._links.next.href", containsString("msisdnPrefix=48500")))
+                .andExpect(jsonPath("$._links.next.href", containsString("cursor=" + CursorUtils.encodeCursor(48500123457L))));
+        verify(service, never()).findSubscriberDtosByCriteria(any());
+    }
+
+    @Test
+    void shouldFindNextPageByMsisdnPrefixTest() throws Exception {
+        //given
+        given(service.findSubscriberDtosByMsisdnPrefix("48500", "48500123457", 100))
+                .willReturn(new SliceImpl<>(Lists.newArrayList(toDto(subscriber)), PageRequest.of(0, 100), false));
+
+        //when/then
+        mockMvc.perform(get(CONTROLLER_BASE_URL)
+                .param("msisdnPrefix", "48500")
+                .param("cursor", CursorUtils.encodeCursor(48500123457L))
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.subscribers", hasSize(1)))
+                .andExpect(content().string(not(containsString("nextCursor"))));
+    }
+
+    @Test
+    void shouldNotFindByMsisdnPrefixCombinedWithOtherCriteriaTest() throws Exception {
+        //when/then
+        mockMvc.perform(get(CONTROLLER_BASE_URL)
+                .param("msisdnPrefix", "48500")
+                .param("ownerId", "1")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+        verify(service, never()).findSubscriberDtosByMsisdnPrefix(anyString(), any(), anyInt());
+        verify(service, never()).findSubscriberDtosByCriteria(any());
+    }
+
+    @Test
+    void shouldCountByMsisdnPrefixTest() throws Exception {
+        //given
+        given(service.countSubscribersByMsisdnPrefix("48500")).willReturn(42L);
+
+        //when/then
+        mockMvc.perform(get(CONTROLLER_BASE_URL + "/count")
+                .param("msisdnPrefix", "48500")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.msisdnPrefix", is("48500")))
+                .andExpect(jsonPath("$.subscribers", is(42)));
+    }
+
+    @Test
+    void shouldReturnStatisticsTest() throws Exception {
+        //given
+        given(service.findSubscriberStatistics()).willReturn(SubscriberStatisticsDto.builder()
+                .subscribers(3L)
+                .subscribersByServiceType(Map.of(ServiceType.MOBILE_PREPAID, 2L, ServiceType.MOBILE_POSTPAID, 1L))
+                .subscribersByOwner(Map.of(1L, 3L))
+                .activationsByDay(Map.of(LocalDate.of(2019, 4, 3), 3L))
+                .reconciledAt(1554308106460L)
+                .build());
+
+        //when/then
+        mockMvc.perform(get(CONTROLLER_BASE_URL + "/stats")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.subscribers", is(3)))
+                .andExpect(jsonPath("$.subscribersByServiceType.MOBILE_PREPAID", is(2)))
+                .andExpect(jsonPath("$.subscribersByServiceType.MOBILE_POSTPAID", is(1)))
+                .andExpect(jsonPath("$.subscribersByOwner['1']", is(3)))
+                .andExpect(jsonPath("$.activationsByDay['2019-04-03']", is(3)))
+                .andExpect(jsonPath("$.reconciledAt", is(1554308106460L)));
+    }
+
+    @Test
+    void shouldRejectInvalidMsisdnPrefixTest() throws Exception {
+        //given
+        given(service.countSubscribersByMsisdnPrefix("0485")).willThrow(ValidationFailedException.class);
+
+        //when/then
+        mockMvc.perform(get(CONTROLLER_BASE_URL + "/count")
+                .param("msisdnPrefix", "0485")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldExportSubscribersAsNdjsonTest() throws Exception {
+        //given
+        doAnswer(invocation -> {
+            Consumer<MobileSubscriber> consumer = (Consumer<MobileSubscriber>) invocation.getArguments()[0];
+            consumer.accept(subscriber);
+            consumer.accept(subscriber2);
+            return null;
+        }).when(service).exportSubscribers(any());
+        MobileSubscriberMapper realMapper = Mappers.getMapper(MobileSubscriberMapper.class);
+        String expected = TestUtils.asJsonString(realMapper.domainToDto(subscriber)) + "\n"
+                + TestUtils.asJsonString(realMapper.domainToDto(subscriber2)) + "\n";
+
+        //when/then
+        mockMvc.perform(get(CONTROLLER_BASE_URL + "/export")
+                .accept(MobileController.NDJSON_MEDIA_TYPE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MobileController.NDJSON_MEDIA_TYPE))
+                .andExpect(content().string(expected));
+    }
+
     @Test
     void shouldCreateNewSubscriberTest() throws Exception {
         //given
@@ -154,6 +416,112 @@ class MobileControllerTest {
                 .andExpect(jsonPath("$.serviceStartDate", is(DateUtils.epochFromLocalDateTime(returnedSubscriber.getServiceStartDate()))));
     }
 
+    @Test
+    void shouldCreateNewSubscribersTest() throws Exception {
+        //given
+        MobileSubscriberDto valid = MobileSubscriberDto.builder().msisdn("49123123123").ownerId(1L).userId(2L).serviceType("MOBILE_PREPAID").build();
+        MobileSubscriberDto duplicate = MobileSubscriberDto.builder().msisdn("49123123124").ownerId(1L).userId(2L).serviceType("MOBILE_PREPAID").build();
+        MobileSubscriberDto invalid = MobileSubscriberDto.builder().msisdn("+49123").ownerId(1L).userId(2L).serviceType("MOBILE_PREPAID").build();
+        MobileSubscriber created = MobileSubscriber.builder().id(1000L).msisdn("49123123123").build();
+        given(service.createNewSubscribers(any())).willReturn(List.of(SubscriberCreationResult.created(created),
+                SubscriberCreationResult.duplicate(MobileSubscriber.builder().msisdn("49123123124").build())));
+
+        //when/then
+        mockMvc.perform(post(CONTROLLER_BASE_URL + "/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .content(TestUtils.asJsonString(new MobileSubscribersDto(List.of(valid, invalid, duplicate)))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created", is(1)))
+                .andExpect(jsonPath("$.results", hasSize(3)))
+                .andExpect(jsonPath("$.results[0].status", is("CREATED")))
+                .andExpect(jsonPath("$.results[0].id", is(1000)))
+                .andExpect(jsonPath("$.results[1].status", is("INVALID")))
+                .andExpect(jsonPath("$.results[1].index", is(1)))
+                .andExpect(jsonPath("$.results[1].message", containsString("msisdn")))
+                .andExpect(jsonPath("$.results[2].status", is("DUPLICATE")))
+                .andExpect(jsonPath("$.results[2].msisdn", is("49123123124")));
+        verify(service).createNewSubscribers(argThat(subscribers -> subscribers.size() == 2));
+    }
+
+    @Test
+    void shouldTransferSubscribersTest() throws Exception {
+        //given
+        SubscribersTransferDto transfer = SubscribersTransferDto.builder().sourceCustomerId(1L).targetCustomerId(2L)
+                .role("OWNER").serviceType("MOBILE_PREPAID").build();
+        given(service.transferSubscribers(1L, 2L, CustomerRole.OWNER, ServiceType.MOBILE_PREPAID)).willReturn(3L);
+
+        //when/then
+        mockMvc.perform(post(CONTROLLER_BASE_URL + "/transfers")
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .content(TestUtils.asJsonString(transfer)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.sourceCustomerId", is(1)))
+                .andExpect(jsonPath("$.targetCustomerId", is(2)))
+                .andExpect(jsonPath("$.transferredSubscribers", is(3)));
+    }
+
+    @Test
+    void shouldRejectTransferWithInvalidRoleTest() throws Exception {
+        //given
+        SubscribersTransferDto transfer = SubscribersTransferDto.builder().sourceCustomerId(1L).targetCustomerId(2L).role("ADMIN").build();
+
+        //when/then
+        mockMvc.perform(post(CONTROLLER_BASE_URL + "/transfers")
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .content(TestUtils.asJsonString(transfer)))
+                .andExpect(status().isBadRequest());
+        verify(service, never()).transferSubscribers(any(), any(), any(), any());
+    }
+
+    @Test
+    void shouldDeleteSubscribersByIdsTest() throws Exception {
+        //given
+        SubscribersDeletionDto deletion = SubscribersDeletionDto.builder().ids(List.of(1L, 2L)).build();
+        given(service.deleteSubscribers(eq(List.of(1L, 2L)), any())).willReturn(2L);
+
+        //when/then
+        mockMvc.perform(post(CONTROLLER_BASE_URL + "/deletions")
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .content(TestUtils.asJsonString(deletion)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.deletedSubscribers", is(2)));
+    }
+
+    @Test
+    void shouldDeleteSubscribersByCriteriaTest() throws Exception {
+        //given
+        SubscribersDeletionDto deletion = SubscribersDeletionDto.builder().ownerId(1L).serviceType("MOBILE_PREPAID").build();
+        given(service.deleteSubscribers(null, MobileSubscriber.builder().owner(Person.builder().id(1L).build())
+                .serviceType(ServiceType.MOBILE_PREPAID).build())).willReturn(3L);
+
+        //when/then
+        mockMvc.perform(post(CONTROLLER_BASE_URL + "/deletions")
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .content(TestUtils.asJsonString(deletion)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.ownerId", is(1)))
+                .andExpect(jsonPath("$.deletedSubscribers", is(3)));
+    }
+
+    @Test
+    void shouldRejectDeletionWithInvalidServiceTypeTest() throws Exception {
+        //given
+        SubscribersDeletionDto deletion = SubscribersDeletionDto.builder().ownerId(1L).serviceType("MOBILE").build();
+
+        //when/then
+        mockMvc.perform(post(CONTROLLER_BASE_URL + "/deletions")
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .content(TestUtils.asJsonString(deletion)))
+                .andExpect(status().isBadRequest());
+        verify(service, never()).deleteSubscribers(any(), any());
+    }
+
     @Test
     void shouldUpdateSubscriberTest() throws Exception {
         //given
@@ -212,6 +580,73 @@ class MobileControllerTest {
                 .andExpect(jsonPath("$.serviceStartDate", is(DateUtils.epochFromLocalDateTime(returned.getServiceStartDate()))));
     }
 
+    @Test
+    void shouldPatchSubscriberWithMatchingEntityTagTest() throws Exception {
+        //given
+        MobileSubscriberDto dto = MobileSubscriberDto.builder()
+                .serviceType(ServiceType.MOBILE_POSTPAID.name())
+                .build();
+
+        MobileSubscriber returned = MobileSubscriber.builder()
+                .serviceType(ServiceType.MOBILE_POSTPAID)
+                .msisdn("49123123123")
+                .owner(Company.builder().id(1L).build())
+                .user(Company.builder().id(2L).build())
+                .serviceStartDate(LocalDateTime.now())
+                .version(3L)
+                .build();
+
+        given(service.patchSubscriber(argThat(toPatch -> Long.valueOf(2L).equals(toPatch.getVersion())), eq(1L))).willReturn(returned);
+
+        //when/then
+        mockMvc.perform(patch(CONTROLLER_BASE_URL + "/1")
+                .header(HttpHeaders.IF_MATCH, "\"2\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .content(TestUtils.asJsonString(dto)))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3\""))
+                .andExpect(jsonPath("$.serviceType", is(ServiceType.MOBILE_POSTPAID.name())));
+    }
+
+    @Test
+    void shouldRejectUpdateWithNotMatchingEntityTagTest() throws Exception {
+        //given
+        MobileSubscriberDto dto = MobileSubscriberDto.builder()
+                .msisdn("49123123123")
+                .ownerId(1L)
+                .userId(2L)
+                .serviceType(ServiceType.MOBILE_POSTPAID.name())
+                .build();
+
+        given(service.updateSubscriber(any(), anyLong())).willThrow(PreconditionFailedException.class);
+
+        //when/then
+        mockMvc.perform(put(CONTROLLER_BASE_URL + "/1")
+                .header(HttpHeaders.IF_MATCH, "\"2\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .content(TestUtils.asJsonString(dto)))
+                .andExpect(status().isPreconditionFailed());
+    }
+
+    @Test
+    void shouldRejectPatchWithWeakEntityTagTest() throws Exception {
+        //given
+        MobileSubscriberDto dto = MobileSubscriberDto.builder()
+                .serviceType(ServiceType.MOBILE_POSTPAID.name())
+                .build();
+
+        //when/then
+        mockMvc.perform(patch(CONTROLLER_BASE_URL + "/1")
+                .header(HttpHeaders.IF_MATCH, "W/\"2\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .content(TestUtils.asJsonString(dto)))
+                .andExpect(status().isPreconditionFailed());
+        verify(service, never()).patchSubscriber(any(), any());
+    }
+
     @Test
     void shouldDeleteSubscriberTest() throws Exception {
         //when/then
@@ -219,13 +654,24 @@ class MobileControllerTest {
                 .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk());
 
-        verify(service).deleteSubscriberById(anyLong());
+        verify(service).deleteSubscriberById(eq(1L), isNull());
+    }
+
+    @Test
+    void shouldDeleteSubscriberWithEntityTagTest() throws Exception {
+        //when/then
+        mockMvc.perform(delete(CONTROLLER_BASE_URL + "/1")
+                .header(HttpHeaders.IF_MATCH, "\"5\"")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+
+        verify(service).deleteSubscriberById(1L, 5L);
     }
 
     @Test
     void shouldThrowNotFoundExceptionTest() throws Exception {
         //given
-        given(service.findSubscriberById(1L)).willThrow(ResourceNotFoundException.class);
+        given(service.findSubscriberDtoById(1L)).willThrow(ResourceNotFoundException.class);
 
         //when/then
         mockMvc.perform(get(CONTROLLER_BASE_URL + "/1")
@@ -250,4 +696,8 @@ class MobileControllerTest {
                 .content(TestUtils.asJsonString(dto)))
                 .andExpect(status().isBadRequest());
     }
+
+    private MobileSubscriberDto toDto(MobileSubscriber subscriber) {
+        return Mappers.getMapper(MobileSubscriberMapper.class).domainToDto(subscriber);
+    }
 }
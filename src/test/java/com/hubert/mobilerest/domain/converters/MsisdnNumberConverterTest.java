@@ -0,0 +1,55 @@
+package com.hubert.mobilerest.domain.converters;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+class MsisdnNumberConverterTest {
+    private MsisdnNumberConverter converter;
+
+    @BeforeEach
+    public void setUp() {
+        converter = new MsisdnNumberConverter();
+    }
+
+    @Test
+    void shouldConvertToDatabaseColumnTest() {
+        //when
+        Long number = converter.convertToDatabaseColumn("48500123456");
+
+        //then
+        assertThat(number, is(48500123456L));
+        assertThat(converter.convertToDatabaseColumn("999999999999999"), is(999999999999999L));
+    }
+
+    @Test
+    void shouldConvertInvalidMsisdnToNotANumberTest() {
+        //when/then
+        assertThat(converter.convertToDatabaseColumn("048500123456"), is(MsisdnNumberConverter.NOT_A_NUMBER));
+        assertThat(converter.convertToDatabaseColumn("+48500123456"), is(MsisdnNumberConverter.NOT_A_NUMBER));
+        assertThat(converter.convertToDatabaseColumn("1234567890123456789"), is(MsisdnNumberConverter.NOT_A_NUMBER));
+        assertThat(converter.convertToDatabaseColumn(""), is(MsisdnNumberConverter.NOT_A_NUMBER));
+    }
+
+    @Test
+    void shouldConvertNullToDatabaseColumnTest() {
+        //when
+        Long number = converter.convertToDatabaseColumn(null);
+
+        //then
+        assertThat(number, nullValue());
+    }
+
+    @Test
+    void shouldConvertToEntityAttributeTest() {
+        //when
+        String msisdn = converter.convertToEntityAttribute(48500123456L);
+
+        //then
+        assertThat(msisdn, is("48500123456"));
+        assertThat(converter.convertToEntityAttribute(null), nullValue());
+    }
+}
@@ -0,0 +1,82 @@
+package com.hubert.mobilerest.generator;
+
+import com.hubert.mobilerest.domain.Company;
+import com.hubert.mobilerest.domain.MobileSubscriber;
+import com.hubert.mobilerest.domain.Person;
+import com.hubert.mobilerest.repositories.CustomerRepository;
+import com.hubert.mobilerest.repositories.MobileSubscriberRepository;
+import com.hubert.mobilerest.utils.DateUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Generated data is committed (truncate is not transactional), so the standard test data is restored after every test
+ */
+@DataJpaTest
+@ExtendWith(SpringExtension.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Sql(executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD, scripts = "classpath:propagateTestDb.sql")
+class DatasetGeneratorIT {
+    private static final int CUSTOMERS = 100;
+    private static final int SUBSCRIBERS = 20_000;
+    private static final long ALLOCATION_SIZE = 50L;
+
+    @Autowired
+    MobileSubscriberRepository mobileSubscriberRepository;
+
+    @Autowired
+    CustomerRepository customerRepository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    void shouldLoadGeneratedDatasetTest() {
+        //given
+        DatasetGenerator generator = new DatasetGenerator(DatasetSettings.builder()
+                .customers(CUSTOMERS)
+                .subscribers(SUBSCRIBERS)
+                .batchSize(1_000)
+                .build());
+
+        //when
+        generator.load(jdbcTemplate);
+
+        //then
+        assertThat(mobileSubscriberRepository.count(), is((long) SUBSCRIBERS));
+        assertThat(customerRepository.count(), is((long) CUSTOMERS));
+        assertThat(customerRepository.findById(1L).get(), instanceOf(Company.class));
+        assertThat(customerRepository.findById((long) CUSTOMERS).get(), instanceOf(Person.class));
+        MobileSubscriber subscriber = mobileSubscriberRepository.findById(777L).get();
+        assertThat(subscriber.getMsisdn(), is(generator.msisdn(777L)));
+        assertThat(subscriber.getOwnerId(), is(generator.ownerId(777L)));
+        assertThat(subscriber.getUserId(), is(generator.userId(777L)));
+        assertThat(subscriber.getServiceType(), is(generator.serviceType(777L)));
+        assertThat(subscriber.getServiceStartDate(), is(DateUtils.localDateTimeFromEpoch(generator.serviceStartDate(777L))));
+    }
+
+    @Test
+    void shouldRestartSubscriberSequenceAfterGeneratedIdsTest() {
+        //given
+        new DatasetGenerator(DatasetSettings.builder().customers(CUSTOMERS).subscribers(SUBSCRIBERS).build()).load(jdbcTemplate);
+
+        //when
+        Long nextValue = jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR MOBILE_SUBSCRIBER_SEQ", Long.class);
+
+        //then
+        //pooled optimizer allocates ids from (value - allocation size + 1) up to the value
+        assertThat(nextValue - ALLOCATION_SIZE + 1, greaterThan((long) SUBSCRIBERS));
+    }
+}
@@ -0,0 +1,104 @@
+package com.hubert.mobilerest.generator;
+
+import com.hubert.mobilerest.domain.ServiceType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.LongStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.both;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class DatasetGeneratorTest {
+    private static final int CUSTOMERS = 1_000;
+    private static final int SUBSCRIBERS = 100_000;
+    private static final long LAST_DATE = 1554076800000L;
+
+    private DatasetGenerator generator;
+
+    @BeforeEach
+    void setUp() {
+        generator = new DatasetGenerator(DatasetSettings.builder()
+                .customers(CUSTOMERS)
+                .subscribers(SUBSCRIBERS)
+                .lastServiceStartDate(LAST_DATE)
+                .build());
+    }
+
+    @Test
+    void shouldGenerateUniqueE164MsisdnsTest() {
+        //when
+        Set<String> msisdns = new HashSet<>();
+        Set<String> countryCodes = new HashSet<>();
+        LongStream.rangeClosed(1, SUBSCRIBERS).mapToObj(generator::msisdn).forEach(msisdn -> {
+            msisdns.add(msisdn);
+            countryCodes.add(msisdn.substring(0, 2));
+        });
+
+        //then
+        assertThat(msisdns.size(), is(SUBSCRIBERS));
+        assertThat(msisdns.stream().allMatch(msisdn -> msisdn.matches("^[1-9]\\d{1,14}$")), is(true));
+        assertThat(countryCodes.size(), greaterThan(5));
+    }
+
+    @Test
+    void shouldSkewOwnersTest() {
+        //when
+        long ownedByFirstPercent = LongStream.rangeClosed(1, SUBSCRIBERS)
+                .filter(id -> generator.ownerId(id) <= CUSTOMERS / 100)
+                .count();
+        long usedByFirstPercent = LongStream.rangeClosed(1, SUBSCRIBERS)
+                .filter(id -> generator.userId(id) <= CUSTOMERS / 100)
+                .count();
+
+        //then
+        assertThat(ownedByFirstPercent, greaterThan(SUBSCRIBERS / 4L));
+        assertThat(usedByFirstPercent, lessThan(SUBSCRIBERS / 50L));
+        assertThat(LongStream.rangeClosed(1, SUBSCRIBERS).allMatch(id -> generator.ownerId(id) >= 1 && generator.ownerId(id) <= CUSTOMERS), is(true));
+        assertThat(generator.isCompany(1L), is(true));
+        assertThat(generator.isCompany(CUSTOMERS), is(false));
+    }
+
+    @Test
+    void shouldSpreadServiceStartDatesOverYearsTest() {
+        //when
+        long minDate = LongStream.rangeClosed(1, SUBSCRIBERS).map(generator::serviceStartDate).min().getAsLong();
+        long maxDate = LongStream.rangeClosed(1, SUBSCRIBERS).map(generator::serviceStartDate).max().getAsLong();
+        long prepaid = LongStream.rangeClosed(1, SUBSCRIBERS).filter(id -> generator.serviceType(id) == ServiceType.MOBILE_PREPAID).count();
+
+        //then
+        long nineYears = 9 * 365 * 24 * 3600 * 1000L;
+        assertThat(maxDate, lessThanOrEqualTo(LAST_DATE));
+        assertThat(maxDate - minDate, greaterThan(nineYears));
+        assertThat(prepaid, both(greaterThan(SUBSCRIBERS / 2L)).and(lessThan(SUBSCRIBERS * 7L / 10)));
+    }
+
+    @Test
+    void shouldGenerateTheSameValuesForTheSameSeedTest() {
+        //given
+        DatasetGenerator sameSeed = new DatasetGenerator(DatasetSettings.builder().customers(CUSTOMERS).lastServiceStartDate(LAST_DATE).build());
+        DatasetGenerator otherSeed = new DatasetGenerator(DatasetSettings.builder().customers(CUSTOMERS).lastServiceStartDate(LAST_DATE).seed(7L).build());
+
+        //then
+        assertThat(sameSeed.msisdn(123L), is(generator.msisdn(123L)));
+        assertThat(sameSeed.ownerId(123L), is(generator.ownerId(123L)));
+        assertThat(sameSeed.serviceStartDate(123L), is(generator.serviceStartDate(123L)));
+        assertThat(otherSeed.msisdn(123L), not(generator.msisdn(123L)));
+        assertThat(generator.serviceStartDate(123L), allOf(greaterThanOrEqualTo(0L), lessThanOrEqualTo(LAST_DATE)));
+    }
+
+    @Test
+    void shouldRejectDatasetWithoutCustomersTest() {
+        assertThrows(IllegalArgumentException.class, () -> new DatasetGenerator(DatasetSettings.builder().customers(0).build()));
+    }
+}
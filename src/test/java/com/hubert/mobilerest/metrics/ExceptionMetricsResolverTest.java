@@ -0,0 +1,71 @@
+package com.hubert.mobilerest.metrics;
+
+import com.hubert.mobilerest.domain.ServiceType;
+import com.hubert.mobilerest.exceptions.ResourceNotFoundException;
+import com.hubert.mobilerest.exceptions.ValidationFailedException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ExceptionMetricsResolverTest {
+    private MeterRegistry meterRegistry;
+    private ExceptionMetricsResolver resolver;
+    private MockHttpServletRequest request;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        resolver = new ExceptionMetricsResolver(meterRegistry);
+        request = new MockHttpServletRequest("GET", "/mobile/subscribers/5");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/mobile/subscribers/{id}");
+    }
+
+    @Test
+    void shouldCountExceptionByCauseTest() {
+        //given
+        ValidationFailedException exception = assertThrows(ValidationFailedException.class, () -> ServiceType.fromString("UNKNOWN"));
+
+        //when
+        Object result = resolver.resolveException(request, new MockHttpServletResponse(), null, exception);
+        resolver.resolveException(request, new MockHttpServletResponse(), null, exception);
+
+        //then
+        assertThat(result, nullValue());
+        assertThat(meterRegistry.get(ExceptionMetricsResolver.EXCEPTIONS)
+                .tags("exception", "ValidationFailedException", "cause", "ServiceType.fromString", "uri", "/mobile/subscribers/{id}")
+                .counter().count(), is(2.0));
+    }
+
+    @Test
+    void shouldUseUnknownCauseAndUriTest() {
+        //given
+        ResourceNotFoundException exception = new ResourceNotFoundException("Subscriber not found");
+        exception.setStackTrace(new StackTraceElement[]{new StackTraceElement("java.lang.Object", "wait", null, 1)});
+
+        //when
+        resolver.resolveException(new MockHttpServletRequest(), new MockHttpServletResponse(), null, exception);
+
+        //then
+        assertThat(meterRegistry.get(ExceptionMetricsResolver.EXCEPTIONS)
+                .tags("exception", "ResourceNotFoundException", "cause", "unknown", "uri", "UNKNOWN")
+                .counter().count(), is(1.0));
+    }
+
+    @Test
+    void shouldNotCountOtherExceptionsTest() {
+        //when
+        resolver.resolveException(request, new MockHttpServletResponse(), null, new IllegalStateException());
+
+        //then
+        assertThat(meterRegistry.find(ExceptionMetricsResolver.EXCEPTIONS).counter(), nullValue());
+    }
+}
@@ -0,0 +1,100 @@
+package com.hubert.mobilerest.metrics;
+
+import com.hubert.mobilerest.config.CacheConfig;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+@Sql(executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD, scripts = "classpath:propagateTestDb.sql")
+class MetricsIT {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Autowired
+    CacheManager cacheManager;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager.getCache(CacheConfig.SUBSCRIBERS_CACHE).clear();
+        cacheManager.getCache(CacheConfig.CUSTOMERS_CACHE).clear();
+    }
+
+    @Test
+    void shouldExportMetricsInPrometheusFormatTest() throws Exception {
+        //given
+        mockMvc.perform(get("/mobile/subscribers/1")).andExpect(status().isOk());
+        mockMvc.perform(get("/mobile/subscribers/999")).andExpect(status().isNotFound());
+        mockMvc.perform(get("/mobile/subscribers?serviceType=UNKNOWN")).andExpect(status().isBadRequest());
+
+        //when
+        String metrics = mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        //then
+        assertThat(metrics, allOf(
+                //endpoint latency with histogram buckets
+                containsString("http_server_requests_seconds_bucket{exception=\"None\",method=\"GET\",outcome=\"SUCCESS\",status=\"200\",uri=\"/mobile/subscribers/{id}\""),
+                //service methods
+                containsString("mobile_service_seconds_count{class=\"com.hubert.mobilerest.services.MobileSubscriberServiceImpl\",exception=\"none\",method=\"findSubscriberDtoById\""),
+                //errors by cause
+                containsString("mobile_exceptions_total{cause=\"MobileSubscriberServiceImpl.findSubscriberById\",exception=\"ResourceNotFoundException\",uri=\"/mobile/subscribers/{id}\""),
+                containsString("mobile_exceptions_total{cause=\"ServiceType.fromString\",exception=\"ValidationFailedException\",uri=\"/mobile/subscribers\""),
+                //database access
+                containsString("mobile_requests_queries_count{method=\"GET\",uri=\"/mobile/subscribers/{id}\""),
+                containsString("hikaricp_connections_pending"),
+                containsString("hikaricp_connections_active"),
+                containsString("hibernate_entities_loads_total"),
+                containsString("hibernate_statements_total"),
+                containsString("cache_gets_total{cache=\"subscribers\""),
+                //msisdn filter
+                containsString("mobile_msisdn_filter_memory_bytes"),
+                containsString("mobile_msisdn_filter_false_positive_probability"),
+                containsString("mobile_msisdn_filter_checks_total{result=\"negative\"")));
+    }
+
+    @Test
+    void shouldCountQueriesOfRequestTest() throws Exception {
+        //given
+        DistributionSummary summary = meterRegistry.find(QueriesPerRequestFilter.QUERIES_PER_REQUEST)
+                .tags("method", "GET", "uri", "/mobile/subscribers/{id}").summary();
+        long count = summary == null ? 0 : summary.count();
+        double total = summary == null ? 0 : summary.totalAmount();
+
+        //when
+        mockMvc.perform(get("/mobile/subscribers/2")).andExpect(status().isOk());
+        mockMvc.perform(get("/mobile/subscribers/2")).andExpect(status().isOk());
+
+        //then
+        summary = meterRegistry.get(QueriesPerRequestFilter.QUERIES_PER_REQUEST)
+                .tags("method", "GET", "uri", "/mobile/subscribers/{id}").summary();
+        assertThat(summary.count(), is(count + 2));
+        //first request loads the subscriber, second one is served from the cache
+        assertThat(summary.totalAmount() - total, is(1.0));
+        assertThat(summary.max(), greaterThan(0.0));
+    }
+}
@@ -0,0 +1,112 @@
+package com.hubert.mobilerest.repositories;
+
+import com.hubert.mobilerest.domain.Customer;
+import com.hubert.mobilerest.domain.MobileSubscriber;
+import com.hubert.mobilerest.domain.ServiceType;
+import com.hubert.mobilerest.generator.DatasetGenerator;
+import com.hubert.mobilerest.generator.DatasetSettings;
+import com.hubert.mobilerest.utils.DateUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Comparison of the previous catch-all criteria query with the dynamic one on 1M subscribers.
+ * Disabled by default, run with: mvn verify -Dit.test=CriteriaQueryBenchmarkIT -Dbenchmarks=true
+ */
+@Slf4j
+@DataJpaTest
+@ExtendWith(SpringExtension.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+class CriteriaQueryBenchmarkIT {
+    private static final int SUBSCRIBERS = 1_000_000;
+    private static final int CUSTOMERS = 1_000;
+    private static final int WARMUP_ITERATIONS = 5;
+    private static final int ITERATIONS = 20;
+
+    private static final String CATCH_ALL_QUERY = "SELECT m FROM MobileSubscriber m " +
+            "WHERE (:msisdn IS NULL OR :msisdn = m.msisdn) " +
+            "   AND (:ownerId IS NULL OR :ownerId = m.owner.id) " +
+            "   AND (:userId IS NULL OR :userId = m.user.id) " +
+            "   AND (:serviceType IS NULL OR :serviceType = m.serviceType) " +
+            "   AND (:serviceStartDate IS NULL OR :serviceStartDate = m.serviceStartDate)";
+
+    @Autowired
+    MobileSubscriberRepository mobileSubscriberRepository;
+
+    @Autowired
+    EntityManager entityManager;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    private DatasetGenerator generator;
+
+    @BeforeEach
+    void setUp() {
+        generator = new DatasetGenerator(DatasetSettings.builder()
+                .customers(CUSTOMERS)
+                .subscribers(SUBSCRIBERS)
+                .build());
+        generator.load(jdbcTemplate);
+    }
+
+    @Test
+    void compareCatchAllAndDynamicCriteriaQueriesTest() {
+        Map<String, MobileSubscriber> shapes = new LinkedHashMap<>();
+        shapes.put("msisdn", MobileSubscriber.builder().msisdn(generator.msisdn(SUBSCRIBERS / 2)).build());
+        shapes.put("owner", MobileSubscriber.builder().owner(new Customer(17L)).build());
+        shapes.put("user", MobileSubscriber.builder().user(new Customer(17L)).build());
+        shapes.put("owner+serviceType", MobileSubscriber.builder().owner(new Customer(17L)).serviceType(ServiceType.MOBILE_PREPAID).build());
+        shapes.put("serviceStartDate", MobileSubscriber.builder().serviceStartDate(DateUtils.localDateTimeFromEpoch(generator.serviceStartDate(1234L))).build());
+
+        log.info(String.format("%-20s %15s %15s", "criteria", "catch-all [ms]", "dynamic [ms]"));
+        shapes.forEach((shape, criteria) -> {
+            double catchAll = averageMillis(() -> catchAllQuery(criteria));
+            double dynamic = averageMillis(() -> mobileSubscriberRepository.findByCriteria(criteria));
+            assertThat(mobileSubscriberRepository.findByCriteria(criteria).size(), is(catchAllQuery(criteria).size()));
+            log.info(String.format("%-20s %15.3f %15.3f", shape, catchAll, dynamic));
+        });
+    }
+
+    private List<MobileSubscriber> catchAllQuery(MobileSubscriber criteria) {
+        return entityManager.createQuery(CATCH_ALL_QUERY, MobileSubscriber.class)
+                .setParameter("msisdn", criteria.getMsisdn())
+                .setParameter("ownerId", criteria.getOwnerId())
+                .setParameter("userId", criteria.getUserId())
+                .setParameter("serviceType", criteria.getServiceType())
+                .setParameter("serviceStartDate", criteria.getServiceStartDate())
+                .getResultList();
+    }
+
+    private double averageMillis(Supplier<List<MobileSubscriber>> query) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            query.get();
+            entityManager.clear();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            query.get();
+            entityManager.clear();
+        }
+        return (System.nanoTime() - start) / 1_000_000.0 / ITERATIONS;
+    }
+}
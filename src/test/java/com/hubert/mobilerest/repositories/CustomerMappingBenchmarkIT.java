@@ -0,0 +1,142 @@
+package com.hubert.mobilerest.repositories;
+
+import com.hubert.mobilerest.domain.MobileSubscriber;
+import com.hubert.mobilerest.generator.DatasetGenerator;
+import com.hubert.mobilerest.generator.DatasetSettings;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.orm.jpa.hibernate.SpringImplicitNamingStrategy;
+import org.springframework.boot.orm.jpa.hibernate.SpringPhysicalNamingStrategy;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Consumer;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Comparison of the subscribers loading cost with the default (eager) customers mapping and the "lazy-customers" one on 1M subscribers.
+ * Both entity manager factories work on the same database, lazy one is created with META-INF/orm-lazy-customers.xml mapping.
+ * Disabled by default, run with: mvn verify -Dit.test=CustomerMappingBenchmarkIT -Dbenchmarks=true
+ */
+@Slf4j
+@DataJpaTest
+@ExtendWith(SpringExtension.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+class CustomerMappingBenchmarkIT {
+    private static final int SUBSCRIBERS = 1_000_000;
+    private static final int CUSTOMERS = 10_000;
+    private static final int LOOKUPS = 10_000;
+    private static final int PAGE_SIZE = 1_000;
+    private static final int PAGES = 20;
+    private static final String PAGE_QUERY = "SELECT m FROM MobileSubscriber m WHERE m.id > :afterId ORDER BY m.id";
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    DataSource dataSource;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    private EntityManagerFactory lazyEntityManagerFactory;
+
+    @BeforeEach
+    void setUp() {
+        new DatasetGenerator(DatasetSettings.builder()
+                .customers(CUSTOMERS)
+                .subscribers(SUBSCRIBERS)
+                .build()).load(jdbcTemplate);
+        LocalContainerEntityManagerFactoryBean factoryBean = new LocalContainerEntityManagerFactoryBean();
+        factoryBean.setDataSource(dataSource);
+        factoryBean.setPackagesToScan(MobileSubscriber.class.getPackageName());
+        factoryBean.setMappingResources("META-INF/orm-lazy-customers.xml");
+        factoryBean.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        factoryBean.setJpaPropertyMap(Map.of(
+                "hibernate.hbm2ddl.auto", "none",
+                "hibernate.generate_statistics", "true",
+                "hibernate.physical_naming_strategy", SpringPhysicalNamingStrategy.class.getName(),
+                "hibernate.implicit_naming_strategy", SpringImplicitNamingStrategy.class.getName()));
+        factoryBean.afterPropertiesSet();
+        lazyEntityManagerFactory = factoryBean.getObject();
+    }
+
+    @AfterEach
+    void tearDown() {
+        lazyEntityManagerFactory.close();
+    }
+
+    @Test
+    void compareEagerAndLazyCustomersMappingTest() {
+        long[] ids = new Random(42).longs(LOOKUPS, 1, SUBSCRIBERS + 1).toArray();
+
+        log.info(String.format("%-25s %15s %15s %15s %15s", "operation", "eager [ms]", "eager [stmts]", "lazy [ms]", "lazy [stmts]"));
+        compare("find by id", em -> {
+            for (long id : ids) {
+                assertThat(em.find(MobileSubscriber.class, id).getId(), is(id));
+                em.clear();
+            }
+        }, LOOKUPS);
+        compare("page of " + PAGE_SIZE, em -> {
+            long afterId = 0;
+            for (int page = 0; page < PAGES; page++) {
+                List<MobileSubscriber> subscribers = em.createQuery(PAGE_QUERY, MobileSubscriber.class)
+                        .setParameter("afterId", afterId)
+                        .setMaxResults(PAGE_SIZE)
+                        .getResultList();
+                afterId = subscribers.get(subscribers.size() - 1).getId();
+                em.clear();
+            }
+        }, PAGES);
+    }
+
+    private void compare(String operation, Consumer<EntityManager> work, int operations) {
+        double[] eager = measure(entityManagerFactory, work, operations);
+        double[] lazy = measure(lazyEntityManagerFactory, work, operations);
+        log.info(String.format("%-25s %15.3f %15.1f %15.3f %15.1f", operation, eager[0], eager[1], lazy[0], lazy[1]));
+    }
+
+    /**
+     * Running the work twice (warm up and measurement) with new entity manager
+     * @return Average time of one operation in milliseconds and average number of statements executed by one operation
+     */
+    private double[] measure(EntityManagerFactory factory, Consumer<EntityManager> work, int operations) {
+        Statistics statistics = factory.unwrap(SessionFactory.class).getStatistics();
+        run(factory, work);
+        statistics.clear();
+        long start = System.nanoTime();
+        run(factory, work);
+        double millis = (System.nanoTime() - start) / 1_000_000.0 / operations;
+        return new double[]{millis, (double) statistics.getPrepareStatementCount() / operations};
+    }
+
+    private void run(EntityManagerFactory factory, Consumer<EntityManager> work) {
+        EntityManager entityManager = factory.createEntityManager();
+        try {
+            work.accept(entityManager);
+        } finally {
+            entityManager.close();
+        }
+    }
+}
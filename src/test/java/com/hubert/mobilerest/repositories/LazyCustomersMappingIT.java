@@ -0,0 +1,82 @@
+package com.hubert.mobilerest.repositories;
+
+import com.hubert.mobilerest.domain.Company;
+import com.hubert.mobilerest.domain.MobileSubscriber;
+import com.hubert.mobilerest.domain.Person;
+import com.hubert.mobilerest.utils.SqlStatementRecorder;
+import org.hibernate.Hibernate;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.everyItem;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+
+@DataJpaTest(properties = SqlStatementRecorder.PROPERTY)
+@ActiveProfiles("lazy-customers")
+@ExtendWith(SpringExtension.class)
+@Sql(executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD, scripts = "classpath:propagateTestDb.sql")
+class LazyCustomersMappingIT {
+
+    @Autowired
+    MobileSubscriberRepository mobileSubscriberRepository;
+
+    @Test
+    void shouldFindByIdWithoutCustomersTest() {
+        //given
+        SqlStatementRecorder.reset();
+
+        //when
+        MobileSubscriber subscriber = mobileSubscriberRepository.findById(1L).orElseThrow();
+
+        //then
+        assertThat(subscriber.getOwnerId(), is(1L));
+        assertThat(subscriber.getUserId(), is(2L));
+        assertThat(Hibernate.isInitialized(subscriber.getOwner()), is(false));
+        assertThat(Hibernate.isInitialized(subscriber.getUser()), is(false));
+        SqlStatementRecorder.assertStatementCounts(1, 0, 0, 0);
+        assertThat(SqlStatementRecorder.getStatements(), everyItem(not(containsString(" customer "))));
+    }
+
+    @Test
+    void shouldLoadCustomerOnAccessTest() {
+        //given
+        MobileSubscriber subscriber = mobileSubscriberRepository.findById(1L).orElseThrow();
+        SqlStatementRecorder.reset();
+
+        //when
+        Object owner = Hibernate.unproxy(subscriber.getOwner());
+
+        //then
+        assertThat(owner, instanceOf(Person.class));
+        assertThat(((Person) owner).getDocumentId(), is("1234"));
+        SqlStatementRecorder.assertStatementCounts(1, 0, 0, 0);
+    }
+
+    @Test
+    void shouldFetchCustomersWithCriteriaQueryTest() {
+        //given
+        SqlStatementRecorder.reset();
+
+        //when
+        List<MobileSubscriber> subscribers = mobileSubscriberRepository.findByCriteria(null);
+
+        //then
+        assertThat(subscribers, hasSize(8));
+        assertThat(subscribers.stream().allMatch(s -> Hibernate.isInitialized(s.getOwner()) && Hibernate.isInitialized(s.getUser())), is(true));
+        assertThat(Hibernate.unproxy(subscribers.stream().filter(s -> s.getId() == 1L).findFirst().orElseThrow().getUser()),
+                instanceOf(Company.class));
+        SqlStatementRecorder.assertStatementCounts(1, 0, 0, 0);
+    }
+}
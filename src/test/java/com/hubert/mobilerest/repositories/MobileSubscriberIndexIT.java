@@ -0,0 +1,126 @@
+package com.hubert.mobilerest.repositories;
+
+import com.hubert.mobilerest.domain.Customer;
+import com.hubert.mobilerest.domain.MobileSubscriber;
+import com.hubert.mobilerest.domain.ServiceType;
+import com.hubert.mobilerest.utils.DateUtils;
+import com.hubert.mobilerest.utils.SqlStatementRecorder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+
+/**
+ * Checks with H2 EXPLAIN that every criteria combination is resolved with an index.
+ * Searching without any criteria lists all the subscribers, so it is a table scan by definition and is not checked.
+ */
+@DataJpaTest(properties = SqlStatementRecorder.PROPERTY)
+@ExtendWith(SpringExtension.class)
+@Sql(executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD, scripts = "classpath:propagateTestDb.sql")
+class MobileSubscriberIndexIT {
+    private static final String TABLE_SCAN = "tableScan";
+    private static final long START_DATE = 1554308106460L;
+
+    //criteria setters by the column name with the value bound to that column
+    private static final Map<String, Consumer<MobileSubscriber>> CRITERIA = new LinkedHashMap<>();
+    private static final Map<String, Object> VALUES = new LinkedHashMap<>();
+
+    static {
+        CRITERIA.put("msisdn", criteria -> criteria.setMsisdn("48500123456"));
+        CRITERIA.put("customer_id_owner", criteria -> criteria.setOwner(new Customer(1L)));
+        CRITERIA.put("customer_id_user", criteria -> criteria.setUser(new Customer(2L)));
+        CRITERIA.put("service_type", criteria -> criteria.setServiceType(ServiceType.MOBILE_PREPAID));
+        CRITERIA.put("service_start_date", criteria -> criteria.setServiceStartDate(DateUtils.localDateTimeFromEpoch(START_DATE)));
+        VALUES.put("msisdn", "48500123456");
+        VALUES.put("customer_id_owner", 1L);
+        VALUES.put("customer_id_user", 2L);
+        VALUES.put("service_type", ServiceType.MOBILE_PREPAID.name());
+        VALUES.put("service_start_date", START_DATE);
+        VALUES.put("id", 3L);
+    }
+
+    @Autowired
+    MobileSubscriberRepository mobileSubscriberRepository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        SqlStatementRecorder.reset();
+    }
+
+    @Test
+    void shouldUseIndexForEveryCriteriaCombinationTest() {
+        List<String> columns = List.copyOf(CRITERIA.keySet());
+        for (int mask = 1; mask < 1 << columns.size(); mask++) {
+            //given
+            MobileSubscriber criteria = criteriaForMask(columns, mask);
+            SqlStatementRecorder.reset();
+            mobileSubscriberRepository.findByCriteria(criteria);
+
+            //when
+            String plan = explain(SqlStatementRecorder.getStatements().get(0));
+
+            //then
+            assertThat(plan, not(containsString(TABLE_SCAN)));
+        }
+    }
+
+    @Test
+    void shouldUseIndexForEveryKeysetPageCombinationTest() {
+        List<String> columns = List.copyOf(CRITERIA.keySet());
+        for (int mask = 0; mask < 1 << columns.size(); mask++) {
+            //given
+            MobileSubscriber criteria = criteriaForMask(columns, mask);
+            SqlStatementRecorder.reset();
+            mobileSubscriberRepository.findByCriteriaAfterId(criteria, 3L, PageRequest.of(0, 2));
+
+            //when
+            String plan = explain(SqlStatementRecorder.getStatements().get(0));
+
+            //then
+            assertThat(plan, not(containsString(TABLE_SCAN)));
+        }
+    }
+
+    private String explain(String sql) {
+        String where = sql.substring(sql.indexOf(" where ") + " where ".length());
+        if (where.contains(" order by ")) {
+            where = where.substring(0, where.indexOf(" order by "));
+        }
+        List<Object> parameters = Arrays.stream(where.split(" and "))
+                .filter(predicate -> !predicate.equals("1=1"))
+                .map(predicate -> predicate.substring(predicate.indexOf('.') + 1, predicate.indexOf(predicate.contains(">") ? '>' : '=')))
+                .map(VALUES::get)
+                .collect(Collectors.toList());
+        if (sql.endsWith("limit ?")) {
+            parameters.add(2);
+        }
+        return String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + sql, String.class, parameters.toArray()));
+    }
+
+    private static MobileSubscriber criteriaForMask(List<String> columns, int mask) {
+        MobileSubscriber criteria = new MobileSubscriber();
+        columns.stream()
+                .filter(column -> (mask & 1 << columns.indexOf(column)) != 0)
+                .forEach(column -> CRITERIA.get(column).accept(criteria));
+        return criteria;
+    }
+}
@@ -1,16 +1,21 @@
 package com.hubert.mobilerest.repositories;
 
 import com.hubert.mobilerest.domain.Company;
+import com.hubert.mobilerest.domain.Customer;
 import com.hubert.mobilerest.domain.MobileSubscriber;
 import com.hubert.mobilerest.domain.Person;
 import com.hubert.mobilerest.domain.ServiceType;
+import com.hubert.mobilerest.dto.v1.MobileSubscriberDto;
 import com.hubert.mobilerest.utils.DateUtils;
+import com.hubert.mobilerest.utils.SqlStatementRecorder;
 import org.apache.commons.collections4.IterableUtils;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.jdbc.Sql;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
@@ -18,18 +23,23 @@ import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.notNullValue;
 import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.everyItem;
 import static org.hamcrest.Matchers.hasProperty;
 import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.not;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
-@DataJpaTest
+@DataJpaTest(properties = SqlStatementRecorder.PROPERTY)
 @ExtendWith(SpringExtension.class)
 @Sql(executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD, scripts = "classpath:propagateTestDb.sql")
 class MobileSubscriberRepositoryIT {
@@ -40,6 +50,9 @@ class MobileSubscriberRepositoryIT {
     @Autowired
     CustomerRepository customerRepository;
 
+    @Autowired
+    TestEntityManager entityManager;
+
     @Test
     void shouldFetchAllSubscribersTest() {
         //when
@@ -256,6 +269,38 @@ class MobileSubscriberRepositoryIT {
         assertThat(foundSubscribers, hasSize(8));
     }
 
+    @Test
+    void shouldFindFirstPageAfterIdTest() {
+        //when
+        List<MobileSubscriber> foundSubscribers = mobileSubscriberRepository.findByCriteriaAfterId(null, 0L, PageRequest.of(0, 3));
+
+        //then
+        assertThat(foundSubscribers.stream().map(MobileSubscriber::getId).collect(Collectors.toList()), contains(1L, 2L, 3L));
+    }
+
+    @Test
+    void shouldFindNextPageAfterIdByCriteriaTest() {
+        //given
+        MobileSubscriber criteria = MobileSubscriber.builder()
+                .serviceType(ServiceType.MOBILE_POSTPAID)
+                .build();
+
+        //when
+        List<MobileSubscriber> foundSubscribers = mobileSubscriberRepository.findByCriteriaAfterId(criteria, 3L, PageRequest.of(0, 2));
+
+        //then
+        assertThat(foundSubscribers.stream().map(MobileSubscriber::getId).collect(Collectors.toList()), contains(4L, 5L));
+    }
+
+    @Test
+    void shouldNotFindPageAfterLastIdTest() {
+        //when
+        List<MobileSubscriber> foundSubscribers = mobileSubscriberRepository.findByCriteriaAfterId(MobileSubscriber.builder().build(), 8L, PageRequest.of(0, 10));
+
+        //then
+        assertThat(foundSubscribers, hasSize(0));
+    }
+
     @Test
     void shouldFindByMsdnidTest() {
         //given
@@ -306,4 +351,294 @@ class MobileSubscriberRepositoryIT {
         //then
         assertThat(found, is(false));
     }
+
+    @Test
+    void shouldFindIdsByCriteriaAfterIdTest() {
+        //given
+        MobileSubscriber criteria = MobileSubscriber.builder().owner(Person.builder().id(1L).build()).build();
+
+        //when
+        List<Long> firstChunk = mobileSubscriberRepository.findIdsByCriteriaAfterId(criteria, 0L, 2);
+        List<Long> secondChunk = mobileSubscriberRepository.findIdsByCriteriaAfterId(criteria, 2L, 2);
+
+        //then
+        assertThat(firstChunk, contains(1L, 2L));
+        assertThat(secondChunk, contains(3L));
+    }
+
+    @Test
+    void shouldTransferOnlySubscribersOfSourceOwnerTest() {
+        //when
+        int transferred = mobileSubscriberRepository.transferOwner(List.of(1L, 3L, 4L), 1L, 5L);
+
+        //then
+        assertThat(transferred, is(2));
+        assertThat(mobileSubscriberRepository.findById(1L).get().getOwnerId(), is(5L));
+        assertThat(mobileSubscriberRepository.findById(3L).get().getOwnerId(), is(5L));
+        assertThat(mobileSubscriberRepository.findById(4L).get().getOwnerId(), is(2L));
+        assertThat(mobileSubscriberRepository.findById(2L).get().getOwnerId(), is(1L));
+    }
+
+    @Test
+    void shouldTransferOnlySubscribersOfSourceUserTest() {
+        //when
+        int transferred = mobileSubscriberRepository.transferUser(List.of(4L, 5L, 8L), 5L, 3L);
+
+        //then
+        assertThat(transferred, is(2));
+        assertThat(mobileSubscriberRepository.findById(4L).get().getUserId(), is(3L));
+        assertThat(mobileSubscriberRepository.findById(5L).get().getUserId(), is(3L));
+        assertThat(mobileSubscriberRepository.findById(8L).get().getUserId(), is(2L));
+        assertThat(mobileSubscriberRepository.findById(6L).get().getUserId(), is(5L));
+    }
+
+    @Test
+    void shouldFindByIdWithSingleStatementTest() {
+        //given
+        SqlStatementRecorder.reset();
+
+        //when
+        MobileSubscriber subscriber = mobileSubscriberRepository.findById(1L).orElseThrow();
+
+        //then
+        assertThat(((Person) subscriber.getOwner()).getDocumentId(), is("1234"));
+        assertThat(((Company) subscriber.getUser()).getTaxId(), is("1231"));
+        SqlStatementRecorder.assertStatementCounts(1, 0, 0, 0);
+    }
+
+    @Test
+    void shouldFindByCriteriaWithSingleStatementTest() {
+        //given
+        SqlStatementRecorder.reset();
+
+        //when
+        List<MobileSubscriber> subscribers = mobileSubscriberRepository.findByCriteria(null);
+
+        //then
+        assertThat(subscribers, hasSize(8));
+        assertThat(subscribers.stream().map(s -> s.getOwner().getClass()).distinct().count(), is(2L));
+        assertThat(subscribers.stream().map(s -> s.getUser().getClass()).distinct().count(), is(2L));
+        SqlStatementRecorder.assertStatementCounts(1, 0, 0, 0);
+    }
+
+    @Test
+    void shouldFindPageAfterIdWithSingleStatementTest() {
+        //given
+        SqlStatementRecorder.reset();
+
+        //when
+        List<MobileSubscriber> subscribers = mobileSubscriberRepository.findByCriteriaAfterId(null, 2L, PageRequest.of(0, 5));
+
+        //then
+        assertThat(subscribers, hasSize(5));
+        SqlStatementRecorder.assertStatementCounts(1, 0, 0, 0);
+    }
+
+    @Test
+    void shouldStreamAllWithSingleStatementTest() {
+        //given
+        SqlStatementRecorder.reset();
+
+        //when
+        List<MobileSubscriber> subscribers;
+        try (Stream<MobileSubscriber> stream = mobileSubscriberRepository.streamAll()) {
+            subscribers = stream.collect(Collectors.toList());
+        }
+
+        //then
+        assertThat(subscribers, hasSize(8));
+        SqlStatementRecorder.assertStatementCounts(1, 0, 0, 0);
+    }
+
+    @Test
+    void shouldCreateSubscriberWithSingleInsertTest() {
+        //given
+        MobileSubscriber subscriber = MobileSubscriber.builder()
+                .msisdn("48600100200")
+                .owner(entityManager.getEntityManager().getReference(Customer.class, 1L))
+                .user(entityManager.getEntityManager().getReference(Customer.class, 2L))
+                .serviceType(ServiceType.MOBILE_PREPAID)
+                .serviceStartDate(LocalDateTime.now())
+                .build();
+        SqlStatementRecorder.reset();
+
+        //when
+        mobileSubscriberRepository.save(subscriber);
+        entityManager.flush();
+
+        //then
+        SqlStatementRecorder.assertStatementCounts(0, 1, 0, 0);
+    }
+
+    @Test
+    void shouldUpdateSubscriberWithSingleUpdateTest() {
+        //given
+        MobileSubscriber subscriber = mobileSubscriberRepository.findById(1L).orElseThrow();
+        subscriber.setServiceType(ServiceType.MOBILE_POSTPAID);
+        subscriber.assignUser(entityManager.getEntityManager().getReference(Customer.class, 3L));
+        SqlStatementRecorder.reset();
+
+        //when
+        mobileSubscriberRepository.save(subscriber);
+        entityManager.flush();
+
+        //then
+        SqlStatementRecorder.assertStatementCounts(0, 0, 1, 0);
+    }
+
+    @Test
+    void shouldDeleteSubscriberWithSingleDeleteTest() {
+        //given
+        SqlStatementRecorder.reset();
+
+        //when
+        mobileSubscriberRepository.deleteById(1L);
+        entityManager.flush();
+
+        //then
+        SqlStatementRecorder.assertStatementCounts(1, 0, 0, 1);
+    }
+
+    @Test
+    void shouldFindDtosByCriteriaWithoutCustomersTest() {
+        //given
+        SqlStatementRecorder.reset();
+
+        //when
+        List<MobileSubscriberDto> subscribers = mobileSubscriberRepository.findDtosByCriteria(MobileSubscriber.builder()
+                .owner(new Customer(1L)).build());
+
+        //then
+        assertThat(subscribers.stream().map(MobileSubscriberDto::getId).collect(Collectors.toList()), containsInAnyOrder(1L, 2L, 3L));
+        MobileSubscriberDto first = subscribers.stream().filter(s -> s.getId() == 1L).findFirst().orElseThrow();
+        assertThat(first.getMsisdn(), is("48500123456"));
+        assertThat(first.getOwnerId(), is(1L));
+        assertThat(first.getUserId(), is(2L));
+        assertThat(first.getServiceType(), is(ServiceType.MOBILE_PREPAID.name()));
+        assertThat(first.getServiceStartDate(), is(1554308106460L));
+        SqlStatementRecorder.assertStatementCounts(1, 0, 0, 0);
+        assertThat(SqlStatementRecorder.getStatements(), everyItem(not(containsString(" customer "))));
+    }
+
+    @Test
+    void shouldFindDtosPageAfterIdTest() {
+        //given
+        SqlStatementRecorder.reset();
+
+        //when
+        List<MobileSubscriberDto> subscribers = mobileSubscriberRepository.findDtosByCriteriaAfterId(null, 2L, 3);
+
+        //then
+        assertThat(subscribers.stream().map(MobileSubscriberDto::getId).collect(Collectors.toList()), contains(3L, 4L, 5L));
+        SqlStatementRecorder.assertStatementCounts(1, 0, 0, 0);
+        assertThat(SqlStatementRecorder.getStatements(), everyItem(not(containsString(" customer "))));
+    }
+
+    @Test
+    void shouldDeleteSubscriberByIdWithoutLoadingTest() {
+        //given
+        SqlStatementRecorder.reset();
+
+        //when
+        int deleted = mobileSubscriberRepository.deleteSubscriberById(1L);
+
+        //then
+        assertThat(deleted, is(1));
+        SqlStatementRecorder.assertStatementCounts(0, 0, 0, 1);
+        assertThat(mobileSubscriberRepository.existsById(1L), is(false));
+    }
+
+    @Test
+    void shouldNotDeleteNotPresentSubscriberByIdTest() {
+        //when
+        int deleted = mobileSubscriberRepository.deleteSubscriberById(10000L);
+
+        //then
+        assertThat(deleted, is(0));
+        assertThat(mobileSubscriberRepository.count(), is(8L));
+    }
+
+    @Test
+    void shouldDeleteSubscriberByIdOnlyInExpectedVersionTest() {
+        //when
+        int notDeleted = mobileSubscriberRepository.deleteSubscriberByIdAndVersion(1L, 1L);
+        int deleted = mobileSubscriberRepository.deleteSubscriberByIdAndVersion(1L, 0L);
+
+        //then
+        assertThat(notDeleted, is(0));
+        assertThat(deleted, is(1));
+        assertThat(mobileSubscriberRepository.existsById(1L), is(false));
+    }
+
+    @Test
+    void shouldDeleteSubscribersByIdsTest() {
+        //given
+        SqlStatementRecorder.reset();
+
+        //when
+        int deleted = mobileSubscriberRepository.deleteSubscribersByIds(List.of(1L, 3L, 10000L));
+
+        //then
+        assertThat(deleted, is(2));
+        SqlStatementRecorder.assertStatementCounts(0, 0, 0, 1);
+        assertThat(mobileSubscriberRepository.count(), is(6L));
+    }
+
+    @Test
+    void shouldFindSnapshotByIdWithoutCustomersTest() {
+        //given
+        SqlStatementRecorder.reset();
+
+        //when
+        MobileSubscriber snapshot = mobileSubscriberRepository.findSnapshotById(1L).orElseThrow();
+
+        //then
+        assertThat(snapshot.getMsisdn(), is("48500123456"));
+        assertThat(snapshot.getOwnerId(), is(1L));
+        assertThat(snapshot.getUserId(), is(2L));
+        assertThat(snapshot.getServiceType(), is(ServiceType.MOBILE_PREPAID));
+        assertThat(snapshot.getServiceStartDate(), is(DateUtils.localDateTimeFromEpoch(1554308106460L)));
+        assertThat(snapshot.getVersion(), is(0L));
+        SqlStatementRecorder.assertStatementCounts(1, 0, 0, 0);
+        assertThat(SqlStatementRecorder.getStatements(), everyItem(not(containsString(" customer "))));
+        assertThat(mobileSubscriberRepository.findSnapshotById(10000L).isPresent(), is(false));
+    }
+
+    @Test
+    void shouldUpdateOnlyChangedColumnsTest() {
+        //given
+        MobileSubscriber current = mobileSubscriberRepository.findSnapshotById(1L).orElseThrow();
+        MobileSubscriber changed = MobileSubscriber.builder().id(1L).msisdn(current.getMsisdn()).owner(current.getOwner())
+                .user(new Customer(3L)).serviceType(ServiceType.MOBILE_POSTPAID).build();
+        SqlStatementRecorder.reset();
+
+        //when
+        int updated = mobileSubscriberRepository.updateChangedColumns(current, changed);
+
+        //then
+        assertThat(updated, is(1));
+        SqlStatementRecorder.assertStatementCounts(0, 0, 1, 0);
+        assertThat(SqlStatementRecorder.getStatements().get(0), not(containsString("customer_id_owner=")));
+        MobileSubscriber result = mobileSubscriberRepository.findSnapshotById(1L).orElseThrow();
+        assertThat(result.getUserId(), is(3L));
+        assertThat(result.getOwnerId(), is(1L));
+        assertThat(result.getServiceType(), is(ServiceType.MOBILE_POSTPAID));
+        assertThat(result.getVersion(), is(current.getVersion() + 1));
+    }
+
+    @Test
+    void shouldNotUpdateConcurrentlyChangedColumnsTest() {
+        //given
+        MobileSubscriber current = mobileSubscriberRepository.findSnapshotById(1L).orElseThrow();
+        mobileSubscriberRepository.updateChangedColumns(current, MobileSubscriber.builder().id(1L)
+                .serviceType(ServiceType.MOBILE_POSTPAID).build());
+
+        //when
+        int updated = mobileSubscriberRepository.updateChangedColumns(current, MobileSubscriber.builder().id(1L)
+                .serviceType(ServiceType.MOBILE_POSTPAID).user(new Customer(3L)).build());
+
+        //then
+        assertThat(updated, is(0));
+        assertThat(mobileSubscriberRepository.findSnapshotById(1L).orElseThrow().getUserId(), is(2L));
+    }
 }
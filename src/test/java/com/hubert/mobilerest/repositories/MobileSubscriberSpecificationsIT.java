@@ -0,0 +1,156 @@
+package com.hubert.mobilerest.repositories;
+
+import com.hubert.mobilerest.domain.Customer;
+import com.hubert.mobilerest.domain.MobileSubscriber;
+import com.hubert.mobilerest.domain.ServiceType;
+import com.hubert.mobilerest.utils.DateUtils;
+import com.hubert.mobilerest.utils.SqlStatementRecorder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.endsWith;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+
+@DataJpaTest(properties = SqlStatementRecorder.PROPERTY)
+@ExtendWith(SpringExtension.class)
+@Sql(executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD, scripts = "classpath:propagateTestDb.sql")
+class MobileSubscriberSpecificationsIT {
+
+    //criteria setters with the column expected in the where clause
+    private static final Map<String, BiConsumer<MobileSubscriber, Integer>> CRITERIA = new LinkedHashMap<>();
+
+    static {
+        CRITERIA.put("msisdn", (criteria, variant) -> criteria.setMsisdn("4850012345" + variant));
+        CRITERIA.put("customer_id_owner", (criteria, variant) -> criteria.setOwner(new Customer(1L + variant)));
+        CRITERIA.put("customer_id_user", (criteria, variant) -> criteria.setUser(new Customer(2L + variant)));
+        CRITERIA.put("service_type", (criteria, variant) -> criteria.setServiceType(ServiceType.values()[variant]));
+        CRITERIA.put("service_start_date", (criteria, variant) -> criteria.setServiceStartDate(DateUtils.localDateTimeFromEpoch(1554308106460L + variant)));
+    }
+
+    @Autowired
+    MobileSubscriberRepository mobileSubscriberRepository;
+
+    @BeforeEach
+    void setUp() {
+        SqlStatementRecorder.reset();
+    }
+
+    @Test
+    void shouldGeneratePredicatesOnlyForProvidedCriteriaTest() {
+        List<String> columns = List.copyOf(CRITERIA.keySet());
+        Set<String> generatedStatements = new HashSet<>();
+        //owners and users are fetch joined regardless of the criteria
+        String fetchJoins = fromClause(criteriaQuery(null));
+        for (int mask = 0; mask < 1 << columns.size(); mask++) {
+            //given
+            List<String> expectedColumns = columnsForMask(columns, mask);
+
+            //when
+            String sql = criteriaQuery(criteriaForColumns(expectedColumns, 0));
+
+            //then
+            assertThat(whereClause(sql), not(containsString(" or ")));
+            assertThat(whereClause(sql), not(containsString(" is null")));
+            //criteria don't add any joins to the fetch joins
+            assertThat(fromClause(sql), is(fetchJoins));
+            assertThat(whereColumns(sql), containsInAnyOrder(expectedColumns.toArray()));
+            generatedStatements.add(sql);
+        }
+        assertThat(generatedStatements, hasSize(1 << columns.size()));
+    }
+
+    @Test
+    void shouldGenerateSameStatementForDifferentValuesTest() {
+        List<String> columns = List.copyOf(CRITERIA.keySet());
+        for (int mask = 1; mask < 1 << columns.size(); mask++) {
+            //given
+            List<String> expectedColumns = columnsForMask(columns, mask);
+
+            //when
+            String first = criteriaQuery(criteriaForColumns(expectedColumns, 0));
+            String second = criteriaQuery(criteriaForColumns(expectedColumns, 1));
+
+            //then
+            assertThat(second, is(first));
+        }
+    }
+
+    @Test
+    void shouldGenerateKeysetPredicateTest() {
+        //when
+        mobileSubscriberRepository.findByCriteriaAfterId(MobileSubscriber.builder().serviceType(ServiceType.MOBILE_PREPAID).build(),
+                3L, PageRequest.of(0, 2));
+
+        //then
+        String sql = SqlStatementRecorder.getStatements().get(0);
+        assertThat(whereColumns(sql.substring(0, sql.indexOf(" order by "))), containsInAnyOrder("id", "service_type"));
+        assertThat(sql, endsWith("order by mobilesubs0_.id asc limit ?"));
+    }
+
+    @Test
+    void shouldGenerateNoPredicatesForEmptyCriteriaTest() {
+        //when
+        String emptyCriteriaSql = criteriaQuery(MobileSubscriber.builder().build());
+        String nullCriteriaSql = criteriaQuery(null);
+
+        //then
+        assertThat(whereColumns(emptyCriteriaSql), empty());
+        assertThat(nullCriteriaSql, is(emptyCriteriaSql));
+    }
+
+    private String criteriaQuery(MobileSubscriber criteria) {
+        SqlStatementRecorder.reset();
+        mobileSubscriberRepository.findByCriteria(criteria);
+        //further statements are loading owners and users of found subscribers
+        return SqlStatementRecorder.getStatements().get(0);
+    }
+
+    private static List<String> columnsForMask(List<String> columns, int mask) {
+        return columns.stream()
+                .filter(column -> (mask & 1 << columns.indexOf(column)) != 0)
+                .collect(Collectors.toList());
+    }
+
+    private static MobileSubscriber criteriaForColumns(List<String> columns, int variant) {
+        MobileSubscriber criteria = new MobileSubscriber();
+        columns.forEach(column -> CRITERIA.get(column).accept(criteria, variant));
+        return criteria;
+    }
+
+    private static String fromClause(String sql) {
+        return sql.substring(sql.indexOf(" from "), sql.indexOf(" where "));
+    }
+
+    private static String whereClause(String sql) {
+        return sql.substring(sql.indexOf(" where ") + " where ".length());
+    }
+
+    private static List<String> whereColumns(String sql) {
+        String where = whereClause(sql);
+        return Arrays.stream(where.split(" and "))
+                .filter(predicate -> !predicate.equals("1=1"))
+                .map(predicate -> predicate.substring(predicate.indexOf('.') + 1, predicate.indexOf(predicate.contains(">") ? '>' : '=')))
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,159 @@
+package com.hubert.mobilerest.repositories;
+
+import com.hubert.mobilerest.domain.MobileSubscriber;
+import com.hubert.mobilerest.generator.DatasetGenerator;
+import com.hubert.mobilerest.generator.DatasetSettings;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.orm.jpa.hibernate.SpringImplicitNamingStrategy;
+import org.springframework.boot.orm.jpa.hibernate.SpringPhysicalNamingStrategy;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Comparison of the msisdn unique index size and lookup latency with the default (VARCHAR) msisdn and the "numeric-msisdn" one
+ * on 10M subscribers (benchmark.subscribers property). Database is stored in target/benchmarks, so its pages are written to the file
+ * and the index size is measured as the number of bytes written when the unique index is created.
+ * The same data is measured before and after the migration from docs/migrations/numeric-msisdn, numeric entity manager factory is created
+ * with META-INF/orm-numeric-msisdn.xml mapping.
+ * Disabled by default, run with: mvn verify -Dit.test=MsisdnStorageBenchmarkIT -Dbenchmarks=true
+ */
+@Slf4j
+@DataJpaTest(properties = {"spring.datasource.url=jdbc:h2:file:./target/benchmarks/msisdn-storage;DB_CLOSE_ON_EXIT=FALSE",
+        "spring.jpa.hibernate.ddl-auto=create-drop"})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ExtendWith(SpringExtension.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+class MsisdnStorageBenchmarkIT {
+    private static final int SUBSCRIBERS = Integer.getInteger("benchmark.subscribers", 10_000_000);
+    private static final int CUSTOMERS = 10_000;
+    private static final int LOOKUPS = 100_000;
+    private static final String LOOKUP_QUERY = "SELECT m.id FROM MobileSubscriber m WHERE m.msisdn = :msisdn";
+    private static final String WRITTEN_BYTES_QUERY = "SELECT VALUE FROM INFORMATION_SCHEMA.SETTINGS WHERE NAME = 'info.FILE_WRITE_BYTES'";
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    DataSource dataSource;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    private DatasetGenerator generator;
+    private EntityManagerFactory numericEntityManagerFactory;
+
+    @BeforeEach
+    void setUp() {
+        generator = new DatasetGenerator(DatasetSettings.builder()
+                .customers(CUSTOMERS)
+                .subscribers(SUBSCRIBERS)
+                .build());
+        generator.load(jdbcTemplate);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (numericEntityManagerFactory != null) {
+            numericEntityManagerFactory.close();
+            execute(NumericMsisdnMigrationIT.ROLLBACK);
+        }
+    }
+
+    @Test
+    void compareTextAndNumericMsisdnTest() {
+        long[] ids = new Random(42).longs(LOOKUPS, 1, SUBSCRIBERS + 1).toArray();
+
+        long textIndexBytes = measureIndexBytes();
+        double textLookupMicros = measureLookups(entityManagerFactory, ids);
+
+        execute(NumericMsisdnMigrationIT.MIGRATION);
+        numericEntityManagerFactory = createNumericEntityManagerFactory();
+        long numericIndexBytes = measureIndexBytes();
+        double numericLookupMicros = measureLookups(numericEntityManagerFactory, ids);
+
+        log.info(String.format("%-30s %15s %15s", "msisdn storage (" + SUBSCRIBERS + ")", "VARCHAR", "BIGINT"));
+        log.info(String.format("%-30s %15d %15d", "unique index written [bytes]", textIndexBytes, numericIndexBytes));
+        log.info(String.format("%-30s %15.1f %15.1f", "lookup by msisdn [us]", textLookupMicros, numericLookupMicros));
+    }
+
+    /**
+     * Recreating the msisdn unique index and counting bytes written to the database file until the index is saved
+     * @return Approximate size of the index in bytes, -1 if the database doesn't report written bytes
+     */
+    private long measureIndexBytes() {
+        jdbcTemplate.execute("ALTER TABLE MOBILE_SUBSCRIBER DROP CONSTRAINT " + MobileSubscriber.MSISDN_CONSTRAINT);
+        jdbcTemplate.execute("CHECKPOINT SYNC");
+        List<Long> before = jdbcTemplate.queryForList(WRITTEN_BYTES_QUERY, Long.class);
+        jdbcTemplate.execute("ALTER TABLE MOBILE_SUBSCRIBER ADD CONSTRAINT " + MobileSubscriber.MSISDN_CONSTRAINT + " UNIQUE (MSISDN)");
+        jdbcTemplate.execute("CHECKPOINT SYNC");
+        List<Long> after = jdbcTemplate.queryForList(WRITTEN_BYTES_QUERY, Long.class);
+        return before.isEmpty() || after.isEmpty() ? -1 : after.get(0) - before.get(0);
+    }
+
+    /**
+     * Running the lookups twice (warm up and measurement) with new entity manager
+     * @return Average time of one lookup in microseconds
+     */
+    private double measureLookups(EntityManagerFactory factory, long[] ids) {
+        lookup(factory, ids);
+        long start = System.nanoTime();
+        lookup(factory, ids);
+        return (System.nanoTime() - start) / 1_000.0 / ids.length;
+    }
+
+    private void lookup(EntityManagerFactory factory, long[] ids) {
+        EntityManager entityManager = factory.createEntityManager();
+        try {
+            for (long id : ids) {
+                assertThat(entityManager.createQuery(LOOKUP_QUERY, Long.class)
+                        .setParameter("msisdn", generator.msisdn(id))
+                        .getSingleResult(), is(id));
+            }
+        } finally {
+            entityManager.close();
+        }
+    }
+
+    private EntityManagerFactory createNumericEntityManagerFactory() {
+        LocalContainerEntityManagerFactoryBean factoryBean = new LocalContainerEntityManagerFactoryBean();
+        factoryBean.setDataSource(dataSource);
+        factoryBean.setPackagesToScan(MobileSubscriber.class.getPackageName());
+        factoryBean.setMappingResources("META-INF/orm-numeric-msisdn.xml");
+        factoryBean.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        factoryBean.setJpaPropertyMap(Map.of(
+                "hibernate.hbm2ddl.auto", "none",
+                "hibernate.physical_naming_strategy", SpringPhysicalNamingStrategy.class.getName(),
+                "hibernate.implicit_naming_strategy", SpringImplicitNamingStrategy.class.getName()));
+        factoryBean.afterPropertiesSet();
+        return factoryBean.getObject();
+    }
+
+    private void execute(String script) {
+        new ResourceDatabasePopulator(new FileSystemResource(script)).execute(dataSource);
+    }
+}
@@ -0,0 +1,98 @@
+package com.hubert.mobilerest.repositories;
+
+import com.hubert.mobilerest.domain.MobileSubscriber;
+import com.hubert.mobilerest.domain.ServiceType;
+import com.hubert.mobilerest.dto.v1.MobileSubscriberDto;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+
+@DataJpaTest
+@ActiveProfiles("numeric-msisdn")
+@ExtendWith(SpringExtension.class)
+@Sql(executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD, scripts = "classpath:propagateTestDb.sql")
+class NumericMsisdnMappingIT {
+
+    @Autowired
+    MobileSubscriberRepository mobileSubscriberRepository;
+
+    @Autowired
+    CustomerRepository customerRepository;
+
+    @Autowired
+    TestEntityManager entityManager;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    void shouldStoreMsisdnAsNumberTest() {
+        //given
+        MobileSubscriber subscriber = MobileSubscriber.builder()
+                .msisdn("48600100200")
+                .owner(customerRepository.findById(1L).orElseThrow())
+                .user(customerRepository.findById(2L).orElseThrow())
+                .serviceType(ServiceType.MOBILE_POSTPAID)
+                .serviceStartDate(LocalDateTime.now())
+                .build();
+
+        //when
+        Long id = entityManager.persistAndFlush(subscriber).getId();
+        entityManager.clear();
+
+        //then
+        assertThat(jdbcTemplate.queryForObject("SELECT TYPE_NAME FROM INFORMATION_SCHEMA.COLUMNS "
+                + "WHERE TABLE_NAME = 'MOBILE_SUBSCRIBER' AND COLUMN_NAME = 'MSISDN'", String.class), is("BIGINT"));
+        assertThat(jdbcTemplate.queryForObject("SELECT MSISDN FROM MOBILE_SUBSCRIBER WHERE ID = ?", Long.class, id), is(48600100200L));
+        assertThat(mobileSubscriberRepository.findById(id).orElseThrow().getMsisdn(), is("48600100200"));
+    }
+
+    @Test
+    void shouldFindByMsisdnTest() {
+        //when
+        List<MobileSubscriber> found = mobileSubscriberRepository.findByCriteria(MobileSubscriber.builder().msisdn("48500123456").build());
+
+        //then
+        assertThat(found.stream().map(MobileSubscriber::getId).collect(Collectors.toList()), contains(1L));
+        assertThat(mobileSubscriberRepository.findFirstByMsisdn("48511123456").orElseThrow().getId(), is(2L));
+        assertThat(mobileSubscriberRepository.findExistingMsisdns(List.of("48500123456", "48999999999", "048500123456")),
+                contains("48500123456"));
+        //msisdn which is not a number doesn't match anything instead of failing the query
+        assertThat(mobileSubscriberRepository.findByCriteria(MobileSubscriber.builder().msisdn("+48500123456").build()), empty());
+    }
+
+    @Test
+    void shouldFindByMsisdnPrefixWithNumericRangesTest() {
+        //given
+        jdbcTemplate.update("INSERT INTO MOBILE_SUBSCRIBER (ID, MSISDN, CUSTOMER_ID_OWNER, CUSTOMER_ID_USER, SERVICE_TYPE, SERVICE_START_DATE) "
+                + "VALUES (9, 4859001, 1, 2, 'MOBILE_PREPAID', 1554308106460)");
+
+        //when
+        List<MobileSubscriberDto> first = mobileSubscriberRepository.findDtosByMsisdnPrefix("485", null, 3);
+        List<MobileSubscriberDto> second = mobileSubscriberRepository.findDtosByMsisdnPrefix("485", first.get(2).getMsisdn(), 10);
+
+        //then
+        //numbers are ordered as text, the same way as VARCHAR msisdns, so the shorter one is the last
+        assertThat(first.stream().map(MobileSubscriberDto::getId).collect(Collectors.toList()), contains(1L, 2L, 8L));
+        assertThat(second.stream().map(MobileSubscriberDto::getId).collect(Collectors.toList()), contains(3L, 4L, 9L));
+        assertThat(mobileSubscriberRepository.countByMsisdnPrefix("485"), is(6L));
+        assertThat(mobileSubscriberRepository.countByMsisdnPrefix("4"), is(9L));
+        assertThat(mobileSubscriberRepository.countByMsisdnPrefix("48500123456"), is(1L));
+        assertThat(mobileSubscriberRepository.countByMsisdnPrefix("999999999999999"), is(0L));
+    }
+}
@@ -0,0 +1,75 @@
+package com.hubert.mobilerest.repositories;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.jdbc.datasource.init.ScriptException;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Migration of the default (VARCHAR) msisdn column with docs/migrations/numeric-msisdn scripts. DDL statements commit,
+ * so the tests are not run in a transaction and the schema is reverted after every test
+ */
+@DataJpaTest
+@ExtendWith(SpringExtension.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Sql(executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD, scripts = "classpath:propagateTestDb.sql")
+@Sql(executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD, scripts = "file:" + NumericMsisdnMigrationIT.ROLLBACK)
+class NumericMsisdnMigrationIT {
+    static final String MIGRATION = "docs/migrations/numeric-msisdn/V1_5__mobile_subscriber_numeric_msisdn.sql";
+    static final String ROLLBACK = "docs/migrations/numeric-msisdn/U1_5__mobile_subscriber_numeric_msisdn.sql";
+    private static final String MSISDN_TYPE_QUERY = "SELECT TYPE_NAME FROM INFORMATION_SCHEMA.COLUMNS "
+            + "WHERE TABLE_NAME = 'MOBILE_SUBSCRIBER' AND COLUMN_NAME = 'MSISDN'";
+
+    @Autowired
+    DataSource dataSource;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    void shouldConvertMsisdnToNumberTest() {
+        //when
+        migrate();
+
+        //then
+        assertThat(jdbcTemplate.queryForObject(MSISDN_TYPE_QUERY, String.class), is("BIGINT"));
+        assertThat(jdbcTemplate.queryForObject("SELECT MSISDN FROM MOBILE_SUBSCRIBER WHERE ID = 1", Long.class), is(48500123456L));
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM MOBILE_SUBSCRIBER", Long.class), is(8L));
+        //unique index is created again for the numeric column
+        assertThrows(DataIntegrityViolationException.class, () -> jdbcTemplate.update("INSERT INTO MOBILE_SUBSCRIBER "
+                + "(ID, MSISDN, CUSTOMER_ID_OWNER, CUSTOMER_ID_USER, SERVICE_TYPE, SERVICE_START_DATE) "
+                + "VALUES (9, 48500123456, 1, 2, 'MOBILE_PREPAID', 1554308106460)"));
+    }
+
+    @Test
+    void shouldNotConvertMsisdnWhichIsNotNumberTest() {
+        //given
+        jdbcTemplate.update("INSERT INTO MOBILE_SUBSCRIBER (ID, MSISDN, CUSTOMER_ID_OWNER, CUSTOMER_ID_USER, SERVICE_TYPE, SERVICE_START_DATE) "
+                + "VALUES (9, '048500123456', 1, 2, 'MOBILE_PREPAID', 1554308106460)");
+
+        //when/then
+        assertThrows(ScriptException.class, this::migrate);
+        assertThat(jdbcTemplate.queryForObject(MSISDN_TYPE_QUERY, String.class), is("VARCHAR"));
+        assertThat(jdbcTemplate.queryForList("SELECT MSISDN FROM MOBILE_SUBSCRIBER WHERE ID = 9", String.class), contains("048500123456"));
+    }
+
+    private void migrate() {
+        new ResourceDatabasePopulator(new FileSystemResource(MIGRATION)).execute(dataSource);
+    }
+}
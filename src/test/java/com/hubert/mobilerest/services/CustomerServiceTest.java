@@ -0,0 +1,45 @@
+package com.hubert.mobilerest.services;
+
+import com.hubert.mobilerest.repositories.CustomerRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CustomerServiceTest {
+
+    @Mock
+    private CustomerRepository customerRepository;
+
+    private CustomerService service;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.initMocks(this);
+        service = new CustomerServiceImpl(customerRepository);
+    }
+
+    @Test
+    void shouldFindExistingCustomerTest() {
+        //given
+        when(customerRepository.existsById(1L)).thenReturn(true);
+
+        //when/then
+        assertThat(service.customerExists(1L), is(true));
+        assertThat(service.customerExists(2L), is(false));
+    }
+
+    @Test
+    void shouldNotFindCustomerWithoutIdTest() {
+        //when/then
+        assertThat(service.customerExists(null), is(false));
+        verify(customerRepository, never()).existsById(any());
+    }
+}
@@ -0,0 +1,98 @@
+package com.hubert.mobilerest.services;
+
+import com.hubert.mobilerest.domain.Customer;
+import com.hubert.mobilerest.domain.MobileSubscriber;
+import com.hubert.mobilerest.domain.ServiceType;
+import com.hubert.mobilerest.repositories.MobileSubscriberRepository;
+import com.hubert.mobilerest.utils.SqlStatementRecorder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.everyItem;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(properties = {SqlStatementRecorder.PROPERTY, "mobile.msisdn-filter.enabled=true"})
+@Sql(executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD, scripts = "classpath:propagateTestDb.sql")
+class MobileSubscriberBatchIT {
+    private static final int SUBSCRIBERS = 120;
+
+    @Autowired
+    MobileSubscriberService mobileSubscriberService;
+
+    @Autowired
+    MobileSubscriberRepository mobileSubscriberRepository;
+
+    @BeforeEach
+    void setUp() {
+        //test data is inserted by the script, so the msisdn filter needs to be rebuilt
+        mobileSubscriberService.rebuildMsisdnFilter();
+        SqlStatementRecorder.reset();
+    }
+
+    @Test
+    void shouldCreateSubscribersWithBatchedInsertsTest() {
+        //given
+        List<MobileSubscriber> toPersist = new ArrayList<>();
+        for (int i = 0; i < SUBSCRIBERS; i++) {
+            toPersist.add(MobileSubscriber.builder().msisdn(Long.toString(48_700_000_000L + i)).owner(new Customer(1L + i % 6))
+                    .user(new Customer(6L - i % 6)).serviceType(ServiceType.MOBILE_POSTPAID).build());
+        }
+
+        //when
+        List<SubscriberCreationResult> results = mobileSubscriberService.createNewSubscribers(toPersist);
+
+        //then
+        assertThat(results.stream().map(SubscriberCreationResult::getStatus).collect(Collectors.toList()),
+                everyItem(is(SubscriberCreationResult.Status.CREATED)));
+        assertThat(results.stream().map(result -> result.getSubscriber().getId()).collect(Collectors.toList()),
+                everyItem(greaterThanOrEqualTo(1000L)));
+        assertThat(mobileSubscriberRepository.count(), is(8L + SUBSCRIBERS));
+        //new msisdns are not present in the msisdn filter, so only customers are queried,
+        //insert is prepared once and executed in JDBC batches (one per row without batching)
+        assertThat(statements("select mobilesubs0_.msisdn"), hasSize(0));
+        assertThat(statements("from customer"), hasSize(1));
+        assertThat(statements("insert into mobile_subscriber"), hasSize(1));
+        assertThat(statements("mobile_subscriber_seq").size(), lessThanOrEqualTo(4));
+    }
+
+    @Test
+    void shouldReportDuplicatesAndInvalidSubscribersTest() {
+        //given
+        List<MobileSubscriber> toPersist = List.of(
+                MobileSubscriber.builder().msisdn("48500123456").owner(new Customer(1L)).user(new Customer(2L)).serviceType(ServiceType.MOBILE_PREPAID).build(),
+                MobileSubscriber.builder().msisdn("48700000001").owner(new Customer(100L)).user(new Customer(2L)).serviceType(ServiceType.MOBILE_PREPAID).build(),
+                MobileSubscriber.builder().msisdn("48700000002").owner(new Customer(1L)).user(new Customer(2L)).serviceType(ServiceType.MOBILE_PREPAID).build(),
+                MobileSubscriber.builder().msisdn("48700000002").owner(new Customer(3L)).user(new Customer(4L)).serviceType(ServiceType.MOBILE_PREPAID).build());
+
+        //when
+        List<SubscriberCreationResult> results = mobileSubscriberService.createNewSubscribers(toPersist);
+
+        //then
+        assertThat(results.get(0).getStatus(), is(SubscriberCreationResult.Status.DUPLICATE));
+        assertThat(results.get(1).getStatus(), is(SubscriberCreationResult.Status.INVALID));
+        assertThat(results.get(2).getStatus(), is(SubscriberCreationResult.Status.CREATED));
+        assertThat(results.get(3).getStatus(), is(SubscriberCreationResult.Status.DUPLICATE));
+        assertThat(mobileSubscriberRepository.count(), is(9L));
+        assertThat(mobileSubscriberRepository.findFirstByMsisdn("48700000002").get().getOwnerId(), is(1L));
+    }
+
+    private List<String> statements(String fragment) {
+        return SqlStatementRecorder.getStatements().stream()
+                .filter(sql -> sql.contains(fragment))
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,169 @@
+package com.hubert.mobilerest.services;
+
+import com.hubert.mobilerest.config.CacheConfig;
+import com.hubert.mobilerest.domain.Customer;
+import com.hubert.mobilerest.domain.MobileSubscriber;
+import com.hubert.mobilerest.domain.ServiceType;
+import com.hubert.mobilerest.dto.v1.MobileSubscriberDto;
+import com.hubert.mobilerest.exceptions.ResourceNotFoundException;
+import com.hubert.mobilerest.exceptions.ValidationFailedException;
+import com.hubert.mobilerest.utils.SqlStatementRecorder;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.everyItem;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(properties = SqlStatementRecorder.PROPERTY)
+@Sql(executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD, scripts = "classpath:propagateTestDb.sql")
+class MobileSubscriberCacheIT {
+
+    @Autowired
+    MobileSubscriberService mobileSubscriberService;
+
+    @Autowired
+    CacheManager cacheManager;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    private Cache cache;
+
+    @BeforeEach
+    void setUp() {
+        //database is propagated again before every test, so previously cached data is not valid anymore
+        cache = cacheManager.getCache(CacheConfig.SUBSCRIBERS_CACHE);
+        cache.clear();
+        cacheManager.getCache(CacheConfig.CUSTOMERS_CACHE).clear();
+    }
+
+    @Test
+    void shouldCacheSubscriberFoundByIdTest() {
+        //given
+        double hits = cacheGets("hit");
+
+        //when
+        MobileSubscriberDto first = mobileSubscriberService.findSubscriberDtoById(1L);
+        MobileSubscriberDto second = mobileSubscriberService.findSubscriberDtoById(1L);
+
+        //then
+        assertThat(first.getMsisdn(), is("48500123456"));
+        assertThat(second, sameInstance(first));
+        assertThat(cacheGets("hit"), is(hits + 1));
+        assertThat(cache.get(1L, MobileSubscriberDto.class), sameInstance(first));
+    }
+
+    @Test
+    void shouldNotCacheMissingSubscriberTest() {
+        //when
+        assertThrows(ResourceNotFoundException.class, () -> mobileSubscriberService.findSubscriberDtoById(100L));
+
+        //then
+        assertThat(cache.get(100L), nullValue());
+    }
+
+    @Test
+    void shouldEvictPatchedSubscriberTest() {
+        //given
+        mobileSubscriberService.findSubscriberDtoById(1L);
+
+        //when
+        mobileSubscriberService.patchSubscriber(MobileSubscriber.builder().serviceType(ServiceType.MOBILE_POSTPAID).build(), 1L);
+
+        //then
+        assertThat(cache.get(1L), nullValue());
+        assertThat(mobileSubscriberService.findSubscriberDtoById(1L).getServiceType(), is(ServiceType.MOBILE_POSTPAID.name()));
+    }
+
+    @Test
+    void shouldEvictUpdatedSubscriberTest() {
+        //given
+        mobileSubscriberService.findSubscriberDtoById(1L);
+        MobileSubscriber toUpdate = MobileSubscriber.builder().msisdn("48500123456").owner(new Customer(3L)).user(new Customer(2L))
+                .serviceType(ServiceType.MOBILE_PREPAID).build();
+
+        //when
+        mobileSubscriberService.updateSubscriber(toUpdate, 1L);
+
+        //then
+        assertThat(cache.get(1L), nullValue());
+        assertThat(mobileSubscriberService.findSubscriberDtoById(1L).getOwnerId(), is(3L));
+    }
+
+    @Test
+    void shouldEvictDeletedSubscriberTest() {
+        //given
+        mobileSubscriberService.findSubscriberDtoById(1L);
+
+        //when
+        mobileSubscriberService.deleteSubscriberById(1L, null);
+
+        //then
+        assertThat(cache.get(1L), nullValue());
+        assertThrows(ResourceNotFoundException.class, () -> mobileSubscriberService.findSubscriberDtoById(1L));
+    }
+
+    @Test
+    void shouldKeepSubscriberWhenPatchFailedTest() {
+        //given
+        mobileSubscriberService.findSubscriberDtoById(1L);
+
+        //when
+        assertThrows(ValidationFailedException.class,
+                () -> mobileSubscriberService.patchSubscriber(MobileSubscriber.builder().msisdn("48111111111").build(), 1L));
+
+        //then
+        assertThat(cache.get(1L), notNullValue());
+    }
+
+    @Test
+    void shouldNotLoadCachedCustomersOnCreateTest() {
+        //given
+        mobileSubscriberService.createNewSubscriber(MobileSubscriber.builder().msisdn("48600100200").owner(new Customer(6L))
+                .user(new Customer(5L)).serviceType(ServiceType.MOBILE_PREPAID).build());
+        SqlStatementRecorder.reset();
+
+        //when
+        MobileSubscriber created = mobileSubscriberService.createNewSubscriber(MobileSubscriber.builder().msisdn("48600100201")
+                .owner(new Customer(6L)).user(new Customer(5L)).serviceType(ServiceType.MOBILE_POSTPAID).build());
+
+        //then
+        assertThat(created.getOwnerId(), is(6L));
+        assertThat(created.getUserId(), is(5L));
+        //only the insert (msisdn uniqueness is left to the constraint), customer tables are not queried
+        assertThat(SqlStatementRecorder.getStatements(), hasSize(1));
+        assertThat(SqlStatementRecorder.getStatements(), everyItem(not(containsString(" customer "))));
+        assertThat(cacheManager.getCache(CacheConfig.CUSTOMERS_CACHE).get(6L, Boolean.class), is(true));
+    }
+
+    @Test
+    void shouldNotCacheMissingCustomerTest() {
+        //when
+        assertThrows(ResourceNotFoundException.class, () -> mobileSubscriberService.createNewSubscriber(MobileSubscriber.builder()
+                .msisdn("48600100200").owner(new Customer(100L)).user(new Customer(5L)).serviceType(ServiceType.MOBILE_PREPAID).build()));
+
+        //then
+        assertThat(cacheManager.getCache(CacheConfig.CUSTOMERS_CACHE).get(100L), nullValue());
+    }
+
+    private double cacheGets(String result) {
+        return meterRegistry.get("cache.gets").tag("cache", CacheConfig.SUBSCRIBERS_CACHE).tag("result", result).functionCounter().count();
+    }
+}
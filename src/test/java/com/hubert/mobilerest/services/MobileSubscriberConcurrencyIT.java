@@ -0,0 +1,93 @@
+package com.hubert.mobilerest.services;
+
+import com.hubert.mobilerest.domain.Customer;
+import com.hubert.mobilerest.domain.MobileSubscriber;
+import com.hubert.mobilerest.domain.ServiceType;
+import com.hubert.mobilerest.exceptions.ResourceConflictException;
+import com.hubert.mobilerest.exceptions.ValidationFailedException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.anyOf;
+import static org.hamcrest.Matchers.everyItem;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Parallel creation of overlapping msisdns. Uniqueness is guarded only by the unique constraint,
+ * so every msisdn has to be created exactly once and all the other attempts rejected with handled exceptions
+ */
+@ExtendWith(SpringExtension.class)
+@SpringBootTest
+@Sql(executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD, scripts = "classpath:propagateTestDb.sql")
+class MobileSubscriberConcurrencyIT {
+    private static final int MSISDNS = 20;
+    private static final int ATTEMPTS_PER_MSISDN = 20;
+    private static final int THREADS = 32;
+
+    @Autowired
+    MobileSubscriberService mobileSubscriberService;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    void shouldCreateEveryMsisdnExactlyOnceTest() throws Exception {
+        //given
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        Map<String, AtomicInteger> created = new ConcurrentHashMap<>();
+        List<Throwable> failures = new ArrayList<>();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int attempt = 0; attempt < ATTEMPTS_PER_MSISDN; attempt++) {
+            for (int i = 0; i < MSISDNS; i++) {
+                String msisdn = Long.toString(48_700_000_000L + i);
+                long ownerId = 1L + (attempt + i) % 6;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    mobileSubscriberService.createNewSubscriber(MobileSubscriber.builder().msisdn(msisdn).owner(new Customer(ownerId))
+                            .user(new Customer(ownerId)).serviceType(ServiceType.MOBILE_PREPAID).build());
+                    created.computeIfAbsent(msisdn, key -> new AtomicInteger()).incrementAndGet();
+                    return null;
+                }));
+            }
+        }
+
+        //when
+        start.countDown();
+        for (Future<?> future : futures) {
+            try {
+                future.get(1, TimeUnit.MINUTES);
+            } catch (ExecutionException e) {
+                failures.add(e.getCause());
+            }
+        }
+        executor.shutdown();
+
+        //then
+        assertThat(created.size(), is(MSISDNS));
+        assertThat(created.values().stream().allMatch(count -> count.get() == 1), is(true));
+        assertThat(failures.size(), is(MSISDNS * (ATTEMPTS_PER_MSISDN - 1)));
+        assertThat(failures, everyItem(anyOf(instanceOf(ValidationFailedException.class), instanceOf(ResourceConflictException.class))));
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM MOBILE_SUBSCRIBER WHERE MSISDN LIKE '487000000%'", Long.class),
+                is((long) MSISDNS));
+    }
+}
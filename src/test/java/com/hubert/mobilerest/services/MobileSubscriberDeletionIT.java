@@ -0,0 +1,69 @@
+package com.hubert.mobilerest.services;
+
+import com.hubert.mobilerest.domain.Customer;
+import com.hubert.mobilerest.domain.MobileSubscriber;
+import com.hubert.mobilerest.domain.ServiceType;
+import com.hubert.mobilerest.exceptions.ResourceNotFoundException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(properties = "mobile.subscribers.deletion.chunk-size=2")
+@Sql(executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD, scripts = "classpath:propagateTestDb.sql")
+class MobileSubscriberDeletionIT {
+
+    @Autowired
+    MobileSubscriberService mobileSubscriberService;
+
+    @Test
+    void shouldDeleteSubscribersByIdsInChunksTest() {
+        //given
+        mobileSubscriberService.findSubscriberDtoById(1L);
+
+        //when
+        long deleted = mobileSubscriberService.deleteSubscribers(List.of(1L, 2L, 4L, 100L), null);
+
+        //then
+        assertThat(deleted, is(3L));
+        assertThat(allSubscriberIds(), containsInAnyOrder(3L, 5L, 6L, 7L, 8L));
+        //cached subscriber is evicted
+        assertThrows(ResourceNotFoundException.class, () -> mobileSubscriberService.findSubscriberDtoById(1L));
+    }
+
+    @Test
+    void shouldDeleteSubscribersByCriteriaInChunksTest() {
+        //when
+        long deleted = mobileSubscriberService.deleteSubscribers(null, MobileSubscriber.builder().user(new Customer(5L)).build());
+
+        //then
+        assertThat(deleted, is(3L));
+        assertThat(allSubscriberIds(), containsInAnyOrder(1L, 2L, 3L, 7L, 8L));
+    }
+
+    @Test
+    void shouldDeleteSubscribersByOwnerAndServiceTypeTest() {
+        //when
+        long deleted = mobileSubscriberService.deleteSubscribers(null, MobileSubscriber.builder().owner(new Customer(1L))
+                .serviceType(ServiceType.MOBILE_PREPAID).build());
+
+        //then
+        assertThat(deleted, is(2L));
+        assertThat(allSubscriberIds(), containsInAnyOrder(3L, 4L, 5L, 6L, 7L, 8L));
+    }
+
+    private List<Long> allSubscriberIds() {
+        return mobileSubscriberService.findSubscribersByCriteria(null).stream().map(MobileSubscriber::getId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,95 @@
+package com.hubert.mobilerest.services;
+
+import com.hubert.mobilerest.domain.Customer;
+import com.hubert.mobilerest.domain.MobileSubscriber;
+import com.hubert.mobilerest.domain.ServiceType;
+import com.hubert.mobilerest.dto.v1.MobileSubscriberDto;
+import com.hubert.mobilerest.exceptions.ResourceNotFoundException;
+import com.hubert.mobilerest.utils.SqlStatementRecorder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Slice;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(properties = {SqlStatementRecorder.PROPERTY, "mobile.msisdn-index.enabled=true"})
+@Sql(executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD, scripts = "classpath:propagateTestDb.sql")
+class MobileSubscriberMsisdnIndexIT {
+
+    @Autowired
+    MobileSubscriberService mobileSubscriberService;
+
+    @BeforeEach
+    void setUp() {
+        //test data is inserted by the script, so the msisdn index needs to be rebuilt
+        mobileSubscriberService.rebuildMsisdnIndex();
+        SqlStatementRecorder.reset();
+    }
+
+    @Test
+    void shouldResolveMsisdnWithoutQueryTest() {
+        //when
+        Long id = mobileSubscriberService.resolveSubscriberId("48500123456");
+
+        //then
+        assertThat(id, is(1L));
+        assertThrows(ResourceNotFoundException.class, () -> mobileSubscriberService.resolveSubscriberId("48999999999"));
+        SqlStatementRecorder.assertStatementCounts(0, 0, 0, 0);
+    }
+
+    @Test
+    void shouldPageByMsisdnPrefixFromIndexTest() {
+        //when
+        Slice<MobileSubscriberDto> first = mobileSubscriberService.findSubscriberDtosByMsisdnPrefix("485", null, 3);
+        Slice<MobileSubscriberDto> second = mobileSubscriberService.findSubscriberDtosByMsisdnPrefix("485",
+                first.getContent().get(2).getMsisdn(), 3);
+
+        //then
+        assertThat(first.getContent().stream().map(MobileSubscriberDto::getId).collect(Collectors.toList()), contains(1L, 2L, 8L));
+        assertThat(first.hasNext(), is(true));
+        assertThat(second.getContent().stream().map(MobileSubscriberDto::getId).collect(Collectors.toList()), contains(3L, 4L));
+        assertThat(second.hasNext(), is(false));
+        //only subscribers of the page are read by ids
+        SqlStatementRecorder.assertStatementCounts(2, 0, 0, 0);
+    }
+
+    @Test
+    void shouldCountByMsisdnPrefixWithoutQueryTest() {
+        //when/then
+        assertThat(mobileSubscriberService.countSubscribersByMsisdnPrefix("485"), is(5L));
+        assertThat(mobileSubscriberService.countSubscribersByMsisdnPrefix("48"), is(8L));
+        assertThat(mobileSubscriberService.countSubscribersByMsisdnPrefix("4899"), is(0L));
+        SqlStatementRecorder.assertStatementCounts(0, 0, 0, 0);
+    }
+
+    @Test
+    void shouldResolveCreatedAndNotRemovedSubscribersTest() {
+        //given
+        MobileSubscriber created = mobileSubscriberService.createNewSubscriber(MobileSubscriber.builder().msisdn("48600100200")
+                .owner(new Customer(1L)).user(new Customer(2L)).serviceType(ServiceType.MOBILE_PREPAID).build());
+        Long batchCreatedId = mobileSubscriberService.createNewSubscribers(List.of(MobileSubscriber.builder().msisdn("48600100201")
+                .owner(new Customer(1L)).user(new Customer(2L)).serviceType(ServiceType.MOBILE_PREPAID).build())).get(0).getSubscriber().getId();
+
+        //when
+        mobileSubscriberService.deleteSubscriberById(1L, null);
+        mobileSubscriberService.deleteSubscribers(List.of(batchCreatedId), null);
+
+        //then
+        assertThat(mobileSubscriberService.resolveSubscriberId("48600100200"), is(created.getId()));
+        assertThrows(ResourceNotFoundException.class, () -> mobileSubscriberService.resolveSubscriberId("48500123456"));
+        assertThrows(ResourceNotFoundException.class, () -> mobileSubscriberService.resolveSubscriberId("48600100201"));
+        assertThat(mobileSubscriberService.countSubscribersByMsisdnPrefix("486"), is(2L));
+    }
+}
@@ -0,0 +1,100 @@
+package com.hubert.mobilerest.services;
+
+import com.hubert.mobilerest.domain.Customer;
+import com.hubert.mobilerest.domain.MobileSubscriber;
+import com.hubert.mobilerest.utils.SqlStatementRecorder;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+/**
+ * Reassignment of a number owned by a customer with a lot of numbers. Data is rolled back after every test
+ */
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(properties = {"spring.jpa.properties.hibernate.generate_statistics=true", SqlStatementRecorder.PROPERTY})
+@Transactional
+@Sql(executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD, scripts = "classpath:propagateTestDb.sql")
+class MobileSubscriberReassignmentIT {
+    private static final int OWNED_NUMBERS = 100_000;
+    private static final long FIRST_ID = 1000L;
+    private static final long OWNER_ID = 6L;
+    private static final long USER_ID = 5L;
+
+    @Autowired
+    MobileSubscriberService mobileSubscriberService;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    EntityManager entityManager;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        List<Object[]> subscribers = new ArrayList<>(OWNED_NUMBERS);
+        for (long id = FIRST_ID; id < FIRST_ID + OWNED_NUMBERS; id++) {
+            subscribers.add(new Object[]{id, Long.toString(48_600_000_000L + id), OWNER_ID, USER_ID});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO MOBILE_SUBSCRIBER (ID, MSISDN, CUSTOMER_ID_OWNER, CUSTOMER_ID_USER, SERVICE_TYPE, SERVICE_START_DATE) "
+                + "VALUES (?, ?, ?, ?, 'MOBILE_POSTPAID', 1554308106460)", subscribers);
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        entityManager.clear();
+        statistics.clear();
+        SqlStatementRecorder.reset();
+    }
+
+    @Test
+    void shouldPatchOwnerWithoutLoadingOwnedNumbersTest() {
+        //when
+        mobileSubscriberService.patchSubscriber(MobileSubscriber.builder().owner(new Customer(1L)).build(), FIRST_ID);
+        entityManager.flush();
+
+        //then
+        assertThat(statistics.getCollectionLoadCount(), is(0L));
+        //subscriber with current owner and user, new owner is only a reference
+        assertThat(statistics.getEntityLoadCount(), lessThanOrEqualTo(3L));
+        //only the changed column is written with single UPDATE, not through the entity
+        SqlStatementRecorder.assertUpdateCount(1);
+        assertThat(ownerOf(FIRST_ID), is(1L));
+        assertThat(ownerOf(FIRST_ID + 1), is(OWNER_ID));
+    }
+
+    @Test
+    void shouldPatchUserWithoutLoadingUsedNumbersTest() {
+        //when
+        mobileSubscriberService.patchSubscriber(MobileSubscriber.builder().user(new Customer(1L)).build(), FIRST_ID);
+        entityManager.flush();
+
+        //then
+        assertThat(statistics.getCollectionLoadCount(), is(0L));
+        assertThat(statistics.getEntityLoadCount(), lessThanOrEqualTo(3L));
+        SqlStatementRecorder.assertUpdateCount(1);
+        assertThat(jdbcTemplate.queryForObject("SELECT CUSTOMER_ID_USER FROM MOBILE_SUBSCRIBER WHERE ID = ?", Long.class, FIRST_ID), is(1L));
+    }
+
+    private Long ownerOf(long id) {
+        return jdbcTemplate.queryForObject("SELECT CUSTOMER_ID_OWNER FROM MOBILE_SUBSCRIBER WHERE ID = ?", Long.class, id);
+    }
+}
@@ -1,30 +1,46 @@
 package com.hubert.mobilerest.services;
 
+import com.hubert.mobilerest.config.CacheConfig;
 import com.hubert.mobilerest.domain.Company;
 import com.hubert.mobilerest.domain.Customer;
 import com.hubert.mobilerest.domain.MobileSubscriber;
 import com.hubert.mobilerest.domain.Person;
 import com.hubert.mobilerest.domain.ServiceType;
+import com.hubert.mobilerest.dto.v1.MobileSubscriberDto;
+import com.hubert.mobilerest.exceptions.PreconditionFailedException;
 import com.hubert.mobilerest.exceptions.ResourceNotFoundException;
+import com.hubert.mobilerest.exceptions.ValidationFailedException;
 import com.hubert.mobilerest.repositories.CustomerRepository;
 import com.hubert.mobilerest.utils.DateUtils;
+import com.hubert.mobilerest.utils.SqlStatementRecorder;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.Slice;
 import org.springframework.test.context.jdbc.Sql;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.everyItem;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.hamcrest.Matchers.nullValue;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 @ExtendWith(SpringExtension.class)
-@SpringBootTest
+@SpringBootTest(properties = {SqlStatementRecorder.PROPERTY, "mobile.msisdn-filter.enabled=true"})
 @Sql(executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD, scripts = "classpath:propagateTestDb.sql")
 class MobileSubscriberServiceIT {
 
@@ -34,6 +50,17 @@ class MobileSubscriberServiceIT {
     @Autowired
     CustomerRepository customerRepository;
 
+    @Autowired
+    CacheManager cacheManager;
+
+    @BeforeEach
+    void setUp() {
+        //customers existence is verified through the cache, so every test starts with the same number of queries
+        cacheManager.getCache(CacheConfig.CUSTOMERS_CACHE).clear();
+        //test data is inserted by the script, so the msisdn filter needs to be rebuilt
+        mobileSubscriberService.rebuildMsisdnFilter();
+    }
+
     @Test
     void shouldFindAllTest() {
         assertThat(mobileSubscriberService.findSubscribersByCriteria(null), hasSize(8));
@@ -44,6 +71,20 @@ class MobileSubscriberServiceIT {
 
     }
 
+    @Test
+    void shouldExportAllTest() {
+        //given
+        List<MobileSubscriber> exported = new ArrayList<>();
+
+        //when
+        mobileSubscriberService.exportSubscribers(exported::add);
+
+        //then
+        assertThat(exported.stream().map(MobileSubscriber::getId).collect(Collectors.toList()), contains(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L));
+        assertThat(exported.get(0).getOwnerId(), is(1L));
+        assertThat(exported.get(0).getUserId(), is(2L));
+    }
+
     @Test
     void shouldFindByIdTest() {
         //when
@@ -136,9 +177,265 @@ class MobileSubscriberServiceIT {
     @Test
     void shouldDeleteExistingTest() {
         //when
-        mobileSubscriberService.deleteSubscriberById(1L);
+        mobileSubscriberService.deleteSubscriberById(1L, null);
 
         //then
         assertThrows(ResourceNotFoundException.class, () -> mobileSubscriberService.findSubscriberById(1L));
     }
+
+    @Test
+    void shouldFindAllWithSingleStatementTest() {
+        //given
+        SqlStatementRecorder.reset();
+
+        //when
+        List<MobileSubscriber> subscribers = mobileSubscriberService.findSubscribersByCriteria(null);
+
+        //then
+        assertThat(subscribers, hasSize(8));
+        SqlStatementRecorder.assertStatementCounts(1, 0, 0, 0);
+    }
+
+    @Test
+    void shouldFindByCriteriaWithSingleStatementTest() {
+        //given
+        SqlStatementRecorder.reset();
+
+        //when
+        List<MobileSubscriber> subscribers = mobileSubscriberService.findSubscribersByCriteria(MobileSubscriber.builder()
+                .owner(new Customer(1L)).build());
+
+        //then
+        assertThat(subscribers, hasSize(3));
+        SqlStatementRecorder.assertStatementCounts(1, 0, 0, 0);
+    }
+
+    @Test
+    void shouldListDtosWithSingleStatementTest() {
+        //given
+        SqlStatementRecorder.reset();
+
+        //when
+        List<MobileSubscriberDto> subscribers = mobileSubscriberService.findSubscriberDtosByCriteria(null);
+
+        //then
+        assertThat(subscribers, hasSize(8));
+        SqlStatementRecorder.assertStatementCounts(1, 0, 0, 0);
+    }
+
+    @Test
+    void shouldPageDtosWithSingleStatementTest() {
+        //given
+        SqlStatementRecorder.reset();
+
+        //when
+        List<MobileSubscriberDto> subscribers = mobileSubscriberService.findSubscriberDtosPage(null, null, 5).getContent();
+
+        //then
+        assertThat(subscribers.stream().map(MobileSubscriberDto::getId).collect(Collectors.toList()), contains(1L, 2L, 3L, 4L, 5L));
+        SqlStatementRecorder.assertStatementCounts(1, 0, 0, 0);
+    }
+
+    @Test
+    void shouldPageByMsisdnPrefixWithRangeQueryTest() {
+        //given
+        SqlStatementRecorder.reset();
+
+        //when
+        Slice<MobileSubscriberDto> first = mobileSubscriberService.findSubscriberDtosByMsisdnPrefix("485", null, 3);
+        Slice<MobileSubscriberDto> second = mobileSubscriberService.findSubscriberDtosByMsisdnPrefix("485",
+                first.getContent().get(2).getMsisdn(), 3);
+
+        //then
+        assertThat(first.getContent().stream().map(MobileSubscriberDto::getId).collect(Collectors.toList()), contains(1L, 2L, 8L));
+        assertThat(first.hasNext(), is(true));
+        assertThat(second.getContent().stream().map(MobileSubscriberDto::getId).collect(Collectors.toList()), contains(3L, 4L));
+        assertThat(second.hasNext(), is(false));
+        SqlStatementRecorder.assertStatementCounts(2, 0, 0, 0);
+        assertThat(SqlStatementRecorder.getStatements(), everyItem(not(containsString("like"))));
+    }
+
+    @Test
+    void shouldCountByMsisdnPrefixTest() {
+        //when/then
+        assertThat(mobileSubscriberService.countSubscribersByMsisdnPrefix("485"), is(5L));
+        assertThat(mobileSubscriberService.countSubscribersByMsisdnPrefix("48500123456"), is(1L));
+        assertThat(mobileSubscriberService.countSubscribersByMsisdnPrefix("4899"), is(0L));
+        assertThat(mobileSubscriberService.countSubscribersByMsisdnPrefix("9"), is(0L));
+        assertThrows(ResourceNotFoundException.class, () -> mobileSubscriberService.findSubscriberDtosByMsisdnPrefix("4899", null, 3));
+    }
+
+    @Test
+    void shouldFindByIdWithSingleStatementTest() {
+        //given
+        SqlStatementRecorder.reset();
+
+        //when
+        mobileSubscriberService.findSubscriberById(1L);
+
+        //then
+        SqlStatementRecorder.assertStatementCounts(1, 0, 0, 0);
+    }
+
+    @Test
+    void shouldCreateWithPinnedStatementsTest() {
+        //given
+        MobileSubscriber newSubscriber = MobileSubscriber.builder()
+                .owner(new Customer(1L))
+                .user(new Customer(3L))
+                .msisdn("48222999303")
+                .serviceType(ServiceType.MOBILE_PREPAID)
+                .build();
+        SqlStatementRecorder.reset();
+
+        //when
+        mobileSubscriberService.createNewSubscriber(newSubscriber);
+
+        //then
+        //existence check of both customers, customers are not loaded and msisdn is checked by the unique constraint
+        SqlStatementRecorder.assertStatementCounts(2, 1, 0, 0);
+    }
+
+    @Test
+    void shouldNotCreateDuplicateMsisdnTest() {
+        //given
+        MobileSubscriber duplicate = MobileSubscriber.builder()
+                .owner(new Customer(1L))
+                .user(new Customer(3L))
+                .msisdn("48500123456")
+                .serviceType(ServiceType.MOBILE_PREPAID)
+                .build();
+
+        //when/then
+        assertThrows(ValidationFailedException.class, () -> mobileSubscriberService.createNewSubscriber(duplicate));
+        assertThat(mobileSubscriberService.findSubscribersByCriteria(MobileSubscriber.builder().msisdn("48500123456").build()), hasSize(1));
+    }
+
+    @Test
+    void shouldNotFindMissingMsisdnWithoutQueryTest() {
+        //given
+        SqlStatementRecorder.reset();
+
+        //when/then
+        assertThrows(ResourceNotFoundException.class,
+                () -> mobileSubscriberService.findSubscriberDtosByCriteria(MobileSubscriber.builder().msisdn("48999999999").build()));
+        SqlStatementRecorder.assertStatementCounts(0, 0, 0, 0);
+    }
+
+    @Test
+    void shouldFindCreatedMsisdnTest() {
+        //given
+        mobileSubscriberService.createNewSubscriber(MobileSubscriber.builder()
+                .owner(new Customer(1L))
+                .user(new Customer(3L))
+                .msisdn("48222999304")
+                .serviceType(ServiceType.MOBILE_PREPAID)
+                .build());
+
+        //when
+        List<MobileSubscriberDto> found = mobileSubscriberService.findSubscriberDtosByCriteria(MobileSubscriber.builder().msisdn("48222999304").build());
+
+        //then
+        assertThat(found, hasSize(1));
+    }
+
+    @Test
+    void shouldUpdateWithPinnedStatementsTest() {
+        //given
+        MobileSubscriber toUpdate = MobileSubscriber.builder()
+                .msisdn("48500123456")
+                .owner(new Customer(2L))
+                .user(new Customer(2L))
+                .serviceType(ServiceType.MOBILE_POSTPAID)
+                .build();
+        SqlStatementRecorder.reset();
+
+        //when
+        mobileSubscriberService.updateSubscriber(toUpdate, 1L);
+
+        //then
+        //subscriber columns and existence check of the customer
+        SqlStatementRecorder.assertStatementCounts(2, 0, 1, 0);
+    }
+
+    @Test
+    void shouldPatchWithPinnedStatementsTest() {
+        //given
+        MobileSubscriber toPatch = MobileSubscriber.builder()
+                .serviceType(ServiceType.MOBILE_POSTPAID)
+                .user(new Customer(3L))
+                .build();
+        SqlStatementRecorder.reset();
+
+        //when
+        mobileSubscriberService.patchSubscriber(toPatch, 1L);
+
+        //then
+        //subscriber columns and existence check of the new user
+        SqlStatementRecorder.assertStatementCounts(2, 0, 1, 0);
+    }
+
+    @Test
+    void shouldPatchServiceTypeWithoutCustomersTest() {
+        //given
+        SqlStatementRecorder.reset();
+
+        //when
+        mobileSubscriberService.patchSubscriber(MobileSubscriber.builder().serviceType(ServiceType.MOBILE_POSTPAID).build(), 1L);
+
+        //then
+        SqlStatementRecorder.assertStatementCounts(1, 0, 1, 0);
+        assertThat(SqlStatementRecorder.getStatements(), everyItem(not(containsString(" customer "))));
+        assertThat(mobileSubscriberService.findSubscriberById(1L).getServiceType(), is(ServiceType.MOBILE_POSTPAID));
+    }
+
+    @Test
+    void shouldIncrementVersionOnPatchTest() {
+        //given
+        Long version = mobileSubscriberService.findSubscriberById(1L).getVersion();
+
+        //when
+        MobileSubscriber patched = mobileSubscriberService.patchSubscriber(MobileSubscriber.builder()
+                .serviceType(ServiceType.MOBILE_POSTPAID).version(version).build(), 1L);
+
+        //then
+        assertThat(patched.getVersion(), is(version + 1));
+        assertThat(mobileSubscriberService.findSubscriberById(1L).getVersion(), is(version + 1));
+    }
+
+    @Test
+    void shouldNotPatchWithStaleVersionTest() {
+        //given
+        Long version = mobileSubscriberService.findSubscriberById(1L).getVersion();
+        mobileSubscriberService.patchSubscriber(MobileSubscriber.builder().serviceType(ServiceType.MOBILE_POSTPAID).build(), 1L);
+
+        //when/then
+        assertThrows(PreconditionFailedException.class, () -> mobileSubscriberService.patchSubscriber(MobileSubscriber.builder()
+                .user(new Customer(3L)).version(version).build(), 1L));
+        assertThat(mobileSubscriberService.findSubscriberById(1L).getUserId(), is(2L));
+    }
+
+    @Test
+    void shouldNotDeleteWithStaleVersionTest() {
+        //given
+        Long version = mobileSubscriberService.findSubscriberById(1L).getVersion();
+        mobileSubscriberService.patchSubscriber(MobileSubscriber.builder().serviceType(ServiceType.MOBILE_POSTPAID).build(), 1L);
+
+        //when/then
+        assertThrows(PreconditionFailedException.class, () -> mobileSubscriberService.deleteSubscriberById(1L, version));
+        assertThat(mobileSubscriberService.findSubscriberById(1L), notNullValue());
+    }
+
+    @Test
+    void shouldDeleteWithPinnedStatementsTest() {
+        //given
+        SqlStatementRecorder.reset();
+
+        //when
+        mobileSubscriberService.deleteSubscriberById(1L, null);
+
+        //then
+        //subscriber is removed without loading
+        SqlStatementRecorder.assertStatementCounts(0, 0, 0, 1);
+    }
 }
@@ -2,44 +2,84 @@ package com.hubert.mobilerest.services;
 
 import com.hubert.mobilerest.domain.Company;
 import com.hubert.mobilerest.domain.Customer;
+import com.hubert.mobilerest.domain.CustomerRole;
 import com.hubert.mobilerest.domain.MobileSubscriber;
 import com.hubert.mobilerest.domain.Person;
 import com.hubert.mobilerest.domain.ServiceType;
+import com.hubert.mobilerest.dto.v1.MobileSubscriberDto;
+import com.hubert.mobilerest.dto.v1.SubscriberStatisticsDto;
+import com.hubert.mobilerest.exceptions.PreconditionFailedException;
+import com.hubert.mobilerest.exceptions.ResourceConflictException;
 import com.hubert.mobilerest.exceptions.ResourceNotFoundException;
 import com.hubert.mobilerest.exceptions.ValidationFailedException;
-import com.hubert.mobilerest.repositories.CustomerRepository;
+import com.hubert.mobilerest.mappers.v1.MobileSubscriberMapper;
 import com.hubert.mobilerest.repositories.MobileSubscriberRepository;
 import org.assertj.core.util.Lists;
+import org.hibernate.exception.ConstraintViolationException;
+import org.hibernate.exception.GenericJDBCException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mapstruct.factory.Mappers;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Slice;
 
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceException;
+import java.sql.SQLException;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.core.IsNull.notNullValue;
+import static org.hamcrest.core.IsNull.nullValue;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 class MobileSubscriberServiceTest {
+    private static final int TRANSFER_CHUNK_SIZE = 2;
+    private static final int BATCH_MAX_SIZE = 10;
+    private static final int DELETION_CHUNK_SIZE = 2;
 
     @Mock
     private MobileSubscriberRepository subscriberRepository;
 
     @Mock
-    private CustomerRepository customerRepository;
+    private CustomerService customerService;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private MsisdnFilter msisdnFilter;
+
+    @Mock
+    private MsisdnIndex msisdnIndex;
+
+    @Mock
+    private SubscriberStatistics subscriberStatistics;
 
     private MobileSubscriberService service;
 
@@ -50,12 +90,15 @@ class MobileSubscriberServiceTest {
     @BeforeEach
     void setUp() {
         MockitoAnnotations.initMocks(this);
-        service = new MobileSubscriberServiceImpl(subscriberRepository, customerRepository);
+        service = new MobileSubscriberServiceImpl(subscriberRepository, customerService, entityManager,
+                Mappers.getMapper(MobileSubscriberMapper.class), msisdnFilter, msisdnIndex, subscriberStatistics, TRANSFER_CHUNK_SIZE, BATCH_MAX_SIZE, DELETION_CHUNK_SIZE);
+        when(msisdnFilter.mightContain(anyString())).thenReturn(true);
+        when(msisdnFilter.isEnabled()).thenReturn(true);
 
         person = Person.builder().id(1L).address("SomeAddr").docId("123123").firstName("aaa").lastName("ddd").build();
         company = Company.builder().id(2L).address("SomeAddr2").taxId("223123").companyName("sssaaa").build();
         subscriber = MobileSubscriber.builder().id(1L).user(person).owner(company).msisdn("48123312123")
-                .serviceType(ServiceType.MOBILE_POSTPAID).serviceStartDate(LocalDateTime.now().withNano(123000000)).build();
+                .serviceType(ServiceType.MOBILE_POSTPAID).serviceStartDate(LocalDateTime.now().withNano(123000000)).version(0L).build();
     }
 
     @Test
@@ -82,10 +125,34 @@ class MobileSubscriberServiceTest {
         assertThat(subscriber.getUserId(), is(this.subscriber.getUserId()));
     }
 
+    @Test
+    void shouldFindSubscriberDtoByIdTest() {
+        //given
+        when(subscriberRepository.findById(subscriber.getId())).thenReturn(Optional.of(subscriber));
+
+        //when
+        MobileSubscriberDto subscriberDto = service.findSubscriberDtoById(this.subscriber.getId());
+
+        //then
+        assertThat(subscriberDto.getMsisdn(), is(this.subscriber.getMsisdn()));
+        assertThat(subscriberDto.getOwnerId(), is(this.subscriber.getOwnerId()));
+        assertThat(subscriberDto.getUserId(), is(this.subscriber.getUserId()));
+        assertThat(subscriberDto.getServiceType(), is(this.subscriber.getServiceType().name()));
+    }
+
+    @Test
+    void shouldNotFindSubscriberDtoByIdTest() {
+        //given
+        when(subscriberRepository.findById(1L)).thenReturn(Optional.empty());
+
+        //when/then
+        assertThrows(ResourceNotFoundException.class, () -> service.findSubscriberDtoById(1L));
+    }
+
     @Test
     void shouldFindAllSubscribersTest() {
         //given
-        when(subscriberRepository.findAll()).thenReturn(Lists.newArrayList(subscriber, MobileSubscriber.builder().id(2L).build()));
+        when(subscriberRepository.findByCriteria(null)).thenReturn(Lists.newArrayList(subscriber, MobileSubscriber.builder().id(2L).build()));
 
         //when
         List<MobileSubscriber> foundSubscribers = service.findSubscribersByCriteria(null);
@@ -128,17 +195,283 @@ class MobileSubscriberServiceTest {
         assertThat(res.get(0).getUserId(), is(criteria.getUserId()));
     }
 
+    @Test
+    void shouldFindSubscriberDtosByCriteriaTest() {
+        //given
+        MobileSubscriber criteria = MobileSubscriber.builder().msisdn(subscriber.getMsisdn()).build();
+        when(subscriberRepository.findDtosByCriteria(criteria))
+                .thenReturn(Collections.singletonList(MobileSubscriberDto.builder().id(1L).msisdn(subscriber.getMsisdn()).build()));
+
+        //when
+        List<MobileSubscriberDto> res = service.findSubscriberDtosByCriteria(criteria);
+
+        //then
+        assertThat(res, hasSize(1));
+        assertThat(res.get(0).getMsisdn(), is(criteria.getMsisdn()));
+    }
+
+    @Test
+    void shouldNotFindSubscriberDtosByCriteriaTest() {
+        //given
+        MobileSubscriber criteria = MobileSubscriber.builder().msisdn(subscriber.getMsisdn()).build();
+        when(subscriberRepository.findDtosByCriteria(any())).thenReturn(Collections.emptyList());
+
+        //when/then
+        assertThrows(ResourceNotFoundException.class, () -> service.findSubscriberDtosByCriteria(criteria));
+        verify(msisdnFilter, times(1)).recordFalsePositive();
+    }
+
+    @Test
+    void shouldNotQueryMsisdnMissingInFilterTest() {
+        //given
+        MobileSubscriber criteria = MobileSubscriber.builder().msisdn("48999999999").serviceType(ServiceType.MOBILE_PREPAID).build();
+        when(msisdnFilter.mightContain("48999999999")).thenReturn(false);
+
+        //when/then
+        assertThrows(ResourceNotFoundException.class, () -> service.findSubscribersByCriteria(criteria));
+        assertThrows(ResourceNotFoundException.class, () -> service.findSubscriberDtosByCriteria(criteria));
+        assertThrows(ResourceNotFoundException.class, () -> service.findSubscriberDtosPage(criteria, null, 10));
+        assertThat(service.findSubscriberDtosPage(criteria, 5L, 10).getContent(), hasSize(0));
+        verify(subscriberRepository, never()).findByCriteria(any());
+        verify(subscriberRepository, never()).findDtosByCriteria(any());
+        verify(subscriberRepository, never()).findDtosByCriteriaAfterId(any(), anyLong(), anyInt());
+    }
+
+    @Test
+    void shouldFindFirstSubscribersPageTest() {
+        //given
+        when(subscriberRepository.findDtosByCriteriaAfterId(any(), eq(0L), eq(3)))
+                .thenReturn(Lists.newArrayList(MobileSubscriberDto.builder().id(1L).build(), MobileSubscriberDto.builder().id(2L).build(),
+                        MobileSubscriberDto.builder().id(3L).build()));
+
+        //when
+        Slice<MobileSubscriberDto> page = service.findSubscriberDtosPage(null, null, 2);
+
+        //then
+        assertThat(page.getContent(), hasSize(2));
+        assertThat(page.getContent().get(1).getId(), is(2L));
+        assertThat(page.hasNext(), is(true));
+    }
+
+    @Test
+    void shouldFindLastSubscribersPageTest() {
+        //given
+        when(subscriberRepository.findDtosByCriteriaAfterId(any(), eq(1L), eq(3)))
+                .thenReturn(Lists.newArrayList(MobileSubscriberDto.builder().id(2L).build()));
+
+        //when
+        Slice<MobileSubscriberDto> page = service.findSubscriberDtosPage(null, 1L, 2);
+
+        //then
+        assertThat(page.getContent(), hasSize(1));
+        assertThat(page.hasNext(), is(false));
+    }
+
+    @Test
+    void shouldNotFindSubscribersPageByCriteriaTest() {
+        //given
+        MobileSubscriber criteria = MobileSubscriber.builder().msisdn(subscriber.getMsisdn()).build();
+        when(subscriberRepository.findDtosByCriteriaAfterId(any(), anyLong(), anyInt())).thenReturn(Collections.emptyList());
+
+        //when/then
+        assertThrows(ResourceNotFoundException.class, () -> service.findSubscriberDtosPage(criteria, null, 10));
+        verify(msisdnFilter, times(1)).recordFalsePositive();
+    }
+
+    @Test
+    void shouldNotFindSubscribersPageWithInvalidSizeTest() {
+        //when/then
+        assertThrows(ValidationFailedException.class, () -> service.findSubscriberDtosPage(null, null, 0));
+        verify(subscriberRepository, never()).findDtosByCriteriaAfterId(any(), anyLong(), anyInt());
+    }
+
+    @Test
+    void shouldExportAndDetachAllSubscribersTest() {
+        //given
+        MobileSubscriber subscriber2 = MobileSubscriber.builder().id(2L).build();
+        when(subscriberRepository.streamAll()).thenReturn(Stream.of(subscriber, subscriber2));
+        List<MobileSubscriber> exported = new ArrayList<>();
+
+        //when
+        service.exportSubscribers(exported::add);
+
+        //then
+        assertThat(exported, hasSize(2));
+        verify(entityManager, times(1)).detach(subscriber);
+        verify(entityManager, times(1)).detach(subscriber2);
+    }
+
+    @Test
+    void shouldRebuildMsisdnFilterTest() {
+        //given
+        Stream<String> msisdns = Stream.of("48100", "48200");
+        when(subscriberRepository.count()).thenReturn(2L);
+        when(subscriberRepository.streamAllMsisdns()).thenReturn(msisdns);
+
+        //when
+        service.rebuildMsisdnFilter();
+
+        //then
+        verify(msisdnFilter, times(1)).rebuild(2L, msisdns);
+    }
+
+    @Test
+    void shouldResolveMsisdnWithIndexTest() {
+        //given
+        when(msisdnIndex.isReady()).thenReturn(true);
+        when(msisdnIndex.findId(48500123456L)).thenReturn(7L);
+
+        //when
+        Long id = service.resolveSubscriberId("48500123456");
+
+        //then
+        assertThat(id, is(7L));
+        verify(subscriberRepository, never()).findFirstByMsisdn(anyString());
+    }
+
+    @Test
+    void shouldNotResolveMsisdnMissingInIndexTest() {
+        //given
+        when(msisdnIndex.isReady()).thenReturn(true);
+        when(msisdnIndex.findId(48500123456L)).thenReturn(MsisdnIndex.NOT_FOUND);
+
+        //when/then
+        assertThrows(ResourceNotFoundException.class, () -> service.resolveSubscriberId("48500123456"));
+        verify(subscriberRepository, never()).findFirstByMsisdn(anyString());
+    }
+
+    @Test
+    void shouldResolveMsisdnFromDatabaseWithoutIndexTest() {
+        //given
+        when(subscriberRepository.findFirstByMsisdn(subscriber.getMsisdn())).thenReturn(Optional.of(subscriber));
+
+        //when
+        Long id = service.resolveSubscriberId(subscriber.getMsisdn());
+
+        //then
+        assertThat(id, is(subscriber.getId()));
+        verify(msisdnIndex, never()).findId(anyLong());
+    }
+
+    @Test
+    void shouldNotResolveInvalidMsisdnTest() {
+        //when/then
+        assertThrows(ValidationFailedException.class, () -> service.resolveSubscriberId("0123"));
+        assertThrows(ValidationFailedException.class, () -> service.resolveSubscriberId("48a"));
+        assertThrows(ValidationFailedException.class, () -> service.resolveSubscriberId("1234567890123456"));
+        verify(subscriberRepository, never()).findFirstByMsisdn(anyString());
+    }
+
+    @Test
+    void shouldFindSubscribersByMsisdnPrefixWithIndexTest() {
+        //given
+        MobileSubscriberDto first = MobileSubscriberDto.builder().id(7L).msisdn("48500123456").build();
+        MobileSubscriberDto second = MobileSubscriberDto.builder().id(3L).msisdn("48500123457").build();
+        when(msisdnIndex.isReady()).thenReturn(true);
+        when(msisdnIndex.findIdsByPrefix("48500", 48500123455L, 3)).thenReturn(List.of(7L, 3L, 9L));
+        when(subscriberRepository.findDtosByIds(List.of(7L, 3L))).thenReturn(List.of(second, first));
+
+        //when
+        Slice<MobileSubscriberDto> page = service.findSubscriberDtosByMsisdnPrefix("48500", "48500123455", 2);
+
+        //then
+        assertThat(page.getContent(), contains(first, second));
+        assertThat(page.hasNext(), is(true));
+        verify(subscriberRepository, never()).findDtosByMsisdnPrefix(anyString(), any(), anyInt());
+    }
+
+    @Test
+    void shouldFindSubscribersByMsisdnPrefixFromDatabaseWithoutIndexTest() {
+        //given
+        MobileSubscriberDto dto = MobileSubscriberDto.builder().id(7L).msisdn("48500123456").build();
+        when(subscriberRepository.findDtosByMsisdnPrefix("48500", null, 3)).thenReturn(List.of(dto));
+
+        //when
+        Slice<MobileSubscriberDto> page = service.findSubscriberDtosByMsisdnPrefix("48500", null, 2);
+
+        //then
+        assertThat(page.getContent(), contains(dto));
+        assertThat(page.hasNext(), is(false));
+        verify(msisdnIndex, never()).findIdsByPrefix(anyString(), anyLong(), anyInt());
+    }
+
+    @Test
+    void shouldNotFindSubscribersByMissingMsisdnPrefixTest() {
+        //given
+        when(subscriberRepository.findDtosByMsisdnPrefix("48500", null, 3)).thenReturn(List.of());
+
+        //when/then
+        assertThrows(ResourceNotFoundException.class, () -> service.findSubscriberDtosByMsisdnPrefix("48500", null, 2));
+    }
+
+    @Test
+    void shouldCountSubscribersByMsisdnPrefixTest() {
+        //given
+        when(subscriberRepository.countByMsisdnPrefix("48500")).thenReturn(5L);
+
+        //when
+        long fromDatabase = service.countSubscribersByMsisdnPrefix("48500");
+        when(msisdnIndex.isReady()).thenReturn(true);
+        when(msisdnIndex.countByPrefix("48500")).thenReturn(6L);
+        long fromIndex = service.countSubscribersByMsisdnPrefix("48500");
+
+        //then
+        assertThat(fromDatabase, is(5L));
+        assertThat(fromIndex, is(6L));
+    }
+
+    @Test
+    void shouldRejectInvalidMsisdnPrefixTest() {
+        //when/then
+        assertThrows(ValidationFailedException.class, () -> service.countSubscribersByMsisdnPrefix("0485"));
+        assertThrows(ValidationFailedException.class, () -> service.countSubscribersByMsisdnPrefix(""));
+        assertThrows(ValidationFailedException.class, () -> service.findSubscriberDtosByMsisdnPrefix("48a", null, 2));
+        assertThrows(ValidationFailedException.class, () -> service.findSubscriberDtosByMsisdnPrefix("1234567890123456", null, 2));
+        verify(subscriberRepository, never()).countByMsisdnPrefix(anyString());
+    }
+
     @Test
     void shouldNotCreateNewSubscriberAndThrowExceptionWhenMsisdnExistsTest() {
         //given
         String msdnid = "12321";
-        when(subscriberRepository.findFirstByMsisdn(anyString())).thenReturn(Optional.of(MobileSubscriber.builder().build()));
-        when(customerRepository.findById(anyLong())).thenReturn(Optional.of(Person.builder().build()));
+        MobileSubscriber newObj = MobileSubscriber.builder().msisdn(msdnid).user(person).owner(company).build();
+        when(customerService.customerExists(anyLong())).thenReturn(true);
+        when(entityManager.getReference(eq(Customer.class), anyLong())).thenReturn(Person.builder().build());
+        doThrow(new PersistenceException(new ConstraintViolationException("Unique index or primary key violation",
+                new SQLException("Unique index or primary key violation", "23505", 23505),
+                "\"" + MobileSubscriber.MSISDN_CONSTRAINT + "_INDEX_4"))).when(entityManager).flush();
+
+        //when/then
+        assertThrows(ValidationFailedException.class, () -> service.createNewSubscriber(newObj));
+        verify(subscriberRepository, never()).findFirstByMsisdn(anyString());
+        verify(subscriberRepository, times(1)).save(newObj);
+    }
+
+    @Test
+    void shouldNotCreateNewSubscriberAndThrowExceptionWhenMsisdnCreatedConcurrentlyTest() {
+        //given
+        MobileSubscriber newObj = MobileSubscriber.builder().msisdn("12321").user(person).owner(company).build();
+        when(customerService.customerExists(anyLong())).thenReturn(true);
+        when(entityManager.getReference(eq(Customer.class), anyLong())).thenReturn(Person.builder().build());
+        doThrow(new PersistenceException(new GenericJDBCException("Concurrent update",
+                new SQLException("Concurrent update in table", "90131", 90131)))).when(entityManager).flush();
+
+        //when/then
+        assertThrows(ResourceConflictException.class, () -> service.createNewSubscriber(newObj));
+    }
+
+    @Test
+    void shouldNotTranslateOtherConstraintViolationsTest() {
+        //given
+        MobileSubscriber newObj = MobileSubscriber.builder().msisdn("12321").user(person).owner(company).build();
+        when(customerService.customerExists(anyLong())).thenReturn(true);
+        when(entityManager.getReference(eq(Customer.class), anyLong())).thenReturn(Person.builder().build());
+        doThrow(new PersistenceException(new ConstraintViolationException("Referential integrity constraint violation",
+                new SQLException("Referential integrity constraint violation", "23506", 23506), "FK_CUSTOMER")))
+                .when(entityManager).flush();
 
         //when/then
-        assertThrows(ValidationFailedException.class, () -> service.createNewSubscriber(MobileSubscriber.builder().msisdn(msdnid).build()));
-        verify(subscriberRepository, times(1)).findFirstByMsisdn(msdnid);
-        verify(customerRepository, never()).findById(any());
+        assertThrows(PersistenceException.class, () -> service.createNewSubscriber(newObj));
     }
 
     @Test
@@ -149,15 +482,15 @@ class MobileSubscriberServiceTest {
         MobileSubscriber newObj = MobileSubscriber.builder().msisdn(msdnid).user(Company.builder().id(userId).build())
                 .owner(Person.builder().id(ownerId).build()).build();
 
-        when(subscriberRepository.findFirstByMsisdn(anyString())).thenReturn(Optional.empty());
-        when(customerRepository.findById(ownerId)).thenReturn(Optional.empty());
-        when(customerRepository.findById(userId)).thenReturn(Optional.of(Person.builder().build()));
+        when(customerService.customerExists(ownerId)).thenReturn(false);
+        when(customerService.customerExists(userId)).thenReturn(true);
+        when(entityManager.getReference(Customer.class, userId)).thenReturn(Person.builder().build());
 
         //when/then
         assertThrows(ResourceNotFoundException.class, () -> service.createNewSubscriber(newObj));
 
-        verify(subscriberRepository, times(1)).findFirstByMsisdn(msdnid);
-        verify(customerRepository, times(1)).findById(ownerId);
+        verify(subscriberRepository, never()).save(any());
+        verify(customerService, times(1)).customerExists(ownerId);
     }
 
     @Test
@@ -168,15 +501,14 @@ class MobileSubscriberServiceTest {
         MobileSubscriber newObj = MobileSubscriber.builder().msisdn(msdnid).user(Company.builder().id(userId).build())
                 .owner(Person.builder().id(ownerId).build()).build();
 
-        when(subscriberRepository.findFirstByMsisdn(anyString())).thenReturn(Optional.empty());
-
-        when(customerRepository.findById(userId)).thenReturn(Optional.empty());
-        when(customerRepository.findById(ownerId)).thenReturn(Optional.of(Person.builder().build()));
+        when(customerService.customerExists(userId)).thenReturn(false);
+        when(customerService.customerExists(ownerId)).thenReturn(true);
+        when(entityManager.getReference(Customer.class, ownerId)).thenReturn(Person.builder().build());
 
         //when/then
         assertThrows(ResourceNotFoundException.class, () -> service.createNewSubscriber(newObj));
-        verify(subscriberRepository, times(1)).findFirstByMsisdn(msdnid);
-        verify(customerRepository, times(1)).findById(userId);
+        verify(subscriberRepository, never()).save(any());
+        verify(customerService, times(1)).customerExists(userId);
     }
 
     @Test
@@ -188,11 +520,10 @@ class MobileSubscriberServiceTest {
                 .user(Company.builder().id(userId).build())
                 .owner(Person.builder().id(ownerId).build()).serviceStartDate(LocalDateTime.now()).build();
 
-        when(subscriberRepository.findFirstByMsisdn(anyString())).thenReturn(Optional.empty());
         //when/then
         assertThrows(ValidationFailedException.class, () -> service.createNewSubscriber(newObj));
-        verify(subscriberRepository, times(1)).findFirstByMsisdn(msdnid);
-        verify(customerRepository, never()).findById(userId);
+        verify(subscriberRepository, never()).save(any());
+        verify(customerService, never()).customerExists(userId);
     }
 
     @Test
@@ -202,9 +533,10 @@ class MobileSubscriberServiceTest {
                 MobileSubscriber.builder().msisdn(subscriber.getMsisdn()).user(subscriber.getUser()).owner(subscriber.getOwner())
                         .serviceType(subscriber.getServiceType()).build();
 
-        when(subscriberRepository.findFirstByMsisdn(anyString())).thenReturn(Optional.empty());
-        when(customerRepository.findById(newObj.getOwnerId())).thenReturn(Optional.of(company));
-        when(customerRepository.findById(newObj.getUserId())).thenReturn(Optional.of(person));
+        when(customerService.customerExists(newObj.getOwnerId())).thenReturn(true);
+        when(entityManager.getReference(Customer.class, newObj.getOwnerId())).thenReturn(company);
+        when(customerService.customerExists(newObj.getUserId())).thenReturn(true);
+        when(entityManager.getReference(Customer.class, newObj.getUserId())).thenReturn(person);
         when(subscriberRepository.save(any())).thenReturn(subscriber);
 
         //when
@@ -216,6 +548,10 @@ class MobileSubscriberServiceTest {
         assertThat(saved.getUserId(), is(newObj.getUserId()));
         assertThat(saved.getOwnerId(), is(newObj.getOwnerId()));
         assertThat(saved.getServiceType(), is(newObj.getServiceType()));
+        verify(entityManager, times(1)).flush();
+        verify(msisdnFilter, times(1)).add(subscriber.getMsisdn());
+        verify(msisdnIndex, times(1)).add(subscriber.getMsisdn(), subscriber.getId());
+        verify(subscriberRepository, never()).findFirstByMsisdn(anyString());
     }
 
     @Test
@@ -226,13 +562,14 @@ class MobileSubscriberServiceTest {
         MobileSubscriber newObj = MobileSubscriber.builder().msisdn(msdnid).user(subscriber.getUser())
                 .owner(Person.builder().id(ownerId).build()).build();
 
-        when(subscriberRepository.findById(anyLong())).thenReturn(Optional.of(subscriber));
-        when(customerRepository.findById(userId)).thenReturn(Optional.of(subscriber.getUser()));
-        when(customerRepository.findById(ownerId)).thenReturn(Optional.empty());
+        when(subscriberRepository.findSnapshotById(anyLong())).thenReturn(Optional.of(subscriber));
+        when(customerService.customerExists(userId)).thenReturn(true);
+        when(entityManager.getReference(Customer.class, userId)).thenReturn(subscriber.getUser());
+        when(customerService.customerExists(ownerId)).thenReturn(false);
 
         //when/then
         assertThrows(ResourceNotFoundException.class, () -> service.updateSubscriber(newObj, subscriber.getId()));
-        verify(customerRepository, times(1)).findById(ownerId);
+        verify(customerService, times(1)).customerExists(ownerId);
     }
 
     @Test
@@ -243,13 +580,14 @@ class MobileSubscriberServiceTest {
         MobileSubscriber newObj = MobileSubscriber.builder().msisdn(msdnid).user(Person.builder().id(userId).build())
                 .owner(subscriber.getOwner()).build();
 
-        when(subscriberRepository.findById(anyLong())).thenReturn(Optional.of(subscriber));
-        when(customerRepository.findById(userId)).thenReturn(Optional.empty());
-        when(customerRepository.findById(ownerId)).thenReturn(Optional.of(subscriber.getOwner()));
+        when(subscriberRepository.findSnapshotById(anyLong())).thenReturn(Optional.of(subscriber));
+        when(customerService.customerExists(userId)).thenReturn(false);
+        when(customerService.customerExists(ownerId)).thenReturn(true);
+        when(entityManager.getReference(Customer.class, ownerId)).thenReturn(subscriber.getOwner());
 
         //when/then
         assertThrows(ResourceNotFoundException.class, () -> service.updateSubscriber(newObj, 10L));
-        verify(customerRepository, times(1)).findById(userId);
+        verify(customerService, times(1)).customerExists(userId);
     }
 
     @Test
@@ -261,15 +599,17 @@ class MobileSubscriberServiceTest {
                 .serviceType(subscriber.getServiceType())
                 .serviceStartDate(subscriber.getServiceStartDate()).build();
 
-        when(subscriberRepository.findById(anyLong())).thenReturn(Optional.of(subscriber));
-        when(customerRepository.findById(userId)).thenReturn(Optional.of(subscriber.getUser()));
-        when(customerRepository.findById(ownerId)).thenReturn(Optional.of(subscriber.getOwner()));
+        when(subscriberRepository.findSnapshotById(anyLong())).thenReturn(Optional.of(subscriber));
+        when(customerService.customerExists(userId)).thenReturn(true);
+        when(entityManager.getReference(Customer.class, userId)).thenReturn(subscriber.getUser());
+        when(customerService.customerExists(ownerId)).thenReturn(true);
+        when(entityManager.getReference(Customer.class, ownerId)).thenReturn(subscriber.getOwner());
 
         //when/then
         assertThrows(ValidationFailedException.class, () -> service.updateSubscriber(newObj, subscriber.getId()));
-        verify(customerRepository, times(1)).findById(userId);
-        verify(customerRepository, times(1)).findById(ownerId);
-        verify(subscriberRepository, times(1)).findById(anyLong());
+        verify(customerService, times(1)).customerExists(userId);
+        verify(customerService, times(1)).customerExists(ownerId);
+        verify(subscriberRepository, times(1)).findSnapshotById(anyLong());
     }
 
     @Test
@@ -280,15 +620,17 @@ class MobileSubscriberServiceTest {
         MobileSubscriber newObj = MobileSubscriber.builder().msisdn(subscriber.getMsisdn()).user(subscriber.getUser()).owner(subscriber.getOwner())
                 .serviceType(subscriber.getServiceType()).serviceStartDate(newDate).build();
 
-        when(subscriberRepository.findById(anyLong())).thenReturn(Optional.of(subscriber));
-        when(customerRepository.findById(userId)).thenReturn(Optional.of(subscriber.getUser()));
-        when(customerRepository.findById(ownerId)).thenReturn(Optional.of(subscriber.getOwner()));
+        when(subscriberRepository.findSnapshotById(anyLong())).thenReturn(Optional.of(subscriber));
+        when(customerService.customerExists(userId)).thenReturn(true);
+        when(entityManager.getReference(Customer.class, userId)).thenReturn(subscriber.getUser());
+        when(customerService.customerExists(ownerId)).thenReturn(true);
+        when(entityManager.getReference(Customer.class, ownerId)).thenReturn(subscriber.getOwner());
 
         //when/then
         assertThrows(ValidationFailedException.class, () -> service.updateSubscriber(newObj, subscriber.getId()));
-        verify(customerRepository, times(1)).findById(userId);
-        verify(customerRepository, times(1)).findById(ownerId);
-        verify(subscriberRepository, times(1)).findById(anyLong());
+        verify(customerService, times(1)).customerExists(userId);
+        verify(customerService, times(1)).customerExists(ownerId);
+        verify(subscriberRepository, times(1)).findSnapshotById(anyLong());
     }
 
     @Test
@@ -299,19 +641,21 @@ class MobileSubscriberServiceTest {
                 .serviceType(subscriber.getServiceType())
                 .build();
 
-        when(subscriberRepository.findById(anyLong())).thenReturn(Optional.of(subscriber));
-        when(customerRepository.findById(userId)).thenReturn(Optional.of(subscriber.getUser()));
-        when(customerRepository.findById(ownerId)).thenReturn(Optional.of(subscriber.getOwner()));
+        when(subscriberRepository.findSnapshotById(anyLong())).thenReturn(Optional.of(subscriber));
+        when(customerService.customerExists(userId)).thenReturn(true);
+        when(entityManager.getReference(Customer.class, userId)).thenReturn(subscriber.getUser());
+        when(customerService.customerExists(ownerId)).thenReturn(true);
+        when(entityManager.getReference(Customer.class, ownerId)).thenReturn(subscriber.getOwner());
 
         //when
         MobileSubscriber updatedCustomer = service.updateSubscriber(newObj, subscriber.getId());
 
         //then
         assertThat(updatedCustomer, notNullValue());
-        verify(customerRepository, times(1)).findById(userId);
-        verify(customerRepository, times(1)).findById(ownerId);
-        verify(subscriberRepository, times(1)).findById(anyLong());
-        verify(subscriberRepository, never()).save(any());
+        verify(customerService, times(1)).customerExists(userId);
+        verify(customerService, times(1)).customerExists(ownerId);
+        verify(subscriberRepository, times(1)).findSnapshotById(anyLong());
+        verify(subscriberRepository, never()).updateChangedColumns(any(), any());
     }
 
     @Test
@@ -325,14 +669,12 @@ class MobileSubscriberServiceTest {
                 .owner(newOwner).serviceType(newServiceType)
                 .build();
 
-        when(subscriberRepository.findById(subscriber.getId())).thenReturn(Optional.of(subscriber));
-        when(customerRepository.findById(newUser.getId())).thenReturn(Optional.of(newUser));
-        when(customerRepository.findById(newOwner.getId())).thenReturn(Optional.of(newOwner));
-        when(subscriberRepository.save(any())).thenReturn(MobileSubscriber.builder()
-                .owner(newOwner)
-                .user(newUser)
-                .serviceType(newServiceType)
-                .build());
+        when(subscriberRepository.findSnapshotById(subscriber.getId())).thenReturn(Optional.of(subscriber));
+        when(customerService.customerExists(newUser.getId())).thenReturn(true);
+        when(entityManager.getReference(Customer.class, newUser.getId())).thenReturn(newUser);
+        when(customerService.customerExists(newOwner.getId())).thenReturn(true);
+        when(entityManager.getReference(Customer.class, newOwner.getId())).thenReturn(newOwner);
+        when(subscriberRepository.updateChangedColumns(any(), any())).thenReturn(1);
 
         //when
         MobileSubscriber updatedCustomer = service.updateSubscriber(newObj, subscriber.getId());
@@ -343,10 +685,10 @@ class MobileSubscriberServiceTest {
         assertThat(updatedCustomer.getOwnerId(), is(newOwner.getId()));
         assertThat(updatedCustomer.getServiceType(), is(newServiceType));
 
-        verify(customerRepository, times(1)).findById(newUser.getId());
-        verify(customerRepository, times(1)).findById(newOwner.getId());
-        verify(subscriberRepository, times(1)).findById(subscriber.getId());
-        verify(subscriberRepository, times(1)).save(any());
+        verify(customerService, times(1)).customerExists(newUser.getId());
+        verify(customerService, times(1)).customerExists(newOwner.getId());
+        verify(subscriberRepository, times(1)).findSnapshotById(subscriber.getId());
+        verify(subscriberRepository, times(1)).updateChangedColumns(any(), any());
     }
 
     @Test
@@ -355,12 +697,12 @@ class MobileSubscriberServiceTest {
         Long ownerId = 5L;
         MobileSubscriber newObj = MobileSubscriber.builder().owner(Company.builder().id(ownerId).build()).build();
 
-        when(subscriberRepository.findById(anyLong())).thenReturn(Optional.of(subscriber));
-        when(customerRepository.findById(ownerId)).thenReturn(Optional.empty());
+        when(subscriberRepository.findSnapshotById(anyLong())).thenReturn(Optional.of(subscriber));
+        when(customerService.customerExists(ownerId)).thenReturn(false);
 
         //when/then
         assertThrows(ResourceNotFoundException.class, () -> service.patchSubscriber(newObj, subscriber.getId()));
-        verify(customerRepository, times(1)).findById(ownerId);
+        verify(customerService, times(1)).customerExists(ownerId);
     }
 
     @Test
@@ -369,12 +711,12 @@ class MobileSubscriberServiceTest {
         Long userId = 10L;
         MobileSubscriber newObj = MobileSubscriber.builder().user(Person.builder().id(userId).build()).build();
 
-        when(subscriberRepository.findById(anyLong())).thenReturn(Optional.of(subscriber));
-        when(customerRepository.findById(userId)).thenReturn(Optional.empty());
+        when(subscriberRepository.findSnapshotById(anyLong())).thenReturn(Optional.of(subscriber));
+        when(customerService.customerExists(userId)).thenReturn(false);
 
         //when/then
         assertThrows(ResourceNotFoundException.class, () -> service.patchSubscriber(newObj, 10L));
-        verify(customerRepository, times(1)).findById(userId);
+        verify(customerService, times(1)).customerExists(userId);
     }
 
     @Test
@@ -383,13 +725,13 @@ class MobileSubscriberServiceTest {
         Long userId = 10L;
         MobileSubscriber newObj = MobileSubscriber.builder().user(Person.builder().id(userId).build()).build();
 
-        when(subscriberRepository.findById(anyLong())).thenReturn(Optional.empty());
+        when(subscriberRepository.findSnapshotById(anyLong())).thenReturn(Optional.empty());
 
         //when/then
         assertThrows(ResourceNotFoundException.class, () -> service.patchSubscriber(newObj, 10L));
-        verify(subscriberRepository, times(1)).findById(anyLong());
-        verify(customerRepository, never()).findById(anyLong());
-        verify(customerRepository, never()).findById(anyLong());
+        verify(subscriberRepository, times(1)).findSnapshotById(anyLong());
+        verify(customerService, never()).customerExists(anyLong());
+        verify(customerService, never()).customerExists(anyLong());
     }
 
     @Test
@@ -398,11 +740,11 @@ class MobileSubscriberServiceTest {
         String msdnid = "12321";
         MobileSubscriber newObj = MobileSubscriber.builder().msisdn(msdnid).build();
 
-        when(subscriberRepository.findById(anyLong())).thenReturn(Optional.of(subscriber));
+        when(subscriberRepository.findSnapshotById(anyLong())).thenReturn(Optional.of(subscriber));
 
         //when/then
         assertThrows(ValidationFailedException.class, () -> service.patchSubscriber(newObj, subscriber.getId()));
-        verify(subscriberRepository, times(1)).findById(anyLong());
+        verify(subscriberRepository, times(1)).findSnapshotById(anyLong());
     }
 
     @Test
@@ -411,12 +753,12 @@ class MobileSubscriberServiceTest {
         LocalDateTime newDate = subscriber.getServiceStartDate().plusDays(2);
         MobileSubscriber newObj = MobileSubscriber.builder().serviceStartDate(newDate).build();
 
-        when(subscriberRepository.findById(anyLong())).thenReturn(Optional.of(subscriber));
+        when(subscriberRepository.findSnapshotById(anyLong())).thenReturn(Optional.of(subscriber));
 
         //when/then
         assertThrows(ValidationFailedException.class, () -> service.patchSubscriber(newObj, subscriber.getId()));
 
-        verify(subscriberRepository, times(1)).findById(anyLong());
+        verify(subscriberRepository, times(1)).findSnapshotById(anyLong());
     }
 
     @Test
@@ -427,19 +769,21 @@ class MobileSubscriberServiceTest {
                 .serviceType(subscriber.getServiceType())
                 .build();
 
-        when(subscriberRepository.findById(anyLong())).thenReturn(Optional.of(subscriber));
-        when(customerRepository.findById(userId)).thenReturn(Optional.of(subscriber.getUser()));
-        when(customerRepository.findById(ownerId)).thenReturn(Optional.of(subscriber.getOwner()));
+        when(subscriberRepository.findSnapshotById(anyLong())).thenReturn(Optional.of(subscriber));
+        when(customerService.customerExists(userId)).thenReturn(true);
+        when(entityManager.getReference(Customer.class, userId)).thenReturn(subscriber.getUser());
+        when(customerService.customerExists(ownerId)).thenReturn(true);
+        when(entityManager.getReference(Customer.class, ownerId)).thenReturn(subscriber.getOwner());
 
         //when
         MobileSubscriber updatedCustomer = service.patchSubscriber(newObj, subscriber.getId());
 
         //then
         assertThat(updatedCustomer, notNullValue());
-        verify(customerRepository, times(1)).findById(userId);
-        verify(customerRepository, times(1)).findById(ownerId);
-        verify(subscriberRepository, times(1)).findById(anyLong());
-        verify(subscriberRepository, never()).save(any());
+        verify(customerService, times(1)).customerExists(userId);
+        verify(customerService, times(1)).customerExists(ownerId);
+        verify(subscriberRepository, times(1)).findSnapshotById(anyLong());
+        verify(subscriberRepository, never()).updateChangedColumns(any(), any());
     }
 
     @Test
@@ -448,29 +792,29 @@ class MobileSubscriberServiceTest {
         Long userId = 10L;
         MobileSubscriber newObj = MobileSubscriber.builder().user(Person.builder().id(userId).build()).build();
 
-        when(subscriberRepository.findById(anyLong())).thenReturn(Optional.empty());
+        when(subscriberRepository.findSnapshotById(anyLong())).thenReturn(Optional.empty());
 
         //when/then
         assertThrows(ResourceNotFoundException.class, () -> service.updateSubscriber(newObj, 10L));
-        verify(subscriberRepository, times(1)).findById(anyLong());
-        verify(customerRepository, never()).findById(anyLong());
-        verify(customerRepository, never()).findById(anyLong());
+        verify(subscriberRepository, times(1)).findSnapshotById(anyLong());
+        verify(customerService, never()).customerExists(anyLong());
+        verify(customerService, never()).customerExists(anyLong());
     }
 
     @Test
     void shouldNotUpdateSubscriberWhenEmptyChangeProvidedTest() {
         //given
         MobileSubscriber value = new MobileSubscriber();
-        when(subscriberRepository.findById(anyLong())).thenReturn(Optional.of(subscriber));
+        when(subscriberRepository.findSnapshotById(anyLong())).thenReturn(Optional.of(subscriber));
 
         //when
         MobileSubscriber updatedCustomer = service.patchSubscriber(value, subscriber.getId());
 
         //then
         assertThat(updatedCustomer, notNullValue());
-        verify(customerRepository, never()).findById(anyLong());
-        verify(subscriberRepository, times(1)).findById(anyLong());
-        verify(subscriberRepository, never()).save(any());
+        verify(customerService, never()).customerExists(anyLong());
+        verify(subscriberRepository, times(1)).findSnapshotById(anyLong());
+        verify(subscriberRepository, never()).updateChangedColumns(any(), any());
     }
 
     @Test
@@ -484,14 +828,12 @@ class MobileSubscriberServiceTest {
                 .owner(newOwner).serviceType(newServiceType)
                 .build();
 
-        when(subscriberRepository.findById(subscriber.getId())).thenReturn(Optional.of(subscriber));
-        when(customerRepository.findById(newUser.getId())).thenReturn(Optional.of(newUser));
-        when(customerRepository.findById(newOwner.getId())).thenReturn(Optional.of(newOwner));
-        when(subscriberRepository.save(any())).thenReturn(MobileSubscriber.builder()
-                .owner(newOwner)
-                .user(newUser)
-                .serviceType(newServiceType)
-                .build());
+        when(subscriberRepository.findSnapshotById(subscriber.getId())).thenReturn(Optional.of(subscriber));
+        when(customerService.customerExists(newUser.getId())).thenReturn(true);
+        when(entityManager.getReference(Customer.class, newUser.getId())).thenReturn(newUser);
+        when(customerService.customerExists(newOwner.getId())).thenReturn(true);
+        when(entityManager.getReference(Customer.class, newOwner.getId())).thenReturn(newOwner);
+        when(subscriberRepository.updateChangedColumns(any(), any())).thenReturn(1);
 
         //when
         MobileSubscriber updatedCustomer = service.patchSubscriber(newObj, subscriber.getId());
@@ -502,33 +844,376 @@ class MobileSubscriberServiceTest {
         assertThat(updatedCustomer.getOwnerId(), is(newOwner.getId()));
         assertThat(updatedCustomer.getServiceType(), is(newServiceType));
 
-        verify(customerRepository, times(1)).findById(newUser.getId());
-        verify(customerRepository, times(1)).findById(newOwner.getId());
-        verify(subscriberRepository, times(1)).findById(subscriber.getId());
-        verify(subscriberRepository, times(1)).save(any());
+        verify(customerService, times(1)).customerExists(newUser.getId());
+        verify(customerService, times(1)).customerExists(newOwner.getId());
+        verify(subscriberRepository, times(1)).findSnapshotById(subscriber.getId());
+        verify(subscriberRepository, times(1)).updateChangedColumns(any(), any());
+    }
+
+    @Test
+    void shouldPatchOnlyChangedServiceTypeTest() {
+        //given
+        MobileSubscriber toPatch = MobileSubscriber.builder().serviceType(ServiceType.MOBILE_PREPAID).build();
+        when(subscriberRepository.findSnapshotById(subscriber.getId())).thenReturn(Optional.of(subscriber));
+        when(subscriberRepository.updateChangedColumns(any(), any())).thenReturn(1);
+
+        //when
+        MobileSubscriber patched = service.patchSubscriber(toPatch, subscriber.getId());
+
+        //then
+        assertThat(patched.getServiceType(), is(ServiceType.MOBILE_PREPAID));
+        assertThat(patched.getOwnerId(), is(subscriber.getOwnerId()));
+        assertThat(patched.getUserId(), is(subscriber.getUserId()));
+        //snapshot is not modified, so update is conditional on the previous version
+        verify(subscriberRepository, times(1)).updateChangedColumns(subscriber, patched);
+        assertThat(subscriber.getServiceType(), is(ServiceType.MOBILE_POSTPAID));
+        assertThat(subscriber.getVersion(), is(0L));
+        assertThat(patched.getVersion(), is(1L));
+        verify(customerService, never()).customerExists(anyLong());
+        verify(subscriberStatistics, times(1)).changed(subscriber, patched);
+    }
+
+    @Test
+    void shouldNotPatchConcurrentlyModifiedSubscriberTest() {
+        //given
+        MobileSubscriber toPatch = MobileSubscriber.builder().serviceType(ServiceType.MOBILE_PREPAID).build();
+        when(subscriberRepository.findSnapshotById(subscriber.getId())).thenReturn(Optional.of(subscriber));
+        when(subscriberRepository.updateChangedColumns(any(), any())).thenReturn(0);
+
+        //when/then
+        assertThrows(ResourceConflictException.class, () -> service.patchSubscriber(toPatch, subscriber.getId()));
+    }
+
+    @Test
+    void shouldPatchSubscriberWithExpectedVersionTest() {
+        //given
+        MobileSubscriber toPatch = MobileSubscriber.builder().serviceType(ServiceType.MOBILE_PREPAID).version(0L).build();
+        when(subscriberRepository.findSnapshotById(subscriber.getId())).thenReturn(Optional.of(subscriber));
+        when(subscriberRepository.updateChangedColumns(any(), any())).thenReturn(1);
+
+        //when
+        MobileSubscriber patched = service.patchSubscriber(toPatch, subscriber.getId());
+
+        //then
+        assertThat(patched.getVersion(), is(1L));
+        verify(subscriberRepository, times(1)).updateChangedColumns(any(), any());
+    }
+
+    @Test
+    void shouldNotPatchSubscriberWithDifferentVersionTest() {
+        //given
+        MobileSubscriber toPatch = MobileSubscriber.builder().serviceType(ServiceType.MOBILE_PREPAID).version(5L).build();
+        when(subscriberRepository.findSnapshotById(subscriber.getId())).thenReturn(Optional.of(subscriber));
+
+        //when/then
+        assertThrows(PreconditionFailedException.class, () -> service.patchSubscriber(toPatch, subscriber.getId()));
+        verify(subscriberRepository, never()).updateChangedColumns(any(), any());
+    }
+
+    @Test
+    void shouldNotUpdateSubscriberWithDifferentVersionTest() {
+        //given
+        MobileSubscriber toUpdate = MobileSubscriber.builder().msisdn(subscriber.getMsisdn()).owner(company).user(person)
+                .serviceType(ServiceType.MOBILE_PREPAID).version(5L).build();
+        when(subscriberRepository.findSnapshotById(subscriber.getId())).thenReturn(Optional.of(subscriber));
+
+        //when/then
+        assertThrows(PreconditionFailedException.class, () -> service.updateSubscriber(toUpdate, subscriber.getId()));
+        verify(subscriberRepository, never()).updateChangedColumns(any(), any());
+        verify(customerService, never()).customerExists(anyLong());
+    }
+
+    @Test
+    void shouldReportLostRaceWithExpectedVersionAsFailedPreconditionTest() {
+        //given
+        MobileSubscriber toPatch = MobileSubscriber.builder().serviceType(ServiceType.MOBILE_PREPAID).version(0L).build();
+        when(subscriberRepository.findSnapshotById(subscriber.getId())).thenReturn(Optional.of(subscriber));
+        when(subscriberRepository.updateChangedColumns(any(), any())).thenReturn(0);
+
+        //when/then
+        assertThrows(PreconditionFailedException.class, () -> service.patchSubscriber(toPatch, subscriber.getId()));
     }
 
     @Test
     void shouldDeleteSubscriberByIdTest() {
         //given
-        when(subscriberRepository.existsById(anyLong())).thenReturn(true);
+        when(subscriberRepository.deleteSubscriberById(1L)).thenReturn(1);
+
+        //when
+        service.deleteSubscriberById(1L, null);
+
+        //then
+        verify(subscriberRepository, times(1)).deleteSubscriberById(1L);
+        verify(subscriberRepository, never()).existsById(anyLong());
+        verify(subscriberRepository, never()).findById(anyLong());
+        verify(msisdnFilter, times(1)).recordRemoved(1L);
+        verify(msisdnIndex, times(1)).remove(1L);
+        verify(subscriberRepository, never()).findSnapshotById(anyLong());
+    }
+
+    @Test
+    void shouldInvalidateStatisticsAfterDeletionTest() {
+        //given
+        when(subscriberStatistics.isEnabled()).thenReturn(true);
+        when(subscriberRepository.deleteSubscriberById(1L)).thenReturn(1);
 
         //when
-        service.deleteSubscriberById(1L);
+        service.deleteSubscriberById(1L, null);
 
         //then
-        verify(subscriberRepository, times(1)).deleteById(1L);
+        verify(subscriberRepository, times(1)).deleteSubscriberById(1L);
+        verify(subscriberRepository, never()).findSnapshotById(anyLong());
+        verify(subscriberStatistics, times(1)).invalidate();
     }
 
     @Test
     void shouldDeleteSubscriberThatNotExistsTest() {
         //given
-        when(subscriberRepository.existsById(anyLong())).thenReturn(false);
+        when(subscriberRepository.deleteSubscriberById(1L)).thenReturn(0);
+
+        //when
+        service.deleteSubscriberById(1L, null);
+
+        //then
+        verify(subscriberRepository, times(1)).deleteSubscriberById(1L);
+    }
+
+    @Test
+    void shouldDeleteSubscriberWithExpectedVersionTest() {
+        //given
+        when(subscriberRepository.deleteSubscriberByIdAndVersion(1L, 2L)).thenReturn(1);
+
+        //when
+        service.deleteSubscriberById(1L, 2L);
+
+        //then
+        verify(subscriberRepository, times(1)).deleteSubscriberByIdAndVersion(1L, 2L);
+        verify(subscriberRepository, never()).deleteSubscriberById(anyLong());
+    }
+
+    @Test
+    void shouldNotDeleteSubscriberWithDifferentVersionTest() {
+        //given
+        when(subscriberRepository.deleteSubscriberByIdAndVersion(1L, 2L)).thenReturn(0);
+
+        //when/then
+        assertThrows(PreconditionFailedException.class, () -> service.deleteSubscriberById(1L, 2L));
+    }
+
+    @Test
+    void shouldDeleteSubscribersByIdsInChunksTest() {
+        //given
+        when(subscriberRepository.deleteSubscribersByIds(List.of(1L, 2L))).thenReturn(2);
+        when(subscriberRepository.deleteSubscribersByIds(List.of(5L))).thenReturn(0);
 
         //when
-        service.deleteSubscriberById(1L);
+        long deleted = service.deleteSubscribers(Lists.newArrayList(1L, 2L, 2L, 5L), null);
 
         //then
-        verify(subscriberRepository, never()).deleteById(1L);
+        assertThat(deleted, is(2L));
+        verify(subscriberRepository, times(2)).deleteSubscribersByIds(any());
+        verify(subscriberRepository, never()).findIdsByCriteriaAfterId(any(), anyLong(), anyInt());
+        verify(subscriberStatistics, times(1)).invalidate();
+    }
+
+    @Test
+    void shouldDeleteSubscribersByCriteriaInChunksTest() {
+        //given
+        MobileSubscriber criteria = MobileSubscriber.builder().owner(new Customer(1L)).build();
+        when(subscriberRepository.findIdsByCriteriaAfterId(criteria, 0L, DELETION_CHUNK_SIZE)).thenReturn(List.of(1L, 3L));
+        when(subscriberRepository.findIdsByCriteriaAfterId(criteria, 3L, DELETION_CHUNK_SIZE)).thenReturn(List.of(7L));
+        when(subscriberRepository.deleteSubscribersByIds(List.of(1L, 3L))).thenReturn(2);
+        when(subscriberRepository.deleteSubscribersByIds(List.of(7L))).thenReturn(1);
+
+        //when
+        long deleted = service.deleteSubscribers(null, criteria);
+
+        //then
+        assertThat(deleted, is(3L));
+        verify(subscriberRepository, times(2)).findIdsByCriteriaAfterId(any(), anyLong(), anyInt());
+    }
+
+    @Test
+    void shouldNotDeleteSubscribersWithoutIdsAndCriteriaTest() {
+        //when/then
+        assertThrows(ValidationFailedException.class, () -> service.deleteSubscribers(List.of(), MobileSubscriber.builder().build()));
+        verify(subscriberRepository, never()).deleteSubscribersByIds(any());
+    }
+
+    @Test
+    void shouldNotDeleteSubscribersWithIdsAndCriteriaTest() {
+        //when/then
+        assertThrows(ValidationFailedException.class, () -> service.deleteSubscribers(List.of(1L),
+                MobileSubscriber.builder().serviceType(ServiceType.MOBILE_PREPAID).build()));
+        verify(subscriberRepository, never()).deleteSubscribersByIds(any());
+    }
+
+    @Test
+    void shouldTransferOwnedSubscribersInChunksTest() {
+        //given
+        when(customerService.customerExists(anyLong())).thenReturn(true);
+        when(subscriberRepository.findIdsByCriteriaAfterId(any(), eq(0L), eq(TRANSFER_CHUNK_SIZE))).thenReturn(List.of(1L, 3L));
+        when(subscriberRepository.findIdsByCriteriaAfterId(any(), eq(3L), eq(TRANSFER_CHUNK_SIZE))).thenReturn(List.of(7L));
+        when(subscriberRepository.transferOwner(List.of(1L, 3L), 1L, 2L)).thenReturn(2);
+        when(subscriberRepository.transferOwner(List.of(7L), 1L, 2L)).thenReturn(1);
+
+        //when
+        long transferred = service.transferSubscribers(1L, 2L, CustomerRole.OWNER, ServiceType.MOBILE_PREPAID);
+
+        //then
+        assertThat(transferred, is(3L));
+        ArgumentCaptor<MobileSubscriber> criteria = ArgumentCaptor.forClass(MobileSubscriber.class);
+        verify(subscriberRepository, times(2)).findIdsByCriteriaAfterId(criteria.capture(), anyLong(), eq(TRANSFER_CHUNK_SIZE));
+        assertThat(criteria.getValue().getOwnerId(), is(1L));
+        assertThat(criteria.getValue().getUserId(), nullValue());
+        assertThat(criteria.getValue().getServiceType(), is(ServiceType.MOBILE_PREPAID));
+        verify(subscriberRepository, never()).transferUser(any(), any(), any());
+        verify(subscriberStatistics, times(1)).transferred(1L, 2L, 2);
+        verify(subscriberStatistics, times(1)).transferred(1L, 2L, 1);
+    }
+
+    @Test
+    void shouldTransferUsedSubscribersTest() {
+        //given
+        when(customerService.customerExists(anyLong())).thenReturn(true);
+        when(subscriberRepository.findIdsByCriteriaAfterId(any(), eq(0L), eq(TRANSFER_CHUNK_SIZE))).thenReturn(List.of(1L, 3L));
+        when(subscriberRepository.findIdsByCriteriaAfterId(any(), eq(3L), eq(TRANSFER_CHUNK_SIZE))).thenReturn(List.of());
+        when(subscriberRepository.transferUser(List.of(1L, 3L), 1L, 2L)).thenReturn(2);
+
+        //when
+        long transferred = service.transferSubscribers(1L, 2L, CustomerRole.USER, null);
+
+        //then
+        assertThat(transferred, is(2L));
+        verify(subscriberRepository, never()).transferOwner(any(), any(), any());
+    }
+
+    @Test
+    void shouldReconcileStatisticsBeforeFirstReadTest() {
+        //given
+        SubscriberStatisticsDto statistics = SubscriberStatisticsDto.builder().subscribers(0L).build();
+        when(subscriberStatistics.isEnabled()).thenReturn(true);
+        when(subscriberStatistics.isReady()).thenReturn(false);
+        when(subscriberStatistics.getStatistics()).thenReturn(statistics);
+
+        //when
+        SubscriberStatisticsDto res = service.findSubscriberStatistics();
+
+        //then
+        assertThat(res, is(statistics));
+        verify(subscriberStatistics, times(1)).reconcile(any(), any(), any());
+    }
+
+    @Test
+    void shouldCountStatisticsWithQueriesWhenDisabledTest() {
+        //given
+        when(subscriberStatistics.isEnabled()).thenReturn(false);
+        when(subscriberRepository.countByServiceType()).thenReturn(Map.of(ServiceType.MOBILE_PREPAID, 2L, ServiceType.MOBILE_POSTPAID, 1L));
+        when(subscriberRepository.countByOwner()).thenReturn(Map.of(2L, 3L));
+        when(subscriberRepository.countByServiceStartDay()).thenReturn(Map.of(LocalDate.of(2019, 4, 3), 3L));
+
+        //when
+        SubscriberStatisticsDto res = service.findSubscriberStatistics();
+
+        //then
+        assertThat(res.getSubscribers(), is(3L));
+        assertThat(res.getSubscribersByServiceType().get(ServiceType.MOBILE_PREPAID), is(2L));
+        assertThat(res.getSubscribersByOwner().get(2L), is(3L));
+        assertThat(res.getActivationsByDay().get(LocalDate.of(2019, 4, 3)), is(3L));
+        verify(subscriberStatistics, never()).getStatistics();
+    }
+
+    @Test
+    void shouldNotTransferToMissingCustomerTest() {
+        //given
+        when(customerService.customerExists(1L)).thenReturn(true);
+        when(customerService.customerExists(2L)).thenReturn(false);
+
+        //when/then
+        assertThrows(ResourceNotFoundException.class, () -> service.transferSubscribers(1L, 2L, CustomerRole.OWNER, null));
+        verify(subscriberRepository, never()).findIdsByCriteriaAfterId(any(), anyLong(), anyInt());
+    }
+
+    @Test
+    void shouldNotTransferToSameCustomerTest() {
+        //when/then
+        assertThrows(ValidationFailedException.class, () -> service.transferSubscribers(1L, 1L, CustomerRole.OWNER, null));
+        verify(subscriberRepository, never()).findIdsByCriteriaAfterId(any(), anyLong(), anyInt());
+    }
+
+    @Test
+    void shouldCreateNewSubscribersTest() {
+        //given
+        List<MobileSubscriber> toPersist = List.of(
+                MobileSubscriber.builder().msisdn("48100").owner(new Customer(1L)).user(new Customer(2L)).serviceType(ServiceType.MOBILE_PREPAID).build(),
+                MobileSubscriber.builder().msisdn("48200").owner(new Customer(1L)).user(new Customer(2L)).serviceType(ServiceType.MOBILE_PREPAID).build(),
+                MobileSubscriber.builder().msisdn("48300").owner(new Customer(3L)).user(new Customer(2L)).serviceType(ServiceType.MOBILE_PREPAID).build(),
+                MobileSubscriber.builder().msisdn("48100").owner(new Customer(1L)).user(new Customer(1L)).serviceType(ServiceType.MOBILE_PREPAID).build(),
+                MobileSubscriber.builder().msisdn("48400").owner(new Customer(1L)).user(new Customer(1L)).serviceType(ServiceType.MOBILE_PREPAID)
+                        .serviceStartDate(LocalDateTime.now()).build());
+        when(subscriberRepository.findExistingMsisdns(any())).thenReturn(List.of("48200"));
+        when(customerService.findExistingCustomerIds(any())).thenReturn(Set.of(1L, 2L));
+        when(entityManager.getReference(eq(Customer.class), anyLong())).thenAnswer(param -> new Customer((Long) param.getArguments()[1]));
+        assignIdsOnSaveAll();
+
+        //when
+        List<SubscriberCreationResult> results = service.createNewSubscribers(toPersist);
+
+        //then
+        assertThat(results.stream().map(SubscriberCreationResult::getStatus).collect(Collectors.toList()), contains(
+                SubscriberCreationResult.Status.CREATED, SubscriberCreationResult.Status.DUPLICATE, SubscriberCreationResult.Status.INVALID,
+                SubscriberCreationResult.Status.DUPLICATE, SubscriberCreationResult.Status.INVALID));
+        assertThat(results.get(0).getSubscriber().getServiceStartDate(), notNullValue());
+        assertThat(results.get(2).getMessage(), is("Customer 3 not found"));
+        verify(subscriberRepository, times(1)).findExistingMsisdns(Set.of("48100", "48200", "48300", "48400"));
+        verify(customerService, times(1)).findExistingCustomerIds(Set.of(1L, 2L, 3L));
+        verify(subscriberRepository, times(1)).saveAll(List.of(toPersist.get(0)));
+        verify(msisdnFilter, times(1)).add("48100");
+        verify(msisdnIndex, times(1)).add("48100", 1000L);
+    }
+
+    @Test
+    void shouldNotCheckMsisdnsMissingInFilterTest() {
+        //given
+        List<MobileSubscriber> toPersist = List.of(
+                MobileSubscriber.builder().msisdn("48100").owner(new Customer(1L)).user(new Customer(2L)).serviceType(ServiceType.MOBILE_PREPAID).build(),
+                MobileSubscriber.builder().msisdn("48200").owner(new Customer(1L)).user(new Customer(2L)).serviceType(ServiceType.MOBILE_PREPAID).build());
+        when(msisdnFilter.mightContain(anyString())).thenReturn(false);
+        when(customerService.findExistingCustomerIds(any())).thenReturn(Set.of(1L, 2L));
+        when(entityManager.getReference(eq(Customer.class), anyLong())).thenAnswer(param -> new Customer((Long) param.getArguments()[1]));
+        assignIdsOnSaveAll();
+
+        //when
+        List<SubscriberCreationResult> results = service.createNewSubscribers(toPersist);
+
+        //then
+        assertThat(results.stream().map(SubscriberCreationResult::getStatus).collect(Collectors.toList()), contains(
+                SubscriberCreationResult.Status.CREATED, SubscriberCreationResult.Status.CREATED));
+        verify(subscriberRepository, never()).findExistingMsisdns(any());
+        verify(msisdnFilter, times(1)).add("48100");
+        verify(msisdnFilter, times(1)).add("48200");
+        verify(msisdnIndex, times(1)).add("48100", 1000L);
+        verify(msisdnIndex, times(1)).add("48200", 1001L);
+    }
+
+    @Test
+    void shouldRejectTooBigBatchTest() {
+        //given
+        List<MobileSubscriber> toPersist = Collections.nCopies(BATCH_MAX_SIZE + 1, subscriber);
+
+        //when/then
+        assertThrows(ValidationFailedException.class, () -> service.createNewSubscribers(toPersist));
+        verify(subscriberRepository, never()).saveAll(any());
+    }
+
+    //ids are assigned by the repository from the sequence, as they would be on persist
+    @SuppressWarnings("unchecked")
+    private void assignIdsOnSaveAll() {
+        AtomicLong nextId = new AtomicLong(1000L);
+        when(subscriberRepository.saveAll(any())).thenAnswer(param -> {
+            Iterable<MobileSubscriber> saved = (Iterable<MobileSubscriber>) param.getArguments()[0];
+            saved.forEach(subscriber -> subscriber.setId(nextId.getAndIncrement()));
+            return saved;
+        });
     }
 }
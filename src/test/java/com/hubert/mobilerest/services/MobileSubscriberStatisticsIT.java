@@ -0,0 +1,117 @@
+package com.hubert.mobilerest.services;
+
+import com.hubert.mobilerest.domain.Customer;
+import com.hubert.mobilerest.domain.CustomerRole;
+import com.hubert.mobilerest.domain.MobileSubscriber;
+import com.hubert.mobilerest.domain.ServiceType;
+import com.hubert.mobilerest.dto.v1.SubscriberStatisticsDto;
+import com.hubert.mobilerest.repositories.MobileSubscriberRepository;
+import com.hubert.mobilerest.utils.DateUtils;
+import com.hubert.mobilerest.utils.SqlStatementRecorder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(properties = SqlStatementRecorder.PROPERTY)
+@Sql(executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD, scripts = "classpath:propagateTestDb.sql")
+class MobileSubscriberStatisticsIT {
+    //all the test subscribers started the service on 2019-04-03 UTC
+    private static final LocalDate SERVICE_START_DAY = LocalDate.of(2019, 4, 3);
+
+    @Autowired
+    MobileSubscriberService mobileSubscriberService;
+
+    @Autowired
+    MobileSubscriberRepository mobileSubscriberRepository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        //test data is inserted by the script, so the statistics need to be reconciled
+        mobileSubscriberService.reconcileStatistics();
+        SqlStatementRecorder.reset();
+    }
+
+    @Test
+    void shouldReadStatisticsWithoutQueryTest() {
+        //when
+        SubscriberStatisticsDto statistics = mobileSubscriberService.findSubscriberStatistics();
+
+        //then
+        assertThat(statistics.getSubscribers(), is(8L));
+        assertThat(statistics.getSubscribersByServiceType(), is(Map.of(ServiceType.MOBILE_PREPAID, 4L, ServiceType.MOBILE_POSTPAID, 4L)));
+        assertThat(statistics.getSubscribersByOwner(), is(Map.of(1L, 3L, 2L, 2L, 3L, 1L, 5L, 1L, 6L, 1L)));
+        assertThat(statistics.getActivationsByDay(), is(Map.of(SERVICE_START_DAY, 8L)));
+        SqlStatementRecorder.assertStatementCounts(0, 0, 0, 0);
+    }
+
+    @Test
+    void shouldMaintainStatisticsMatchingGroupByQueriesTest() {
+        //given
+        MobileSubscriber created = mobileSubscriberService.createNewSubscriber(MobileSubscriber.builder().msisdn("48600100200")
+                .owner(new Customer(3L)).user(new Customer(4L)).serviceType(ServiceType.MOBILE_PREPAID).build());
+
+        //when
+        mobileSubscriberService.patchSubscriber(MobileSubscriber.builder().owner(new Customer(6L))
+                .serviceType(ServiceType.MOBILE_PREPAID).build(), 3L);
+        mobileSubscriberService.updateSubscriber(MobileSubscriber.builder().msisdn("48549381237").owner(new Customer(5L))
+                .user(new Customer(5L)).serviceType(ServiceType.MOBILE_POSTPAID).build(), 4L);
+        mobileSubscriberService.transferSubscribers(1L, 2L, CustomerRole.OWNER, null);
+        mobileSubscriberService.deleteSubscriberById(7L, null);
+
+        //then
+        SubscriberStatisticsDto statistics = mobileSubscriberService.findSubscriberStatistics();
+        assertThat(statistics.getSubscribers(), is(8L));
+        assertThat(statistics.getSubscribersByServiceType(), is(mobileSubscriberRepository.countByServiceType()));
+        assertThat(statistics.getSubscribersByOwner(), is(mobileSubscriberRepository.countByOwner()));
+        assertThat(statistics.getActivationsByDay(), is(mobileSubscriberRepository.countByServiceStartDay()));
+        assertThat(statistics.getActivationsByDay().get(DateUtils.utcDayFromLocalDateTime(created.getServiceStartDate())), is(1L));
+    }
+
+    @Test
+    void shouldCountServiceStartDaysBeforeEpochTest() {
+        //given
+        //1969-12-31T12:00:00Z, negative epoch millis
+        jdbcTemplate.update("INSERT INTO MOBILE_SUBSCRIBER (ID, MSISDN, CUSTOMER_ID_OWNER, CUSTOMER_ID_USER, SERVICE_TYPE, SERVICE_START_DATE) "
+                + "VALUES (9, '48600100200', 1, 2, 'MOBILE_PREPAID', -43200000)");
+
+        //when
+        Map<LocalDate, Long> activationsByDay = mobileSubscriberRepository.countByServiceStartDay();
+
+        //then
+        assertThat(activationsByDay, is(Map.of(SERVICE_START_DAY, 8L, LocalDate.of(1969, 12, 31), 1L)));
+        assertThat(DateUtils.utcDayFromLocalDateTime(mobileSubscriberRepository.findById(9L).orElseThrow().getServiceStartDate()),
+                is(LocalDate.of(1969, 12, 31)));
+    }
+
+    @Test
+    void shouldReconcileStatisticsAfterBulkDeletionTest() {
+        //given
+        mobileSubscriberService.deleteSubscribers(List.of(1L, 2L), null);
+        SqlStatementRecorder.reset();
+
+        //when
+        SubscriberStatisticsDto statistics = mobileSubscriberService.findSubscriberStatistics();
+
+        //then
+        assertThat(statistics.getSubscribers(), is(6L));
+        assertThat(statistics.getSubscribersByOwner(), is(Map.of(1L, 1L, 2L, 2L, 3L, 1L, 5L, 1L, 6L, 1L)));
+        //statistics are reconciled with three GROUP BY queries
+        SqlStatementRecorder.assertStatementCounts(3, 0, 0, 0);
+    }
+}
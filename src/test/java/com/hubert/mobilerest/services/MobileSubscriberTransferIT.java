@@ -0,0 +1,80 @@
+package com.hubert.mobilerest.services;
+
+import com.hubert.mobilerest.domain.Customer;
+import com.hubert.mobilerest.domain.CustomerRole;
+import com.hubert.mobilerest.domain.MobileSubscriber;
+import com.hubert.mobilerest.domain.ServiceType;
+import com.hubert.mobilerest.exceptions.ResourceNotFoundException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(properties = "mobile.subscribers.transfer.chunk-size=2")
+@Sql(executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD, scripts = "classpath:propagateTestDb.sql")
+class MobileSubscriberTransferIT {
+
+    @Autowired
+    MobileSubscriberService mobileSubscriberService;
+
+    @Test
+    void shouldTransferAllOwnedSubscribersInChunksTest() {
+        //given
+        mobileSubscriberService.findSubscriberDtoById(1L);
+
+        //when
+        long transferred = mobileSubscriberService.transferSubscribers(1L, 4L, CustomerRole.OWNER, null);
+
+        //then
+        assertThat(transferred, is(3L));
+        assertThat(ownedSubscriberIds(4L), containsInAnyOrder(1L, 2L, 3L));
+        assertThrows(ResourceNotFoundException.class, () -> ownedSubscriberIds(1L));
+        //cached subscriber is evicted
+        assertThat(mobileSubscriberService.findSubscriberDtoById(1L).getOwnerId(), is(4L));
+    }
+
+    @Test
+    void shouldTransferOwnedSubscribersWithServiceTypeTest() {
+        //when
+        long transferred = mobileSubscriberService.transferSubscribers(1L, 4L, CustomerRole.OWNER, ServiceType.MOBILE_POSTPAID);
+
+        //then
+        assertThat(transferred, is(1L));
+        assertThat(ownedSubscriberIds(4L), containsInAnyOrder(3L));
+        assertThat(ownedSubscriberIds(1L), containsInAnyOrder(1L, 2L));
+    }
+
+    @Test
+    void shouldTransferUsedSubscribersTest() {
+        //when
+        long transferred = mobileSubscriberService.transferSubscribers(5L, 3L, CustomerRole.USER, null);
+
+        //then
+        assertThat(transferred, is(3L));
+        assertThat(mobileSubscriberService.findSubscribersByCriteria(MobileSubscriber.builder().user(new Customer(3L)).build())
+                .stream().map(MobileSubscriber::getId).collect(Collectors.toList()), containsInAnyOrder(4L, 5L, 6L));
+    }
+
+    @Test
+    void shouldNotTransferToMissingCustomerTest() {
+        //when/then
+        assertThrows(ResourceNotFoundException.class, () -> mobileSubscriberService.transferSubscribers(1L, 100L, CustomerRole.OWNER, null));
+        assertThat(ownedSubscriberIds(1L), containsInAnyOrder(1L, 2L, 3L));
+    }
+
+    private List<Long> ownedSubscriberIds(Long ownerId) {
+        return mobileSubscriberService.findSubscribersByCriteria(MobileSubscriber.builder().owner(new Customer(ownerId)).build())
+                .stream().map(MobileSubscriber::getId).collect(Collectors.toList());
+    }
+}
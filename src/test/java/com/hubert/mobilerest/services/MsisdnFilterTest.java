@@ -0,0 +1,102 @@
+package com.hubert.mobilerest.services;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+
+class MsisdnFilterTest {
+    private MeterRegistry meterRegistry;
+    private MsisdnFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        filter = new MsisdnFilter(meterRegistry, true, 1000, 0.01);
+    }
+
+    @Test
+    void shouldAllowAllMsisdnsBeforeRebuildTest() {
+        //when/then
+        assertThat(filter.mightContain("48500123456"), is(true));
+        assertThat(checks("positive"), is(0.0));
+    }
+
+    @Test
+    void shouldRecognizeMissingMsisdnsAfterRebuildTest() {
+        //given
+        filter.rebuild(2, Stream.of("48500123456", "48500123457"));
+
+        //when/then
+        assertThat(filter.mightContain("48500123456"), is(true));
+        assertThat(filter.mightContain("48500123457"), is(true));
+        assertThat(filter.mightContain("48999999999"), is(false));
+        assertThat(checks("positive"), is(2.0));
+        assertThat(checks("negative"), is(1.0));
+        assertThat(meterRegistry.get(MsisdnFilter.METRICS_PREFIX + ".entries").gauge().value(), is(2.0));
+        assertThat(meterRegistry.get(MsisdnFilter.METRICS_PREFIX + ".memory").gauge().value(), greaterThan(0.0));
+    }
+
+    @Test
+    void shouldAddCreatedMsisdnTest() {
+        //given
+        filter.rebuild(0, Stream.empty());
+
+        //when
+        filter.add("48500123456");
+
+        //then
+        assertThat(filter.mightContain("48500123456"), is(true));
+    }
+
+    @Test
+    void shouldKeepMsisdnAddedDuringRebuildTest() {
+        //given
+        filter.rebuild(0, Stream.empty());
+
+        //when
+        //msisdn inserted while the database is streamed, but not visible to the stream
+        filter.rebuild(1, Stream.of("48500123456").peek(msisdn -> filter.add("48500123457")));
+
+        //then
+        assertThat(filter.mightContain("48500123456"), is(true));
+        assertThat(filter.mightContain("48500123457"), is(true));
+    }
+
+    @Test
+    void shouldCountStaleEntriesUntilRebuildTest() {
+        //given
+        filter.rebuild(1, Stream.of("48500123456"));
+
+        //when
+        filter.recordRemoved(1);
+
+        //then
+        assertThat(meterRegistry.get(MsisdnFilter.METRICS_PREFIX + ".stale.entries").gauge().value(), is(1.0));
+        filter.rebuild(0, Stream.empty());
+        assertThat(meterRegistry.get(MsisdnFilter.METRICS_PREFIX + ".stale.entries").gauge().value(), is(0.0));
+        assertThat(filter.mightContain("48500123456"), is(false));
+    }
+
+    @Test
+    void shouldNotFilterWhenDisabledTest() {
+        //given
+        MsisdnFilter disabled = new MsisdnFilter(new SimpleMeterRegistry(), false, 1000, 0.01);
+
+        //when
+        disabled.rebuild(0, Stream.empty());
+
+        //then
+        assertThat(disabled.mightContain("48999999999"), is(true));
+    }
+
+    private double checks(String result) {
+        return meterRegistry.get(MsisdnFilter.METRICS_PREFIX + ".checks").tag("result", result).counter().count();
+    }
+}
@@ -0,0 +1,126 @@
+package com.hubert.mobilerest.services;
+
+import com.hubert.mobilerest.dto.v1.SubscriberIdDto;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+
+class MsisdnIndexTest {
+    private MeterRegistry meterRegistry;
+    private MsisdnIndex index;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        index = new MsisdnIndex(meterRegistry, true, 16);
+    }
+
+    @Test
+    void shouldConvertE164MsisdnToKeyTest() {
+        assertThat(MsisdnIndex.toKey("48500123456"), is(48500123456L));
+        assertThat(MsisdnIndex.toKey("999999999999999"), is(999999999999999L));
+        assertThat(MsisdnIndex.toKey("1234567890123456"), is(-1L));
+        assertThat(MsisdnIndex.toKey("048500123456"), is(-1L));
+        assertThat(MsisdnIndex.toKey("+48500123456"), is(-1L));
+        assertThat(MsisdnIndex.toKey("4"), is(-1L));
+        assertThat(MsisdnIndex.toKey(null), is(-1L));
+    }
+
+    @Test
+    void shouldResolveMsisdnsAfterRebuildTest() {
+        //given
+        assertThat(index.isReady(), is(false));
+
+        //when
+        index.rebuild(Stream.of(new SubscriberIdDto(1L, "48500123456"), new SubscriberIdDto(2L, "48500123457"),
+                new SubscriberIdDto(3L, "not a number")));
+
+        //then
+        assertThat(index.isReady(), is(true));
+        assertThat(index.findId(48500123456L), is(1L));
+        assertThat(index.findId(48500123457L), is(2L));
+        assertThat(index.findId(48500123458L), is(MsisdnIndex.NOT_FOUND));
+        assertThat(meterRegistry.get(MsisdnIndex.METRICS_PREFIX + ".entries").gauge().value(), is(2.0));
+        //two maps of 16 slots and the trie grown to 32 nodes for the second msisdn
+        assertThat(meterRegistry.get(MsisdnIndex.METRICS_PREFIX + ".memory").gauge().value(), is(2.0 * 16 * 16 + 32 * 48));
+    }
+
+    @Test
+    void shouldAddAndRemoveSubscribersTest() {
+        //given
+        index.rebuild(Stream.of(new SubscriberIdDto(1L, "48500123456"), new SubscriberIdDto(2L, "48500123457")));
+
+        //when
+        index.add("48500123458", 3L);
+        index.remove(1L);
+        index.remove(List.of(2L, 5L));
+
+        //then
+        assertThat(index.findId(48500123456L), is(MsisdnIndex.NOT_FOUND));
+        assertThat(index.findId(48500123457L), is(MsisdnIndex.NOT_FOUND));
+        assertThat(index.findId(48500123458L), is(3L));
+    }
+
+    @Test
+    void shouldApplyChangesCommittedDuringRebuildTest() {
+        //given
+        index.rebuild(Stream.empty());
+
+        //when
+        //subscriber 1 removed and 3 created while the database is streamed, after the stream has passed them
+        index.rebuild(Stream.of(new SubscriberIdDto(1L, "48500123456"), new SubscriberIdDto(2L, "48500123457"))
+                .peek(subscriber -> {
+                    if (subscriber.getId() == 2L) {
+                        index.remove(1L);
+                        index.add("48500123458", 3L);
+                    }
+                }));
+
+        //then
+        assertThat(index.findId(48500123456L), is(MsisdnIndex.NOT_FOUND));
+        assertThat(index.findId(48500123457L), is(2L));
+        assertThat(index.findId(48500123458L), is(3L));
+    }
+
+    @Test
+    void shouldFindAndCountSubscribersByMsisdnPrefixTest() {
+        //given
+        index.rebuild(Stream.of(new SubscriberIdDto(1L, "48500123457"), new SubscriberIdDto(2L, "48500123456"),
+                new SubscriberIdDto(3L, "48600123456"), new SubscriberIdDto(4L, "4850012345")));
+
+        //when
+        index.add("48500123458", 5L);
+        index.remove(3L);
+
+        //then
+        assertThat(index.countByPrefix("485"), is(4L));
+        assertThat(index.countByPrefix("486"), is(0L));
+        assertThat(index.findIdsByPrefix("485", 0, 10), contains(4L, 2L, 1L, 5L));
+        assertThat(index.findIdsByPrefix("485", 0, 2), contains(4L, 2L));
+        assertThat(index.findIdsByPrefix("485", 48500123456L, 10), contains(1L, 5L));
+        assertThat(index.findIdsByPrefix("486", 0, 10), empty());
+    }
+
+    @Test
+    void shouldNotBuildDisabledIndexTest() {
+        //given
+        MsisdnIndex disabled = new MsisdnIndex(new SimpleMeterRegistry(), false, 16);
+
+        //when
+        disabled.rebuild(Stream.of(new SubscriberIdDto(1L, "48500123456")));
+        disabled.add("48500123457", 2L);
+
+        //then
+        assertThat(disabled.isReady(), is(false));
+        assertThat(disabled.findId(48500123456L), is(MsisdnIndex.NOT_FOUND));
+    }
+}
@@ -0,0 +1,139 @@
+package com.hubert.mobilerest.services;
+
+import com.hubert.mobilerest.domain.Customer;
+import com.hubert.mobilerest.domain.MobileSubscriber;
+import com.hubert.mobilerest.domain.ServiceType;
+import com.hubert.mobilerest.dto.v1.SubscriberStatisticsDto;
+import com.hubert.mobilerest.utils.DateUtils;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasEntry;
+import static org.hamcrest.Matchers.is;
+
+class SubscriberStatisticsTest {
+    private static final LocalDateTime SERVICE_START_DATE = LocalDateTime.of(2019, 4, 3, 12, 0);
+    private static final LocalDate SERVICE_START_DAY = DateUtils.utcDayFromLocalDateTime(SERVICE_START_DATE);
+
+    private MeterRegistry meterRegistry;
+    private SubscriberStatistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        statistics = new SubscriberStatistics(meterRegistry, true);
+    }
+
+    @Test
+    void shouldReadReconciledCountsTest() {
+        //given
+        assertThat(statistics.isReady(), is(false));
+
+        //when
+        reconcile(Map.of(ServiceType.MOBILE_PREPAID, 2L, ServiceType.MOBILE_POSTPAID, 1L), Map.of(1L, 2L, 2L, 1L),
+                Map.of(SERVICE_START_DAY, 3L));
+
+        //then
+        assertThat(statistics.isReady(), is(true));
+        SubscriberStatisticsDto res = statistics.getStatistics();
+        assertThat(res.getSubscribers(), is(3L));
+        assertThat(res.getSubscribersByServiceType(), hasEntry(ServiceType.MOBILE_PREPAID, 2L));
+        assertThat(res.getSubscribersByServiceType(), hasEntry(ServiceType.MOBILE_POSTPAID, 1L));
+        assertThat(res.getSubscribersByOwner(), hasEntry(1L, 2L));
+        assertThat(res.getSubscribersByOwner(), hasEntry(2L, 1L));
+        assertThat(res.getActivationsByDay(), hasEntry(SERVICE_START_DAY, 3L));
+        assertThat(meterRegistry.get(SubscriberStatistics.METRICS_PREFIX + ".drift").counter().count(), is(0.0));
+    }
+
+    @Test
+    void shouldCountAddedAndChangedSubscribersTest() {
+        //given
+        reconcile(Map.of(ServiceType.MOBILE_PREPAID, 1L), Map.of(1L, 1L), Map.of(SERVICE_START_DAY, 1L));
+        MobileSubscriber added = subscriber(ServiceType.MOBILE_PREPAID, 1L);
+        MobileSubscriber changed = subscriber(ServiceType.MOBILE_POSTPAID, 2L);
+
+        //when
+        statistics.added(added);
+        statistics.changed(added, changed);
+
+        //then
+        SubscriberStatisticsDto res = statistics.getStatistics();
+        assertThat(res.getSubscribers(), is(2L));
+        assertThat(res.getSubscribersByServiceType(), hasEntry(ServiceType.MOBILE_PREPAID, 1L));
+        assertThat(res.getSubscribersByServiceType(), hasEntry(ServiceType.MOBILE_POSTPAID, 1L));
+        assertThat(res.getSubscribersByOwner(), hasEntry(1L, 1L));
+        assertThat(res.getSubscribersByOwner(), hasEntry(2L, 1L));
+        assertThat(res.getActivationsByDay(), hasEntry(SERVICE_START_DAY, 2L));
+    }
+
+    @Test
+    void shouldMoveTransferredSubscribersBetweenOwnersTest() {
+        //given
+        reconcile(Map.of(ServiceType.MOBILE_PREPAID, 3L), Map.of(1L, 3L), Map.of(SERVICE_START_DAY, 3L));
+
+        //when
+        statistics.transferred(1L, 2L, 2);
+
+        //then
+        SubscriberStatisticsDto res = statistics.getStatistics();
+        assertThat(res.getSubscribersByOwner(), hasEntry(1L, 1L));
+        assertThat(res.getSubscribersByOwner(), hasEntry(2L, 2L));
+        assertThat(res.getSubscribersByServiceType(), hasEntry(ServiceType.MOBILE_PREPAID, 3L));
+    }
+
+    @Test
+    void shouldRecordDriftCorrectedByReconciliationTest() {
+        //given
+        reconcile(Map.of(ServiceType.MOBILE_PREPAID, 1L), Map.of(1L, 1L), Map.of(SERVICE_START_DAY, 1L));
+
+        //when
+        //subscriber created not through the service is counted only by the reconciliation
+        reconcile(Map.of(ServiceType.MOBILE_PREPAID, 2L), Map.of(1L, 2L), Map.of(SERVICE_START_DAY, 2L));
+
+        //then
+        assertThat(statistics.getStatistics().getSubscribers(), is(2L));
+        assertThat(meterRegistry.get(SubscriberStatistics.METRICS_PREFIX + ".drift").counter().count(), is(3.0));
+    }
+
+    @Test
+    void shouldNotBeReadyWhenInvalidatedTest() {
+        //given
+        reconcile(Map.of(ServiceType.MOBILE_PREPAID, 1L), Map.of(1L, 1L), Map.of(SERVICE_START_DAY, 1L));
+
+        //when
+        statistics.invalidate();
+
+        //then
+        assertThat(statistics.isReady(), is(false));
+        reconcile(Map.of(), Map.of(), Map.of());
+        assertThat(statistics.isReady(), is(true));
+        assertThat(statistics.getStatistics().getSubscribers(), is(0L));
+    }
+
+    @Test
+    void shouldIgnoreChangesBeforeFirstReconciliationTest() {
+        //given
+        statistics.added(subscriber(ServiceType.MOBILE_PREPAID, 1L));
+
+        //when
+        reconcile(Map.of(), Map.of(), Map.of());
+
+        //then
+        assertThat(statistics.getStatistics().getSubscribers(), is(0L));
+    }
+
+    private void reconcile(Map<ServiceType, Long> serviceTypeCounts, Map<Long, Long> ownerCounts, Map<LocalDate, Long> dayCounts) {
+        statistics.reconcile(() -> serviceTypeCounts, () -> ownerCounts, () -> dayCounts);
+    }
+
+    private MobileSubscriber subscriber(ServiceType serviceType, Long ownerId) {
+        return MobileSubscriber.builder().serviceType(serviceType).owner(new Customer(ownerId)).serviceStartDate(SERVICE_START_DATE).build();
+    }
+}
@@ -0,0 +1,70 @@
+package com.hubert.mobilerest.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BloomFilterTest {
+    private static final int ENTRIES = 100_000;
+
+    @Test
+    void shouldContainAllAddedElementsTest() {
+        //given
+        BloomFilter filter = BloomFilter.create(ENTRIES, 0.01);
+
+        //when
+        for (long i = 0; i < ENTRIES; i++) {
+            filter.put(Long.toString(48_500_000_000L + i));
+        }
+
+        //then
+        for (long i = 0; i < ENTRIES; i++) {
+            assertThat(filter.mightContain(Long.toString(48_500_000_000L + i)), is(true));
+        }
+        assertThat(filter.getEntries(), is((long) ENTRIES));
+    }
+
+    @Test
+    void shouldKeepFalsePositiveProbabilityTest() {
+        //given
+        BloomFilter filter = BloomFilter.create(ENTRIES, 0.01);
+        for (long i = 0; i < ENTRIES; i++) {
+            filter.put(Long.toString(48_500_000_000L + i));
+        }
+
+        //when
+        int falsePositives = 0;
+        for (long i = 0; i < ENTRIES; i++) {
+            if (filter.mightContain(Long.toString(48_600_000_000L + i))) {
+                falsePositives++;
+            }
+        }
+
+        //then
+        assertThat((double) falsePositives / ENTRIES, lessThan(0.015));
+        assertThat(filter.expectedFalsePositiveProbability(), lessThan(0.015));
+    }
+
+    @Test
+    void shouldSizeFilterForExpectedInsertionsTest() {
+        //when
+        BloomFilter filter = BloomFilter.create(1_000_000, 0.01);
+
+        //then
+        //9.6 bits and 7 hash functions per element for 1% false positives
+        assertThat(filter.getBitSize(), is(9_585_059L));
+        assertThat(filter.getHashFunctions(), is(7));
+        assertThat(filter.getMemoryBytes(), is(1_198_136L));
+        assertThat(filter.expectedFalsePositiveProbability(), is(0.0));
+    }
+
+    @Test
+    void shouldRejectInvalidParametersTest() {
+        assertThrows(IllegalArgumentException.class, () -> BloomFilter.create(0, 0.01));
+        assertThrows(IllegalArgumentException.class, () -> BloomFilter.create(100, 0));
+        assertThrows(IllegalArgumentException.class, () -> BloomFilter.create(100, 1));
+    }
+}
@@ -0,0 +1,36 @@
+package com.hubert.mobilerest.utils;
+
+import com.hubert.mobilerest.exceptions.ValidationFailedException;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CursorUtilsTest {
+
+    @Test
+    void shouldEncodeAndDecodeCursor() {
+        //given
+        long lastId = 1554308106460L;
+
+        //when
+        String cursor = CursorUtils.encodeCursor(lastId);
+
+        //then
+        assertNotNull(cursor);
+        assertNotEquals(Long.toString(lastId), cursor);
+        assertEquals(lastId, CursorUtils.decodeCursor(cursor).longValue());
+    }
+
+    @Test
+    void shouldMapEmptyCursorToNull() {
+        assertNull(CursorUtils.encodeCursor(null));
+        assertNull(CursorUtils.decodeCursor(null));
+        assertNull(CursorUtils.decodeCursor(""));
+    }
+
+    @Test
+    void shouldRejectInvalidCursor() {
+        assertThrows(ValidationFailedException.class, () -> CursorUtils.decodeCursor("not a cursor!"));
+        assertThrows(ValidationFailedException.class, () -> CursorUtils.decodeCursor(CursorUtils.encodeCursor(-5L)));
+    }
+}
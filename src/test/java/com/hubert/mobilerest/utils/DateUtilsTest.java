@@ -4,8 +4,10 @@ import com.hubert.mobilerest.utils.DateUtils;
 import org.junit.jupiter.api.Test;
 
 import java.time.Instant;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
+import java.time.ZoneOffset;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -36,4 +38,33 @@ class DateUtilsTest {
         assertNotNull(epoch);
         assertEquals(localDateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli(), epoch.longValue());
     }
+
+    @Test
+    void shouldMapUtcDayFromLocalDateTime() {
+        //given
+        LocalDateTime localDateTime = LocalDateTime.ofInstant(Instant.parse("2019-04-03T23:59:59.999Z"), ZoneId.systemDefault());
+
+        //when
+        LocalDate day = DateUtils.utcDayFromLocalDateTime(localDateTime);
+
+        //then
+        assertEquals(LocalDate.of(2019, 4, 3), day);
+        assertEquals(LocalDate.of(2019, 4, 4), DateUtils.utcDayFromLocalDateTime(localDateTime.plusNanos(1_000_000)));
+        assertEquals(localDateTime.atZone(ZoneId.systemDefault()).withZoneSameInstant(ZoneOffset.UTC).toLocalDate(), day);
+    }
+
+    @Test
+    void shouldMapUtcDayBeforeEpochFromLocalDateTime() {
+        //given
+        LocalDateTime localDateTime = LocalDateTime.ofInstant(Instant.parse("1969-12-31T12:00:00Z"), ZoneId.systemDefault());
+
+        //when
+        LocalDate day = DateUtils.utcDayFromLocalDateTime(localDateTime);
+
+        //then
+        //epoch millis are negative, the day is rounded down instead of toward 1970-01-01
+        assertEquals(LocalDate.of(1969, 12, 31), day);
+        assertEquals(LocalDate.of(1969, 12, 31), DateUtils.utcDayFromLocalDateTime(localDateTime.plusHours(12).minusNanos(1_000_000)));
+        assertEquals(LocalDate.of(1970, 1, 1), DateUtils.utcDayFromLocalDateTime(localDateTime.plusHours(12)));
+    }
 }
@@ -0,0 +1,101 @@
+package com.hubert.mobilerest.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class DigitTrieTest {
+
+    @Test
+    void shouldCountValuesByPrefixTest() {
+        //given
+        DigitTrie trie = new DigitTrie(16);
+
+        //when
+        trie.add(48500123456L);
+        trie.add(48500123457L);
+        trie.add(4850012345L);
+        trie.add(48600123456L);
+        trie.add(48500123456L);
+
+        //then
+        assertThat(trie.size(), is(4L));
+        assertThat(trie.count("4"), is(4L));
+        assertThat(trie.count("485"), is(3L));
+        assertThat(trie.count("4850012345"), is(3L));
+        assertThat(trie.count("48500123456"), is(1L));
+        assertThat(trie.count("487"), is(0L));
+        assertThat(trie.count("485001234567"), is(0L));
+        assertThat(trie.contains(4850012345L), is(true));
+        assertThat(trie.contains(485001234L), is(false));
+    }
+
+    @Test
+    void shouldFindValuesInOrderOfDigitsTest() {
+        //given
+        DigitTrie trie = new DigitTrie(16);
+        trie.add(48600123456L);
+        trie.add(48500123457L);
+        trie.add(4850012345L);
+        trie.add(48500123456L);
+        long[] target = new long[2];
+
+        //when
+        int firstPage = trie.find("485", 0, target);
+        long[] first = Arrays.copyOf(target, firstPage);
+        int secondPage = trie.find("485", first[1], target);
+        long[] second = Arrays.copyOf(target, secondPage);
+
+        //then
+        assertThat(first, is(new long[]{4850012345L, 48500123456L}));
+        assertThat(second, is(new long[]{48500123457L}));
+        assertThat(trie.find("485", 48500123457L, target), is(0));
+        assertThat(trie.find("485", 48400000000L, target), is(2));
+        assertThat(trie.find("485", 48600000000L, target), is(0));
+    }
+
+    @Test
+    void shouldReleaseAndReuseNodesOfRemovedValuesTest() {
+        //given
+        DigitTrie trie = new DigitTrie(64);
+        TreeSet<String> expected = new TreeSet<>();
+        Random random = new Random(42);
+
+        //when
+        //small value range, so the same paths are added and released many times
+        for (int i = 0; i < 100_000; i++) {
+            long value = 48_500_000_000L + random.nextInt(500);
+            if (random.nextBoolean()) {
+                assertThat(trie.add(value), is(expected.add(Long.toString(value))));
+            } else {
+                assertThat(trie.remove(value), is(expected.remove(Long.toString(value))));
+            }
+        }
+
+        //then
+        long[] target = new long[1000];
+        int found = trie.find("485", 0, target);
+        assertThat(Arrays.stream(target, 0, found).mapToObj(Long::toString).collect(Collectors.toList()),
+                is(expected.stream().collect(Collectors.toList())));
+        assertThat(trie.count("485"), is((long) expected.size()));
+        assertThat(trie.getMemoryBytes() <= 1024L * 48, is(true));
+    }
+
+    @Test
+    void shouldRejectValuesAboveEighteenDigitsTest() {
+        //given
+        DigitTrie trie = new DigitTrie(16);
+
+        //when
+        //then
+        assertThrows(IllegalArgumentException.class, () -> trie.add(1_000_000_000_000_000_000L));
+        assertThrows(IllegalArgumentException.class, () -> trie.add(0));
+    }
+}
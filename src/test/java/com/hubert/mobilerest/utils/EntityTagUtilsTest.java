@@ -0,0 +1,38 @@
+package com.hubert.mobilerest.utils;
+
+import com.hubert.mobilerest.exceptions.PreconditionFailedException;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EntityTagUtilsTest {
+
+    @Test
+    void shouldBuildAndReadEntityTag() {
+        //given
+        long version = 3L;
+
+        //when
+        String entityTag = EntityTagUtils.toEntityTag(version);
+
+        //then
+        assertEquals("\"3\"", entityTag);
+        assertEquals(version, EntityTagUtils.versionFromIfMatch(entityTag).longValue());
+    }
+
+    @Test
+    void shouldMapMissingOrAnyEntityTagToNull() {
+        assertNull(EntityTagUtils.toEntityTag(null));
+        assertNull(EntityTagUtils.versionFromIfMatch(null));
+        assertNull(EntityTagUtils.versionFromIfMatch(" "));
+        assertNull(EntityTagUtils.versionFromIfMatch("*"));
+    }
+
+    @Test
+    void shouldRejectNotMatchingEntityTag() {
+        assertThrows(PreconditionFailedException.class, () -> EntityTagUtils.versionFromIfMatch("3"));
+        assertThrows(PreconditionFailedException.class, () -> EntityTagUtils.versionFromIfMatch("W/\"3\""));
+        assertThrows(PreconditionFailedException.class, () -> EntityTagUtils.versionFromIfMatch("\"abc\""));
+        assertThrows(PreconditionFailedException.class, () -> EntityTagUtils.versionFromIfMatch("\"1\", \"2\""));
+    }
+}
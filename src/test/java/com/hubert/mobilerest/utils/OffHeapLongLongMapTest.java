@@ -0,0 +1,82 @@
+package com.hubert.mobilerest.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class OffHeapLongLongMapTest {
+
+    @Test
+    void shouldPutAndGetValuesTest() {
+        //given
+        OffHeapLongLongMap map = new OffHeapLongLongMap(16);
+
+        //when
+        map.put(48500123456L, 1L);
+        map.put(48500123457L, 2L);
+        map.put(48500123456L, 3L);
+
+        //then
+        assertThat(map.get(48500123456L), is(3L));
+        assertThat(map.get(48500123457L), is(2L));
+        assertThat(map.get(48500123458L), is(OffHeapLongLongMap.NOT_FOUND));
+        assertThat(map.size(), is(2));
+    }
+
+    @Test
+    void shouldGrowAboveLoadFactorTest() {
+        //given
+        OffHeapLongLongMap map = new OffHeapLongLongMap(16);
+
+        //when
+        for (long i = 1; i <= 1000; i++) {
+            map.put(48_500_000_000L + i, i);
+        }
+
+        //then
+        assertThat(map.capacity(), is(2048));
+        assertThat(map.getMemoryBytes(), is(2048L * 16));
+        for (long i = 1; i <= 1000; i++) {
+            assertThat(map.get(48_500_000_000L + i), is(i));
+        }
+    }
+
+    @Test
+    void shouldKeepProbeSequencesAfterRemovalTest() {
+        //given
+        OffHeapLongLongMap map = new OffHeapLongLongMap(1 << 12);
+        Map<Long, Long> expected = new HashMap<>();
+        Random random = new Random(42);
+
+        //when
+        //small key range, so the same keys are added and removed many times with long probe sequences
+        for (int i = 0; i < 200_000; i++) {
+            long key = 1 + random.nextInt(2500);
+            if (random.nextBoolean()) {
+                map.put(key, i);
+                expected.put(key, (long) i);
+            } else {
+                assertThat(map.remove(key), is(expected.containsKey(key) ? expected.remove(key) : OffHeapLongLongMap.NOT_FOUND));
+            }
+        }
+
+        //then
+        assertThat(map.size(), is(expected.size()));
+        for (long key = 1; key <= 2500; key++) {
+            assertThat(map.get(key), is(expected.getOrDefault(key, OffHeapLongLongMap.NOT_FOUND)));
+        }
+    }
+
+    @Test
+    void shouldRejectInvalidKeysAndCapacityTest() {
+        assertThrows(IllegalArgumentException.class, () -> new OffHeapLongLongMap(0));
+        assertThrows(IllegalArgumentException.class, () -> new OffHeapLongLongMap(OffHeapLongLongMap.MAX_CAPACITY + 1));
+        assertThrows(IllegalArgumentException.class, () -> new OffHeapLongLongMap(16).put(0, 1));
+    }
+}
@@ -0,0 +1,92 @@
+package com.hubert.mobilerest.utils;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Hibernate statement inspector recording all the SQL statements prepared by the tests.
+ * Needs to be registered with spring.jpa.properties.hibernate.session_factory.statement_inspector property.
+ * Assertion methods allow pinning the number of statements executed by an operation, so N+1 regressions fail the build.
+ * Statements of one JDBC batch are prepared once, so they are counted as one statement
+ */
+public class SqlStatementRecorder implements StatementInspector {
+    public static final String PROPERTY = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+            + "com.hubert.mobilerest.utils.SqlStatementRecorder";
+
+    private static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+    @Override
+    public String inspect(String sql) {
+        STATEMENTS.add(sql);
+        return sql;
+    }
+
+    public static void reset() {
+        STATEMENTS.clear();
+    }
+
+    public static List<String> getStatements() {
+        return new ArrayList<>(STATEMENTS);
+    }
+
+    /**
+     * Recorded statements of given type
+     * @param type Statement type (first SQL keyword, e.g. select)
+     * @return Statements starting with provided keyword
+     */
+    public static List<String> getStatements(String type) {
+        String prefix = type.toLowerCase(Locale.ROOT) + " ";
+        return STATEMENTS.stream()
+                .filter(sql -> sql.trim().toLowerCase(Locale.ROOT).startsWith(prefix))
+                .collect(Collectors.toList());
+    }
+
+    public static void assertStatementCount(int expected) {
+        assertCount("statements", getStatements(), expected);
+    }
+
+    public static void assertSelectCount(int expected) {
+        assertCount("select statements", getStatements("select"), expected);
+    }
+
+    public static void assertInsertCount(int expected) {
+        assertCount("insert statements", getStatements("insert"), expected);
+    }
+
+    public static void assertUpdateCount(int expected) {
+        assertCount("update statements", getStatements("update"), expected);
+    }
+
+    public static void assertDeleteCount(int expected) {
+        assertCount("delete statements", getStatements("delete"), expected);
+    }
+
+    /**
+     * Verifying the number of statements of every type recorded since the last reset.
+     * Sequence calls are not verified, as they depend on the state of the pooled id optimizer
+     * @param selects Expected number of select statements
+     * @param inserts Expected number of insert statements
+     * @param updates Expected number of update statements
+     * @param deletes Expected number of delete statements
+     */
+    public static void assertStatementCounts(int selects, int inserts, int updates, int deletes) {
+        assertSelectCount(selects);
+        assertInsertCount(inserts);
+        assertUpdateCount(updates);
+        assertDeleteCount(deletes);
+    }
+
+    private static void assertCount(String description, List<String> statements, int expected) {
+        //all the recorded statements are listed in the failure message, so the unexpected one can be found quickly
+        assertThat("Number of " + description + ", recorded:\n" + String.join("\n", getStatements()),
+                statements.size(), is(expected));
+    }
+}